@@ -4,19 +4,35 @@ import com.opsgenie.core.util.ExceptionUtil;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
- * Builds control request by using <b>Builder pattern</b> approach.
+ * <p>
+ *      Builds control request by using <b>Builder pattern</b> approach.
+ * </p>
+ * <p>
+ *      Built control requests are in
+ *      <code>"#&lt;type&gt; &lt;arg&gt;=&lt;value&gt; ... -&lt;prop&gt;=&lt;value&gt; ..."</code> format
+ *      where values are URL encoded. As control requests are built on the hot path
+ *      (for every warmup invocation), building is kept allocation-light: names are validated without regex,
+ *      values which don't need encoding are used as they are and the request is written into a pre-sized buffer.
+ *      When control requests of the same shape are built repeatedly with different argument values,
+ *      {@link #buildTemplate()} can be used to precompile the constant parts once.
+ * </p>
  *
  * @author serkan
  */
 public final class ControlRequestBuilder {
 
+    private static final int INITIAL_CAPACITY = 4;
+
     private String controlRequestType;
-    private Map<String, String> controlRequestArguments;
-    private Map<String, String> controlRequestProperties;
+    private String[] argNames;
+    private String[] argValues;
+    private int argCount;
+    private String[] propNames;
+    private String[] propValues;
+    private int propCount;
 
     public ControlRequestBuilder() {
     }
@@ -26,15 +42,53 @@ public final class ControlRequestBuilder {
         return this;
     }
 
-    private String encodeValue(String value) {
-        try {
-            return URLEncoder.encode(value, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            ExceptionUtil.sneakyThrow(e);
-            return value;
+    private static boolean isUnreservedChar(char c) {
+        // Characters which are not encoded by "URLEncoder"
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+
+    static String encodeValue(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreservedChar(value.charAt(i))) {
+                try {
+                    return URLEncoder.encode(value, "UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    ExceptionUtil.sneakyThrow(e);
+                    return value;
+                }
+            }
+        }
+        return value;
+    }
+
+    private static void checkName(String name, String nameType) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException(nameType + " name cannot be empty");
+        }
+        if (name.charAt(0) == ControlRequestConstants.PROPERTY_PREFIX) {
+            throw new IllegalArgumentException(
+                    String.format("Only control request %s can start with '%c'",
+                                  nameType.toLowerCase(), ControlRequestConstants.PROPERTY_PREFIX));
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) {
+                throw new IllegalArgumentException(nameType + " name cannot contain any white space character");
+            }
         }
     }
 
+    private static int indexOf(String[] names, int count, String name) {
+        for (int i = 0; i < count; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Adds the given property to the control request.
      * <p>
@@ -47,19 +101,24 @@ public final class ControlRequestBuilder {
      * @return this {@link ControlRequestBuilder builder}
      */
     public ControlRequestBuilder controlRequestProperty(String propName, Object propValue) {
-        if (propName.charAt(0) == ControlRequestConstants.PROPERTY_PREFIX) {
-            throw new IllegalArgumentException(
-                    String.format("Only control request property can start with '%c'", ControlRequestConstants.PROPERTY_PREFIX));
-        }
+        checkName(propName, "Property");
         propName = ControlRequestConstants.PROPERTY_PREFIX + propName;
-        if (propName.matches("\\s+")) {
-            throw new IllegalArgumentException("Property name cannot contain any white space character");
-        }
-        if (controlRequestProperties == null) {
-            controlRequestProperties = new LinkedHashMap<String, String>();
-        }
         String encodedPropValue = encodeValue(propValue.toString());
-        controlRequestProperties.put(propName, encodedPropValue);
+        int idx = propNames != null ? indexOf(propNames, propCount, propName) : -1;
+        if (idx >= 0) {
+            propValues[idx] = encodedPropValue;
+        } else {
+            if (propNames == null) {
+                propNames = new String[INITIAL_CAPACITY];
+                propValues = new String[INITIAL_CAPACITY];
+            } else if (propCount == propNames.length) {
+                propNames = Arrays.copyOf(propNames, propCount * 2);
+                propValues = Arrays.copyOf(propValues, propCount * 2);
+            }
+            propNames[propCount] = propName;
+            propValues[propCount] = encodedPropValue;
+            propCount++;
+        }
         return this;
     }
 
@@ -75,19 +134,46 @@ public final class ControlRequestBuilder {
      * @return this {@link ControlRequestBuilder builder}
      */
     public ControlRequestBuilder controlRequestArgument(String argName, Object argValue) {
-        if (argName.charAt(0) == ControlRequestConstants.PROPERTY_PREFIX) {
-            throw new IllegalArgumentException(
-                    String.format("Only control request argument can start with '%c'", ControlRequestConstants.PROPERTY_PREFIX));
+        checkName(argName, "Argument");
+        String encodedArgValue = encodeValue(argValue.toString());
+        int idx = argNames != null ? indexOf(argNames, argCount, argName) : -1;
+        if (idx >= 0) {
+            argValues[idx] = encodedArgValue;
+        } else {
+            if (argNames == null) {
+                argNames = new String[INITIAL_CAPACITY];
+                argValues = new String[INITIAL_CAPACITY];
+            } else if (argCount == argNames.length) {
+                argNames = Arrays.copyOf(argNames, argCount * 2);
+                argValues = Arrays.copyOf(argValues, argCount * 2);
+            }
+            argNames[argCount] = argName;
+            argValues[argCount] = encodedArgValue;
+            argCount++;
+        }
+        return this;
+    }
+
+    private static void appendEntries(StringBuilder request, String[] names, String[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            request.append(' ').append(names[i]).append('=').append(values[i]);
         }
-        if (argName.matches("\\s+")) {
-            throw new IllegalArgumentException("Argument name cannot contain any white space character");
+    }
+
+    private static int lengthOfEntries(String[] names, String[] values, int count) {
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            length += 2 + names[i].length() + values[i].length();
         }
-        if (controlRequestArguments == null) {
-            controlRequestArguments = new LinkedHashMap<String, String>();
+        return length;
+    }
+
+    private static void trimEnd(StringBuilder request) {
+        int length = request.length();
+        while (length > 0 && request.charAt(length - 1) <= ' ') {
+            length--;
         }
-        String encodedArgValue = encodeValue(argValue.toString());
-        controlRequestArguments.put(argName, encodedArgValue);
-        return this;
+        request.setLength(length);
     }
 
     /**
@@ -96,22 +182,51 @@ public final class ControlRequestBuilder {
      * @return the built control request
      */
     public String build() {
-        StringBuilder request = new StringBuilder(ControlRequestConstants.CONTROL_REQUEST_PREFIX + controlRequestType);
-        if (controlRequestArguments != null) {
-            for (Map.Entry<String, String> entry : controlRequestArguments.entrySet()) {
-                String argName = entry.getKey();
-                String argValue = entry.getValue().toString();
-                request.append(" ").append(argName).append("=").append(argValue);
-            }
+        String type = String.valueOf(controlRequestType);
+        StringBuilder request =
+                new StringBuilder(
+                        3 + type.length()
+                        + lengthOfEntries(argNames, argValues, argCount)
+                        + lengthOfEntries(propNames, propValues, propCount));
+        request.append('"').append(ControlRequestConstants.CONTROL_REQUEST_PREFIX).append(type);
+        appendEntries(request, argNames, argValues, argCount);
+        appendEntries(request, propNames, propValues, propCount);
+        trimEnd(request);
+        return request.append('"').toString();
+    }
+
+    /**
+     * Builds control request as <code>UTF-8</code> encoded bytes.
+     *
+     * @return the built control request as bytes
+     */
+    public byte[] buildBytes() {
+        return ControlRequestTemplate.toBytes(build());
+    }
+
+    /**
+     * Builds {@link ControlRequestTemplate} to build control requests
+     * in the same shape with this builder's control request but with different argument values.
+     * Values of the arguments added to this builder are ignored, only their names and order are used.
+     *
+     * @return the built {@link ControlRequestTemplate}
+     */
+    public ControlRequestTemplate buildTemplate() {
+        String type = String.valueOf(controlRequestType);
+        String[] segments = new String[argCount + 1];
+        StringBuilder segment = new StringBuilder();
+        segment.append('"').append(ControlRequestConstants.CONTROL_REQUEST_PREFIX).append(type);
+        for (int i = 0; i < argCount; i++) {
+            segment.append(' ').append(argNames[i]).append('=');
+            segments[i] = segment.toString();
+            segment.setLength(0);
         }
-        if (controlRequestProperties != null) {
-            for (Map.Entry<String, String> entry : controlRequestProperties.entrySet()) {
-                String propName = entry.getKey();
-                String propValue = entry.getValue().toString();
-                request.append(" ").append(propName).append("=").append(propValue);
-            }
+        appendEntries(segment, propNames, propValues, propCount);
+        if (argCount == 0) {
+            trimEnd(segment);
         }
-        return "\"" + request.toString().trim() + "\"";
+        segments[argCount] = segment.append('"').toString();
+        return new ControlRequestTemplate(segments);
     }
 
 }
@@ -31,10 +31,23 @@ public interface ControlRequestConstants {
      */
     String INSTANCE_ID_ARGUMENT = "instanceId";
 
+    /**
+     * Property name to define <b>response format</b> property in the control request.
+     * <b>Response format</b> property is used to request the response in the given
+     * {@link StatResponse stat response} format version
+     * and it is ignored by the target Lambda handlers which don't support it.
+     */
+    String RESPONSE_FORMAT_PROPERTY = "responseFormat";
+
     /**
      * {@link DateFormat Date format} to be used for formatting {@link java.util.Date} data
      * in the control response.
+     *
+     * @deprecated {@link SimpleDateFormat} is not thread-safe, so this shared instance
+     *             must not be used concurrently. Use {@link StatResponse#formatLegacyDate(long)} and
+     *             {@link StatResponse#parseLegacyDate(String)} instead.
      */
+    @Deprecated
     DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
 }
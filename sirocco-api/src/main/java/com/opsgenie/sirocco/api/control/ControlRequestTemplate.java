@@ -0,0 +1,131 @@
+package com.opsgenie.sirocco.api.control;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ *      Precompiled control request (built by {@link ControlRequestBuilder#buildTemplate()})
+ *      to build control requests in the same shape (type, argument names and properties)
+ *      where only the argument values change between builds.
+ * </p>
+ * <p>
+ *      Constant parts of the control request are prepared once
+ *      (both as {@link String} and as <code>UTF-8</code> encoded bytes),
+ *      so building a control request only encodes the given argument values
+ *      and writes everything into an exactly sized buffer.
+ *      Templates are immutable, so they can be shared between threads.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class ControlRequestTemplate {
+
+    private final String[] segments;
+    private final byte[][] segmentBytes;
+    private final int segmentsLength;
+    private final int segmentsByteLength;
+
+    ControlRequestTemplate(String[] segments) {
+        this.segments = segments;
+        this.segmentBytes = new byte[segments.length][];
+        int segmentsLength = 0;
+        int segmentsByteLength = 0;
+        for (int i = 0; i < segments.length; i++) {
+            segmentBytes[i] = toBytes(segments[i]);
+            segmentsLength += segments[i].length();
+            segmentsByteLength += segmentBytes[i].length;
+        }
+        this.segmentsLength = segmentsLength;
+        this.segmentsByteLength = segmentsByteLength;
+    }
+
+    static byte[] toBytes(String str) {
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            if (str.charAt(i) >= 0x80) {
+                return str.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        // ASCII only, so every char is encoded as a single byte
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) str.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the count of the arguments whose values are given while building control requests.
+     *
+     * @return the count of the arguments
+     */
+    public int getArgumentCount() {
+        return segments.length - 1;
+    }
+
+    private String[] encodeArgumentValues(Object[] argValues) {
+        if (argValues.length != getArgumentCount()) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d argument values but %d given", getArgumentCount(), argValues.length));
+        }
+        String[] encodedArgValues = new String[argValues.length];
+        for (int i = 0; i < argValues.length; i++) {
+            encodedArgValues[i] = ControlRequestBuilder.encodeValue(argValues[i].toString());
+        }
+        return encodedArgValues;
+    }
+
+    /**
+     * Builds control request with the given argument values.
+     *
+     * @param argValues values of the arguments in the order they have been added to the builder
+     * @return the built control request
+     */
+    public String build(Object... argValues) {
+        String[] encodedArgValues = encodeArgumentValues(argValues);
+        int length = segmentsLength;
+        for (String encodedArgValue : encodedArgValues) {
+            length += encodedArgValue.length();
+        }
+        StringBuilder request = new StringBuilder(length);
+        for (int i = 0; i < encodedArgValues.length; i++) {
+            request.append(segments[i]).append(encodedArgValues[i]);
+        }
+        return request.append(segments[encodedArgValues.length]).toString();
+    }
+
+    /**
+     * Builds control request with the given argument values as <code>UTF-8</code> encoded bytes.
+     *
+     * @param argValues values of the arguments in the order they have been added to the builder
+     * @return the built control request as bytes
+     */
+    public byte[] buildBytes(Object... argValues) {
+        String[] encodedArgValues = encodeArgumentValues(argValues);
+        // Encoded argument values are URL encoded, so they are ASCII only
+        int length = segmentsByteLength;
+        for (String encodedArgValue : encodedArgValues) {
+            length += encodedArgValue.length();
+        }
+        byte[] request = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < encodedArgValues.length; i++) {
+            byte[] segment = segmentBytes[i];
+            System.arraycopy(segment, 0, request, offset, segment.length);
+            offset += segment.length;
+            String encodedArgValue = encodedArgValues[i];
+            for (int j = 0; j < encodedArgValue.length(); j++) {
+                request[offset++] = (byte) encodedArgValue.charAt(j);
+            }
+        }
+        byte[] lastSegment = segmentBytes[encodedArgValues.length];
+        System.arraycopy(lastSegment, 0, request, offset, lastSegment.length);
+        return request;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("<value>", segments);
+    }
+
+}
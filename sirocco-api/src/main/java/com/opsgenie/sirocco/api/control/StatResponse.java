@@ -0,0 +1,368 @@
+package com.opsgenie.sirocco.api.control;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * <p>
+ *      Stat response of the target Lambda handler instance to a warmup request
+ *      which contains <code>instanceId</code> unique to the handler instance
+ *      and <code>latestRequestTime</code> of the latest real (not warmup) request
+ *      handled by the handler instance.
+ * </p>
+ * <p>
+ *      Stat responses are encoded in one of the following formats:
+ * </p>
+ * <ul>
+ *     <li>
+ *         <b>Legacy</b> ({@link #LEGACY_FORMAT_VERSION}):
+ *         <code>{"instanceId":"&lt;instance_id&gt;","latestRequestTime":"yyyy-MM-dd HH:mm:ss.SSS"}</code>
+ *         in <b>JSON</b> format where <code>latestRequestTime</code> is optional.
+ *     </li>
+ *     <li>
+ *         <b>Compact</b> ({@link #COMPACT_FORMAT_VERSION}):
+ *         <code>&lt;version&gt;|&lt;latest_request_time&gt;|&lt;instance_id&gt;</code>
+ *         where <code>latest_request_time</code> is in epoch milliseconds
+ *         (<code>0</code> if there is no real request yet).
+ *         The compact response might also be returned as <b>JSON</b> string
+ *         (surrounded by <code>"</code>) by handlers which serialize their responses to <b>JSON</b>.
+ *         As fields are in fixed order and <code>instance_id</code> is the last one,
+ *         it is parsed without any intermediate object or date parsing.
+ *     </li>
+ * </ul>
+ * <p>
+ *      Warmup strategies request the format they support by the {@link ControlRequestConstants#RESPONSE_FORMAT_PROPERTY}
+ *      property of warmup requests and target handlers respond in the requested format
+ *      if they support it, in the {@link #LEGACY_FORMAT_VERSION legacy} format otherwise.
+ *      So {@link #parse(ByteBuffer)} accepts both of the formats.
+ * </p>
+ * <p>
+ *      Stat responses are immutable and their parsing/encoding is stateless,
+ *      so they are safe to be used concurrently.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class StatResponse {
+
+    /**
+     * Version of the legacy <b>JSON</b> stat response format.
+     */
+    public static final int LEGACY_FORMAT_VERSION = 0;
+    /**
+     * Version of the compact stat response format.
+     */
+    public static final int COMPACT_FORMAT_VERSION = 1;
+    /**
+     * Version of the latest stat response format.
+     */
+    public static final int LATEST_FORMAT_VERSION = COMPACT_FORMAT_VERSION;
+
+    /**
+     * Name of the field in the legacy format which contains the instance id.
+     */
+    public static final String INSTANCE_ID_FIELD = "instanceId";
+    /**
+     * Name of the field in the legacy format which contains the latest request time.
+     */
+    public static final String LATEST_REQUEST_TIME_FIELD = "latestRequestTime";
+
+    /**
+     * Date pattern of the latest request time in the legacy format.
+     */
+    public static final String LEGACY_DATE_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    private static final char COMPACT_FIELD_SEPARATOR = '|';
+    // "DateTimeFormatter"s are immutable and thread-safe unlike "SimpleDateFormat"s
+    private static final DateTimeFormatter LEGACY_DATE_FORMATTER = DateTimeFormatter.ofPattern(LEGACY_DATE_PATTERN);
+
+    private final String instanceId;
+    private final long latestRequestTime;
+
+    public StatResponse(String instanceId, long latestRequestTime) {
+        this.instanceId = instanceId;
+        this.latestRequestTime = latestRequestTime;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Gets the time of the latest real (not warmup) request in epoch milliseconds.
+     *
+     * @return the time of the latest request, <code>0</code> if there is no real request
+     */
+    public long getLatestRequestTime() {
+        return latestRequestTime;
+    }
+
+    /**
+     * Checks whether the given response format version is supported.
+     *
+     * @param formatVersion the response format version
+     * @return <code>true</code> if the response format version is supported,
+     *         <code>false</code> otherwise
+     */
+    public static boolean isSupportedFormat(int formatVersion) {
+        return formatVersion >= LEGACY_FORMAT_VERSION && formatVersion <= LATEST_FORMAT_VERSION;
+    }
+
+    /**
+     * Encodes this response in the given format.
+     *
+     * @param formatVersion the response format version
+     * @return the encoded response
+     */
+    public String encode(int formatVersion) {
+        switch (formatVersion) {
+            case LEGACY_FORMAT_VERSION:
+                return encodeLegacy();
+            case COMPACT_FORMAT_VERSION:
+                return encodeCompact();
+            default:
+                throw new IllegalArgumentException("Unsupported stat response format version: " + formatVersion);
+        }
+    }
+
+    private String encodeCompact() {
+        return new StringBuilder(24 + instanceId.length()).
+                    append(COMPACT_FORMAT_VERSION).
+                    append(COMPACT_FIELD_SEPARATOR).
+                    append(latestRequestTime).
+                    append(COMPACT_FIELD_SEPARATOR).
+                    append(instanceId).
+                toString();
+    }
+
+    private String encodeLegacy() {
+        StringBuilder response = new StringBuilder(64 + instanceId.length());
+        response.append("{\"").append(INSTANCE_ID_FIELD).append("\":\"").append(instanceId).append('"');
+        if (latestRequestTime > 0) {
+            response.append(",\"").append(LATEST_REQUEST_TIME_FIELD).append("\":\"").
+                    append(formatLegacyDate(latestRequestTime)).append('"');
+        }
+        return response.append('}').toString();
+    }
+
+    /**
+     * Encodes this response in the given format as <code>UTF-8</code> encoded bytes.
+     *
+     * @param formatVersion the response format version
+     * @return the encoded response as bytes
+     */
+    public byte[] encodeBytes(int formatVersion) {
+        return encode(formatVersion).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Formats the given epoch milliseconds in the legacy date format
+     * ({@link #LEGACY_DATE_PATTERN}) in the default time zone.
+     *
+     * @param time the time in epoch milliseconds
+     * @return the formatted date
+     */
+    public static String formatLegacyDate(long time) {
+        return LEGACY_DATE_FORMATTER.format(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Parses the given date in the legacy date format ({@link #LEGACY_DATE_PATTERN})
+     * in the default time zone.
+     *
+     * @param date the formatted date
+     * @return the time in epoch milliseconds
+     * @throws IllegalArgumentException if the given date is not in the legacy date format
+     */
+    public static long parseLegacyDate(String date) {
+        try {
+            return LocalDateTime.parse(date, LEGACY_DATE_FORMATTER).
+                    atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid latest request time: " + date, e);
+        }
+    }
+
+    /**
+     * Parses the given stat response in any of the supported formats.
+     *
+     * @param payload the response payload
+     * @return the parsed {@link StatResponse},
+     *         <code>null</code> if the payload is empty or it doesn't contain instance id
+     * @throws IllegalArgumentException if the payload is not a valid stat response
+     */
+    public static StatResponse parse(ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+        if (payload.hasArray()) {
+            return parse(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        } else {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            return parse(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Parses the given stat response in any of the supported formats.
+     *
+     * @param response the response
+     * @return the parsed {@link StatResponse},
+     *         <code>null</code> if the response is empty or it doesn't contain instance id
+     * @throws IllegalArgumentException if the response is not a valid stat response
+     */
+    public static StatResponse parse(String response) {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static StatResponse parse(byte[] bytes, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && isWhitespace(bytes[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        byte first = bytes[start];
+        if (first == '{') {
+            return parseLegacy(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+        if (first == '"' && end - start >= 2 && bytes[end - 1] == '"') {
+            // Compact response returned as JSON string
+            start++;
+            end--;
+            first = start < end ? bytes[start] : 0;
+        }
+        if (first >= '0' && first <= '9') {
+            return parseCompact(bytes, start, end);
+        }
+        if (end - start == 4 && bytes[start] == 'n' && bytes[start + 1] == 'u'
+                && bytes[start + 2] == 'l' && bytes[start + 3] == 'l') {
+            // Handler returned "null" as response
+            return null;
+        }
+        throw new IllegalArgumentException(
+                "Unrecognized stat response: " + new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    private static StatResponse parseCompact(byte[] bytes, int start, int end) {
+        int i = start;
+        int version = 0;
+        while (i < end && bytes[i] != COMPACT_FIELD_SEPARATOR) {
+            version = version * 10 + parseDigit(bytes, i, start, end);
+            i++;
+        }
+        if (version != COMPACT_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported stat response format version: " + version);
+        }
+        i++;
+        long latestRequestTime = 0;
+        while (i < end && bytes[i] != COMPACT_FIELD_SEPARATOR) {
+            latestRequestTime = latestRequestTime * 10 + parseDigit(bytes, i, start, end);
+            i++;
+        }
+        i++;
+        if (i >= end) {
+            return null;
+        }
+        return new StatResponse(new String(bytes, i, end - i, StandardCharsets.UTF_8), latestRequestTime);
+    }
+
+    private static int parseDigit(byte[] bytes, int index, int start, int end) {
+        byte b = bytes[index];
+        if (b < '0' || b > '9') {
+            throw new IllegalArgumentException(
+                    "Invalid stat response: " + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+        return b - '0';
+    }
+
+    private static StatResponse parseLegacy(String response) {
+        String instanceId = getLegacyFieldValue(response, INSTANCE_ID_FIELD);
+        if (instanceId == null) {
+            return null;
+        }
+        String latestRequestTime = getLegacyFieldValue(response, LATEST_REQUEST_TIME_FIELD);
+        return new StatResponse(instanceId, latestRequestTime != null ? parseLegacyDate(latestRequestTime) : 0);
+    }
+
+    private static String getLegacyFieldValue(String response, String fieldName) {
+        // Legacy responses are flat JSON objects with string typed fields,
+        // so only the value of the given field is scanned instead of parsing the whole JSON
+        int fieldIndex = response.indexOf('"' + fieldName + '"');
+        if (fieldIndex < 0) {
+            return null;
+        }
+        int i = fieldIndex + fieldName.length() + 2;
+        int length = response.length();
+        while (i < length && (response.charAt(i) == ':' || Character.isWhitespace(response.charAt(i)))) {
+            i++;
+        }
+        if (i >= length || response.charAt(i) != '"') {
+            // Not a string value (ex. null)
+            return null;
+        }
+        StringBuilder value = null;
+        int valueStart = ++i;
+        for (; i < length; i++) {
+            char c = response.charAt(i);
+            if (c == '"') {
+                if (value == null) {
+                    return response.substring(valueStart, i);
+                }
+                return value.append(response, valueStart, i).toString();
+            }
+            if (c == '\\' && i + 1 < length) {
+                // Only simple escapes are expected in instance ids and dates
+                if (value == null) {
+                    value = new StringBuilder();
+                }
+                value.append(response, valueStart, i).append(response.charAt(++i));
+                valueStart = i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Invalid stat response: " + response);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatResponse)) {
+            return false;
+        }
+        StatResponse that = (StatResponse) o;
+        return latestRequestTime == that.latestRequestTime && instanceId.equals(that.instanceId);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * instanceId.hashCode() + (int) (latestRequestTime ^ (latestRequestTime >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "StatResponse{" +
+                "instanceId='" + instanceId + '\'' +
+                ", latestRequestTime=" + latestRequestTime +
+                '}';
+    }
+
+}
@@ -12,6 +12,21 @@ public final class LambdaUtil {
      */
     public static final String WRAPPED_REQUEST_PROP = "___wrappedRequest___";
 
+    /**
+     * Name of the environment variable which configures the application profile name
+     */
+    public static final String PROFILE_ENV_VAR_NAME = "opsgenie_profile";
+
+    /**
+     * Name of the system property which configures the application profile name
+     */
+    public static final String PROFILE_PROP_NAME = "opsgenie.profile";
+
+    /**
+     * Default application profile name
+     */
+    public static final String DEFAULT_PROFILE = "default";
+
     private LambdaUtil() {
     }
 
@@ -26,11 +41,17 @@ public final class LambdaUtil {
 
     /**
      * Gets the application profile name.
+     * It is read from the <code>opsgenie_profile</code> environment variable
+     * and then from the <code>opsgenie.profile</code> system property.
      *
      * @return the application profile name
      */
     public static String getProfile() {
-        return System.getProperty("opsgenie.profile", "default");
+        String profile = System.getenv(PROFILE_ENV_VAR_NAME);
+        if (profile != null) {
+            return profile.trim();
+        }
+        return System.getProperty(PROFILE_PROP_NAME, DEFAULT_PROFILE);
     }
 
     /**
@@ -0,0 +1,70 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+/**
+ * <p>
+ *      {@link RequestHandler} wrapper which handles warmup requests by itself
+ *      (see {@link WarmupAwareSupport}) without calling the wrapped handler
+ *      and passes the other requests to the wrapped handler.
+ * </p>
+ * <p>
+ *      As Lambda functions are instantiated by their no-arg constructors,
+ *      it is used by extending and passing the actual handler to the constructor:
+ * </p>
+ * <pre> {@code
+ * public class MyWarmupAwareHandler extends WarmupAwareRequestHandler<Object, Object> {
+ *
+ *     public MyWarmupAwareHandler() {
+ *         super(new MyHandler());
+ *     }
+ *
+ * }
+ * }</pre>
+ * <p>
+ *      Note that <code>#warmup</code> control requests can only be received by handlers whose input type
+ *      is {@link Object}, {@link String} or {@link java.util.Map}, since they cannot be deserialized
+ *      into other types. Responses of warmup requests are {@link java.util.Map}s or {@link String}s
+ *      depending on the requested stat response format
+ *      (see {@link WarmupAwareSupport#createWarmupResponse(WarmupRequest)}), so for other output types
+ *      {@link #createWarmupResponse(WarmupRequest)} should be overridden.
+ * </p>
+ *
+ * @param <I> type of the request
+ * @param <O> type of the response
+ *
+ * @author serkan
+ */
+public class WarmupAwareRequestHandler<I, O> implements RequestHandler<I, O> {
+
+    protected final RequestHandler<I, O> requestHandler;
+    protected final WarmupAwareSupport warmupAwareSupport;
+
+    public WarmupAwareRequestHandler(RequestHandler<I, O> requestHandler) {
+        this(requestHandler, new WarmupAwareSupport());
+    }
+
+    public WarmupAwareRequestHandler(RequestHandler<I, O> requestHandler,
+                                     WarmupAwareSupport warmupAwareSupport) {
+        this.requestHandler = requestHandler;
+        this.warmupAwareSupport = warmupAwareSupport;
+    }
+
+    @Override
+    public O handleRequest(I input, Context context) {
+        WarmupRequest warmupRequest = warmupAwareSupport.getWarmupRequest(input);
+        if (warmupRequest != null) {
+            warmupAwareSupport.handleWarmupRequest(warmupRequest, context);
+            return createWarmupResponse(warmupRequest);
+        }
+        warmupAwareSupport.onRequest();
+        return requestHandler.handleRequest(input, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected O createWarmupResponse(WarmupRequest warmupRequest) {
+        return (O) warmupAwareSupport.createWarmupResponse(warmupRequest);
+    }
+
+}
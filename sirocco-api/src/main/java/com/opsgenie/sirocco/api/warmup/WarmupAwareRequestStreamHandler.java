@@ -0,0 +1,68 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * <p>
+ *      {@link RequestStreamHandler} wrapper which handles warmup requests by itself
+ *      (see {@link WarmupAwareSupport}) without calling the wrapped handler
+ *      and passes the other requests to the wrapped handler.
+ * </p>
+ * <p>
+ *      Warmup requests are detected by peeking only the leading bytes of the request
+ *      through a small push back buffer, so the request is never buffered as a whole and
+ *      the wrapped handler reads the request stream from its beginning.
+ *      Responses of warmup requests are written in the requested stat response format
+ *      (see {@link WarmupAwareSupport#createWarmupResponseBytes(WarmupRequest)}).
+ * </p>
+ * <p>
+ *      As Lambda functions are instantiated by their no-arg constructors,
+ *      it is used by extending and passing the actual handler to the constructor:
+ * </p>
+ * <pre> {@code
+ * public class MyWarmupAwareStreamHandler extends WarmupAwareRequestStreamHandler {
+ *
+ *     public MyWarmupAwareStreamHandler() {
+ *         super(new MyStreamHandler());
+ *     }
+ *
+ * }
+ * }</pre>
+ *
+ * @author serkan
+ */
+public class WarmupAwareRequestStreamHandler implements RequestStreamHandler {
+
+    protected final RequestStreamHandler requestStreamHandler;
+    protected final WarmupAwareSupport warmupAwareSupport;
+
+    public WarmupAwareRequestStreamHandler(RequestStreamHandler requestStreamHandler) {
+        this(requestStreamHandler, new WarmupAwareSupport());
+    }
+
+    public WarmupAwareRequestStreamHandler(RequestStreamHandler requestStreamHandler,
+                                           WarmupAwareSupport warmupAwareSupport) {
+        this.requestStreamHandler = requestStreamHandler;
+        this.warmupAwareSupport = warmupAwareSupport;
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        PushbackInputStream pushbackInput = new PushbackInputStream(input, WarmupAwareSupport.MAX_PEEK_SIZE);
+        WarmupRequest warmupRequest = warmupAwareSupport.getWarmupRequest(pushbackInput);
+        if (warmupRequest != null) {
+            warmupAwareSupport.handleWarmupRequest(warmupRequest, context);
+            output.write(warmupAwareSupport.createWarmupResponseBytes(warmupRequest));
+            return;
+        }
+        warmupAwareSupport.onRequest();
+        requestStreamHandler.handleRequest(pushbackInput, output, context);
+    }
+
+}
@@ -0,0 +1,405 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.opsgenie.sirocco.api.control.ControlRequestConstants;
+import com.opsgenie.sirocco.api.control.StatResponse;
+import com.opsgenie.sirocco.api.util.LambdaUtil;
+
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ *      Detects and handles warmup requests on behalf of the warmup-aware handlers
+ *      ({@link WarmupAwareRequestHandler} and {@link WarmupAwareRequestStreamHandler}).
+ * </p>
+ * <p>
+ *      Only <code>#warmup wait=&lt;wait_time&gt;</code> control requests
+ *      (also when they are wrapped by {@link LambdaUtil#WRAPPED_REQUEST_PROP} property)
+ *      are detected as warmup requests. Empty requests (such as <code>null</code>, empty string
+ *      or empty JSON object) are real requests and passed through, so warmup strategies sending
+ *      empty messages by default (such as <code>standard</code>) should be configured
+ *      to send <code>#warmup</code> as invocation data. Warmup requests are handled by waiting
+ *      {@link #DEFAULT_WARMUP_DELAY_MILLIS 100 milliseconds} plus the requested <code>wait_time</code>,
+ *      so concurrent warmup invocations keep different containers busy,
+ *      and by responding with the <code>instanceId</code> and <code>latestRequestTime</code>
+ *      of the handler as expected by stat-aware warmup strategies.
+ *      Responses are in the {@link StatResponse stat response} format requested by the
+ *      {@link ControlRequestConstants#RESPONSE_FORMAT_PROPERTY} property of the warmup request
+ *      (or in the legacy <b>JSON</b> format if no format is requested).
+ * </p>
+ * <p>
+ *      Detection only looks at the leading characters of requests and latest request time is tracked
+ *      by an atomic <code>long</code>, so real requests are passed through without any parsing or allocation
+ *      other than the ones needed for peeking into streams.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class WarmupAwareSupport {
+
+    /**
+     * Default time in milliseconds to wait while handling a warmup request
+     * in addition to the requested <code>wait</code> argument.
+     */
+    public static final long DEFAULT_WARMUP_DELAY_MILLIS = 100;
+
+    static final String WARMUP_REQUEST_TYPE = "warmup";
+
+    // Peeked bytes must fit into push back buffer of the stream to be unread,
+    // so control requests longer than this are not detected and passed through
+    static final int MAX_PEEK_SIZE = 256;
+
+    private static final byte[] WRAPPED_REQUEST_PROP_BYTES =
+            ("\"" + LambdaUtil.WRAPPED_REQUEST_PROP + "\"").getBytes(StandardCharsets.UTF_8);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong latestRequestTime = new AtomicLong();
+    private final long warmupDelayMillis;
+
+    public WarmupAwareSupport() {
+        this(DEFAULT_WARMUP_DELAY_MILLIS);
+    }
+
+    public WarmupAwareSupport(long warmupDelayMillis) {
+        this.warmupDelayMillis = warmupDelayMillis;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Gets the time of the latest request which is not a warmup request.
+     *
+     * @return the time of the latest real request, <code>0</code> if there is no such request
+     */
+    public long getLatestRequestTime() {
+        return latestRequestTime.get();
+    }
+
+    /**
+     * Records that a real (not warmup) request has been received.
+     */
+    public void onRequest() {
+        latestRequestTime.lazySet(System.currentTimeMillis());
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    /**
+     * Parses the given control request and gets its <code>wait</code> argument and
+     * {@link ControlRequestConstants#RESPONSE_FORMAT_PROPERTY response format} property
+     * if it is a warmup control request.
+     *
+     * @param request the control request (<code>#warmup wait=&lt;wait_time&gt; ...</code>)
+     * @param start   start index of the control request in the given character sequence
+     * @param end     end index (exclusive) of the control request in the given character sequence
+     * @return the {@link WarmupRequest}, <code>null</code> if the given request is not a warmup control request
+     */
+    static WarmupRequest parseWarmupRequest(CharSequence request, int start, int end) {
+        int i = start;
+        if (i >= end || request.charAt(i) != ControlRequestConstants.CONTROL_REQUEST_PREFIX) {
+            return null;
+        }
+        i++;
+        int typeLength = WARMUP_REQUEST_TYPE.length();
+        if (end - i < typeLength) {
+            return null;
+        }
+        for (int j = 0; j < typeLength; j++, i++) {
+            if (request.charAt(i) != WARMUP_REQUEST_TYPE.charAt(j)) {
+                return null;
+            }
+        }
+        if (i < end && !isWhitespace(request.charAt(i)) && request.charAt(i) != '"' && request.charAt(i) != '\\') {
+            // Another control request type which starts with "warmup"
+            return null;
+        }
+        long wait = 0;
+        long responseFormat = StatResponse.LEGACY_FORMAT_VERSION;
+        while (i < end) {
+            while (i < end && isWhitespace(request.charAt(i))) {
+                i++;
+            }
+            int argStart = i;
+            while (i < end && !isWhitespace(request.charAt(i))) {
+                i++;
+            }
+            if (isNamed(request, argStart, i, ControlRequestConstants.WAIT_ARGUMENT)) {
+                wait = parseNumber(request, argStart + ControlRequestConstants.WAIT_ARGUMENT.length() + 1, i);
+            } else if (i > argStart
+                    && request.charAt(argStart) == ControlRequestConstants.PROPERTY_PREFIX
+                    && isNamed(request, argStart + 1, i, ControlRequestConstants.RESPONSE_FORMAT_PROPERTY)) {
+                responseFormat =
+                        parseNumber(request, argStart + ControlRequestConstants.RESPONSE_FORMAT_PROPERTY.length() + 2, i);
+            }
+        }
+        if (responseFormat > Integer.MAX_VALUE || !StatResponse.isSupportedFormat((int) responseFormat)) {
+            // Respond in the legacy format which is supported by all of the warmup strategies
+            responseFormat = StatResponse.LEGACY_FORMAT_VERSION;
+        }
+        if (wait == 0 && responseFormat == StatResponse.LEGACY_FORMAT_VERSION) {
+            return WarmupRequest.DEFAULT;
+        }
+        return new WarmupRequest(wait, (int) responseFormat);
+    }
+
+    private static boolean isNamed(CharSequence request, int start, int end, String name) {
+        return end - start > name.length() + 1
+                && request.charAt(start + name.length()) == '='
+                && startsWith(request, start, name);
+    }
+
+    private static long parseNumber(CharSequence request, int start, int end) {
+        long number = 0;
+        for (int i = start; i < end; i++) {
+            char c = request.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static boolean startsWith(CharSequence str, int offset, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (str.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static WarmupRequest parseWarmupRequest(String request) {
+        int start = 0;
+        int end = request.length();
+        while (start < end && isWhitespace(request.charAt(start))) {
+            start++;
+        }
+        if (start < end && request.charAt(start) == '"') {
+            // Control request might be given in JSON string format
+            start++;
+        }
+        return parseWarmupRequest(request, start, end);
+    }
+
+    /**
+     * Checks whether the given deserialized request is a warmup request.
+     *
+     * @param request the deserialized request
+     * @return the {@link WarmupRequest}, <code>null</code> if the given request is not a warmup request
+     */
+    public WarmupRequest getWarmupRequest(Object request) {
+        if (request instanceof CharSequence) {
+            return parseWarmupRequest(request.toString());
+        }
+        if (request instanceof Map) {
+            Object wrappedRequest = ((Map<?, ?>) request).get(LambdaUtil.WRAPPED_REQUEST_PROP);
+            if (wrappedRequest instanceof CharSequence) {
+                return parseWarmupRequest(wrappedRequest.toString());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given request stream is a warmup request by peeking its leading bytes.
+     * If it is not a warmup request, peeked bytes are pushed back to the stream,
+     * so the stream can be consumed from its beginning.
+     *
+     * @param input the request stream whose push back buffer size must be
+     *              at least {@link #MAX_PEEK_SIZE} bytes
+     * @return the {@link WarmupRequest}, <code>null</code> if the given request is not a warmup request
+     * @throws IOException if reading from the stream fails
+     */
+    WarmupRequest getWarmupRequest(PushbackInputStream input) throws IOException {
+        Peeker peeker = new Peeker(input);
+        WarmupRequest warmupRequest = peeker.peekWarmupRequest();
+        if (warmupRequest == null) {
+            peeker.unread();
+        }
+        return warmupRequest;
+    }
+
+    /**
+     * Handles the warmup request by waiting before return.
+     *
+     * @param warmupRequest the warmup request
+     * @param context       the context of the current invocation
+     */
+    public void handleWarmupRequest(WarmupRequest warmupRequest, Context context) {
+        long delayMillis = warmupDelayMillis + warmupRequest.getWaitMillis();
+        if (context != null) {
+            LambdaLogger logger = context.getLogger();
+            if (logger != null) {
+                logger.log("Received warmup request. Handling with " + delayMillis + " milliseconds delay ...\n");
+            }
+        }
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Creates the {@link StatResponse stat response} of this handler.
+     *
+     * @return the stat response
+     */
+    public StatResponse createStatResponse() {
+        return new StatResponse(instanceId, latestRequestTime.get());
+    }
+
+    /**
+     * Creates the response of the given warmup request
+     * which contains <code>instanceId</code> and <code>latestRequestTime</code>
+     * (only if there is any real request) of this handler.
+     * The response is a {@link Map} to be serialized as <b>JSON</b> object
+     * for the {@link StatResponse#LEGACY_FORMAT_VERSION legacy} format
+     * and the encoded {@link String} for the other formats.
+     *
+     * @param warmupRequest the warmup request
+     * @return the response of the warmup request
+     */
+    public Object createWarmupResponse(WarmupRequest warmupRequest) {
+        if (warmupRequest.getResponseFormat() != StatResponse.LEGACY_FORMAT_VERSION) {
+            return createStatResponse().encode(warmupRequest.getResponseFormat());
+        }
+        Map<String, Object> response = new LinkedHashMap<String, Object>(4);
+        response.put(StatResponse.INSTANCE_ID_FIELD, instanceId);
+        long requestTime = latestRequestTime.get();
+        if (requestTime > 0) {
+            response.put(StatResponse.LATEST_REQUEST_TIME_FIELD, StatResponse.formatLegacyDate(requestTime));
+        }
+        return response;
+    }
+
+    /**
+     * Creates the response of the given warmup request in the requested format
+     * as <code>UTF-8</code> encoded bytes.
+     *
+     * @param warmupRequest the warmup request
+     * @return the response of the warmup request as bytes
+     * @see #createWarmupResponse(WarmupRequest)
+     */
+    public byte[] createWarmupResponseBytes(WarmupRequest warmupRequest) {
+        return createStatResponse().encodeBytes(warmupRequest.getResponseFormat());
+    }
+
+    /**
+     * Peeks leading bytes of a request stream into a bounded buffer
+     * to be pushed back if the request is not a warmup request.
+     */
+    private static final class Peeker implements CharSequence {
+
+        private final PushbackInputStream input;
+        private final byte[] buffer = new byte[MAX_PEEK_SIZE];
+        private int size;
+        private boolean eof;
+
+        private Peeker(PushbackInputStream input) {
+            this.input = input;
+        }
+
+        private int read() throws IOException {
+            if (size == buffer.length) {
+                return -1;
+            }
+            int b = input.read();
+            if (b < 0) {
+                eof = true;
+                return -1;
+            }
+            buffer[size++] = (byte) b;
+            return b;
+        }
+
+        private int readNonWhitespace() throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (isWhitespace(b));
+            return b;
+        }
+
+        private boolean readExpected(byte[] expected, int offset) throws IOException {
+            for (int i = offset; i < expected.length; i++) {
+                if (read() != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private WarmupRequest peekWarmupRequest() throws IOException {
+            int b = readNonWhitespace();
+            if (b == '{') {
+                b = readNonWhitespace();
+                // Opening quote of the property name has already been read
+                if (b != '"'
+                        || !readExpected(WRAPPED_REQUEST_PROP_BYTES, 1)
+                        || readNonWhitespace() != ':'
+                        || readNonWhitespace() != '"') {
+                    return null;
+                }
+                b = read();
+                if (b == '\\') {
+                    // Wrapped request might be given in JSON string format as escaped
+                    if (read() != '"') {
+                        return null;
+                    }
+                    b = read();
+                }
+            } else if (b == '"') {
+                b = read();
+            }
+            if (b != ControlRequestConstants.CONTROL_REQUEST_PREFIX) {
+                return null;
+            }
+            int start = size - 1;
+            while ((b = read()) >= 0 && b != '"') {
+                // Read until the end of the control request
+            }
+            if (b < 0 && !eof) {
+                // Too long to be a warmup request
+                return null;
+            }
+            int end = b < 0 ? size : size - 1;
+            return parseWarmupRequest(this, start, end);
+        }
+
+        private void unread() throws IOException {
+            input.unread(buffer, 0, size);
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.opsgenie.sirocco.api.control.ControlRequestConstants;
+import com.opsgenie.sirocco.api.control.StatResponse;
+
+/**
+ * Detected warmup request (see {@link WarmupAwareSupport}).
+ *
+ * @author serkan
+ */
+public final class WarmupRequest {
+
+    /**
+     * Default warmup request (<code>#warmup</code> without any argument) which doesn't request any extra wait
+     * and expects the response in the {@link StatResponse#LEGACY_FORMAT_VERSION legacy} format.
+     */
+    public static final WarmupRequest DEFAULT = new WarmupRequest(0, StatResponse.LEGACY_FORMAT_VERSION);
+
+    private final long waitMillis;
+    private final int responseFormat;
+
+    public WarmupRequest(long waitMillis, int responseFormat) {
+        this.waitMillis = waitMillis;
+        this.responseFormat = responseFormat;
+    }
+
+    /**
+     * Gets the requested wait time (<code>wait</code> argument) in milliseconds.
+     *
+     * @return the requested wait time in milliseconds
+     */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    /**
+     * Gets the {@link StatResponse stat response} format version
+     * requested by {@link ControlRequestConstants#RESPONSE_FORMAT_PROPERTY} property.
+     * It is the {@link StatResponse#LEGACY_FORMAT_VERSION legacy} format version
+     * if the property is not specified or the requested format is not supported.
+     *
+     * @return the requested response format version
+     */
+    public int getResponseFormat() {
+        return responseFormat;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupRequest{" +
+                "waitMillis=" + waitMillis +
+                ", responseFormat=" + responseFormat +
+                '}';
+    }
+
+}
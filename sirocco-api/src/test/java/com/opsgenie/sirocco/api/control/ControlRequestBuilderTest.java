@@ -3,6 +3,8 @@ package com.opsgenie.sirocco.api.control;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.hamcrest.core.Is.is;
 
 /**
@@ -26,4 +28,72 @@ public class ControlRequestBuilderTest {
                 is("\"#test-control-request arg1=value1 arg2=value2 -prop3=value3 -prop4=value4\""));
     }
 
+    @Test
+    public void shouldEncodeValuesOnlyIfNeeded() {
+        String contolRequest =
+                new ControlRequestBuilder().
+                        controlRequestType("test-control-request").
+                        controlRequestArgument("arg1", "value_1.*-").
+                        controlRequestArgument("arg2", "value 2/\u00FC").
+                        controlRequestArgument("arg1", 100).
+                    build();
+
+        Assert.assertThat(
+                contolRequest,
+                is("\"#test-control-request arg1=100 arg2=value+2%2F%C3%BC\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowWhiteSpaceInArgumentName() {
+        new ControlRequestBuilder().controlRequestArgument("arg 1", "value1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowWhiteSpaceInPropertyName() {
+        new ControlRequestBuilder().controlRequestProperty("prop\t1", "value1");
+    }
+
+    @Test
+    public void shouldBuildControlRequestFromTemplateSuccessfully() {
+        ControlRequestTemplate template =
+                new ControlRequestBuilder().
+                        controlRequestType("test-control-request").
+                        controlRequestArgument("arg1", "").
+                        controlRequestArgument("arg2", "").
+                        controlRequestProperty("prop3", "value3").
+                    buildTemplate();
+
+        Assert.assertThat(template.getArgumentCount(), is(2));
+        Assert.assertThat(
+                template.build("value1", 2),
+                is("\"#test-control-request arg1=value1 arg2=2 -prop3=value3\""));
+        Assert.assertThat(
+                new String(template.buildBytes("value 1", 3), StandardCharsets.UTF_8),
+                is("\"#test-control-request arg1=value+1 arg2=3 -prop3=value3\""));
+    }
+
+    @Test
+    public void shouldBuildSameControlRequestFromTemplateAndBuilder() {
+        ControlRequestBuilder builder =
+                new ControlRequestBuilder().
+                        controlRequestType("warmup").
+                        controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, 500);
+        ControlRequestTemplate template = builder.buildTemplate();
+
+        Assert.assertThat(template.build(500), is(builder.build()));
+        Assert.assertThat(template.buildBytes(500), is(builder.buildBytes()));
+        Assert.assertThat(
+                new ControlRequestBuilder().controlRequestType("warmup").buildTemplate().build(),
+                is("\"#warmup\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotBuildControlRequestFromTemplateWithMissingArgumentValues() {
+        new ControlRequestBuilder().
+                controlRequestType("warmup").
+                controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, 0).
+            buildTemplate().
+            build();
+    }
+
 }
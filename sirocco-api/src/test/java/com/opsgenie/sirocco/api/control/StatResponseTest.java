@@ -0,0 +1,139 @@
+package com.opsgenie.sirocco.api.control;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class StatResponseTest {
+
+    private static final String INSTANCE_ID = "9b3ba0d0-d515-4a21-b3ee-133a321d9dbe";
+    private static final long LATEST_REQUEST_TIME = 1501435587778L;
+
+    @Test
+    public void shouldEncodeInCompactFormat() {
+        StatResponse statResponse = new StatResponse(INSTANCE_ID, LATEST_REQUEST_TIME);
+
+        Assert.assertThat(statResponse.encode(StatResponse.COMPACT_FORMAT_VERSION),
+                          is("1|" + LATEST_REQUEST_TIME + "|" + INSTANCE_ID));
+    }
+
+    @Test
+    public void shouldEncodeInLegacyFormat() {
+        StatResponse statResponse = new StatResponse(INSTANCE_ID, LATEST_REQUEST_TIME);
+
+        Assert.assertThat(statResponse.encode(StatResponse.LEGACY_FORMAT_VERSION),
+                          is("{\"instanceId\":\"" + INSTANCE_ID + "\"," +
+                             "\"latestRequestTime\":\"" + StatResponse.formatLegacyDate(LATEST_REQUEST_TIME) + "\"}"));
+        Assert.assertThat(new StatResponse(INSTANCE_ID, 0).encode(StatResponse.LEGACY_FORMAT_VERSION),
+                          is("{\"instanceId\":\"" + INSTANCE_ID + "\"}"));
+    }
+
+    @Test
+    public void shouldParseEncodedResponses() {
+        StatResponse statResponse = new StatResponse(INSTANCE_ID, LATEST_REQUEST_TIME);
+        StatResponse statResponseWithoutRequest = new StatResponse(INSTANCE_ID, 0);
+
+        for (int formatVersion = StatResponse.LEGACY_FORMAT_VERSION;
+             formatVersion <= StatResponse.LATEST_FORMAT_VERSION;
+             formatVersion++) {
+            Assert.assertThat(
+                    StatResponse.parse(ByteBuffer.wrap(statResponse.encodeBytes(formatVersion))),
+                    is(statResponse));
+            Assert.assertThat(
+                    StatResponse.parse(ByteBuffer.wrap(statResponseWithoutRequest.encodeBytes(formatVersion))),
+                    is(statResponseWithoutRequest));
+        }
+    }
+
+    @Test
+    public void shouldParseCompactResponseReturnedAsJsonString() {
+        Assert.assertThat(StatResponse.parse("\"1|" + LATEST_REQUEST_TIME + "|" + INSTANCE_ID + "\""),
+                          is(new StatResponse(INSTANCE_ID, LATEST_REQUEST_TIME)));
+    }
+
+    @Test
+    public void shouldParseLegacyResponse() {
+        String response =
+                "{\n" +
+                "  \"instanceId\": \"" + INSTANCE_ID + "\",\n" +
+                "  \"latestRequestTime\": \"2017-07-30 17:26:27.778\"\n" +
+                "}";
+
+        Assert.assertThat(StatResponse.parse(response),
+                          is(new StatResponse(INSTANCE_ID, StatResponse.parseLegacyDate("2017-07-30 17:26:27.778"))));
+        Assert.assertThat(StatResponse.parse("{\"instanceId\":\"" + INSTANCE_ID + "\",\"latestRequestTime\":null}"),
+                          is(new StatResponse(INSTANCE_ID, 0)));
+    }
+
+    @Test
+    public void shouldParseResponseInBufferSlice() {
+        byte[] bytes = ("xx1|" + LATEST_REQUEST_TIME + "|" + INSTANCE_ID + "xx").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.wrap(bytes, 2, bytes.length - 4).slice();
+
+        Assert.assertThat(StatResponse.parse(payload), is(new StatResponse(INSTANCE_ID, LATEST_REQUEST_TIME)));
+        Assert.assertThat(payload.position(), is(0));
+    }
+
+    @Test
+    public void shouldReturnNullForEmptyResponses() {
+        Assert.assertThat(StatResponse.parse((ByteBuffer) null), is(nullValue()));
+        Assert.assertThat(StatResponse.parse(" "), is(nullValue()));
+        Assert.assertThat(StatResponse.parse("null"), is(nullValue()));
+        Assert.assertThat(StatResponse.parse("{}"), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotParseUnrecognizedResponse() {
+        StatResponse.parse("hello");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotParseUnsupportedFormatVersion() {
+        StatResponse.parse("99|" + LATEST_REQUEST_TIME + "|" + INSTANCE_ID);
+    }
+
+    @Test
+    public void shouldParseLegacyResponsesConcurrently() throws Exception {
+        final int taskCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(taskCount);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                final long latestRequestTime = LATEST_REQUEST_TIME + i * 1000L;
+                futures.add(executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        StatResponse statResponse = new StatResponse(INSTANCE_ID, latestRequestTime);
+                        String response = statResponse.encode(StatResponse.LEGACY_FORMAT_VERSION);
+                        for (int j = 0; j < 1000; j++) {
+                            if (!statResponse.equals(StatResponse.parse(response))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertThat(future.get(), is(true));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -72,4 +72,16 @@ public class LambdaUtilTest {
         }
     }
 
+    @Test
+    public void shouldProvideProfileFromEnvironmentVariableOverridingSystemProperty() {
+        System.setProperty("opsgenie.profile", "test");
+        setEnvironmentVariable("opsgenie_profile", " prod ");
+        try {
+            Assert.assertThat(LambdaUtil.getProfile(), is("prod"));
+        } finally {
+            resetEnvironmentVariables();
+        }
+        Assert.assertThat(LambdaUtil.getProfile(), is("test"));
+    }
+
 }
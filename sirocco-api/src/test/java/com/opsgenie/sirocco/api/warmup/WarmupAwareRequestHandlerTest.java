@@ -0,0 +1,106 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.opsgenie.sirocco.api.control.StatResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class WarmupAwareRequestHandlerTest {
+
+    private static final String HANDLED_RESPONSE = "handled";
+
+    private final List<Object> handledRequests = new ArrayList<Object>();
+    private WarmupAwareSupport warmupAwareSupport;
+    private WarmupAwareRequestHandler<Object, Object> handler;
+
+    @Before
+    public void setup() {
+        warmupAwareSupport = new WarmupAwareSupport(0);
+        handler = new WarmupAwareRequestHandler<Object, Object>(new RequestHandler<Object, Object>() {
+            @Override
+            public Object handleRequest(Object input, Context context) {
+                handledRequests.add(input);
+                return HANDLED_RESPONSE;
+            }
+        }, warmupAwareSupport);
+    }
+
+    private static Map<String, Object> wrap(Object request) {
+        return Collections.singletonMap("___wrappedRequest___", request);
+    }
+
+    @Test
+    public void shouldHandleCharSequenceWarmupRequestsWithoutCallingWrappedHandler() {
+        Map<?, ?> response = (Map<?, ?>) handler.handleRequest("#warmup wait=1", null);
+        Assert.assertThat(response.get("instanceId"), is((Object) warmupAwareSupport.getInstanceId()));
+        Assert.assertThat(handler.handleRequest(new StringBuilder(" \"#warmup\""), null) instanceof Map, is(true));
+        Assert.assertThat(handler.handleRequest("#warmup wait=1 -responseFormat=1", null),
+                          is((Object) ("1|0|" + warmupAwareSupport.getInstanceId())));
+
+        Assert.assertThat(handledRequests.isEmpty(), is(true));
+        Assert.assertThat(warmupAwareSupport.getLatestRequestTime(), is(0L));
+    }
+
+    @Test
+    public void shouldHandleWrappedWarmupRequestsWithoutCallingWrappedHandler() {
+        Assert.assertThat(handler.handleRequest(wrap("#warmup wait=1"), null) instanceof Map, is(true));
+        Assert.assertThat(handler.handleRequest(wrap("\"#warmup wait=1\""), null) instanceof Map, is(true));
+        Assert.assertThat(
+                StatResponse.parse((String) handler.handleRequest(wrap("#warmup -responseFormat=1"), null)),
+                is(new StatResponse(warmupAwareSupport.getInstanceId(), 0)));
+
+        Assert.assertThat(handledRequests.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldDetectWarmupRequestOnlyByControlRequestPrefix() {
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest((Object) null), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest(""), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("  "), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("\"\""), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest(new HashMap<String, Object>()), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest(wrap("")), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest(wrap(1)), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("warmup"), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("#warmupAll"), is(nullValue()));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("#warmup").getWaitMillis(), is(0L));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest(wrap("#warmup wait=5")).getWaitMillis(), is(5L));
+    }
+
+    @Test
+    public void shouldPassNonWarmupRequestsToWrappedHandler() {
+        Map<String, Object> emptyRequest = new HashMap<String, Object>();
+        Map<String, Object> request = Collections.<String, Object>singletonMap("key", "value");
+        Map<String, Object> wrappedRequest = wrap("hello");
+
+        Assert.assertThat(handler.handleRequest(null, null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest("", null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest(emptyRequest, null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest("hello", null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest("#other", null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest(request, null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest(wrappedRequest, null), is((Object) HANDLED_RESPONSE));
+        Assert.assertThat(handler.handleRequest(42, null), is((Object) HANDLED_RESPONSE));
+
+        Assert.assertThat(handledRequests.size(), is(8));
+        Assert.assertThat(handledRequests.get(0), is(nullValue()));
+        Assert.assertThat(handledRequests.get(2), is((Object) emptyRequest));
+        Assert.assertThat(handledRequests.get(6), is((Object) wrappedRequest));
+        Assert.assertThat(warmupAwareSupport.getLatestRequestTime() > 0, is(true));
+    }
+
+}
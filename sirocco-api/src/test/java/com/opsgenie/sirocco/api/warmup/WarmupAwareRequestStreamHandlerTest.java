@@ -0,0 +1,147 @@
+package com.opsgenie.sirocco.api.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.opsgenie.sirocco.api.control.StatResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class WarmupAwareRequestStreamHandlerTest {
+
+    private WarmupAwareSupport warmupAwareSupport;
+    private WarmupAwareRequestStreamHandler handler;
+
+    @Before
+    public void setup() {
+        warmupAwareSupport = new WarmupAwareSupport(0);
+        handler = new WarmupAwareRequestStreamHandler(new RequestStreamHandler() {
+            @Override
+            public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+                // Echo the request
+                byte[] buffer = new byte[1024];
+                int length;
+                while ((length = input.read(buffer)) > 0) {
+                    output.write(buffer, 0, length);
+                }
+            }
+        }, warmupAwareSupport);
+    }
+
+    private String handle(String request) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handler.handleRequest(
+                new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), output, null);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private WarmupRequest getWarmupRequest(String request) throws IOException {
+        return warmupAwareSupport.getWarmupRequest(
+                new PushbackInputStream(
+                        new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)),
+                        WarmupAwareSupport.MAX_PEEK_SIZE));
+    }
+
+    private long getWarmupWaitMillis(String request) throws IOException {
+        return getWarmupRequest(request).getWaitMillis();
+    }
+
+    @Test
+    public void shouldDetectWarmupRequests() throws IOException {
+        Assert.assertThat(getWarmupWaitMillis("\"#warmup\""), is(0L));
+        Assert.assertThat(getWarmupWaitMillis(" \"#warmup\" "), is(0L));
+        Assert.assertThat(getWarmupWaitMillis("\"#warmup wait=100\""), is(100L));
+        Assert.assertThat(getWarmupWaitMillis("{\"___wrappedRequest___\": \"#warmup wait=200\"}"), is(200L));
+        Assert.assertThat(getWarmupWaitMillis("{\"___wrappedRequest___\":\"\\\"#warmup wait=300\\\"\"}"), is(300L));
+    }
+
+    @Test
+    public void shouldDetectRequestedResponseFormat() throws IOException {
+        Assert.assertThat(getWarmupRequest("\"#warmup wait=100\"").getResponseFormat(),
+                          is(StatResponse.LEGACY_FORMAT_VERSION));
+        Assert.assertThat(getWarmupRequest("\"#warmup wait=100 -responseFormat=1\"").getResponseFormat(),
+                          is(StatResponse.COMPACT_FORMAT_VERSION));
+        Assert.assertThat(getWarmupRequest("\"#warmup wait=100 -responseFormat=1\"").getWaitMillis(),
+                          is(100L));
+        Assert.assertThat(
+                getWarmupRequest("{\"___wrappedRequest___\":\"\\\"#warmup wait=300 -responseFormat=1\\\"\"}").
+                        getResponseFormat(),
+                is(StatResponse.COMPACT_FORMAT_VERSION));
+        // Unsupported formats fall back to the legacy format
+        Assert.assertThat(getWarmupRequest("\"#warmup wait=100 -responseFormat=99\"").getResponseFormat(),
+                          is(StatResponse.LEGACY_FORMAT_VERSION));
+        Assert.assertThat(warmupAwareSupport.getWarmupRequest("#warmup -responseFormat=1").getResponseFormat(),
+                          is(StatResponse.COMPACT_FORMAT_VERSION));
+    }
+
+    @Test
+    public void shouldNotDetectOtherRequestsAsWarmupRequest() throws IOException {
+        Assert.assertThat(getWarmupRequest(""), is(nullValue()));
+        Assert.assertThat(getWarmupRequest(" { } "), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("\"\""), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("{\"___wrappedRequest___\": \"\"}"), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("\"#warmupAll wait=100\""), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("\"#other\""), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("{}{}"), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("{\"requestId\": \"1\"}"), is(nullValue()));
+        Assert.assertThat(getWarmupRequest("\"hello\""), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRespondWarmupRequestWithStats() throws IOException {
+        String response = handle("\"#warmup wait=1\"");
+        Assert.assertThat(response, is("{\"instanceId\":\"" + warmupAwareSupport.getInstanceId() + "\"}"));
+
+        handle("{\"requestId\": \"1\"}");
+        response = handle("\"#warmup wait=1\"");
+        Assert.assertThat(
+                response.startsWith(
+                        "{\"instanceId\":\"" + warmupAwareSupport.getInstanceId() + "\",\"latestRequestTime\":\""),
+                is(true));
+    }
+
+    @Test
+    public void shouldRespondWarmupRequestInRequestedFormat() throws IOException {
+        Assert.assertThat(
+                StatResponse.parse(handle("\"#warmup wait=1 -responseFormat=1\"")),
+                is(new StatResponse(warmupAwareSupport.getInstanceId(), 0)));
+
+        handle("{\"requestId\": \"1\"}");
+        long latestRequestTime = warmupAwareSupport.getLatestRequestTime();
+        Assert.assertThat(handle("\"#warmup wait=1 -responseFormat=1\""),
+                          is("1|" + latestRequestTime + "|" + warmupAwareSupport.getInstanceId()));
+        Assert.assertThat(
+                StatResponse.parse(handle("\"#warmup wait=1\"")),
+                is(new StatResponse(warmupAwareSupport.getInstanceId(), latestRequestTime)));
+    }
+
+    @Test
+    public void shouldPassWholeRequestToWrappedHandler() throws IOException {
+        StringBuilder request = new StringBuilder("{\"___wrappedRequest___\": \"");
+        for (int i = 0; i < 10000; i++) {
+            request.append('x');
+        }
+        request.append("\"}");
+
+        Assert.assertThat(handle(request.toString()), is(request.toString()));
+        Assert.assertThat(handle("\"#other\""), is("\"#other\""));
+        Assert.assertThat(handle(""), is(""));
+        Assert.assertThat(handle("{}"), is("{}"));
+        Assert.assertThat(warmupAwareSupport.getLatestRequestTime() > 0, is(true));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.opsgenie.sirocco.api.control;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building control requests by {@link ControlRequestBuilder}
+ * and by {@link ControlRequestTemplate} which is done for every warmup invocation.
+ *
+ * @author serkan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControlRequestBuilderBenchmark {
+
+    private int wait = 100;
+
+    private final ControlRequestTemplate warmupRequestTemplate =
+            new ControlRequestBuilder().
+                        controlRequestType("warmup").
+                        controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, 0).
+                    buildTemplate();
+
+    @Benchmark
+    public String buildWarmupRequest() {
+        return new ControlRequestBuilder().
+                    controlRequestType("warmup").
+                    controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, wait).
+                build();
+    }
+
+    @Benchmark
+    public byte[] buildWarmupRequestBytes() {
+        return new ControlRequestBuilder().
+                    controlRequestType("warmup").
+                    controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, wait).
+                buildBytes();
+    }
+
+    @Benchmark
+    public String buildWarmupRequestFromTemplate() {
+        return warmupRequestTemplate.build(wait);
+    }
+
+    @Benchmark
+    public byte[] buildWarmupRequestBytesFromTemplate() {
+        return warmupRequestTemplate.buildBytes(wait);
+    }
+
+    @Benchmark
+    public String buildRequestWithProperties() {
+        return new ControlRequestBuilder().
+                    controlRequestType("warmup").
+                    controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, wait).
+                    controlRequestArgument(ControlRequestConstants.INSTANCE_ID_ARGUMENT, "instance-1").
+                    controlRequestProperty("sirocco.warmup.invocationCount", "8").
+                build();
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.opsgenie.sirocco.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ *      Entry point of the benchmarks jar.
+ *      Accepts the standard JMH command line options
+ *      (for example, a regular expression to select benchmarks to run)
+ *      and always attaches {@link GCProfiler} so allocation rates
+ *      (<code>gc.alloc.rate.norm</code>) are reported besides the scores.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options =
+                new OptionsBuilder().
+                        parent(new CommandLineOptions(args)).
+                        addProfiler(GCProfiler.class).
+                    build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.opsgenie.sirocco.benchmarks;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.AliasConfiguration;
+import com.amazonaws.services.lambda.model.EnvironmentResponse;
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.ListAliasesRequest;
+import com.amazonaws.services.lambda.model.ListAliasesResult;
+import com.amazonaws.services.lambda.model.ListFunctionsRequest;
+import com.amazonaws.services.lambda.model.ListFunctionsResult;
+import com.opsgenie.sirocco.warmup.LambdaService;
+import com.opsgenie.sirocco.warmup.WarmupHandler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ *      In-memory {@link LambdaService} implementation for benchmarks
+ *      which serves the given count of warmup aware functions
+ *      (in pages like AWS Lambda does) each with a single alias
+ *      and completes invocations immediately with an empty response.
+ * </p>
+ *
+ * @author serkan
+ */
+public class StubLambdaService implements LambdaService {
+
+    private static final int PAGE_SIZE = 50;
+    private static final String ALIAS_NAME = "live";
+
+    private final List<FunctionConfiguration> functions;
+    private final ListAliasesResult listAliasesResult;
+    private final InvokeResult invokeResult;
+
+    public StubLambdaService(int functionCount) {
+        this.functions = new ArrayList<FunctionConfiguration>(functionCount);
+        Map<String, String> environmentVariables = new HashMap<String, String>();
+        environmentVariables.put(WarmupHandler.WARMUP_AWARE_ENV_VAR_NAME, "true");
+        EnvironmentResponse environment = new EnvironmentResponse().withVariables(environmentVariables);
+        for (int i = 0; i < functionCount; i++) {
+            functions.add(
+                    new FunctionConfiguration().
+                            withFunctionName("function-" + i).
+                            withVersion("$LATEST").
+                            withLastModified("2017-01-01T00:00:00.000+0000").
+                            withCodeSha256("sha-" + i).
+                            withEnvironment(environment));
+        }
+        this.listAliasesResult =
+                new ListAliasesResult().
+                        withAliases(new AliasConfiguration().withName(ALIAS_NAME).withFunctionVersion("1"));
+        this.invokeResult =
+                new InvokeResult().
+                        withStatusCode(200).
+                        withPayload(ByteBuffer.wrap(new byte[0]));
+    }
+
+    @Override
+    public InvokeResult invoke(InvokeRequest request) {
+        return invokeResult;
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request) {
+        return CompletableFuture.completedFuture(invokeResult);
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request,
+                                            AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        asyncHandler.onSuccess(request, invokeResult);
+        return CompletableFuture.completedFuture(invokeResult);
+    }
+
+    @Override
+    public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
+        int start = request.getMarker() != null ? Integer.parseInt(request.getMarker()) : 0;
+        int end = Math.min(functions.size(), start + PAGE_SIZE);
+        ListFunctionsResult result = new ListFunctionsResult();
+        if (start < end) {
+            result.setFunctions(new ArrayList<FunctionConfiguration>(functions.subList(start, end)));
+        } else {
+            result.setFunctions(Collections.<FunctionConfiguration>emptyList());
+        }
+        if (end < functions.size()) {
+            result.setNextMarker(Integer.toString(end));
+        }
+        return result;
+    }
+
+    @Override
+    public ListAliasesResult listAliases(ListAliasesRequest request) {
+        return listAliasesResult;
+    }
+
+}
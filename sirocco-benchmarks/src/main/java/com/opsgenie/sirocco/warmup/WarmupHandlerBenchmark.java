@@ -0,0 +1,133 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.opsgenie.sirocco.benchmarks.StubLambdaService;
+import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *      Benchmarks hot paths of {@link WarmupHandler}:
+ *      parsing function declarations (<code>sirocco.warmup.function...</code> properties)
+ *      while it is constructed and resolving functions to warmup
+ *      (registered and discovered ones) on every warmup.
+ * </p>
+ * <p>
+ *      Discovery is done against {@link StubLambdaService}
+ *      so only the overhead of the handler itself is measured.
+ * </p>
+ *
+ * @author serkan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarmupHandlerBenchmark {
+
+    private static final WarmupStrategy NO_OP_WARMUP_STRATEGY = new WarmupStrategy() {
+        @Override
+        public String getName() {
+            return "no-op";
+        }
+
+        @Override
+        public void warmup(Context context,
+                           LambdaService lambdaService,
+                           Map<String, WarmupFunctionInfo> functionsToWarmup) {
+        }
+    };
+
+    private static final WarmupStrategyProvider NO_OP_WARMUP_STRATEGY_PROVIDER = new WarmupStrategyProvider() {
+        @Override
+        public WarmupStrategy getWarmupStrategy(String warmupStrategyName) {
+            return NO_OP_WARMUP_STRATEGY;
+        }
+    };
+
+    @Param({"100", "1000", "5000"})
+    public int functionCount;
+
+    private StubLambdaService lambdaService;
+    private WarmupPropertyProvider declarationPropertyProvider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lambdaService = new StubLambdaService(functionCount);
+
+        // Declare functions over multiple properties with configurations like real world usages
+        Map<String, Object> declarationProps = new HashMap<String, Object>();
+        int declarationsPerProperty = 10;
+        for (int i = 0; i < functionCount; i += declarationsPerProperty) {
+            StringBuilder declarations = new StringBuilder();
+            for (int j = i; j < Math.min(functionCount, i + declarationsPerProperty); j++) {
+                if (declarations.length() > 0) {
+                    declarations.append(", ");
+                }
+                declarations.
+                        append("function-").append(j).
+                        append("[alias=live; invocationCount=").append(1 + j % 8).append("]");
+            }
+            declarationProps.put(
+                    WarmupHandler.WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX + (i / declarationsPerProperty),
+                    declarations.toString());
+        }
+        declarationPropertyProvider = new MapWarmupPropertyProvider(declarationProps);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Discovery {
+
+        @Param({"false", "true"})
+        public boolean disableDiscoveryCache;
+
+        private WarmupHandler handler;
+
+        @Setup(Level.Trial)
+        public void setup(WarmupHandlerBenchmark benchmark) {
+            Map<String, Object> props = new HashMap<String, Object>();
+            props.put(WarmupHandler.DISABLE_DISCOVERY_CACHE_PROP_NAME, disableDiscoveryCache);
+            handler =
+                    new WarmupHandler(
+                            benchmark.lambdaService,
+                            new MapWarmupPropertyProvider(props),
+                            NO_OP_WARMUP_STRATEGY_PROVIDER,
+                            NO_OP_WARMUP_STRATEGY);
+        }
+
+    }
+
+    @Benchmark
+    public WarmupHandler parseFunctionDeclarations() {
+        return new WarmupHandler(
+                lambdaService,
+                declarationPropertyProvider,
+                NO_OP_WARMUP_STRATEGY_PROVIDER,
+                NO_OP_WARMUP_STRATEGY);
+    }
+
+    @Benchmark
+    public Map<String, WarmupFunctionInfo> getFunctionsToWarmup(Discovery discovery) {
+        return discovery.handler.getFunctionsToWarmup();
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.opsgenie.sirocco.benchmarks.StubLambdaService;
+import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ *      Benchmarks cold start of {@link WarmupHandler} as time to first invoke:
+ *      from the first use of the handler in a fresh JVM
+ *      (class loading, creation of the default warmup strategy and discovery of functions)
+ *      until the first warmup invocation is made.
+ * </p>
+ * <p>
+ *      Every fork measures a single cold run, so the score is the average of the forks.
+ *      Invocations are made against {@link StubLambdaService},
+ *      so the cost of creating AWS Lambda client is not included.
+ *      Note that AppCDS archives generated by the <code>appcds</code> profile of <code>sirocco-warmup</code>
+ *      are bound to the shaded jar of <code>sirocco-warmup</code>, so they can't be used by the benchmark jar.
+ *      Effect of the archive can be measured by {@link WarmupHandlerStartup} with the shaded jar.
+ * </p>
+ *
+ * @author serkan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class WarmupHandlerStartupBenchmark {
+
+    private static final int FUNCTION_COUNT = 10;
+    private static final int RUN_TIMEOUT_MILLIS = 3000;
+
+    private Thread warmupThread;
+
+    @Benchmark
+    public long timeToFirstInvoke() throws InterruptedException {
+        final CountDownLatch firstInvokeLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> errorRef = new AtomicReference<Throwable>();
+        final StubLambdaService lambdaService = new StubLambdaService(FUNCTION_COUNT) {
+            @Override
+            public Future<InvokeResult> invokeAsync(InvokeRequest request,
+                                                    AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+                firstInvokeLatch.countDown();
+                return super.invokeAsync(request, asyncHandler);
+            }
+        };
+
+        // Rest of the warmup run is completed in background and waited at the end of the iteration
+        warmupThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WarmupHandler warmupHandler =
+                            new WarmupHandler(
+                                    lambdaService,
+                                    new MapWarmupPropertyProvider(new HashMap<String, Object>()),
+                                    null,
+                                    null);
+                    try {
+                        warmupHandler.handleRequest(null, new StartupContext(RUN_TIMEOUT_MILLIS));
+                    } finally {
+                        warmupHandler.close();
+                    }
+                } catch (Throwable t) {
+                    errorRef.set(t);
+                } finally {
+                    firstInvokeLatch.countDown();
+                }
+            }
+        }, "warmup-startup");
+        warmupThread.start();
+
+        firstInvokeLatch.await();
+        if (errorRef.get() != null) {
+            throw new IllegalStateException("Warmup run has failed", errorRef.get());
+        }
+        return firstInvokeLatch.getCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        if (warmupThread != null) {
+            warmupThread.join();
+        }
+    }
+
+    private static class StartupContext implements Context {
+
+        private final long deadline;
+
+        private StartupContext(long timeoutMillis) {
+            this.deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return "startup";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "sirocco-warmup-startup";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) Math.max(0, deadline - System.currentTimeMillis());
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 128;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String string) {
+                    System.out.println(string);
+                }
+            };
+        }
+
+    }
+
+}
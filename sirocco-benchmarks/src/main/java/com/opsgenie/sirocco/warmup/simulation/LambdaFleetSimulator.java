@@ -0,0 +1,645 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.AliasConfiguration;
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.ListAliasesRequest;
+import com.amazonaws.services.lambda.model.ListAliasesResult;
+import com.amazonaws.services.lambda.model.ListFunctionsRequest;
+import com.amazonaws.services.lambda.model.ListFunctionsResult;
+import com.amazonaws.services.lambda.model.ResourceNotFoundException;
+import com.amazonaws.services.lambda.model.TooManyRequestsException;
+import com.opsgenie.sirocco.api.control.ControlRequestConstants;
+import com.opsgenie.sirocco.api.control.StatResponse;
+import com.opsgenie.sirocco.warmup.LambdaService;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *      {@link LambdaService} implementation which simulates a Lambda fleet in-process,
+ *      so warmup strategies and discovery can be evaluated (and load tested at scale) without AWS.
+ * </p>
+ * <p>
+ *      The simulation models the following behaviours of Lambda:
+ * </p>
+ * <ul>
+ *      <li>
+ *          Every function version (aliases are resolved to their versions) has its own pool of containers.
+ *          An invocation reuses an idle container of the pool if there is any,
+ *          otherwise a new container is started with a cold start latency
+ *          sampled from {@link SimulatedFunction#getColdStartLatency()}.
+ *      </li>
+ *      <li>
+ *          Idle containers are reclaimed after their idle times
+ *          sampled from {@link SimulatedFunction#getIdleTime()}.
+ *      </li>
+ *      <li>
+ *          Invocations beyond the account concurrency limit or
+ *          the function concurrency limit ({@link SimulatedFunction#getConcurrencyLimit()})
+ *          are throttled by {@link TooManyRequestsException}.
+ *      </li>
+ *      <li>
+ *          Invocations with empty payload or with a control request payload
+ *          (such as <code>#warmup wait=&lt;wait_time&gt;</code> built by
+ *          {@link com.opsgenie.sirocco.api.control.ControlRequestBuilder}) are considered as warmup requests.
+ *          Warmup requests wait for <code>100 + &lt;wait_time&gt; milliseconds</code> before return
+ *          and return <code>instanceId</code> and <code>latestRequestTime</code>
+ *          of their containers in the requested {@link StatResponse stat response} format
+ *          if the function is stat aware ({@link SimulatedFunction#isStatAware()}).
+ *          Other invocations are considered as real requests and
+ *          take latencies sampled from {@link SimulatedFunction#getExecutionLatency()}.
+ *      </li>
+ * </ul>
+ * <p>
+ *      All the latencies and idle times are multiplied by the time scale,
+ *      so simulations can be run faster than real time.
+ *      Note that billed durations are calculated from the unscaled latencies.
+ * </p>
+ *
+ * @author serkan
+ */
+public class LambdaFleetSimulator implements LambdaService {
+
+    public static final int DEFAULT_ACCOUNT_CONCURRENCY_LIMIT = 1000;
+    public static final long WARMUP_BASE_WAIT_MILLIS = 100;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 10000;
+    private static final long BILLING_GRANULARITY_MILLIS = 100;
+    private static final String WARMUP_REQUEST_TYPE = "warmup";
+
+    private final ConcurrentNavigableMap<String, FunctionState> functionStates =
+            new ConcurrentSkipListMap<String, FunctionState>();
+    private final int accountConcurrencyLimit;
+    private final double timeScale;
+    private final SimulationClock clock;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger accountInFlight = new AtomicInteger();
+    private final AtomicLong containerIdGenerator = new AtomicLong();
+
+    private final LongAdder invocationCount = new LongAdder();
+    private final LongAdder warmupInvocationCount = new LongAdder();
+    private final LongAdder coldStartCount = new LongAdder();
+    private final LongAdder warmupColdStartCount = new LongAdder();
+    private final LongAdder throttleCount = new LongAdder();
+    private final LongAdder warmupThrottleCount = new LongAdder();
+    private final LongAdder billedMegabyteMillis = new LongAdder();
+    private final LongAdder billedWarmupMegabyteMillis = new LongAdder();
+
+    public LambdaFleetSimulator() {
+        this(DEFAULT_ACCOUNT_CONCURRENCY_LIMIT, 1.0, SimulationClock.SYSTEM);
+    }
+
+    /**
+     * @param accountConcurrencyLimit the maximum count of concurrent executions in the account
+     * @param timeScale               the ratio to multiply latencies and idle times by.
+     *                                For example, <code>0.01</code> runs the simulation <code>100</code> times faster.
+     * @param clock                   the {@link SimulationClock} to measure idle times
+     *                                and latest request times of containers
+     */
+    public LambdaFleetSimulator(int accountConcurrencyLimit, double timeScale, SimulationClock clock) {
+        if (accountConcurrencyLimit < 1) {
+            throw new IllegalArgumentException(
+                    "Account concurrency limit must be positive: " + accountConcurrencyLimit);
+        }
+        if (timeScale < 0) {
+            throw new IllegalArgumentException("Time scale must not be negative: " + timeScale);
+        }
+        this.accountConcurrencyLimit = accountConcurrencyLimit;
+        this.timeScale = timeScale;
+        this.clock = clock;
+        this.scheduler =
+                Executors.newScheduledThreadPool(
+                        Runtime.getRuntime().availableProcessors(),
+                        new ThreadFactory() {
+                            private final AtomicInteger threadCounter = new AtomicInteger();
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread =
+                                        new Thread(r, "sirocco-simulator-" + threadCounter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+    }
+
+    /**
+     * Adds the given function to the simulated fleet.
+     * If there is already a function with the same name, it is replaced
+     * and all of its containers are reclaimed.
+     *
+     * @param function the {@link SimulatedFunction} to add
+     * @return this {@link LambdaFleetSimulator}
+     */
+    public LambdaFleetSimulator addFunction(SimulatedFunction function) {
+        functionStates.put(function.getFunctionName(), new FunctionState(function));
+        return this;
+    }
+
+    /**
+     * Removes the function with the given name from the simulated fleet.
+     *
+     * @param functionName name of the function to remove
+     * @return this {@link LambdaFleetSimulator}
+     */
+    public LambdaFleetSimulator removeFunction(String functionName) {
+        functionStates.remove(functionName);
+        return this;
+    }
+
+    public int getFunctionCount() {
+        return functionStates.size();
+    }
+
+    public long getInvocationCount() {
+        return invocationCount.sum();
+    }
+
+    public long getWarmupInvocationCount() {
+        return warmupInvocationCount.sum();
+    }
+
+    /**
+     * Gets the count of the cold starts hit by non-warmup requests,
+     * which is what warmup aims to minimize.
+     *
+     * @return the count of the cold starts hit by non-warmup requests
+     */
+    public long getColdStartCount() {
+        return coldStartCount.sum();
+    }
+
+    public long getWarmupColdStartCount() {
+        return warmupColdStartCount.sum();
+    }
+
+    /**
+     * Gets the count of the throttled non-warmup requests.
+     *
+     * @return the count of the throttled non-warmup requests
+     */
+    public long getThrottleCount() {
+        return throttleCount.sum();
+    }
+
+    public long getWarmupThrottleCount() {
+        return warmupThrottleCount.sum();
+    }
+
+    /**
+     * Gets the total billed compute of all the invocations (including warmup ones) in <b>GB-seconds</b>.
+     * Durations are billed in <code>100 milliseconds</code> granularity.
+     *
+     * @return the total billed compute in <b>GB-seconds</b>
+     */
+    public double getBilledGigabyteSeconds() {
+        return billedMegabyteMillis.sum() / 1024.0 / 1000.0;
+    }
+
+    /**
+     * Gets the billed compute of the warmup invocations in <b>GB-seconds</b>.
+     * Durations are billed in <code>100 milliseconds</code> granularity.
+     *
+     * @return the billed compute of the warmup invocations in <b>GB-seconds</b>
+     */
+    public double getBilledWarmupGigabyteSeconds() {
+        return billedWarmupMegabyteMillis.sum() / 1024.0 / 1000.0;
+    }
+
+    public int getInFlightCount() {
+        return accountInFlight.get();
+    }
+
+    /**
+     * Gets the count of the containers (busy or idle) of the given function after reclaiming the expired ones.
+     *
+     * @param functionName name of the function
+     * @return the count of the containers of the given function
+     */
+    public int getContainerCount(String functionName) {
+        FunctionState functionState = functionStates.get(functionName);
+        if (functionState == null) {
+            return 0;
+        }
+        long currentTime = clock.currentTimeMillis();
+        int containerCount = 0;
+        for (ContainerPool pool : functionState.pools.values()) {
+            containerCount += pool.getContainerCount(currentTime);
+        }
+        return containerCount;
+    }
+
+    /**
+     * Gets the count of the containers (busy or idle) of all functions after reclaiming the expired ones.
+     *
+     * @return the count of the containers of all functions
+     */
+    public int getContainerCount() {
+        int containerCount = 0;
+        for (String functionName : functionStates.keySet()) {
+            containerCount += getContainerCount(functionName);
+        }
+        return containerCount;
+    }
+
+    /**
+     * Stops the simulation by stopping the underlying scheduler.
+     * Ongoing invocations are not completed.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public InvokeResult invoke(InvokeRequest request) {
+        try {
+            return invokeAsync(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request) {
+        return invokeAsync(request, null);
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(final InvokeRequest request,
+                                            final AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        final CompletableFuture<InvokeResult> future = new CompletableFuture<InvokeResult>();
+        final FunctionState functionState = functionStates.get(request.getFunctionName());
+        if (functionState == null) {
+            fail(request, asyncHandler, future,
+                 new ResourceNotFoundException("Function not found: " + request.getFunctionName()));
+            return future;
+        }
+        final SimulatedFunction function = functionState.function;
+        String version = function.resolveVersion(request.getQualifier());
+        if (version == null) {
+            fail(request, asyncHandler, future,
+                 new ResourceNotFoundException(
+                         "Function not found: " + request.getFunctionName() + ":" + request.getQualifier()));
+            return future;
+        }
+
+        final long warmupWaitMillis = getWarmupWaitMillis(request.getPayload());
+        final boolean warmupRequest = warmupWaitMillis >= 0;
+        if (warmupRequest) {
+            warmupInvocationCount.increment();
+        } else {
+            invocationCount.increment();
+        }
+
+        if (!tryAcquire(accountInFlight, accountConcurrencyLimit)) {
+            throttle(request, asyncHandler, future, warmupRequest);
+            return future;
+        }
+        if (!tryAcquire(functionState.inFlight, function.getConcurrencyLimit())) {
+            accountInFlight.decrementAndGet();
+            throttle(request, asyncHandler, future, warmupRequest);
+            return future;
+        }
+
+        Random random = ThreadLocalRandom.current();
+        long currentTime = clock.currentTimeMillis();
+        final ContainerPool pool = functionState.getPool(version);
+        Container container = pool.acquire(currentTime);
+        long durationMillis;
+        if (container == null) {
+            container =
+                    new Container(
+                            function.getFunctionName() + "-" + containerIdGenerator.incrementAndGet(),
+                            (long) (function.getIdleTime().sample(random) * timeScale));
+            pool.startContainer();
+            durationMillis = function.getColdStartLatency().sample(random);
+            if (warmupRequest) {
+                warmupColdStartCount.increment();
+            } else {
+                coldStartCount.increment();
+            }
+        } else {
+            durationMillis = 0;
+        }
+        if (warmupRequest) {
+            durationMillis += WARMUP_BASE_WAIT_MILLIS + warmupWaitMillis;
+        } else {
+            container.latestRequestTime = currentTime;
+            durationMillis += function.getExecutionLatency().sample(random);
+        }
+        long billedDurationMillis =
+                ((durationMillis + BILLING_GRANULARITY_MILLIS - 1) / BILLING_GRANULARITY_MILLIS)
+                        * BILLING_GRANULARITY_MILLIS;
+        billedMegabyteMillis.add(billedDurationMillis * function.getMemorySize());
+        if (warmupRequest) {
+            billedWarmupMegabyteMillis.add(billedDurationMillis * function.getMemorySize());
+        }
+
+        final Container invokedContainer = container;
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                pool.release(invokedContainer, clock.currentTimeMillis());
+                functionState.inFlight.decrementAndGet();
+                accountInFlight.decrementAndGet();
+                InvokeResult result =
+                        new InvokeResult().
+                                withStatusCode(200).
+                                withPayload(createResponsePayload(function, invokedContainer, warmupRequest,
+                                                                  request.getPayload()));
+                future.complete(result);
+                if (asyncHandler != null) {
+                    asyncHandler.onSuccess(request, result);
+                }
+            }
+        }, (long) (durationMillis * timeScale * 1000), TimeUnit.MICROSECONDS);
+        return future;
+    }
+
+    private static boolean tryAcquire(AtomicInteger inFlight, int limit) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void throttle(InvokeRequest request, AsyncHandler<InvokeRequest, InvokeResult> asyncHandler,
+                          CompletableFuture<InvokeResult> future, boolean warmupRequest) {
+        if (warmupRequest) {
+            warmupThrottleCount.increment();
+        } else {
+            throttleCount.increment();
+        }
+        TooManyRequestsException error = new TooManyRequestsException("Rate Exceeded.");
+        error.setStatusCode(429);
+        error.setErrorCode("TooManyRequestsException");
+        fail(request, asyncHandler, future, error);
+    }
+
+    private void fail(final InvokeRequest request, final AsyncHandler<InvokeRequest, InvokeResult> asyncHandler,
+                      final CompletableFuture<InvokeResult> future, final Exception error) {
+        // Errors are notified asynchronously like the AWS SDK does
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                future.completeExceptionally(error);
+                if (asyncHandler != null) {
+                    asyncHandler.onError(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the wait time requested by the warmup request.
+     *
+     * @param payload the payload of the request
+     * @return the requested wait time in milliseconds (<code>0</code> if not specified) for warmup requests,
+     *         <code>-1</code> for non-warmup requests
+     */
+    private static long getWarmupWaitMillis(ByteBuffer payload) {
+        if (payload == null || !payload.hasRemaining()) {
+            return 0;
+        }
+        String request = StandardCharsets.UTF_8.decode(payload.duplicate()).toString().trim();
+        if (request.length() >= 2 && request.charAt(0) == '"' && request.charAt(request.length() - 1) == '"') {
+            request = request.substring(1, request.length() - 1).trim();
+        }
+        if (request.isEmpty()) {
+            return 0;
+        }
+        if (request.charAt(0) != ControlRequestConstants.CONTROL_REQUEST_PREFIX) {
+            return -1;
+        }
+        String[] requestParts = request.substring(1).split("\\s+");
+        if (!WARMUP_REQUEST_TYPE.equals(requestParts[0])) {
+            return -1;
+        }
+        for (int i = 1; i < requestParts.length; i++) {
+            String requestPart = requestParts[i];
+            int separatorIdx = requestPart.indexOf('=');
+            if (separatorIdx > 0
+                    && ControlRequestConstants.WAIT_ARGUMENT.equals(requestPart.substring(0, separatorIdx))) {
+                try {
+                    return Math.max(0, Long.parseLong(requestPart.substring(separatorIdx + 1)));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the stat response format version requested by the warmup request.
+     *
+     * @param payload the payload of the warmup request
+     * @return the requested response format version if it is supported,
+     *         {@link StatResponse#LEGACY_FORMAT_VERSION} otherwise
+     */
+    private static int getResponseFormat(ByteBuffer payload) {
+        if (payload == null || !payload.hasRemaining()) {
+            return StatResponse.LEGACY_FORMAT_VERSION;
+        }
+        String request = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+        String responseFormatProperty =
+                ControlRequestConstants.PROPERTY_PREFIX + ControlRequestConstants.RESPONSE_FORMAT_PROPERTY + "=";
+        int idx = request.indexOf(responseFormatProperty);
+        if (idx < 0) {
+            return StatResponse.LEGACY_FORMAT_VERSION;
+        }
+        int start = idx + responseFormatProperty.length();
+        int end = start;
+        while (end < request.length() && Character.isDigit(request.charAt(end))) {
+            end++;
+        }
+        try {
+            int responseFormat = Integer.parseInt(request.substring(start, end));
+            return StatResponse.isSupportedFormat(responseFormat)
+                    ? responseFormat
+                    : StatResponse.LEGACY_FORMAT_VERSION;
+        } catch (NumberFormatException e) {
+            return StatResponse.LEGACY_FORMAT_VERSION;
+        }
+    }
+
+    private static ByteBuffer createResponsePayload(SimulatedFunction function, Container container,
+                                                    boolean warmupRequest, ByteBuffer requestPayload) {
+        if (!warmupRequest || !function.isStatAware()) {
+            return ByteBuffer.wrap(new byte[0]);
+        }
+        StatResponse statResponse = new StatResponse(container.instanceId, container.latestRequestTime);
+        return ByteBuffer.wrap(statResponse.encodeBytes(getResponseFormat(requestPayload)));
+    }
+
+    @Override
+    public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (request.getMaxItems() != null) {
+            pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, request.getMaxItems()));
+        }
+        Map<String, FunctionState> remainingFunctionStates =
+                request.getMarker() != null
+                        ? functionStates.tailMap(request.getMarker(), false)
+                        : functionStates;
+        List<FunctionConfiguration> functionConfigurations = new ArrayList<FunctionConfiguration>(pageSize);
+        String lastFunctionName = null;
+        boolean hasMore = false;
+        for (FunctionState functionState : remainingFunctionStates.values()) {
+            if (functionConfigurations.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            functionConfigurations.add(functionState.function.toFunctionConfiguration());
+            lastFunctionName = functionState.function.getFunctionName();
+        }
+        ListFunctionsResult result = new ListFunctionsResult();
+        result.setFunctions(functionConfigurations);
+        if (hasMore) {
+            result.setNextMarker(lastFunctionName);
+        }
+        return result;
+    }
+
+    @Override
+    public ListAliasesResult listAliases(ListAliasesRequest request) {
+        FunctionState functionState = functionStates.get(request.getFunctionName());
+        if (functionState == null) {
+            throw new ResourceNotFoundException("Function not found: " + request.getFunctionName());
+        }
+        List<AliasConfiguration> aliasConfigurations = functionState.function.toAliasConfigurations();
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (request.getMaxItems() != null) {
+            pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, request.getMaxItems()));
+        }
+        int start = request.getMarker() != null ? Integer.parseInt(request.getMarker()) : 0;
+        int end = Math.min(aliasConfigurations.size(), start + pageSize);
+        ListAliasesResult result =
+                new ListAliasesResult().
+                        withAliases(new ArrayList<AliasConfiguration>(
+                                aliasConfigurations.subList(Math.min(start, end), end)));
+        if (end < aliasConfigurations.size()) {
+            result.setNextMarker(Integer.toString(end));
+        }
+        return result;
+    }
+
+    private static class FunctionState {
+
+        private final SimulatedFunction function;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ConcurrentMap<String, ContainerPool> pools = new ConcurrentHashMap<String, ContainerPool>();
+
+        private FunctionState(SimulatedFunction function) {
+            this.function = function;
+        }
+
+        private ContainerPool getPool(String version) {
+            ContainerPool pool = pools.get(version);
+            if (pool == null) {
+                ContainerPool newPool = new ContainerPool();
+                pool = pools.putIfAbsent(version, newPool);
+                if (pool == null) {
+                    pool = newPool;
+                }
+            }
+            return pool;
+        }
+
+    }
+
+    private static class ContainerPool {
+
+        // Most recently used idle containers are at the head, so they are reused first like Lambda does
+        private final ArrayDeque<Container> idleContainers = new ArrayDeque<Container>();
+        private int busyContainerCount;
+
+        private synchronized Container acquire(long currentTime) {
+            reclaimIdleContainers(currentTime);
+            Container container = idleContainers.pollFirst();
+            if (container != null) {
+                busyContainerCount++;
+            }
+            return container;
+        }
+
+        private synchronized void startContainer() {
+            busyContainerCount++;
+        }
+
+        private synchronized void release(Container container, long currentTime) {
+            container.lastUsedTime = currentTime;
+            busyContainerCount--;
+            idleContainers.addFirst(container);
+        }
+
+        private synchronized int getContainerCount(long currentTime) {
+            reclaimIdleContainers(currentTime);
+            return busyContainerCount + idleContainers.size();
+        }
+
+        private void reclaimIdleContainers(long currentTime) {
+            Iterator<Container> iterator = idleContainers.descendingIterator();
+            while (iterator.hasNext()) {
+                Container container = iterator.next();
+                if (currentTime - container.lastUsedTime > container.idleTimeMillis) {
+                    iterator.remove();
+                }
+            }
+        }
+
+    }
+
+    private static class Container {
+
+        private final String instanceId;
+        private final long idleTimeMillis;
+        private long lastUsedTime;
+        private volatile long latestRequestTime;
+
+        private Container(String instanceId, long idleTimeMillis) {
+            this.instanceId = instanceId;
+            this.idleTimeMillis = idleTimeMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import java.util.Random;
+
+/**
+ * Interface for implementations which sample latencies (in milliseconds)
+ * for the simulated Lambda fleet such as cold start and execution latencies.
+ *
+ * @author serkan
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Samples a latency.
+     *
+     * @param random the {@link Random} to be used for sampling
+     * @return the sampled latency in milliseconds which is never negative
+     */
+    long sample(Random random);
+
+    /**
+     * Creates a {@link LatencyDistribution} which always returns the given latency.
+     *
+     * @param latencyMillis the latency in milliseconds
+     * @return the created {@link LatencyDistribution}
+     */
+    static LatencyDistribution constant(final long latencyMillis) {
+        return new LatencyDistribution() {
+            @Override
+            public long sample(Random random) {
+                return latencyMillis;
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link LatencyDistribution} which returns latencies
+     * uniformly distributed between the given bounds.
+     *
+     * @param minLatencyMillis the minimum latency in milliseconds (inclusive)
+     * @param maxLatencyMillis the maximum latency in milliseconds (inclusive)
+     * @return the created {@link LatencyDistribution}
+     */
+    static LatencyDistribution uniform(final long minLatencyMillis, final long maxLatencyMillis) {
+        if (maxLatencyMillis < minLatencyMillis) {
+            throw new IllegalArgumentException(
+                    "Max latency must not be less than min latency: " + maxLatencyMillis + " < " + minLatencyMillis);
+        }
+        return new LatencyDistribution() {
+            @Override
+            public long sample(Random random) {
+                return minLatencyMillis + (long) (random.nextDouble() * (maxLatencyMillis - minLatencyMillis + 1));
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link LatencyDistribution} which returns log-normally distributed latencies
+     * which is the typical shape of cold start latencies with a long tail.
+     *
+     * @param medianLatencyMillis the median latency in milliseconds
+     * @param sigma               the standard deviation of the logarithm of latencies
+     *                            which configures how long the tail is
+     * @return the created {@link LatencyDistribution}
+     */
+    static LatencyDistribution logNormal(final long medianLatencyMillis, final double sigma) {
+        final double mu = Math.log(Math.max(1, medianLatencyMillis));
+        return new LatencyDistribution() {
+            @Override
+            public long sample(Random random) {
+                return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import java.util.List;
+
+/**
+ * Outcome of replaying a traffic trace with a {@link ReplayScenario} by {@link TraceReplayHarness}.
+ *
+ * @author serkan
+ */
+public class ReplayReport {
+
+    private static final String TABLE_ROW_FORMAT = "%-24s %10s %10s %10s %10s %10s %12s %12s %12s%n";
+
+    private final String scenarioName;
+    private final long requestCount;
+    private final long coldStartCount;
+    private final long throttleCount;
+    private final long warmupInvocationCount;
+    private final long warmupThrottleCount;
+    private final double warmupGigabyteSeconds;
+    private final double totalGigabyteSeconds;
+
+    public ReplayReport(String scenarioName, LambdaFleetSimulator simulator) {
+        this.scenarioName = scenarioName;
+        this.requestCount = simulator.getInvocationCount();
+        this.coldStartCount = simulator.getColdStartCount();
+        this.throttleCount = simulator.getThrottleCount();
+        this.warmupInvocationCount = simulator.getWarmupInvocationCount();
+        this.warmupThrottleCount = simulator.getWarmupThrottleCount();
+        this.warmupGigabyteSeconds = simulator.getBilledWarmupGigabyteSeconds();
+        this.totalGigabyteSeconds = simulator.getBilledGigabyteSeconds();
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getColdStartCount() {
+        return coldStartCount;
+    }
+
+    /**
+     * Gets the ratio of the requests hitting cold starts to all requests.
+     *
+     * @return the ratio of the requests hitting cold starts to all requests
+     */
+    public double getColdStartRate() {
+        return requestCount > 0 ? (double) coldStartCount / requestCount : 0;
+    }
+
+    public long getThrottleCount() {
+        return throttleCount;
+    }
+
+    public long getWarmupInvocationCount() {
+        return warmupInvocationCount;
+    }
+
+    public long getWarmupThrottleCount() {
+        return warmupThrottleCount;
+    }
+
+    public double getWarmupGigabyteSeconds() {
+        return warmupGigabyteSeconds;
+    }
+
+    public double getTotalGigabyteSeconds() {
+        return totalGigabyteSeconds;
+    }
+
+    /**
+     * Formats the given reports as a table to compare them.
+     *
+     * @param reports the {@link ReplayReport}s to format
+     * @return the formatted table
+     */
+    public static String toTable(List<ReplayReport> reports) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(TABLE_ROW_FORMAT,
+                "Scenario", "Requests", "Cold", "Cold %", "Throttles",
+                "Warmups", "Warmup thr.", "Warmup GB-s", "Total GB-s"));
+        for (ReplayReport report : reports) {
+            table.append(String.format(TABLE_ROW_FORMAT,
+                    report.scenarioName,
+                    report.requestCount,
+                    report.coldStartCount,
+                    String.format("%.3f", report.getColdStartRate() * 100),
+                    report.throttleCount,
+                    report.warmupInvocationCount,
+                    report.warmupThrottleCount,
+                    String.format("%.1f", report.warmupGigabyteSeconds),
+                    String.format("%.1f", report.totalGigabyteSeconds)));
+        }
+        return table.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayReport{" +
+                "scenarioName='" + scenarioName + '\'' +
+                ", requestCount=" + requestCount +
+                ", coldStartCount=" + coldStartCount +
+                ", coldStartRate=" + getColdStartRate() +
+                ", throttleCount=" + throttleCount +
+                ", warmupInvocationCount=" + warmupInvocationCount +
+                ", warmupThrottleCount=" + warmupThrottleCount +
+                ", warmupGigabyteSeconds=" + warmupGigabyteSeconds +
+                ", totalGigabyteSeconds=" + totalGigabyteSeconds +
+                '}';
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import com.opsgenie.sirocco.warmup.WarmupConfig;
+import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * <p>
+ *      Named configuration (warmup properties and simulation properties)
+ *      to replay a traffic trace with by {@link TraceReplayHarness}.
+ * </p>
+ * <p>
+ *      Scenarios can be loaded from a properties file where every property name
+ *      is prefixed by the scenario name (which cannot contain <code>.</code>) such as:
+ * </p>
+ * <pre>
+ * no-warmup.sirocco.simulation.disableWarmup=true
+ * standard.sirocco.warmup.warmupStrategy=standard
+ * standard.sirocco.warmup.invocationCount=8
+ * stat-aware.sirocco.warmup.warmupStrategy=stat-aware
+ * stat-aware.sirocco.warmup.warmupScaleFactor=1.5
+ * </pre>
+ *
+ * @author serkan
+ */
+public class ReplayScenario {
+
+    private final String name;
+    private final Map<String, String> properties;
+
+    public ReplayScenario(String name, Map<String, String> properties) {
+        this.name = name;
+        this.properties = Collections.unmodifiableMap(new HashMap<String, String>(properties));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public WarmupPropertyProvider getPropertyProvider() {
+        return WarmupConfig.builder().withProperties(properties).build();
+    }
+
+    public static List<ReplayScenario> load(Path scenariosFile) throws IOException {
+        try (Reader reader = Files.newBufferedReader(scenariosFile, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    public static List<ReplayScenario> load(Reader reader) throws IOException {
+        Properties scenarioProperties = new Properties();
+        scenarioProperties.load(reader);
+        // Sort scenarios by their names to have a deterministic order
+        List<String> propertyNames = new ArrayList<String>(scenarioProperties.stringPropertyNames());
+        Collections.sort(propertyNames);
+        Map<String, Map<String, String>> propertiesOfScenarios = new LinkedHashMap<String, Map<String, String>>();
+        for (String propertyName : propertyNames) {
+            int separatorIdx = propertyName.indexOf('.');
+            if (separatorIdx <= 0) {
+                throw new IOException("Property name must be prefixed by scenario name: " + propertyName);
+            }
+            String scenarioName = propertyName.substring(0, separatorIdx);
+            Map<String, String> properties = propertiesOfScenarios.get(scenarioName);
+            if (properties == null) {
+                properties = new HashMap<String, String>();
+                propertiesOfScenarios.put(scenarioName, properties);
+            }
+            properties.put(propertyName.substring(separatorIdx + 1), scenarioProperties.getProperty(propertyName).trim());
+        }
+        List<ReplayScenario> scenarios = new ArrayList<ReplayScenario>(propertiesOfScenarios.size());
+        for (Map.Entry<String, Map<String, String>> entry : propertiesOfScenarios.entrySet()) {
+            scenarios.add(new ReplayScenario(entry.getKey(), entry.getValue()));
+        }
+        return scenarios;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayScenario{" +
+                "name='" + name + '\'' +
+                ", properties=" + properties +
+                '}';
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import com.amazonaws.services.lambda.model.AliasConfiguration;
+import com.amazonaws.services.lambda.model.EnvironmentResponse;
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.opsgenie.sirocco.warmup.WarmupHandler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definition of a Lambda function simulated by {@link LambdaFleetSimulator}.
+ *
+ * @author serkan
+ */
+public class SimulatedFunction {
+
+    public static final String LATEST_VERSION = "$LATEST";
+
+    public static final int DEFAULT_MEMORY_SIZE = 512;
+    public static final LatencyDistribution DEFAULT_COLD_START_LATENCY =
+            LatencyDistribution.logNormal(1000, 0.5);
+    public static final LatencyDistribution DEFAULT_EXECUTION_LATENCY =
+            LatencyDistribution.logNormal(50, 0.3);
+    public static final LatencyDistribution DEFAULT_IDLE_TIME =
+            LatencyDistribution.uniform(5 * 60 * 1000, 15 * 60 * 1000); // 5 min - 15 min
+
+    private final String functionName;
+    private final Map<String, String> aliases = new LinkedHashMap<String, String>();
+    private final Map<String, String> environmentVariables = new HashMap<String, String>();
+    private int memorySize = DEFAULT_MEMORY_SIZE;
+    private int concurrencyLimit = Integer.MAX_VALUE;
+    private boolean statAware = true;
+    private String lastModified = "2017-01-01T00:00:00.000+0000";
+    private String codeSha256;
+    private LatencyDistribution coldStartLatency = DEFAULT_COLD_START_LATENCY;
+    private LatencyDistribution executionLatency = DEFAULT_EXECUTION_LATENCY;
+    private LatencyDistribution idleTime = DEFAULT_IDLE_TIME;
+
+    public SimulatedFunction(String functionName) {
+        this.functionName = functionName;
+        this.codeSha256 = Integer.toHexString(functionName.hashCode());
+        this.environmentVariables.put(WarmupHandler.WARMUP_AWARE_ENV_VAR_NAME, "true");
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public SimulatedFunction withAlias(String aliasName, String version) {
+        aliases.put(aliasName, version);
+        return this;
+    }
+
+    public SimulatedFunction withEnvironmentVariable(String name, String value) {
+        environmentVariables.put(name, value);
+        return this;
+    }
+
+    /**
+     * Configures whether the function is discovered as warmup aware.
+     * Functions are warmup aware by default.
+     *
+     * @param warmupAware <code>true</code> if the function is warmup aware,
+     *                    <code>false</code> otherwise
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withWarmupAware(boolean warmupAware) {
+        environmentVariables.put(WarmupHandler.WARMUP_AWARE_ENV_VAR_NAME, Boolean.toString(warmupAware));
+        return this;
+    }
+
+    public int getMemorySize() {
+        return memorySize;
+    }
+
+    public SimulatedFunction withMemorySize(int memorySize) {
+        this.memorySize = memorySize;
+        return this;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Configures the maximum count of concurrent executions of the function
+     * beyond which invocations of the function are throttled.
+     * There is no function level limit by default.
+     *
+     * @param concurrencyLimit the maximum count of concurrent executions of the function
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        return this;
+    }
+
+    public boolean isStatAware() {
+        return statAware;
+    }
+
+    /**
+     * Configures whether the function returns <code>instanceId</code> and <code>latestRequestTime</code>
+     * for warmup requests as expected by {@link com.opsgenie.sirocco.warmup.strategy.impl.StatAwareWarmupStrategy}.
+     * Functions are stat aware by default.
+     *
+     * @param statAware <code>true</code> if the function is stat aware,
+     *                  <code>false</code> otherwise
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withStatAware(boolean statAware) {
+        this.statAware = statAware;
+        return this;
+    }
+
+    /**
+     * Configures modification of the function which changes the fingerprint
+     * of the function used by the discovery cache of {@link WarmupHandler}.
+     *
+     * @param lastModified the last modification time of the function
+     * @param codeSha256   the SHA-256 hash of the code of the function
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withModification(String lastModified, String codeSha256) {
+        this.lastModified = lastModified;
+        this.codeSha256 = codeSha256;
+        return this;
+    }
+
+    public LatencyDistribution getColdStartLatency() {
+        return coldStartLatency;
+    }
+
+    public SimulatedFunction withColdStartLatency(LatencyDistribution coldStartLatency) {
+        this.coldStartLatency = coldStartLatency;
+        return this;
+    }
+
+    public LatencyDistribution getExecutionLatency() {
+        return executionLatency;
+    }
+
+    /**
+     * Configures latency of the non-warmup requests excluding the cold start latency.
+     *
+     * @param executionLatency the {@link LatencyDistribution} of execution latencies
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withExecutionLatency(LatencyDistribution executionLatency) {
+        this.executionLatency = executionLatency;
+        return this;
+    }
+
+    public LatencyDistribution getIdleTime() {
+        return idleTime;
+    }
+
+    /**
+     * Configures how long a container of the function is kept while it is idle before it is reclaimed.
+     * The idle time is sampled once for every container.
+     *
+     * @param idleTime the {@link LatencyDistribution} of idle times
+     * @return this {@link SimulatedFunction}
+     */
+    public SimulatedFunction withIdleTime(LatencyDistribution idleTime) {
+        this.idleTime = idleTime;
+        return this;
+    }
+
+    /**
+     * Resolves the given qualifier to the version of the function.
+     *
+     * @param qualifier the version or alias name to resolve, <code>null</code> for the latest version
+     * @return the resolved version if the qualifier is valid, <code>null</code> otherwise
+     */
+    public String resolveVersion(String qualifier) {
+        if (qualifier == null || LATEST_VERSION.equals(qualifier)) {
+            return LATEST_VERSION;
+        }
+        String version = aliases.get(qualifier);
+        if (version != null) {
+            return version;
+        }
+        return aliases.containsValue(qualifier) ? qualifier : null;
+    }
+
+    public FunctionConfiguration toFunctionConfiguration() {
+        return new FunctionConfiguration().
+                    withFunctionName(functionName).
+                    withVersion(LATEST_VERSION).
+                    withMemorySize(memorySize).
+                    withLastModified(lastModified).
+                    withCodeSha256(codeSha256).
+                    withEnvironment(
+                            new EnvironmentResponse().
+                                    withVariables(new HashMap<String, String>(environmentVariables)));
+    }
+
+    public List<AliasConfiguration> toAliasConfigurations() {
+        List<AliasConfiguration> aliasConfigurations = new ArrayList<AliasConfiguration>(aliases.size());
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            aliasConfigurations.add(
+                    new AliasConfiguration().
+                            withName(entry.getKey()).
+                            withFunctionVersion(entry.getValue()));
+        }
+        return aliasConfigurations;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedFunction{" +
+                "functionName='" + functionName + '\'' +
+                ", aliases=" + aliases +
+                ", memorySize=" + memorySize +
+                ", concurrencyLimit=" + concurrencyLimit +
+                ", statAware=" + statAware +
+                '}';
+    }
+
+}
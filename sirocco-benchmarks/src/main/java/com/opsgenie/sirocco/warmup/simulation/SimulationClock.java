@@ -0,0 +1,27 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+/**
+ * Interface for implementations which provide the current time of the simulation.
+ *
+ * @author serkan
+ */
+public interface SimulationClock {
+
+    /**
+     * {@link SimulationClock} implementation which provides the current system time.
+     */
+    SimulationClock SYSTEM = new SimulationClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Gets the current time of the simulation.
+     *
+     * @return the current time of the simulation in milliseconds
+     */
+    long currentTimeMillis();
+
+}
@@ -0,0 +1,46 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+/**
+ * Request arrival of a function in a recorded traffic trace.
+ *
+ * @author serkan
+ */
+public class TraceEvent implements Comparable<TraceEvent> {
+
+    private final long timestamp;
+    private final String functionName;
+    private final String qualifier;
+
+    public TraceEvent(long timestamp, String functionName, String qualifier) {
+        this.timestamp = timestamp;
+        this.functionName = functionName;
+        this.qualifier = qualifier;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    @Override
+    public int compareTo(TraceEvent other) {
+        return Long.compare(timestamp, other.timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "TraceEvent{" +
+                "timestamp=" + timestamp +
+                ", functionName='" + functionName + '\'' +
+                ", qualifier='" + qualifier + '\'' +
+                '}';
+    }
+
+}
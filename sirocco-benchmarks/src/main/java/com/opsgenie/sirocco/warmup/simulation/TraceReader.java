@@ -0,0 +1,137 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ *      Reads recorded request arrival traces in <b>CSV</b> or <b>NDJSON</b> format.
+ * </p>
+ * <ul>
+ *      <li>
+ *          <b>CSV</b>: Every line is in <code>&lt;timestamp&gt;,&lt;function_name&gt;[,&lt;qualifier&gt;]</code> format.
+ *          Empty lines, lines starting with <code>#</code> and a header line are skipped.
+ *      </li>
+ *      <li>
+ *          <b>NDJSON</b> (files with <code>.ndjson</code>, <code>.jsonl</code> or <code>.json</code> extension):
+ *          Every line is a JSON object such as
+ *          <code>{"timestamp": 1501425987778, "function": "my-function", "qualifier": "live"}</code>.
+ *          <code>functionName</code> is also accepted instead of <code>function</code>.
+ *      </li>
+ * </ul>
+ * <p>
+ *      Timestamps can be either epoch milliseconds or <b>ISO-8601</b> instants
+ *      (such as <code>2017-07-30T17:26:27.778Z</code>).
+ *      Events are sorted by their timestamps, so traces don't need to be ordered.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class TraceReader {
+
+    private TraceReader() {
+    }
+
+    public static List<TraceEvent> read(Path traceFile) throws IOException {
+        String fileName = traceFile.getFileName().toString().toLowerCase();
+        boolean json = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl") || fileName.endsWith(".json");
+        try (BufferedReader reader = Files.newBufferedReader(traceFile, StandardCharsets.UTF_8)) {
+            return json ? readNdjson(reader) : readCsv(reader);
+        }
+    }
+
+    public static List<TraceEvent> readCsv(Reader reader) throws IOException {
+        BufferedReader bufferedReader = toBufferedReader(reader);
+        List<TraceEvent> events = new ArrayList<TraceEvent>();
+        String line;
+        int lineNo = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] parts = line.split(",");
+            if (parts.length < 2) {
+                throw new IOException(
+                        "Trace line " + lineNo + " is not in 'timestamp,function[,qualifier]' format: " + line);
+            }
+            Long timestamp = parseTimestamp(parts[0].trim());
+            if (timestamp == null) {
+                if (events.isEmpty()) {
+                    // Header line
+                    continue;
+                }
+                throw new IOException("Invalid timestamp at trace line " + lineNo + ": " + parts[0]);
+            }
+            String qualifier = parts.length > 2 ? emptyToNull(parts[2].trim()) : null;
+            events.add(new TraceEvent(timestamp, parts[1].trim(), qualifier));
+        }
+        Collections.sort(events);
+        return events;
+    }
+
+    public static List<TraceEvent> readNdjson(Reader reader) throws IOException {
+        BufferedReader bufferedReader = toBufferedReader(reader);
+        List<TraceEvent> events = new ArrayList<TraceEvent>();
+        String line;
+        int lineNo = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            JSONObject eventObj;
+            try {
+                eventObj = new JSONObject(line);
+            } catch (JSONException e) {
+                throw new IOException("Trace line " + lineNo + " is not a JSON object: " + line, e);
+            }
+            Long timestamp = parseTimestamp(String.valueOf(eventObj.opt("timestamp")));
+            if (timestamp == null) {
+                throw new IOException("Invalid timestamp at trace line " + lineNo + ": " + line);
+            }
+            String functionName = eventObj.optString("function", eventObj.optString("functionName", null));
+            if (functionName == null) {
+                throw new IOException("No function at trace line " + lineNo + ": " + line);
+            }
+            events.add(new TraceEvent(timestamp, functionName, emptyToNull(eventObj.optString("qualifier", null))));
+        }
+        Collections.sort(events);
+        return events;
+    }
+
+    private static BufferedReader toBufferedReader(Reader reader) {
+        return reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    private static Long parseTimestamp(String timestampStr) {
+        try {
+            return Long.parseLong(timestampStr);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(timestampStr).toEpochMilli();
+            } catch (DateTimeParseException e2) {
+                return null;
+            }
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+}
@@ -0,0 +1,531 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.opsgenie.core.instance.InstanceDiscovery;
+import com.opsgenie.sirocco.warmup.WarmupHandler;
+import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
+import com.opsgenie.sirocco.warmup.impl.InMemoryWarmupStateStore;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategyProvider;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *      Replays a recorded request arrival trace (see {@link TraceReader}) against a {@link LambdaFleetSimulator}
+ *      while {@link WarmupHandler} runs on its schedule with the configured {@link WarmupStrategy},
+ *      and reports cold start rate, throttle counts and warmup cost (<b>GB-seconds</b>)
+ *      for every {@link ReplayScenario}. So warmup strategies and their configurations
+ *      can be compared offline and reproducibly.
+ * </p>
+ * <p>
+ *      Every scenario is replayed with a fresh fleet (every function in the trace is warmup aware
+ *      and every qualifier in the trace is an alias of the function) and fresh strategies.
+ *      The fleet is warmed up once before the replay starts as the warmup is assumed to be already running.
+ * </p>
+ * <p>
+ *      Traces can be replayed faster than real time by the speed-up factor.
+ *      In this case, simulated latencies, idle times and the warmup schedule are scaled down by the factor,
+ *      but time based warmup properties (such as <code>sirocco.warmup.functionInstanceIdleTime</code>)
+ *      are used as they are, so they should be scaled down in the scenarios explicitly.
+ * </p>
+ * <p>
+ *      Usage: <code>TraceReplayHarness &lt;trace-file&gt; &lt;scenarios-file&gt; [&lt;speed-up&gt;]</code>
+ * </p>
+ *
+ * @author serkan
+ */
+public class TraceReplayHarness {
+
+    private static final Logger LOGGER = Logger.getLogger(TraceReplayHarness.class);
+
+    /**
+     * Name of the <code>boolean</code> typed property
+     * which disables warmup in the scenario to have a baseline.
+     */
+    public static final String DISABLE_WARMUP_PROP_NAME =
+            "sirocco.simulation.disableWarmup";
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the period (in milliseconds) of the warmup schedule.
+     */
+    public static final String WARMUP_INTERVAL_MILLIS_PROP_NAME =
+            "sirocco.simulation.warmupInterval";
+    /**
+     * Default value for {@link #WARMUP_INTERVAL_MILLIS_PROP_NAME} property.
+     * The default value is <code>5 minutes</code>.
+     */
+    public static final long DEFAULT_WARMUP_INTERVAL_MILLIS = 5 * 60 * 1000; // 5 min
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the timeout (in milliseconds) of the warmup function.
+     */
+    public static final String WARMUP_TIMEOUT_MILLIS_PROP_NAME =
+            "sirocco.simulation.warmupTimeout";
+    /**
+     * Default value for {@link #WARMUP_TIMEOUT_MILLIS_PROP_NAME} property.
+     * The default value is <code>5 minutes</code>.
+     */
+    public static final long DEFAULT_WARMUP_TIMEOUT_MILLIS = 5 * 60 * 1000; // 5 min
+
+    /**
+     * Name of the <code>integer</code> typed property
+     * which configures the account concurrency limit of the simulated fleet.
+     */
+    public static final String ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME =
+            "sirocco.simulation.accountConcurrencyLimit";
+
+    /**
+     * Name of the <code>integer</code> typed property
+     * which configures the memory size (in MB) of the simulated functions.
+     */
+    public static final String MEMORY_SIZE_PROP_NAME =
+            "sirocco.simulation.memorySize";
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the median cold start latency (in milliseconds) of the simulated functions.
+     */
+    public static final String COLD_START_LATENCY_MILLIS_PROP_NAME =
+            "sirocco.simulation.coldStartLatency";
+    /**
+     * Default value for {@link #COLD_START_LATENCY_MILLIS_PROP_NAME} property.
+     * The default value is <code>1 second</code>.
+     */
+    public static final long DEFAULT_COLD_START_LATENCY_MILLIS = 1000;
+
+    /**
+     * Name of the <code>double</code> typed property
+     * which configures the standard deviation of the logarithm of cold start latencies
+     * (how long their tail is) of the simulated functions.
+     * <code>0</code> makes cold start latencies constant, so replays are reproducible.
+     */
+    public static final String COLD_START_LATENCY_SIGMA_PROP_NAME =
+            "sirocco.simulation.coldStartLatencySigma";
+    /**
+     * Default value for {@link #COLD_START_LATENCY_SIGMA_PROP_NAME} property.
+     * The default value is <code>0.5</code>.
+     */
+    public static final double DEFAULT_COLD_START_LATENCY_SIGMA = 0.5;
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the median execution latency (in milliseconds) of the simulated functions.
+     */
+    public static final String EXECUTION_LATENCY_MILLIS_PROP_NAME =
+            "sirocco.simulation.executionLatency";
+    /**
+     * Default value for {@link #EXECUTION_LATENCY_MILLIS_PROP_NAME} property.
+     * The default value is <code>50 milliseconds</code>.
+     */
+    public static final long DEFAULT_EXECUTION_LATENCY_MILLIS = 50;
+
+    /**
+     * Name of the <code>double</code> typed property
+     * which configures the standard deviation of the logarithm of execution latencies
+     * (how long their tail is) of the simulated functions.
+     * <code>0</code> makes execution latencies constant, so replays are reproducible.
+     */
+    public static final String EXECUTION_LATENCY_SIGMA_PROP_NAME =
+            "sirocco.simulation.executionLatencySigma";
+    /**
+     * Default value for {@link #EXECUTION_LATENCY_SIGMA_PROP_NAME} property.
+     * The default value is <code>0.3</code>.
+     */
+    public static final double DEFAULT_EXECUTION_LATENCY_SIGMA = 0.3;
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the minimum idle time (in milliseconds) of containers before they are reclaimed.
+     */
+    public static final String MIN_IDLE_TIME_MILLIS_PROP_NAME =
+            "sirocco.simulation.minIdleTime";
+    /**
+     * Default value for {@link #MIN_IDLE_TIME_MILLIS_PROP_NAME} property.
+     * The default value is <code>5 minutes</code>.
+     */
+    public static final long DEFAULT_MIN_IDLE_TIME_MILLIS = 5 * 60 * 1000; // 5 min
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the maximum idle time (in milliseconds) of containers before they are reclaimed.
+     */
+    public static final String MAX_IDLE_TIME_MILLIS_PROP_NAME =
+            "sirocco.simulation.maxIdleTime";
+    /**
+     * Default value for {@link #MAX_IDLE_TIME_MILLIS_PROP_NAME} property.
+     * The default value is <code>15 minutes</code>.
+     */
+    public static final long DEFAULT_MAX_IDLE_TIME_MILLIS = 15 * 60 * 1000; // 15 min
+
+    private static final long DRAIN_TIMEOUT_MILLIS = 60 * 1000;
+    private static final byte[] REQUEST_PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+    private static final String SIMULATED_ALIAS_VERSION = "1";
+
+    private final List<TraceEvent> events;
+    private final double speedUp;
+
+    /**
+     * @param events the {@link TraceEvent}s ordered by their timestamps
+     * @param speedUp the factor to replay the trace faster than real time
+     */
+    public TraceReplayHarness(List<TraceEvent> events, double speedUp) {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("Trace must not be empty");
+        }
+        if (speedUp <= 0) {
+            throw new IllegalArgumentException("Speed-up must be positive: " + speedUp);
+        }
+        for (int i = 1; i < events.size(); i++) {
+            if (events.get(i).getTimestamp() < events.get(i - 1).getTimestamp()) {
+                throw new IllegalArgumentException(
+                        "Trace events must be ordered by their timestamps: " +
+                        events.get(i - 1) + " is followed by " + events.get(i));
+            }
+        }
+        this.events = events;
+        this.speedUp = speedUp;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: TraceReplayHarness <trace-file> <scenarios-file> [<speed-up>]");
+            System.exit(1);
+        }
+        List<TraceEvent> events = TraceReader.read(Paths.get(args[0]));
+        List<ReplayScenario> scenarios = ReplayScenario.load(Paths.get(args[1]));
+        double speedUp = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+        TraceReplayHarness harness = new TraceReplayHarness(events, speedUp);
+        List<ReplayReport> reports = new ArrayList<ReplayReport>(scenarios.size());
+        for (ReplayScenario scenario : scenarios) {
+            reports.add(harness.replay(scenario));
+        }
+        System.out.print(ReplayReport.toTable(reports));
+    }
+
+    /**
+     * Replays the trace with the given scenario.
+     *
+     * @param scenario the {@link ReplayScenario} to replay the trace with
+     * @return the {@link ReplayReport} of the replay
+     * @throws InterruptedException if the replay is interrupted
+     */
+    public ReplayReport replay(ReplayScenario scenario) throws InterruptedException {
+        LOGGER.info("Replaying " + events.size() + " requests with scenario " + scenario.getName() + " ...");
+
+        WarmupPropertyProvider warmupPropertyProvider = scenario.getPropertyProvider();
+        double timeScale = 1.0 / speedUp;
+        LambdaFleetSimulator simulator =
+                new LambdaFleetSimulator(
+                        warmupPropertyProvider.getInteger(
+                                ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME,
+                                LambdaFleetSimulator.DEFAULT_ACCOUNT_CONCURRENCY_LIMIT),
+                        timeScale,
+                        SimulationClock.SYSTEM);
+        for (SimulatedFunction function : createFunctions(warmupPropertyProvider)) {
+            simulator.addFunction(function);
+        }
+
+        ScheduledExecutorService warmupScheduler = null;
+        if (!warmupPropertyProvider.getBoolean(DISABLE_WARMUP_PROP_NAME)) {
+            warmupScheduler = startWarmup(simulator, warmupPropertyProvider, timeScale);
+        }
+        try {
+            long traceStartTime = events.get(0).getTimestamp();
+            long replayStartTime = System.nanoTime();
+            for (TraceEvent event : events) {
+                long eventTime =
+                        replayStartTime +
+                        (long) (TimeUnit.MILLISECONDS.toNanos(event.getTimestamp() - traceStartTime) * timeScale);
+                long waitTime = eventTime - System.nanoTime();
+                if (waitTime > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitTime);
+                }
+                InvokeRequest invokeRequest =
+                        new InvokeRequest().
+                                withFunctionName(event.getFunctionName()).
+                                withPayload(ByteBuffer.wrap(REQUEST_PAYLOAD));
+                if (event.getQualifier() != null) {
+                    invokeRequest.withQualifier(event.getQualifier());
+                }
+                simulator.invokeAsync(invokeRequest);
+            }
+            long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+            while (simulator.getInFlightCount() > 0 && System.currentTimeMillis() < drainDeadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            if (warmupScheduler != null) {
+                warmupScheduler.shutdownNow();
+                warmupScheduler.awaitTermination(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            simulator.shutdown();
+        }
+
+        ReplayReport report = new ReplayReport(scenario.getName(), simulator);
+        LOGGER.info("Replayed with scenario " + scenario.getName() + ": " + report);
+        return report;
+    }
+
+    private List<SimulatedFunction> createFunctions(WarmupPropertyProvider warmupPropertyProvider) {
+        int memorySize =
+                warmupPropertyProvider.getInteger(
+                        MEMORY_SIZE_PROP_NAME,
+                        SimulatedFunction.DEFAULT_MEMORY_SIZE);
+        LatencyDistribution coldStartLatency =
+                LatencyDistribution.logNormal(
+                        warmupPropertyProvider.getLong(
+                                COLD_START_LATENCY_MILLIS_PROP_NAME,
+                                DEFAULT_COLD_START_LATENCY_MILLIS),
+                        warmupPropertyProvider.getDouble(
+                                COLD_START_LATENCY_SIGMA_PROP_NAME,
+                                DEFAULT_COLD_START_LATENCY_SIGMA));
+        LatencyDistribution executionLatency =
+                LatencyDistribution.logNormal(
+                        warmupPropertyProvider.getLong(
+                                EXECUTION_LATENCY_MILLIS_PROP_NAME,
+                                DEFAULT_EXECUTION_LATENCY_MILLIS),
+                        warmupPropertyProvider.getDouble(
+                                EXECUTION_LATENCY_SIGMA_PROP_NAME,
+                                DEFAULT_EXECUTION_LATENCY_SIGMA));
+        LatencyDistribution idleTime =
+                LatencyDistribution.uniform(
+                        warmupPropertyProvider.getLong(
+                                MIN_IDLE_TIME_MILLIS_PROP_NAME,
+                                DEFAULT_MIN_IDLE_TIME_MILLIS),
+                        warmupPropertyProvider.getLong(
+                                MAX_IDLE_TIME_MILLIS_PROP_NAME,
+                                DEFAULT_MAX_IDLE_TIME_MILLIS));
+
+        Map<String, Set<String>> qualifiersOfFunctions = new LinkedHashMap<String, Set<String>>();
+        for (TraceEvent event : events) {
+            Set<String> qualifiers = qualifiersOfFunctions.get(event.getFunctionName());
+            if (qualifiers == null) {
+                qualifiers = new LinkedHashSet<String>();
+                qualifiersOfFunctions.put(event.getFunctionName(), qualifiers);
+            }
+            if (event.getQualifier() != null && !SimulatedFunction.LATEST_VERSION.equals(event.getQualifier())) {
+                qualifiers.add(event.getQualifier());
+            }
+        }
+
+        List<SimulatedFunction> functions = new ArrayList<SimulatedFunction>(qualifiersOfFunctions.size());
+        for (Map.Entry<String, Set<String>> entry : qualifiersOfFunctions.entrySet()) {
+            SimulatedFunction function =
+                    new SimulatedFunction(entry.getKey()).
+                            withMemorySize(memorySize).
+                            withColdStartLatency(coldStartLatency).
+                            withExecutionLatency(executionLatency).
+                            withIdleTime(idleTime);
+            for (String qualifier : entry.getValue()) {
+                function.withAlias(qualifier, SIMULATED_ALIAS_VERSION);
+            }
+            functions.add(function);
+        }
+        return functions;
+    }
+
+    private ScheduledExecutorService startWarmup(LambdaFleetSimulator simulator,
+                                                 WarmupPropertyProvider warmupPropertyProvider,
+                                                 double timeScale) {
+        ScenarioWarmupStrategyProvider warmupStrategyProvider =
+                new ScenarioWarmupStrategyProvider(warmupPropertyProvider);
+        final WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        simulator,
+                        warmupPropertyProvider,
+                        warmupStrategyProvider,
+                        WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+        long warmupIntervalMillis =
+                warmupPropertyProvider.getLong(
+                        WARMUP_INTERVAL_MILLIS_PROP_NAME,
+                        DEFAULT_WARMUP_INTERVAL_MILLIS);
+        final long warmupTimeoutMillis =
+                Math.max(1,
+                         (long) (warmupPropertyProvider.getLong(
+                                    WARMUP_TIMEOUT_MILLIS_PROP_NAME,
+                                    DEFAULT_WARMUP_TIMEOUT_MILLIS) * timeScale));
+        Runnable warmupTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warmupHandler.handleRequest(null, new SimulatedContext(warmupTimeoutMillis));
+                } catch (Throwable t) {
+                    // Don't let the failed warmup cancel the next ones
+                    LOGGER.error("Warmup has failed", t);
+                }
+            }
+        };
+
+        // The fleet is warmed up before the replay as the warmup is assumed to be already running
+        warmupTask.run();
+
+        ScheduledExecutorService warmupScheduler =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "sirocco-simulation-warmup");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        long scaledWarmupIntervalMicros =
+                Math.max(1, (long) (TimeUnit.MILLISECONDS.toMicros(warmupIntervalMillis) * timeScale));
+        warmupScheduler.scheduleAtFixedRate(
+                warmupTask, scaledWarmupIntervalMicros, scaledWarmupIntervalMicros, TimeUnit.MICROSECONDS);
+        return warmupScheduler;
+    }
+
+    /**
+     * {@link WarmupStrategyProvider} implementation which creates a fresh instance of
+     * every discovered {@link WarmupStrategy} configured by the properties of the scenario,
+     * so strategies of different scenarios don't share any state or configuration.
+     */
+    private static class ScenarioWarmupStrategyProvider implements WarmupStrategyProvider {
+
+        private static final List<WarmupStrategy> WARMUP_STRATEGIES =
+                InstanceDiscovery.instancesOf(WarmupStrategy.class);
+
+        private final WarmupPropertyProvider warmupPropertyProvider;
+        private final WarmupStateStore warmupStateStore = new InMemoryWarmupStateStore();
+        private final Map<String, WarmupStrategy> warmupStrategies = new HashMap<String, WarmupStrategy>();
+
+        private ScenarioWarmupStrategyProvider(WarmupPropertyProvider warmupPropertyProvider) {
+            this.warmupPropertyProvider = warmupPropertyProvider;
+        }
+
+        @Override
+        public synchronized WarmupStrategy getWarmupStrategy(String warmupStrategyName) {
+            WarmupStrategy warmupStrategy = warmupStrategies.get(warmupStrategyName);
+            if (warmupStrategy == null) {
+                for (WarmupStrategy ws : WARMUP_STRATEGIES) {
+                    if (ws.getName().equals(warmupStrategyName)) {
+                        warmupStrategy = createWarmupStrategy(ws.getClass());
+                        warmupStrategies.put(warmupStrategyName, warmupStrategy);
+                        break;
+                    }
+                }
+            }
+            return warmupStrategy;
+        }
+
+        private WarmupStrategy createWarmupStrategy(Class<? extends WarmupStrategy> warmupStrategyClass) {
+            try {
+                try {
+                    Constructor<? extends WarmupStrategy> constructor =
+                            warmupStrategyClass.getConstructor(WarmupPropertyProvider.class, WarmupStateStore.class);
+                    return constructor.newInstance(warmupPropertyProvider, warmupStateStore);
+                } catch (NoSuchMethodException e1) {
+                    try {
+                        Constructor<? extends WarmupStrategy> constructor =
+                                warmupStrategyClass.getConstructor(WarmupPropertyProvider.class);
+                        return constructor.newInstance(warmupPropertyProvider);
+                    } catch (NoSuchMethodException e2) {
+                        return warmupStrategyClass.newInstance();
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(
+                        "Unable to create warmup strategy " + warmupStrategyClass.getName(), e);
+            }
+        }
+
+    }
+
+    private static class SimulatedContext implements Context {
+
+        private final String awsRequestId = UUID.randomUUID().toString();
+        private final long deadline;
+
+        private SimulatedContext(long timeoutMillis) {
+            this.deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return awsRequestId;
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "sirocco-warmup-simulation";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return SimulatedFunction.LATEST_VERSION;
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) Math.max(0, deadline - System.currentTimeMillis());
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return SimulatedFunction.DEFAULT_MEMORY_SIZE;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String string) {
+                    LOGGER.info(string);
+                }
+            };
+        }
+
+    }
+
+}
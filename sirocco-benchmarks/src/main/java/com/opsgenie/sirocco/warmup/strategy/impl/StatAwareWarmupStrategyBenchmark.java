@@ -0,0 +1,124 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.opsgenie.sirocco.api.control.StatResponse;
+import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
+import com.opsgenie.sirocco.warmup.impl.InMemoryWarmupStateStore;
+import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *      Benchmarks hot paths of {@link StatAwareWarmupStrategy}:
+ *      creating payload of every warmup invocation (both encoding and getting the shared one) and
+ *      handling responses of all the warmup invocations of a warmup
+ *      (parsing instance stats from them in both of the legacy and compact stat response formats
+ *      and evicting the expired ones).
+ * </p>
+ * <p>
+ *      This benchmark is in the same package with the strategy
+ *      to be able to access its <code>protected</code> hooks.
+ * </p>
+ *
+ * @author serkan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatAwareWarmupStrategyBenchmark {
+
+    private static final int FUNCTION_COUNT = 10;
+
+    private StatAwareWarmupStrategy strategy;
+    private StandardWarmupStrategy.InvocationContext invocationContext;
+    private int invocationNo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        strategy =
+                new StatAwareWarmupStrategy(
+                        new MapWarmupPropertyProvider(new HashMap<String, Object>()),
+                        new InMemoryWarmupStateStore());
+        invocationContext =
+                strategy.createInvocationContext(new WarmupFunctionInfo(), "function-0", null, 100);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Responses {
+
+        @Param({"10000", "100000"})
+        public int responseCount;
+
+        // 0: legacy JSON format, 1: compact format
+        @Param({"0", "1"})
+        public int responseFormat;
+
+        private Map<String, List<StandardWarmupStrategy.InvokeResultInfo>> invokeResultInfosMap;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            invokeResultInfosMap = new HashMap<String, List<StandardWarmupStrategy.InvokeResultInfo>>();
+            long latestRequestTime = System.currentTimeMillis();
+            int responseCountPerFunction = responseCount / FUNCTION_COUNT;
+            for (int i = 0; i < FUNCTION_COUNT; i++) {
+                String functionName = "function-" + i;
+                List<StandardWarmupStrategy.InvokeResultInfo> invokeResultInfos =
+                        new ArrayList<StandardWarmupStrategy.InvokeResultInfo>(responseCountPerFunction);
+                for (int j = 0; j < responseCountPerFunction; j++) {
+                    StandardWarmupStrategy.InvokeResultInfo invokeResultInfo =
+                            new StandardWarmupStrategy.InvokeResultInfo(1, j + 1, functionName);
+                    StatResponse response =
+                            new StatResponse(functionName + "-instance-" + j, latestRequestTime);
+                    invokeResultInfo.invokeResult =
+                            new InvokeResult().
+                                    withStatusCode(200).
+                                    withPayload(ByteBuffer.wrap(response.encodeBytes(responseFormat)));
+                    invokeResultInfos.add(invokeResultInfo);
+                }
+                invokeResultInfosMap.put(functionName, invokeResultInfos);
+            }
+        }
+
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] createInvokeRequestPayload() {
+        invocationNo = invocationNo % invocationContext.actualInvocationCount + 1;
+        return strategy.createInvokeRequestPayload(invocationContext, invocationNo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ByteBuffer getInvokeRequestPayload() {
+        invocationNo = invocationNo % invocationContext.actualInvocationCount + 1;
+        return strategy.getInvokeRequestPayload(invocationContext, invocationNo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void handleInvokeResultInfos(Responses responses) {
+        strategy.handleInvokeResultInfos(responses.invokeResultInfosMap);
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.TooManyRequestsException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class LambdaFleetSimulatorTest {
+
+    // Simulated milliseconds take microseconds
+    private static final double TIME_SCALE = 0.001;
+    private static final long IDLE_TIME_MILLIS = 1000 * 1000;
+    private static final long SCALED_IDLE_TIME_MILLIS = (long) (IDLE_TIME_MILLIS * TIME_SCALE);
+
+    private final ManualClock clock = new ManualClock();
+    private LambdaFleetSimulator simulator;
+
+    @Before
+    public void setUp() {
+        clock.time.set(1000);
+        simulator = new LambdaFleetSimulator(10, TIME_SCALE, clock);
+    }
+
+    @After
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    private static SimulatedFunction createFunction(String functionName) {
+        return new SimulatedFunction(functionName).
+                withMemorySize(1024).
+                withColdStartLatency(LatencyDistribution.constant(150)).
+                withExecutionLatency(LatencyDistribution.constant(50)).
+                withIdleTime(LatencyDistribution.constant(IDLE_TIME_MILLIS));
+    }
+
+    private static InvokeRequest createRequest(String functionName) {
+        return new InvokeRequest().
+                withFunctionName(functionName).
+                withPayload(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static InvokeRequest createWarmupRequest(String functionName) {
+        return new InvokeRequest().
+                withFunctionName(functionName).
+                withPayload(ByteBuffer.wrap("#warmup wait=100".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertThrottled(Future<InvokeResult> future) throws InterruptedException {
+        try {
+            future.get();
+            throw new AssertionError("Invocation should have been throttled");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof TooManyRequestsException, is(true));
+        }
+    }
+
+    @Test
+    public void shouldColdStartOnceAndReuseIdleContainer() {
+        simulator.addFunction(createFunction("function1"));
+
+        simulator.invoke(createRequest("function1"));
+        simulator.invoke(createRequest("function1"));
+        simulator.invoke(createRequest("function1"));
+
+        assertThat(simulator.getInvocationCount(), is(3L));
+        assertThat(simulator.getColdStartCount(), is(1L));
+        assertThat(simulator.getContainerCount("function1"), is(1));
+        // 150 ms cold start + 50 ms execution is billed as 200 ms and other executions as 100 ms each
+        assertThat(simulator.getBilledGigabyteSeconds(), is(0.4));
+        assertThat(simulator.getBilledWarmupGigabyteSeconds(), is(0.0));
+    }
+
+    @Test
+    public void shouldColdStartAgainAfterIdleContainerIsReclaimed() {
+        simulator.addFunction(createFunction("function1"));
+
+        simulator.invoke(createRequest("function1"));
+
+        clock.time.addAndGet(SCALED_IDLE_TIME_MILLIS);
+        assertThat(simulator.getContainerCount("function1"), is(1));
+
+        clock.time.addAndGet(1);
+        assertThat(simulator.getContainerCount("function1"), is(0));
+
+        simulator.invoke(createRequest("function1"));
+
+        assertThat(simulator.getColdStartCount(), is(2L));
+        assertThat(simulator.getContainerCount("function1"), is(1));
+    }
+
+    @Test
+    public void shouldKeepContainerPoolsOfFunctionsSeparate() {
+        simulator.addFunction(createFunction("function1"));
+        simulator.addFunction(createFunction("function2"));
+
+        simulator.invoke(createRequest("function1"));
+        simulator.invoke(createRequest("function2"));
+        simulator.invoke(createRequest("function1"));
+
+        assertThat(simulator.getColdStartCount(), is(2L));
+        assertThat(simulator.getContainerCount("function1"), is(1));
+        assertThat(simulator.getContainerCount("function2"), is(1));
+        assertThat(simulator.getContainerCount(), is(2));
+    }
+
+    @Test
+    public void shouldAccountWarmupInvocationsSeparately() {
+        simulator.addFunction(createFunction("function1"));
+
+        simulator.invoke(createWarmupRequest("function1"));
+        simulator.invoke(createRequest("function1"));
+
+        assertThat(simulator.getWarmupInvocationCount(), is(1L));
+        assertThat(simulator.getWarmupColdStartCount(), is(1L));
+        assertThat(simulator.getInvocationCount(), is(1L));
+        // Warmed up container is reused by the request
+        assertThat(simulator.getColdStartCount(), is(0L));
+        // 150 ms cold start + 200 ms warmup wait is billed as 400 ms and the execution as 100 ms
+        assertThat(simulator.getBilledWarmupGigabyteSeconds(), is(0.4));
+        assertThat(simulator.getBilledGigabyteSeconds(), is(0.5));
+    }
+
+    @Test
+    public void shouldThrottleInvocationsBeyondFunctionConcurrencyLimit() throws Exception {
+        simulator.addFunction(
+                createFunction("function1").
+                        withConcurrencyLimit(1).
+                        // Keeps the first invocation in flight during the test
+                        withExecutionLatency(LatencyDistribution.constant(60 * 60 * 1000)));
+
+        simulator.invokeAsync(createRequest("function1"));
+        assertThrottled(simulator.invokeAsync(createRequest("function1")));
+        assertThrottled(simulator.invokeAsync(createWarmupRequest("function1")));
+
+        assertThat(simulator.getInFlightCount(), is(1));
+        assertThat(simulator.getColdStartCount(), is(1L));
+        assertThat(simulator.getThrottleCount(), is(1L));
+        assertThat(simulator.getWarmupThrottleCount(), is(1L));
+    }
+
+    @Test
+    public void shouldThrottleInvocationsBeyondAccountConcurrencyLimit() throws Exception {
+        simulator.shutdown();
+        simulator = new LambdaFleetSimulator(1, TIME_SCALE, clock);
+        simulator.addFunction(
+                createFunction("function1").
+                        withExecutionLatency(LatencyDistribution.constant(60 * 60 * 1000)));
+        simulator.addFunction(createFunction("function2"));
+
+        simulator.invokeAsync(createRequest("function1"));
+        assertThrottled(simulator.invokeAsync(createRequest("function2")));
+
+        assertThat(simulator.getThrottleCount(), is(1L));
+        // Throttled invocations don't start containers
+        assertThat(simulator.getContainerCount("function2"), is(0));
+    }
+
+    private static class ManualClock implements SimulationClock {
+
+        private final AtomicLong time = new AtomicLong();
+
+        @Override
+        public long currentTimeMillis() {
+            return time.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class TraceReaderTest {
+
+    @Test
+    public void shouldReadCsvTraceInTimestampOrder() throws IOException {
+        String trace =
+                "timestamp,function,qualifier\n" +
+                "# Recorded on 2017-07-30\n" +
+                "\n" +
+                "1501425990000,function2\n" +
+                "2017-07-30T14:46:27.778Z,function1,live\n" +
+                "1501425988000, function1 , \n";
+
+        List<TraceEvent> events = TraceReader.readCsv(new StringReader(trace));
+
+        assertThat(events.size(), is(3));
+        assertThat(events.get(0).getTimestamp(), is(1501425987778L));
+        assertThat(events.get(0).getFunctionName(), is("function1"));
+        assertThat(events.get(0).getQualifier(), is("live"));
+        assertThat(events.get(1).getTimestamp(), is(1501425988000L));
+        assertThat(events.get(1).getFunctionName(), is("function1"));
+        assertThat(events.get(1).getQualifier(), is(nullValue()));
+        assertThat(events.get(2).getTimestamp(), is(1501425990000L));
+        assertThat(events.get(2).getFunctionName(), is("function2"));
+    }
+
+    @Test
+    public void shouldKeepTraceOrderOfEventsWithSameTimestamp() throws IOException {
+        String trace =
+                "1000,function2\n" +
+                "1000,function1\n" +
+                "500,function3\n";
+
+        List<TraceEvent> events = TraceReader.readCsv(new StringReader(trace));
+
+        assertThat(events.get(0).getFunctionName(), is("function3"));
+        assertThat(events.get(1).getFunctionName(), is("function2"));
+        assertThat(events.get(2).getFunctionName(), is("function1"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectCsvLineWithoutFunction() throws IOException {
+        TraceReader.readCsv(new StringReader("1000,function1\n2000\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectCsvLineWithInvalidTimestamp() throws IOException {
+        TraceReader.readCsv(new StringReader("1000,function1\nyesterday,function1\n"));
+    }
+
+    @Test
+    public void shouldReadNdjsonTraceInTimestampOrder() throws IOException {
+        String trace =
+                "{\"timestamp\": 2000, \"function\": \"function1\", \"qualifier\": \"live\"}\n" +
+                "\n" +
+                "{\"timestamp\": \"1970-01-01T00:00:01Z\", \"functionName\": \"function2\"}\n";
+
+        List<TraceEvent> events = TraceReader.readNdjson(new StringReader(trace));
+
+        assertThat(events.size(), is(2));
+        assertThat(events.get(0).getTimestamp(), is(1000L));
+        assertThat(events.get(0).getFunctionName(), is("function2"));
+        assertThat(events.get(0).getQualifier(), is(nullValue()));
+        assertThat(events.get(1).getTimestamp(), is(2000L));
+        assertThat(events.get(1).getFunctionName(), is("function1"));
+        assertThat(events.get(1).getQualifier(), is("live"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectNdjsonLineWhichIsNotJson() throws IOException {
+        TraceReader.readNdjson(new StringReader("{\"timestamp\": 1000, \"function\": \"function1\"}\n1000,function1\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectNdjsonLineWithoutFunction() throws IOException {
+        TraceReader.readNdjson(new StringReader("{\"timestamp\": 1000}\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectNdjsonLineWithoutTimestamp() throws IOException {
+        TraceReader.readNdjson(new StringReader("{\"function\": \"function1\"}\n"));
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.opsgenie.sirocco.warmup.simulation;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class TraceReplayHarnessTest {
+
+    // Replays a 2 minutes trace in 120 milliseconds
+    private static final double SPEED_UP = 1000;
+
+    private static final String TRACE =
+            "timestamp,function,qualifier\n" +
+            "1501425600000,function1\n" +
+            "1501425630000,function2,live\n" +
+            "1501425660000,function1\n" +
+            "1501425720000,function1\n";
+
+    // Constant latencies and idle times which are longer than the trace, so the report is deterministic
+    private static final String FLEET_PROPERTIES =
+            "%1$s.sirocco.simulation.memorySize=1024\n" +
+            "%1$s.sirocco.simulation.coldStartLatency=150\n" +
+            "%1$s.sirocco.simulation.coldStartLatencySigma=0\n" +
+            "%1$s.sirocco.simulation.executionLatency=50\n" +
+            "%1$s.sirocco.simulation.executionLatencySigma=0\n" +
+            "%1$s.sirocco.simulation.minIdleTime=600000\n" +
+            "%1$s.sirocco.simulation.maxIdleTime=600000\n";
+
+    private static ReplayScenario loadScenario(String scenarioName, String scenarioProperties) throws IOException {
+        List<ReplayScenario> scenarios =
+                ReplayScenario.load(new StringReader(
+                        String.format(FLEET_PROPERTIES, scenarioName) + scenarioProperties));
+        assertThat(scenarios.size(), is(1));
+        return scenarios.get(0);
+    }
+
+    @Test
+    public void shouldReportColdStartsAndCostOfTraceWithoutWarmup() throws Exception {
+        ReplayScenario scenario =
+                loadScenario("no-warmup", "no-warmup.sirocco.simulation.disableWarmup=true\n");
+        TraceReplayHarness harness = new TraceReplayHarness(TraceReader.readCsv(new StringReader(TRACE)), SPEED_UP);
+
+        ReplayReport report = harness.replay(scenario);
+
+        assertThat(report.getScenarioName(), is("no-warmup"));
+        assertThat(report.getRequestCount(), is(4L));
+        // First requests of "function1" and "function2" cold start, later ones reuse the idle container
+        assertThat(report.getColdStartCount(), is(2L));
+        assertThat(report.getColdStartRate(), is(0.5));
+        assertThat(report.getThrottleCount(), is(0L));
+        assertThat(report.getWarmupInvocationCount(), is(0L));
+        assertThat(report.getWarmupGigabyteSeconds(), is(0.0));
+        // Cold requests are billed as 200 ms and warm ones as 100 ms with 1 GB memory
+        assertThat(report.getTotalGigabyteSeconds(), is(0.6));
+    }
+
+    @Test
+    public void shouldReportNoColdStartOfTraceWithWarmup() throws Exception {
+        ReplayScenario scenario =
+                loadScenario("standard",
+                        "standard.sirocco.warmup.warmupStrategy=standard\n" +
+                        "standard.sirocco.warmup.invocationCount=1\n" +
+                        // Leaves enough time to the warmup even if it is scaled down by the speed-up
+                        "standard.sirocco.simulation.warmupTimeout=3600000\n");
+        TraceReplayHarness harness = new TraceReplayHarness(TraceReader.readCsv(new StringReader(TRACE)), SPEED_UP);
+
+        ReplayReport report = harness.replay(scenario);
+
+        assertThat(report.getRequestCount(), is(4L));
+        // Containers are warmed up before the first requests
+        assertThat(report.getColdStartCount(), is(0L));
+        assertThat(report.getWarmupInvocationCount() > 0, is(true));
+        assertThat(report.getWarmupGigabyteSeconds() > 0, is(true));
+        assertThat(report.getTotalGigabyteSeconds() > report.getWarmupGigabyteSeconds(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnorderedTrace() {
+        new TraceReplayHarness(
+                Arrays.asList(
+                        new TraceEvent(2000, "function1", null),
+                        new TraceEvent(1000, "function1", null)),
+                SPEED_UP);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyTrace() {
+        new TraceReplayHarness(Arrays.<TraceEvent>asList(), SPEED_UP);
+    }
+
+    @Test
+    public void shouldLoadScenariosPrefixedByTheirNames() throws IOException {
+        List<ReplayScenario> scenarios =
+                ReplayScenario.load(new StringReader(
+                        "stat-aware.sirocco.warmup.warmupStrategy=stat-aware\n" +
+                        "no-warmup.sirocco.simulation.disableWarmup=true\n" +
+                        "stat-aware.sirocco.warmup.warmupScaleFactor= 1.5 \n"));
+
+        assertThat(scenarios.size(), is(2));
+        assertThat(scenarios.get(0).getName(), is("no-warmup"));
+        assertThat(scenarios.get(0).getProperties().size(), is(1));
+        assertThat(scenarios.get(1).getName(), is("stat-aware"));
+        assertThat(scenarios.get(1).getProperties().size(), is(2));
+        assertThat(scenarios.get(1).getPropertyProvider().getFloat("sirocco.warmup.warmupScaleFactor"), is(1.5F));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectScenarioPropertyWithoutScenarioName() throws IOException {
+        ReplayScenario.load(new StringReader("sirocco_warmup_warmupStrategy=standard\n"));
+    }
+
+}
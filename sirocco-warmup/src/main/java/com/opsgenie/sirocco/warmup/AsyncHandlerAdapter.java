@@ -0,0 +1,132 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import org.apache.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adapts {@link LambdaService#invokeAsync(InvokeRequest)} of the {@link LambdaService} implementations
+ * which don't notify {@link AsyncHandler}s on their own to
+ * {@link LambdaService#invokeAsync(InvokeRequest, AsyncHandler)}
+ * by polling the returned {@link Future}s in background.
+ * All the pending invocations are polled by a single thread,
+ * so no thread is held per pending invocation, but handlers are notified
+ * with a delay of up to {@link #POLL_PERIOD_MILLIS} milliseconds.
+ *
+ * @author serkan
+ */
+final class AsyncHandlerAdapter {
+
+    static final long POLL_PERIOD_MILLIS = 10;
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncHandlerAdapter.class);
+
+    private AsyncHandlerAdapter() {
+    }
+
+    static Future<InvokeResult> invokeAsync(LambdaService lambdaService,
+                                            InvokeRequest request,
+                                            AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        Future<InvokeResult> invokeResultFuture = lambdaService.invokeAsync(request);
+        PollerHolder.POLLER.add(new PendingInvocation(request, invokeResultFuture, asyncHandler));
+        return invokeResultFuture;
+    }
+
+    private static class PendingInvocation {
+
+        private final InvokeRequest request;
+        private final Future<InvokeResult> invokeResultFuture;
+        private final AsyncHandler<InvokeRequest, InvokeResult> asyncHandler;
+
+        private PendingInvocation(InvokeRequest request,
+                                  Future<InvokeResult> invokeResultFuture,
+                                  AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+            this.request = request;
+            this.invokeResultFuture = invokeResultFuture;
+            this.asyncHandler = asyncHandler;
+        }
+
+        // Must be called only when the future is done, so getting its result doesn't block
+        private void notifyHandler() {
+            InvokeResult invokeResult;
+            try {
+                invokeResult = invokeResultFuture.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                asyncHandler.onError(e);
+                return;
+            } catch (CancellationException e) {
+                asyncHandler.onError(e);
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                asyncHandler.onError(cause instanceof Exception ? (Exception) cause : e);
+                return;
+            }
+            asyncHandler.onSuccess(request, invokeResult);
+        }
+
+    }
+
+    private static class Poller implements Runnable {
+
+        private final Queue<PendingInvocation> pendingInvocations = new ConcurrentLinkedQueue<PendingInvocation>();
+        private final Thread thread;
+
+        private Poller() {
+            this.thread =
+                    WarmupExecutors.newThreadFactory(
+                            WarmupExecutors.PLATFORM_EXECUTION_MODE,
+                            "sirocco-lambda-service-callback").newThread(this);
+            this.thread.start();
+        }
+
+        private void add(PendingInvocation pendingInvocation) {
+            pendingInvocations.add(pendingInvocation);
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Iterator<PendingInvocation> iterator = pendingInvocations.iterator();
+                while (iterator.hasNext()) {
+                    PendingInvocation pendingInvocation = iterator.next();
+                    if (pendingInvocation.invokeResultFuture.isDone()) {
+                        iterator.remove();
+                        try {
+                            pendingInvocation.notifyHandler();
+                        } catch (Throwable t) {
+                            LOGGER.error("Error occurred while notifying handler of invocation", t);
+                        }
+                    }
+                }
+                // Invocations added after the check unpark the thread,
+                // so it doesn't sleep while there are pending invocations
+                if (pendingInvocations.isEmpty()) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(POLL_PERIOD_MILLIS));
+                }
+            }
+        }
+
+    }
+
+    private static class PollerHolder {
+
+        private static final Poller POLLER = new Poller();
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.opsgenie.sirocco.warmup;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.model.*;
 
 import java.util.concurrent.Future;
@@ -28,6 +29,23 @@ public interface LambdaService {
      */
     Future<InvokeResult> invokeAsync(InvokeRequest request);
 
+    /**
+     * Invokes Lambda function asynchronously and notifies the given {@link AsyncHandler handler}
+     * when the invocation completes, either successfully or with an error.
+     * By default, {@link #invokeAsync(InvokeRequest)} is used and the returned {@link Future}
+     * is polled in background by a single thread shared by all the pending invocations
+     * to notify the handler, so implementations which support completion callbacks natively
+     * should override this method to notify the handler without delay.
+     *
+     * @param request      the {@link InvokeRequest invocation request}
+     * @param asyncHandler the {@link AsyncHandler handler} to be notified on completion of the invocation
+     * @return the {@link Future} which provides the {@link InvokeResult invocation result}
+     */
+    default Future<InvokeResult> invokeAsync(InvokeRequest request,
+                                             AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        return AsyncHandlerAdapter.invokeAsync(this, request, asyncHandler);
+    }
+
     /**
      * Lists Lambda functions.
      *
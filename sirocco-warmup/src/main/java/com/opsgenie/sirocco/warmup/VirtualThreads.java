@@ -0,0 +1,40 @@
+package com.opsgenie.sirocco.warmup;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access point to virtual threads. This is the base (JDK 8) version
+ * where virtual threads are not supported. On JDK 21+, it is replaced by
+ * the version under <code>META-INF/versions/21</code> of the multi-release jar.
+ * If virtual threads are requested anyway, platform threads are used instead.
+ *
+ * @author serkan
+ */
+final class VirtualThreads {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        LOGGER.warn(
+                "Virtual threads are not supported on this JDK (requires JDK 21+). " +
+                "Creating platform threads for " + threadNamePrefix + " ...");
+        return WarmupExecutors.newThreadFactory(WarmupExecutors.PLATFORM_EXECUTION_MODE, threadNamePrefix);
+    }
+
+    static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        // Cached thread pool also executes every task concurrently, but reuses the idle threads
+        return Executors.newCachedThreadPool(newThreadFactory(threadNamePrefix));
+    }
+
+}
@@ -0,0 +1,343 @@
+package com.opsgenie.sirocco.warmup;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ *      Immutable snapshot of warmup related properties built once from
+ *      environment variables, system properties and maps.
+ *      Values are parsed into all the supported types while building the snapshot,
+ *      so typed lookups are just map lookups, and property names are kept sorted
+ *      as index for looking up them by prefix (see {@link #getPropertyNames(String)}).
+ * </p>
+ * <p>
+ *      Typed lookups have the same semantics with {@link com.opsgenie.sirocco.warmup.impl.SystemPropertyWarmupPropertyProvider}:
+ *      <code>boolean</code> properties are <code>true</code> only if their values are <code>true</code> (ignoring case),
+ *      <code>integer</code> and <code>long</code> properties are <code>null</code> if their values are not valid numbers
+ *      and {@link NumberFormatException} is thrown for <code>float</code> and <code>double</code> properties
+ *      whose values are not valid numbers.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class WarmupConfig implements WarmupPropertyProvider {
+
+    private static final WarmupConfig EMPTY = new WarmupConfig(new TreeMap<String, Value>());
+
+    private final SortedMap<String, Value> values;
+    private final Set<String> propertyNames;
+
+    private WarmupConfig(SortedMap<String, Value> values) {
+        this.values = values;
+        this.propertyNames = Collections.unmodifiableSet(values.keySet());
+    }
+
+    /**
+     * Gets the empty {@link WarmupConfig}.
+     *
+     * @return the empty {@link WarmupConfig}
+     */
+    public static WarmupConfig empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a {@link WarmupConfig} from the current system properties and environment variables.
+     * Environment variables override system properties with the same name like
+     * they were copied into system properties before.
+     *
+     * @return the created {@link WarmupConfig}
+     */
+    public static WarmupConfig fromEnvironment() {
+        return builder()
+                .withSystemProperties(System.getProperties())
+                .withEnvironmentVariables(System.getenv())
+                .build();
+    }
+
+    /**
+     * Creates a new {@link Builder} to build {@link WarmupConfig}.
+     * Properties of the sources added later override the properties of the sources added before
+     * when they have the same names.
+     *
+     * @return the created {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    @Override
+    public Set<String> getPropertyNames(String prefix) {
+        if (prefix.isEmpty()) {
+            return propertyNames;
+        }
+        char lastChar = prefix.charAt(prefix.length() - 1);
+        if (lastChar == Character.MAX_VALUE) {
+            return WarmupPropertyProvider.super.getPropertyNames(prefix);
+        }
+        // Names starting with the prefix are between the prefix
+        // and the prefix whose last character is incremented
+        String prefixEnd = prefix.substring(0, prefix.length() - 1) + (char) (lastChar + 1);
+        return Collections.unmodifiableSet(values.subMap(prefix, prefixEnd).keySet());
+    }
+
+    @Override
+    public Boolean getBoolean(String name) {
+        Value value = values.get(name);
+        return value != null && value.booleanValue;
+    }
+
+    @Override
+    public Boolean getBoolean(String name, Boolean defaultValue) {
+        Value value = values.get(name);
+        return value != null ? value.booleanValue : defaultValue;
+    }
+
+    @Override
+    public Integer getInteger(String name) {
+        Value value = values.get(name);
+        return value != null ? value.integerValue : null;
+    }
+
+    @Override
+    public Float getFloat(String name) {
+        Value value = values.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (value.floatValue == null) {
+            throw new NumberFormatException("For input string: \"" + value.stringValue + "\"");
+        }
+        return value.floatValue;
+    }
+
+    @Override
+    public Long getLong(String name) {
+        Value value = values.get(name);
+        return value != null ? value.longValue : null;
+    }
+
+    @Override
+    public Double getDouble(String name) {
+        Value value = values.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (value.doubleValue == null) {
+            throw new NumberFormatException("For input string: \"" + value.stringValue + "\"");
+        }
+        return value.doubleValue;
+    }
+
+    @Override
+    public String getString(String name) {
+        Value value = values.get(name);
+        return value != null ? value.stringValue : null;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupConfig{" +
+                "propertyNames=" + propertyNames +
+                '}';
+    }
+
+    /**
+     * Builder of {@link WarmupConfig}s.
+     */
+    public static final class Builder {
+
+        private final Map<String, Value> values = new HashMap<String, Value>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds all the properties of the given {@link WarmupConfig}.
+         *
+         * @param config the {@link WarmupConfig} whose properties to be added
+         * @return this {@link Builder}
+         */
+        public Builder withConfig(WarmupConfig config) {
+            values.putAll(config.values);
+            return this;
+        }
+
+        /**
+         * Adds the given environment variables.
+         * Since AWS Lambda environment variable names cannot contain <code>.</code> character,
+         * <code>_</code> characters in the names are replaced with <code>.</code>
+         * and the values are trimmed.
+         *
+         * @param environmentVariables the environment variables to be added
+         * @return this {@link Builder}
+         */
+        public Builder withEnvironmentVariables(Map<String, String> environmentVariables) {
+            for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
+                values.put(e.getKey().replace('_', '.'), Value.of(e.getValue().trim()));
+            }
+            return this;
+        }
+
+        /**
+         * Adds the given system properties.
+         *
+         * @param systemProperties the system properties to be added
+         * @return this {@link Builder}
+         */
+        public Builder withSystemProperties(Properties systemProperties) {
+            for (String name : systemProperties.stringPropertyNames()) {
+                values.put(name, Value.of(systemProperties.getProperty(name)));
+            }
+            return this;
+        }
+
+        /**
+         * Adds the given properties. Values can be typed (such as {@link Integer} or {@link Boolean})
+         * or {@link String}s to be parsed. Properties with <code>null</code> values are ignored.
+         *
+         * @param properties the properties to be added
+         * @return this {@link Builder}
+         */
+        public Builder withProperties(Map<String, ?> properties) {
+            for (Map.Entry<String, ?> e : properties.entrySet()) {
+                withProperty(e.getKey(), e.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * Adds the given property.
+         *
+         * @param name  name of the property
+         * @param value value of the property, can be typed (such as {@link Integer} or {@link Boolean})
+         *              or {@link String} to be parsed. Property is ignored if it is <code>null</code>.
+         * @return this {@link Builder}
+         */
+        public Builder withProperty(String name, Object value) {
+            if (value != null) {
+                values.put(name, Value.of(value));
+            }
+            return this;
+        }
+
+        /**
+         * Builds the {@link WarmupConfig} from the added sources.
+         *
+         * @return the built {@link WarmupConfig}
+         */
+        public WarmupConfig build() {
+            return new WarmupConfig(new TreeMap<String, Value>(values));
+        }
+
+    }
+
+    private static final class Value {
+
+        private final String stringValue;
+        private final boolean booleanValue;
+        private final Integer integerValue;
+        private final Long longValue;
+        private final Float floatValue;
+        private final Double doubleValue;
+
+        private Value(String stringValue, boolean booleanValue,
+                      Integer integerValue, Long longValue,
+                      Float floatValue, Double doubleValue) {
+            this.stringValue = stringValue;
+            this.booleanValue = booleanValue;
+            this.integerValue = integerValue;
+            this.longValue = longValue;
+            this.floatValue = floatValue;
+            this.doubleValue = doubleValue;
+        }
+
+        private static Value of(Object value) {
+            if (value instanceof Boolean) {
+                boolean booleanValue = (Boolean) value;
+                return new Value(value.toString(), booleanValue, null, null, null, null);
+            } else if (value instanceof Number
+                    && !(value instanceof Float || value instanceof Double || value instanceof BigDecimal)) {
+                long longValue = ((Number) value).longValue();
+                return new Value(value.toString(), false,
+                                 toInteger(longValue), longValue,
+                                 (float) longValue, (double) longValue);
+            } else if (value instanceof Number) {
+                Number number = (Number) value;
+                return new Value(value.toString(), false,
+                                 null, null,
+                                 number.floatValue(), number.doubleValue());
+            } else {
+                return of(value.toString());
+            }
+        }
+
+        private static Value of(String value) {
+            Long longValue = null;
+            Float floatValue = null;
+            Double doubleValue = null;
+            // Skip parsing values which cannot be numbers to not pay for the exceptions
+            if (isNumberStart(value.trim())) {
+                longValue = decodeLong(value);
+                floatValue = parseFloat(value);
+                doubleValue = parseDouble(value);
+            }
+            return new Value(value, "true".equalsIgnoreCase(value),
+                             longValue != null ? toInteger(longValue) : null, longValue,
+                             floatValue, doubleValue);
+        }
+
+        private static boolean isNumberStart(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            char c = value.charAt(0);
+            return (c >= '0' && c <= '9')
+                    || c == '-' || c == '+' || c == '.' || c == '#'
+                    // "NaN" and "Infinity"
+                    || c == 'N' || c == 'I';
+        }
+
+        private static Integer toInteger(long value) {
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : null;
+        }
+
+        private static Long decodeLong(String value) {
+            try {
+                return Long.decode(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Float parseFloat(String value) {
+            try {
+                return Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Double parseDouble(String value) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
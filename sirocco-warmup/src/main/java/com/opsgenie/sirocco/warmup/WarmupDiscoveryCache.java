@@ -0,0 +1,226 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ *      In-memory cache for the discovered functions to warmup
+ *      which lives as long as the owner {@link WarmupHandler} instance
+ *      (so as long as the warmup handler container is alive).
+ * </p>
+ * <p>
+ *      Discovered functions are cached as a whole with a TTL.
+ *      When the TTL expires, the stale result is still served for a while
+ *      (<b>stale-while-revalidate</b>) and revalidation is done in background.
+ *      Besides the whole discovery result, every discovered function is cached individually
+ *      with a fingerprint of its configuration, so the aliases of the functions
+ *      whose configurations have not been changed are reused on revalidation
+ *      without calling <code>ListAliases</code> again.
+ * </p>
+ *
+ * @author serkan
+ */
+public class WarmupDiscoveryCache {
+
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final long aliasTtlMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param ttlMillis       the time in milliseconds for which a discovery result is fresh
+     * @param maxStaleMillis  the time in milliseconds for which an expired discovery result
+     *                        is still served while it is being revalidated in background
+     * @param aliasTtlMillis  the time in milliseconds for which the resolved alias of a function
+     *                        can be reused even though its configuration has not been changed
+     */
+    public WarmupDiscoveryCache(long ttlMillis, long maxStaleMillis, long aliasTtlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.aliasTtlMillis = aliasTtlMillis;
+    }
+
+    /**
+     * Generates fingerprint of the given function configuration.
+     * Fingerprint changes whenever the function code or configuration
+     * (including environment variables) is updated or a new version is published.
+     *
+     * @param config the {@link FunctionConfiguration function configuration}
+     * @return the fingerprint of the given function configuration
+     */
+    public static String fingerprintOf(FunctionConfiguration config) {
+        return config.getLastModified() + "|" + config.getVersion() + "|" + config.getCodeSha256();
+    }
+
+    /**
+     * Gets the current snapshot.
+     *
+     * @return the current {@link Snapshot snapshot} if there is,
+     *         <code>null</code> otherwise
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks whether the given snapshot is fresh.
+     *
+     * @param snapshot    the {@link Snapshot snapshot} to check
+     * @param currentTime the current time in milliseconds
+     * @return <code>true</code> if the given snapshot is fresh,
+     *         <code>false</code> otherwise
+     */
+    public boolean isFresh(Snapshot snapshot, long currentTime) {
+        return snapshot != null && currentTime - snapshot.creationTime <= ttlMillis;
+    }
+
+    /**
+     * Checks whether the given snapshot can be served while it is being revalidated.
+     *
+     * @param snapshot    the {@link Snapshot snapshot} to check
+     * @param currentTime the current time in milliseconds
+     * @return <code>true</code> if the given snapshot can be served as stale,
+     *         <code>false</code> otherwise
+     */
+    public boolean isServableAsStale(Snapshot snapshot, long currentTime) {
+        return snapshot != null && currentTime - snapshot.creationTime <= ttlMillis + maxStaleMillis;
+    }
+
+    /**
+     * Gets the cached entry of the given function
+     * if its configuration has not been changed and its alias is still fresh.
+     *
+     * @param config      the current {@link FunctionConfiguration configuration} of the function
+     * @param currentTime the current time in milliseconds
+     * @return the reusable {@link Entry entry} of the function if there is,
+     *         <code>null</code> otherwise
+     */
+    public Entry getReusableEntry(FunctionConfiguration config, long currentTime) {
+        Snapshot currentSnapshot = snapshot;
+        if (currentSnapshot == null) {
+            return null;
+        }
+        Entry entry = currentSnapshot.entryMap.get(config.getFunctionName());
+        if (entry == null
+                || !entry.fingerprint.equals(fingerprintOf(config))
+                || currentTime - entry.aliasResolveTime > aliasTtlMillis) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Replaces the current snapshot with the given entries.
+     *
+     * @param entries     the discovered function {@link Entry entries}
+     * @param currentTime the current time in milliseconds
+     * @return the new {@link Snapshot snapshot}
+     */
+    public Snapshot update(List<Entry> entries, long currentTime) {
+        Snapshot newSnapshot = new Snapshot(entries, currentTime);
+        snapshot = newSnapshot;
+        return newSnapshot;
+    }
+
+    /**
+     * Tries to acquire the right to revalidate, so there is at most one revalidation at a time.
+     *
+     * @return <code>true</code> if the caller should revalidate,
+     *         <code>false</code> if there is already an ongoing revalidation
+     */
+    public boolean tryStartRefresh() {
+        return refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * Releases the right to revalidate acquired by {@link #tryStartRefresh()}.
+     */
+    public void finishRefresh() {
+        refreshing.set(false);
+    }
+
+    /**
+     * Clears the cached discovery result.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Immutable discovery result.
+     */
+    public static class Snapshot {
+
+        private final List<Entry> entries;
+        private final Map<String, Entry> entryMap;
+        private final long creationTime;
+
+        private Snapshot(List<Entry> entries, long creationTime) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.entryMap = new HashMap<String, Entry>(entries.size());
+            for (Entry entry : entries) {
+                entryMap.put(entry.config.getFunctionName(), entry);
+            }
+            this.creationTime = creationTime;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+    }
+
+    /**
+     * Discovered function to warmup with its resolved alias.
+     */
+    public static class Entry {
+
+        private final FunctionConfiguration config;
+        private final String fingerprint;
+        private final String alias;
+        private final long aliasResolveTime;
+
+        public Entry(FunctionConfiguration config, String alias, long aliasResolveTime) {
+            this.config = config;
+            this.fingerprint = fingerprintOf(config);
+            this.alias = alias;
+            this.aliasResolveTime = aliasResolveTime;
+        }
+
+        public FunctionConfiguration getConfig() {
+            return config;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public long getAliasResolveTime() {
+            return aliasResolveTime;
+        }
+
+        /**
+         * Creates a new entry for the given (possibly updated but with same fingerprint)
+         * configuration by keeping the resolved alias of this entry.
+         *
+         * @param config the current {@link FunctionConfiguration configuration} of the function
+         * @return the new {@link Entry entry}
+         */
+        public Entry withConfig(FunctionConfiguration config) {
+            return new Entry(config, alias, aliasResolveTime);
+        }
+
+    }
+
+}
@@ -0,0 +1,351 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.impl.NoOpWarmupMetrics;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *      Registry of the executors which are used for background work of warmup
+ *      (such as discovery). It is owned by {@link WarmupHandler}
+ *      and shared with its warmup strategies, so there is a single bounded thread pool per handler
+ *      for the short tasks of them. Delegated warmup strategies, which block for the whole warmup,
+ *      are not run by the registry but by their own executor sized to their count
+ *      (see {@link com.opsgenie.sirocco.warmup.strategy.impl.StrategyAwareWarmupStrategy}),
+ *      which uses the execution mode of the registry.
+ * </p>
+ * <p>
+ *      Executors returned by {@link #getExecutor(String, int)} are named views over the shared pool
+ *      which execute at most given count of their tasks concurrently and queue the rest.
+ *      A view can be shut down on its own without affecting the shared pool and the other views,
+ *      and then a new view is created on the next request with its name.
+ *      Threads of the shared pool are terminated when they are idle, so an idle registry doesn't hold any thread.
+ *      In {@link WarmupExecutors#VIRTUAL_EXECUTION_MODE virtual execution mode}, tasks are executed by virtual threads
+ *      and concurrency is bounded only by the views.
+ * </p>
+ * <p>
+ *      Counts of the active and queued tasks are recorded to {@link WarmupMetrics}
+ *      on every task submission for tracking the saturation of the registry.
+ *      The registry is shut down on {@link #close()}.
+ * </p>
+ *
+ * @author serkan
+ */
+public class WarmupExecutorRegistry implements Closeable {
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final String executionMode;
+    private final int threadCount;
+    private final WarmupMetrics warmupMetrics;
+    private final ExecutorService executorService;
+    private final ConcurrentMap<String, BoundedExecutor> executors =
+            new ConcurrentHashMap<String, BoundedExecutor>();
+    private final AtomicInteger activeTaskCount = new AtomicInteger();
+    private final AtomicInteger queuedTaskCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param executionMode the execution mode (see {@link WarmupExecutors})
+     * @param threadCount   the maximum count of the threads of the shared pool
+     * @param warmupMetrics the {@link WarmupMetrics} to record saturation of the registry
+     */
+    public WarmupExecutorRegistry(String executionMode, int threadCount, WarmupMetrics warmupMetrics) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        this.executionMode = executionMode;
+        this.threadCount = threadCount;
+        this.warmupMetrics = warmupMetrics;
+        if (WarmupExecutors.VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            this.executorService = WarmupExecutors.newUnboundedExecutor(executionMode, "sirocco-warmup");
+        } else {
+            ThreadPoolExecutor threadPoolExecutor =
+                    new ThreadPoolExecutor(
+                            threadCount, threadCount,
+                            IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(),
+                            WarmupExecutors.newThreadFactory(executionMode, "sirocco-warmup"));
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            this.executorService = threadPoolExecutor;
+        }
+    }
+
+    /**
+     * Gets the process-wide default registry which is used
+     * when no registry is given to the components which require one.
+     * The default registry is never closed.
+     *
+     * @return the default registry
+     */
+    public static WarmupExecutorRegistry getDefault() {
+        return DefaultRegistryHolder.DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Gets the default thread count of a registry whose tasks
+     * are planned to be executed with the given concurrency at most.
+     *
+     * @param plannedConcurrency the planned concurrency of the tasks
+     * @return the default thread count
+     */
+    public static int getDefaultThreadCount(int plannedConcurrency) {
+        return Math.max(2 * Runtime.getRuntime().availableProcessors(), plannedConcurrency);
+    }
+
+    public String getExecutionMode() {
+        return executionMode;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Gets the count of the tasks which are being executed.
+     *
+     * @return the count of the active tasks
+     */
+    public int getActiveTaskCount() {
+        return activeTaskCount.get();
+    }
+
+    /**
+     * Gets the count of the tasks which are submitted but not started yet.
+     *
+     * @return the count of the queued tasks
+     */
+    public int getQueuedTaskCount() {
+        return queuedTaskCount.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the executor with the given name which executes
+     * at most given count of its tasks concurrently.
+     * Executors are created on their first request (or on the first request after they are shut down)
+     * and the concurrency of that request is used for them.
+     *
+     * @param name           name of the executor
+     * @param maxConcurrency the maximum count of the tasks of the executor to be executed concurrently
+     * @return the executor with the given name
+     */
+    public ExecutorService getExecutor(String name, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        while (true) {
+            BoundedExecutor executor = executors.get(name);
+            if (executor == null) {
+                BoundedExecutor newExecutor = new BoundedExecutor(maxConcurrency);
+                executor = executors.putIfAbsent(name, newExecutor);
+                if (executor == null) {
+                    return newExecutor;
+                }
+            }
+            if (closed || !executor.shutdown) {
+                return executor;
+            }
+            // Replace the executor which has been shut down by its user
+            BoundedExecutor newExecutor = new BoundedExecutor(maxConcurrency);
+            if (executors.replace(name, executor, newExecutor)) {
+                return newExecutor;
+            }
+        }
+    }
+
+    /**
+     * Shuts down the registry. Already submitted tasks are executed
+     * but new tasks are rejected by all the executors of the registry.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executorService.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupExecutorRegistry{" +
+                "executionMode='" + executionMode + '\'' +
+                ", threadCount=" + threadCount +
+                ", activeTaskCount=" + activeTaskCount +
+                ", queuedTaskCount=" + queuedTaskCount +
+                ", closed=" + closed +
+                '}';
+    }
+
+    private static class DefaultRegistryHolder {
+
+        private static final WarmupExecutorRegistry DEFAULT_REGISTRY =
+                new WarmupExecutorRegistry(
+                        WarmupExecutors.PLATFORM_EXECUTION_MODE,
+                        getDefaultThreadCount(WarmupHandler.DEFAULT_ALIAS_DISCOVERY_CONCURRENCY),
+                        NoOpWarmupMetrics.INSTANCE);
+
+    }
+
+    private class BoundedExecutor extends AbstractExecutorService {
+
+        private final int maxConcurrency;
+        private final Queue<Runnable> pendingTasks = new ArrayDeque<Runnable>();
+        private final Set<Thread> runningThreads = new HashSet<Thread>();
+        private int runningTaskCount;
+        private volatile boolean shutdown;
+
+        private BoundedExecutor(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (closed) {
+                throw new RejectedExecutionException("Executor registry has been closed");
+            }
+            int queued = queuedTaskCount.incrementAndGet();
+            synchronized (this) {
+                if (shutdown) {
+                    queuedTaskCount.decrementAndGet();
+                    throw new RejectedExecutionException("Executor has been shut down");
+                }
+                pendingTasks.add(task);
+            }
+            warmupMetrics.recordExecutorTasks(activeTaskCount.get(), queued);
+            schedulePendingTasks();
+        }
+
+        private void schedulePendingTasks() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    if (runningTaskCount >= maxConcurrency) {
+                        return;
+                    }
+                    task = pendingTasks.poll();
+                    if (task == null) {
+                        return;
+                    }
+                    runningTaskCount++;
+                }
+                try {
+                    executorService.execute(new Worker(task));
+                } catch (RejectedExecutionException e) {
+                    // Registry has been closed after the task was queued
+                    synchronized (this) {
+                        runningTaskCount--;
+                        notifyAll();
+                    }
+                    queuedTaskCount.decrementAndGet();
+                    if (task instanceof Future) {
+                        ((Future) task).cancel(false);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Shuts down only this executor. Already submitted tasks are executed
+         * but new tasks are rejected. The shared pool of the registry is not affected.
+         */
+        @Override
+        public synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        /**
+         * Shuts down only this executor by removing its queued tasks and
+         * interrupting the threads which are executing its tasks.
+         * The shared pool of the registry is not affected.
+         */
+        @Override
+        public synchronized List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> tasks = new ArrayList<Runnable>(pendingTasks);
+            pendingTasks.clear();
+            queuedTaskCount.addAndGet(-tasks.size());
+            for (Thread thread : runningThreads) {
+                thread.interrupt();
+            }
+            notifyAll();
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown || closed;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return isShutdown() && runningTaskCount == 0 && pendingTasks.isEmpty();
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                wait(remainingMillis);
+            }
+            return true;
+        }
+
+        private class Worker implements Runnable {
+
+            private final Runnable task;
+
+            private Worker(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                queuedTaskCount.decrementAndGet();
+                activeTaskCount.incrementAndGet();
+                Thread thread = Thread.currentThread();
+                synchronized (BoundedExecutor.this) {
+                    runningThreads.add(thread);
+                }
+                try {
+                    task.run();
+                } finally {
+                    activeTaskCount.decrementAndGet();
+                    synchronized (BoundedExecutor.this) {
+                        runningThreads.remove(thread);
+                        runningTaskCount--;
+                        BoundedExecutor.this.notifyAll();
+                    }
+                    // Interrupt of "shutdownNow" must not leak to the next task of the pooled thread
+                    Thread.interrupted();
+                    schedulePendingTasks();
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.opsgenie.sirocco.warmup;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *      Factory of the executors used for background work of warmup
+ *      (discovery, delegation to warmup strategies and invocations through AWS Lambda client)
+ *      according to the configured execution mode (see {@link WarmupHandler#EXECUTION_MODE_PROP_NAME}).
+ * </p>
+ * <ul>
+ *      <li>
+ *          {@link #PLATFORM_EXECUTION_MODE}: Work is executed by pooled platform (daemon) threads.
+ *      </li>
+ *      <li>
+ *          {@link #VIRTUAL_EXECUTION_MODE}: Work is executed by virtual threads,
+ *          so blocking calls don't hold platform threads and there is no pool to be sized.
+ *          Virtual threads are supported on JDK 21+ by the multi-release jar,
+ *          so platform threads are used on older JDKs.
+ *      </li>
+ * </ul>
+ *
+ * @author serkan
+ */
+public final class WarmupExecutors {
+
+    /**
+     * Execution mode which executes work by platform threads.
+     */
+    public static final String PLATFORM_EXECUTION_MODE = "platform";
+    /**
+     * Execution mode which executes work by virtual threads (on JDK 21+).
+     * On older JDKs, executors and thread factories created for this mode
+     * fall back to platform threads with a warning.
+     */
+    public static final String VIRTUAL_EXECUTION_MODE = "virtual";
+
+    private static final Logger LOGGER = Logger.getLogger(WarmupExecutors.class);
+
+    private WarmupExecutors() {
+    }
+
+    /**
+     * Checks whether virtual threads are supported on the running JDK.
+     *
+     * @return <code>true</code> if virtual threads are supported, <code>false</code> otherwise
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Gets the execution mode configured by {@link WarmupHandler#EXECUTION_MODE_PROP_NAME} property.
+     * If {@link #VIRTUAL_EXECUTION_MODE} is configured but virtual threads are not supported
+     * on the running JDK, {@link #PLATFORM_EXECUTION_MODE} is returned.
+     *
+     * @param warmupPropertyProvider the {@link WarmupPropertyProvider} to get the configured execution mode
+     * @return the execution mode to be used
+     */
+    public static String getExecutionMode(WarmupPropertyProvider warmupPropertyProvider) {
+        String executionMode =
+                warmupPropertyProvider.getString(
+                        WarmupHandler.EXECUTION_MODE_PROP_NAME,
+                        WarmupHandler.DEFAULT_EXECUTION_MODE);
+        if (PLATFORM_EXECUTION_MODE.equalsIgnoreCase(executionMode)) {
+            return PLATFORM_EXECUTION_MODE;
+        } else if (VIRTUAL_EXECUTION_MODE.equalsIgnoreCase(executionMode)) {
+            if (!isVirtualThreadSupported()) {
+                LOGGER.warn(
+                        "Virtual threads are not supported on this JDK (requires JDK 21+). " +
+                        "Going on with platform threads ...");
+                return PLATFORM_EXECUTION_MODE;
+            }
+            return VIRTUAL_EXECUTION_MODE;
+        } else {
+            throw new IllegalArgumentException("Unknown execution mode: " + executionMode);
+        }
+    }
+
+    /**
+     * Creates an executor which executes all the submitted tasks concurrently.
+     *
+     * @param executionMode    the execution mode
+     * @param threadNamePrefix the prefix of the names of the threads
+     * @return the created executor
+     */
+    public static ExecutorService newUnboundedExecutor(String executionMode, String threadNamePrefix) {
+        if (VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            return VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+        } else {
+            return Executors.newCachedThreadPool(newThreadFactory(executionMode, threadNamePrefix));
+        }
+    }
+
+    /**
+     * Creates an executor which executes at most the given count of the submitted tasks concurrently
+     * by platform threads and queues the others. Idle threads are terminated after a minute.
+     * In {@link #VIRTUAL_EXECUTION_MODE}, all the submitted tasks are executed concurrently
+     * by virtual threads as blocking tasks don't hold platform threads.
+     *
+     * @param executionMode    the execution mode
+     * @param threadCount      the maximum count of the platform threads
+     * @param threadNamePrefix the prefix of the names of the threads
+     * @return the created executor
+     */
+    public static ExecutorService newBoundedExecutor(String executionMode, int threadCount, String threadNamePrefix) {
+        if (VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            return VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+        } else {
+            ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            threadCount, threadCount,
+                            1, TimeUnit.MINUTES,
+                            new LinkedBlockingQueue<Runnable>(),
+                            newThreadFactory(executionMode, threadNamePrefix));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * Creates a {@link ThreadFactory} for the given execution mode.
+     *
+     * @param executionMode    the execution mode
+     * @param threadNamePrefix the prefix of the names of the created threads
+     * @return the created {@link ThreadFactory}
+     */
+    public static ThreadFactory newThreadFactory(String executionMode, String threadNamePrefix) {
+        if (VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            return VirtualThreads.newThreadFactory(threadNamePrefix);
+        } else {
+            return new ThreadFactory() {
+                private final AtomicInteger threadCounter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, threadNamePrefix + "-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+        }
+    }
+
+}
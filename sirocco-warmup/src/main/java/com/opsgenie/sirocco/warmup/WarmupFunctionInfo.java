@@ -17,6 +17,13 @@ public class WarmupFunctionInfo {
     public WarmupFunctionInfo() {
     }
 
+    public WarmupFunctionInfo(WarmupFunctionInfo info) {
+        this.alias = info.alias;
+        this.warmupStrategy = info.warmupStrategy;
+        this.invocationCount = info.invocationCount;
+        this.invocationData = info.invocationData;
+    }
+
     public String getAlias() {
         return alias;
     }
@@ -1,5 +1,6 @@
 package com.opsgenie.sirocco.warmup;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.lambda.AWSLambdaAsyncClient;
 import com.amazonaws.services.lambda.model.*;
@@ -12,8 +13,14 @@ import com.opsgenie.core.instance.InstanceProvider;
 import com.opsgenie.core.instance.InstanceScope;
 import com.opsgenie.core.util.ExceptionUtil;
 import com.opsgenie.sirocco.api.util.LambdaUtil;
+import com.opsgenie.sirocco.warmup.impl.AwsCredentials;
+import com.opsgenie.sirocco.warmup.impl.EmfWarmupMetrics;
+import com.opsgenie.sirocco.warmup.impl.FileWarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.impl.FileWarmupStateStore;
+import com.opsgenie.sirocco.warmup.impl.HttpLambdaService;
+import com.opsgenie.sirocco.warmup.impl.InMemoryWarmupStateStore;
+import com.opsgenie.sirocco.warmup.impl.NoOpWarmupMetrics;
 import com.opsgenie.sirocco.warmup.impl.SdkLambdaService;
-import com.opsgenie.sirocco.warmup.impl.SystemPropertyWarmupPropertyProvider;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategyProvider;
 import com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy;
@@ -21,8 +28,11 @@ import com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategyProvider;
 import com.opsgenie.sirocco.warmup.strategy.impl.StrategyAwareWarmupStrategy;
 import org.apache.log4j.Logger;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <p>
@@ -50,12 +60,12 @@ import java.util.*;
  *
  * @author serkan
  */
-public class WarmupHandler implements RequestHandler<Object, Object> {
-
-    static {
-        init();
-        EnvironmentInitializerManager.ensureInitialized();
-    }
+public class WarmupHandler
+        implements RequestHandler<Object, Object>, Closeable,
+                   WarmupHandlerDefaults.DefaultLambdaService,
+                   WarmupHandlerDefaults.DefaultWarmupPropertyProvider,
+                   WarmupHandlerDefaults.DefaultWarmupStrategyProvider,
+                   WarmupHandlerDefaults.DefaultWarmupStrategy {
 
     private static final Logger LOGGER = Logger.getLogger(WarmupHandler.class);
 
@@ -139,6 +149,33 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     public static final String WARMUP_GROUP_NAME_PROP_NAME =
             "sirocco.warmup.groupName";
 
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * count of the shards (warmup handler deployments) which the functions to warmup
+     * are distributed between. If it is greater than <code>1</code>, this handler only discovers
+     * and warms-up the functions in its own shard (specified by {@link #SHARD_INDEX_PROP_NAME})
+     * (see {@link WarmupShard}).
+     */
+    public static final String SHARD_COUNT_PROP_NAME =
+            "sirocco.warmup.shardCount";
+    /**
+     * Default value for {@link #SHARD_COUNT_PROP_NAME} property.
+     * The default value is <code>1</code> (sharding is not active).
+     */
+    public static final int DEFAULT_SHARD_COUNT = 1;
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * index of the shard (in <code>[0, shard_count)</code>) owned by this handler
+     * when sharding is active by {@link #SHARD_COUNT_PROP_NAME}.
+     */
+    public static final String SHARD_INDEX_PROP_NAME =
+            "sirocco.warmup.shardIndex";
+    /**
+     * Default value for {@link #SHARD_INDEX_PROP_NAME} property.
+     * The default value is <code>0</code>.
+     */
+    public static final int DEFAULT_SHARD_INDEX = 0;
+
     /**
      * Name of the <code>string</code> typed property which configures
      * name of the {@link WarmupStrategy} implementation to be used.
@@ -214,43 +251,372 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     public static final String DISABLE_ALIAS_DISCOVERY_PROP_NAME =
             "sirocco.warmup.disableAliasDiscovery";
 
-    public static final LambdaService DEFAULT_LAMBDA_SERVICE =
-            createDefaultLambdaService();
-    public static final WarmupPropertyProvider DEFAULT_WARMUP_PROPERTY_PROVIDER =
-            new SystemPropertyWarmupPropertyProvider();
-    public static final WarmupStrategyProvider DEFAULT_WARMUP_STRATEGY_PROVIDER =
-            new StandardWarmupStrategyProvider();
-    public static final WarmupStrategy DEFAULT_WARMUP_STRATEGY =
-            createDefaultWarmupStrategy(DEFAULT_WARMUP_PROPERTY_PROVIDER);
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * the maximum number of functions whose aliases are discovered concurrently.
+     */
+    public static final String ALIAS_DISCOVERY_CONCURRENCY_PROP_NAME =
+            "sirocco.warmup.aliasDiscoveryConcurrency";
+    /**
+     * Default value for {@link #ALIAS_DISCOVERY_CONCURRENCY_PROP_NAME} property.
+     * The default value is <code>8</code>.
+     */
+    public static final int DEFAULT_ALIAS_DISCOVERY_CONCURRENCY = 8;
+
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * how many times a discovery call (<code>ListFunctions</code> or <code>ListAliases</code>)
+     * is retried with exponential backoff when it is throttled by AWS Lambda.
+     */
+    public static final String DISCOVERY_MAX_RETRY_COUNT_PROP_NAME =
+            "sirocco.warmup.discoveryMaxRetryCount";
+    /**
+     * Default value for {@link #DISCOVERY_MAX_RETRY_COUNT_PROP_NAME} property.
+     * The default value is <code>5</code>.
+     */
+    public static final int DEFAULT_DISCOVERY_MAX_RETRY_COUNT = 5;
+
+    /**
+     * Name of the <code>boolean</code> typed property which disables
+     * caching of discovered functions between warmup runs.
+     * When discovery cache is active (active by default),
+     * discovered functions and their aliases are kept in memory
+     * as long as the warmup handler container is alive.
+     */
+    public static final String DISABLE_DISCOVERY_CACHE_PROP_NAME =
+            "sirocco.warmup.disableDiscoveryCache";
+
+    /**
+     * Name of the <code>long</code> typed property which configures
+     * the time in milliseconds for which discovered functions
+     * are used from cache without revalidation.
+     */
+    public static final String DISCOVERY_CACHE_TTL_MILLIS_PROP_NAME =
+            "sirocco.warmup.discoveryCacheTtl";
+    /**
+     * Default value for {@link #DISCOVERY_CACHE_TTL_MILLIS_PROP_NAME} property.
+     * The default value is <code>10 minutes</code>.
+     */
+    public static final long DEFAULT_DISCOVERY_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * Name of the <code>long</code> typed property which configures
+     * the time in milliseconds for which expired discovered functions
+     * are still used from cache while they are being revalidated concurrently with the warmup.
+     * Revalidation is completed before the handler returns,
+     * since the Lambda container is frozen between invocations.
+     * After this time is passed, discovered functions are revalidated
+     * before warmup.
+     */
+    public static final String DISCOVERY_CACHE_MAX_STALE_MILLIS_PROP_NAME =
+            "sirocco.warmup.discoveryCacheMaxStale";
+    /**
+     * Default value for {@link #DISCOVERY_CACHE_MAX_STALE_MILLIS_PROP_NAME} property.
+     * The default value is <code>30 minutes</code>.
+     */
+    public static final long DEFAULT_DISCOVERY_CACHE_MAX_STALE_MILLIS = 30 * 60 * 1000;
+
+    /**
+     * Name of the <code>long</code> typed property which configures
+     * the time in milliseconds for which the discovered alias of a function
+     * is reused on revalidation as long as the function configuration has not been changed.
+     * This is needed because creating/updating an alias doesn't change the function configuration.
+     */
+    public static final String ALIAS_CACHE_TTL_MILLIS_PROP_NAME =
+            "sirocco.warmup.aliasCacheTtl";
+    /**
+     * Default value for {@link #ALIAS_CACHE_TTL_MILLIS_PROP_NAME} property.
+     * The default value is <code>1 hour</code>.
+     */
+    public static final long DEFAULT_ALIAS_CACHE_TTL_MILLIS = 60 * 60 * 1000;
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * type of the {@link WarmupStateStore} to be used by warmup strategies
+     * for storing their states. Supported values are
+     * {@link #IN_MEMORY_WARMUP_STATE_STORE_TYPE} and {@link #FILE_WARMUP_STATE_STORE_TYPE}.
+     */
+    public static final String WARMUP_STATE_STORE_PROP_NAME =
+            "sirocco.warmup.stateStore";
+    /**
+     * Type name of the {@link InMemoryWarmupStateStore}
+     * for {@link #WARMUP_STATE_STORE_PROP_NAME} property.
+     * This is the default value.
+     */
+    public static final String IN_MEMORY_WARMUP_STATE_STORE_TYPE = "in-memory";
+    /**
+     * Type name of the {@link FileWarmupStateStore}
+     * for {@link #WARMUP_STATE_STORE_PROP_NAME} property.
+     */
+    public static final String FILE_WARMUP_STATE_STORE_TYPE = "file";
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * path of the file to be used by {@link FileWarmupStateStore}.
+     */
+    public static final String WARMUP_STATE_STORE_FILE_PROP_NAME =
+            "sirocco.warmup.stateStoreFile";
+    /**
+     * Default value for {@link #WARMUP_STATE_STORE_FILE_PROP_NAME} property.
+     * The default value is <code>/tmp/sirocco-warmup-state.bin</code>.
+     */
+    public static final String DEFAULT_WARMUP_STATE_STORE_FILE = "/tmp/sirocco-warmup-state.bin";
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * type of the {@link WarmupMetrics} to be used by this handler and warmup strategies
+     * for collecting metrics of warmups. Supported values are
+     * {@link #NONE_WARMUP_METRICS_TYPE} and {@link #EMF_WARMUP_METRICS_TYPE}.
+     */
+    public static final String WARMUP_METRICS_PROP_NAME =
+            "sirocco.warmup.metrics";
+    /**
+     * Type name of the {@link NoOpWarmupMetrics}
+     * for {@link #WARMUP_METRICS_PROP_NAME} property.
+     * This is the default value, so metrics are disabled by default.
+     */
+    public static final String NONE_WARMUP_METRICS_TYPE = "none";
+    /**
+     * Type name of the {@link EmfWarmupMetrics}
+     * for {@link #WARMUP_METRICS_PROP_NAME} property.
+     */
+    public static final String EMF_WARMUP_METRICS_TYPE = "emf";
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * CloudWatch namespace of the metrics exported by {@link EmfWarmupMetrics}.
+     */
+    public static final String WARMUP_METRICS_NAMESPACE_PROP_NAME =
+            "sirocco.warmup.metricsNamespace";
+    /**
+     * Default value for {@link #WARMUP_METRICS_NAMESPACE_PROP_NAME} property.
+     * The default value is <code>Sirocco/Warmup</code>.
+     */
+    public static final String DEFAULT_WARMUP_METRICS_NAMESPACE = "Sirocco/Warmup";
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * the execution mode of background work (discovery, delegation to warmup strategies
+     * and invocations through AWS Lambda client). Supported values are
+     * <ul>
+     *     <li>
+     *         {@link WarmupExecutors#PLATFORM_EXECUTION_MODE}:
+     *         Work is executed by pooled platform threads.
+     *     </li>
+     *     <li>
+     *         {@link WarmupExecutors#VIRTUAL_EXECUTION_MODE}:
+     *         Work is executed by virtual threads on JDK 21+
+     *         (falls back to platform threads on older JDKs).
+     *     </li>
+     * </ul>
+     */
+    public static final String EXECUTION_MODE_PROP_NAME =
+            "sirocco.warmup.executionMode";
+    /**
+     * Default value for {@link #EXECUTION_MODE_PROP_NAME} property.
+     * The default value is {@link WarmupExecutors#PLATFORM_EXECUTION_MODE}.
+     */
+    public static final String DEFAULT_EXECUTION_MODE = WarmupExecutors.PLATFORM_EXECUTION_MODE;
+
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * the maximum count of the threads of the {@link WarmupExecutorRegistry} owned by the handler,
+     * which is shared by discovery and warmup strategies of the handler.
+     * Delegated warmup strategies are not counted as they are run by their own threads.
+     * By default, it is the maximum of two times of available CPU processors
+     * and {@link #ALIAS_DISCOVERY_CONCURRENCY_PROP_NAME alias discovery concurrency}.
+     */
+    public static final String EXECUTOR_THREAD_COUNT_PROP_NAME =
+            "sirocco.warmup.executorThreadCount";
+
+    /**
+     * {@link #LAMBDA_CLIENT_PROP_NAME Lambda client} which calls AWS Lambda through AWS SDK client.
+     */
+    public static final String SDK_LAMBDA_CLIENT = "sdk";
+    /**
+     * {@link #LAMBDA_CLIENT_PROP_NAME Lambda client} which calls AWS Lambda API over HTTP directly
+     * through {@link HttpLambdaService}.
+     */
+    public static final String HTTP_LAMBDA_CLIENT = "http";
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * the client used by the default {@link LambdaService} to call AWS Lambda. Supported values are
+     * <ul>
+     *     <li>
+     *         {@link #SDK_LAMBDA_CLIENT}: AWS Lambda is called through AWS SDK client.
+     *     </li>
+     *     <li>
+     *         {@link #HTTP_LAMBDA_CLIENT}: AWS Lambda API is called over HTTP directly
+     *         with requests signed by the credentials from the environment,
+     *         over HTTP/2 on JDK 11+ (falls back to AWS SDK client
+     *         if the region or the credentials are not available in the environment).
+     *     </li>
+     * </ul>
+     */
+    public static final String LAMBDA_CLIENT_PROP_NAME =
+            "sirocco.warmup.lambdaClient";
+    /**
+     * Default value for {@link #LAMBDA_CLIENT_PROP_NAME} property.
+     * The default value is {@link #SDK_LAMBDA_CLIENT}.
+     */
+    public static final String DEFAULT_LAMBDA_CLIENT = SDK_LAMBDA_CLIENT;
+
+    /**
+     * Name of the <code>integer</code> typed property which configures
+     * the maximum count of the platform threads used by the {@link #HTTP_LAMBDA_CLIENT HTTP Lambda client}
+     * to send requests (which block their threads on JDK 8) and to complete their futures.
+     * Requests beyond this count wait for a free thread.
+     * Not used in {@link WarmupExecutors#VIRTUAL_EXECUTION_MODE virtual} execution mode.
+     */
+    public static final String HTTP_CLIENT_THREAD_COUNT_PROP_NAME =
+            "sirocco.warmup.httpClientThreadCount";
+    /**
+     * Default value for {@link #HTTP_CLIENT_THREAD_COUNT_PROP_NAME} property.
+     * The default value is <code>50</code> which is the thread count of the AWS SDK client by default.
+     */
+    public static final int DEFAULT_HTTP_CLIENT_THREAD_COUNT = 50;
+
+    /**
+     * Name of the <code>string</code> typed property which configures
+     * path of the file to load properties from by {@link FileWarmupPropertyProvider}
+     * (or the resource path with <code>classpath:</code> prefix for bundled files).
+     * Properties in the file override system properties and environment variables
+     * and the file is checked for changes at the start of every warmup run,
+     * so changes in function declarations and strategy properties take effect on the next run.
+     * Properties which configure the infrastructure of the handler
+     * (such as Lambda client, execution mode, shards, state store and metrics) are not reloaded.
+     */
+    public static final String WARMUP_CONFIG_FILE_PROP_NAME =
+            "sirocco.warmup.configFile";
+
+    private static final long DISCOVERY_RETRY_BASE_DELAY_MILLIS = 100;
+    private static final String DISCOVERY_EXECUTOR_NAME = "discovery";
+    private static final long DISCOVERY_RETRY_MAX_DELAY_MILLIS = 5000;
+    private static final String DISCOVERY_REFRESH_EXECUTOR_NAME = "discovery-refresh";
+    private static final long DISCOVERY_REFRESH_AWAIT_SAFETY_MARGIN_MILLIS = 100;
 
     protected final LambdaService lambdaService;
     protected final WarmupPropertyProvider warmupPropertyProvider;
     protected final WarmupStrategyProvider warmupStrategyProvider;
     protected final WarmupStrategy warmupStrategy;
-    protected final Map<String, WarmupFunctionInfo> registeredFunctionsToWarmup =
-            new HashMap<String, WarmupFunctionInfo>();
-
-    protected final boolean disableAllDiscoveries;
-    protected final boolean disableWarmupAwareDiscovery;
-    protected final String warmupGroupName;
+    protected final WarmupMetrics warmupMetrics;
+    protected final WarmupShard warmupShard;
     protected final String warmupStrategyName;
-    protected final boolean disableWarmupStrategyDiscovery;
-    protected final String invocationData;
-    protected final boolean disableInvocationDataDiscovery;
-    protected final boolean disableInvocationCountDiscovery;
-    protected final boolean disableAliasDiscovery;
+    protected final int aliasDiscoveryConcurrency;
+    protected final WarmupDiscoveryCache discoveryCache;
+    protected final String executionMode;
+    protected final WarmupExecutorRegistry executorRegistry;
 
-    private static void init() {
-        Map<String, String> envMap = System.getenv();
-        for (String envVarName : envMap.keySet()) {
-            String envVarValue = envMap.get(envVarName).trim();
-            String processedEnvVarName = envVarName.replace("_", ".");
-            System.setProperty(processedEnvVarName, envVarValue);
-        }
+    // Created by "configure" and replaced as a whole on reload of the properties
+    protected volatile Configuration configuration;
+    // Revalidation of the stale discovered functions which is waited before the end of the invocation
+    private Future<?> discoveryRefreshFuture;
+    private AtomicBoolean discoveryRefreshStarted;
+
+    /**
+     * Initializes the environment of the handler by running the environment initializers.
+     * The environment is initialized only once,
+     * on the first creation of a handler or of a default component
+     * (such as {@link #getDefaultLambdaService()}), instead of on loading of the handler class.
+     */
+    public static void ensureEnvironmentInitialized() {
+        EnvironmentInitializer.ensureInitialized();
+    }
+
+    /**
+     * Gets the default {@link LambdaService} which is created on its first request.
+     *
+     * @return the default {@link LambdaService}
+     */
+    public static LambdaService getDefaultLambdaService() {
+        return DefaultLambdaServiceHolder.DEFAULT_LAMBDA_SERVICE;
+    }
+
+    /**
+     * Gets the default {@link WarmupPropertyProvider} which is a {@link WarmupConfig} snapshot
+     * of system properties and environment variables
+     * (<code>_</code> characters in the names are replaced with <code>.</code>)
+     * taken after the environment is initialized.
+     * If {@link #WARMUP_CONFIG_FILE_PROP_NAME} is configured, it is a {@link FileWarmupPropertyProvider}
+     * which overrides the snapshot by the properties in the file.
+     *
+     * @return the default {@link WarmupPropertyProvider}
+     */
+    public static WarmupPropertyProvider getDefaultWarmupPropertyProvider() {
+        return DefaultWarmupPropertyProviderHolder.DEFAULT_WARMUP_PROPERTY_PROVIDER;
+    }
+
+    /**
+     * Gets the default {@link WarmupStrategyProvider}.
+     *
+     * @return the default {@link WarmupStrategyProvider}
+     */
+    public static WarmupStrategyProvider getDefaultWarmupStrategyProvider() {
+        return DefaultWarmupStrategyProviderHolder.DEFAULT_WARMUP_STRATEGY_PROVIDER;
+    }
+
+    /**
+     * Gets the default {@link WarmupStrategy} which is created on its first request
+     * from the {@link #getDefaultWarmupPropertyProvider() default properties}.
+     *
+     * @return the default {@link WarmupStrategy}
+     */
+    public static WarmupStrategy getDefaultWarmupStrategy() {
+        return DefaultWarmupStrategyHolder.DEFAULT_WARMUP_STRATEGY;
     }
 
     private static LambdaService createDefaultLambdaService() {
-        AWSLambdaAsyncClient lambdaClient = new AWSLambdaAsyncClient(AwsPropertyAccessors.getDefaultCredentialsProvider());
+        WarmupPropertyProvider warmupPropertyProvider = getDefaultWarmupPropertyProvider();
+        String executionMode = WarmupExecutors.getExecutionMode(warmupPropertyProvider);
+        String lambdaClient =
+                warmupPropertyProvider.getString(LAMBDA_CLIENT_PROP_NAME, DEFAULT_LAMBDA_CLIENT);
+        if (HTTP_LAMBDA_CLIENT.equalsIgnoreCase(lambdaClient)) {
+            String regionStr = LambdaUtil.getRegion();
+            if (!StringUtils.hasValue(regionStr)) {
+                LOGGER.warn("Region is not available for HTTP Lambda client. Going on with AWS SDK client ...");
+            } else {
+                AwsCredentials credentials;
+                try {
+                    credentials = AwsCredentials.fromEnvironment();
+                } catch (IllegalStateException e) {
+                    LOGGER.warn("Credentials are not available for HTTP Lambda client. Going on with AWS SDK client ...");
+                    credentials = null;
+                }
+                if (credentials != null) {
+                    int threadCount =
+                            warmupPropertyProvider.getInteger(
+                                    HTTP_CLIENT_THREAD_COUNT_PROP_NAME,
+                                    DEFAULT_HTTP_CLIENT_THREAD_COUNT);
+                    if (threadCount < 1) {
+                        throw new IllegalArgumentException(
+                                "HTTP client thread count must be positive: " + threadCount);
+                    }
+                    return new HttpLambdaService(
+                            regionStr,
+                            credentials,
+                            WarmupExecutors.newBoundedExecutor(
+                                    executionMode, threadCount, "sirocco-warmup-lambda-client"));
+                }
+            }
+        } else if (!SDK_LAMBDA_CLIENT.equalsIgnoreCase(lambdaClient)) {
+            throw new IllegalArgumentException("Unknown Lambda client: " + lambdaClient);
+        }
+        return createSdkLambdaService(executionMode);
+    }
+
+    private static LambdaService createSdkLambdaService(String executionMode) {
+        AWSLambdaAsyncClient lambdaClient;
+        if (WarmupExecutors.VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            // Blocking invocation calls of the client are executed by virtual threads
+            // instead of the default fixed size pool of the client
+            lambdaClient =
+                    new AWSLambdaAsyncClient(
+                            AwsPropertyAccessors.getDefaultCredentialsProvider(),
+                            new ClientConfiguration(),
+                            WarmupExecutors.newUnboundedExecutor(executionMode, "sirocco-warmup-lambda-client"));
+        } else {
+            lambdaClient = new AWSLambdaAsyncClient(AwsPropertyAccessors.getDefaultCredentialsProvider());
+        }
         String regionStr = LambdaUtil.getRegion();
         if (StringUtils.hasValue(regionStr)) {
             lambdaClient.withRegion(Regions.fromName(regionStr));
@@ -266,8 +632,42 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
         }
     }
 
+    public static WarmupStateStore createWarmupStateStore(WarmupPropertyProvider warmupPropertyProvider) {
+        String warmupStateStoreType =
+                warmupPropertyProvider.getString(
+                        WARMUP_STATE_STORE_PROP_NAME,
+                        IN_MEMORY_WARMUP_STATE_STORE_TYPE);
+        if (FILE_WARMUP_STATE_STORE_TYPE.equalsIgnoreCase(warmupStateStoreType)) {
+            return FileWarmupStateStore.getInstance(
+                    warmupPropertyProvider.getString(
+                            WARMUP_STATE_STORE_FILE_PROP_NAME,
+                            DEFAULT_WARMUP_STATE_STORE_FILE));
+        } else if (IN_MEMORY_WARMUP_STATE_STORE_TYPE.equalsIgnoreCase(warmupStateStoreType)) {
+            return new InMemoryWarmupStateStore();
+        } else {
+            throw new IllegalArgumentException("Unknown warmup state store: " + warmupStateStoreType);
+        }
+    }
+
+    public static WarmupMetrics createWarmupMetrics(WarmupPropertyProvider warmupPropertyProvider) {
+        String warmupMetricsType =
+                warmupPropertyProvider.getString(
+                        WARMUP_METRICS_PROP_NAME,
+                        NONE_WARMUP_METRICS_TYPE);
+        if (EMF_WARMUP_METRICS_TYPE.equalsIgnoreCase(warmupMetricsType)) {
+            return EmfWarmupMetrics.getInstance(
+                    warmupPropertyProvider.getString(
+                            WARMUP_METRICS_NAMESPACE_PROP_NAME,
+                            DEFAULT_WARMUP_METRICS_NAMESPACE));
+        } else if (NONE_WARMUP_METRICS_TYPE.equalsIgnoreCase(warmupMetricsType)) {
+            return NoOpWarmupMetrics.INSTANCE;
+        } else {
+            throw new IllegalArgumentException("Unknown warmup metrics: " + warmupMetricsType);
+        }
+    }
+
     public static WarmupStrategy createDefaultWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider) {
-        return createDefaultWarmupStrategy(warmupPropertyProvider, DEFAULT_WARMUP_STRATEGY_PROVIDER);
+        return createDefaultWarmupStrategy(warmupPropertyProvider, getDefaultWarmupStrategyProvider());
     }
 
     public static WarmupStrategy createDefaultWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
@@ -289,100 +689,161 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     }
 
     public WarmupHandler() {
-        this(DEFAULT_LAMBDA_SERVICE,
-             DEFAULT_WARMUP_PROPERTY_PROVIDER,
-             DEFAULT_WARMUP_STRATEGY_PROVIDER,
-             DEFAULT_WARMUP_STRATEGY);
+        this(getDefaultLambdaService(),
+             getDefaultWarmupPropertyProvider(),
+             getDefaultWarmupStrategyProvider(),
+             getDefaultWarmupStrategy());
     }
 
     public WarmupHandler(LambdaService lambdaService,
                          WarmupPropertyProvider warmupPropertyProvider,
                          WarmupStrategyProvider warmupStrategyProvider,
                          WarmupStrategy warmupStrategy) {
+        ensureEnvironmentInitialized();
         this.lambdaService =
                 lambdaService != null
                         ? lambdaService
-                        : DEFAULT_LAMBDA_SERVICE;
+                        : getDefaultLambdaService();
         this.warmupPropertyProvider =
                 warmupPropertyProvider != null
                         ? warmupPropertyProvider
-                        : DEFAULT_WARMUP_PROPERTY_PROVIDER;
+                        : getDefaultWarmupPropertyProvider();
         this.warmupStrategyProvider =
                 warmupStrategyProvider != null
                         ? warmupStrategyProvider
-                        : DEFAULT_WARMUP_STRATEGY_PROVIDER;
+                        : getDefaultWarmupStrategyProvider();
         this.warmupStrategy =
                 warmupStrategy != null
                         ? warmupStrategy
-                        : createDefaultWarmupStrategy(warmupPropertyProvider);
-
-        this.disableAllDiscoveries =
-                warmupPropertyProvider.getBoolean(DISABLE_ALL_DISCOVERIES_PROP_NAME);
-        this.disableWarmupAwareDiscovery =
-                warmupPropertyProvider.getBoolean(DISABLE_WARMUP_AWARE_DISCOVERY_PROP_NAME);
-        this.warmupGroupName =
-                warmupPropertyProvider.getString(WARMUP_GROUP_NAME_PROP_NAME);
+                        : createDefaultWarmupStrategy(this.warmupPropertyProvider);
+        this.warmupMetrics = createWarmupMetrics(this.warmupPropertyProvider);
+
+        this.warmupShard =
+                new WarmupShard(
+                        warmupPropertyProvider.getInteger(
+                                SHARD_INDEX_PROP_NAME,
+                                DEFAULT_SHARD_INDEX),
+                        warmupPropertyProvider.getInteger(
+                                SHARD_COUNT_PROP_NAME,
+                                DEFAULT_SHARD_COUNT));
         this.warmupStrategyName =
                 warmupPropertyProvider.getString(
                         WARMUP_STRATEGY_PROP_NAME,
                         DEFAULT_WARMUP_STRATEGY_NAME);
-        this.disableWarmupStrategyDiscovery =
-                warmupPropertyProvider.getBoolean(DISABLE_WARMUP_STRATEGY_DISCOVERY_PROP_NAME);
-        this.invocationData =
-                warmupPropertyProvider.getString(INVOCATION_DATA_PROP_NAME);
-        this.disableInvocationDataDiscovery =
-                warmupPropertyProvider.getBoolean(DISABLE_INVOCATION_DATA_DISCOVERY_PROP_NAME);
-        this.disableInvocationCountDiscovery =
-                warmupPropertyProvider.getBoolean(DISABLE_INVOCATION_COUNT_DISCOVERY_PROP_NAME);
-        this.disableAliasDiscovery =
-                warmupPropertyProvider.getBoolean(DISABLE_ALIAS_DISCOVERY_PROP_NAME);
-
-        LOGGER.info("Using " + getWarmupStartegyName(warmupStrategy) + " warmup strategy ...");
-
-        // Discover registered functions
-        for (String propertyName : warmupPropertyProvider.getPropertyNames()) {
-            if (propertyName.startsWith(WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX)) {
-                String functionDeclarationsValue = warmupPropertyProvider.getString(propertyName);
-                String[] functionDeclarations = functionDeclarationsValue.split(",");
-                for (String functionDeclaration : functionDeclarations) {
-                    functionDeclaration = functionDeclaration.trim();
-                    if (StringUtils.isNullOrEmpty(functionDeclaration)) {
-                        continue;
-                    }
-                    int infoStartIdx = functionDeclaration.indexOf("[");
-                    int infoEndIdx = functionDeclaration.indexOf("]");
-                    String functionName;
-                    if (infoStartIdx > 0) {
-                        functionName = functionDeclaration.substring(0, infoStartIdx);
-                    } else {
-                        functionName = functionDeclaration;
-                    }
-                    WarmupFunctionInfo info = registeredFunctionsToWarmup.get(functionName);
-                    if (info == null) {
-                        info = new WarmupFunctionInfo();
-                        info.invocationData = invocationData;
-                        registeredFunctionsToWarmup.put(functionName, info);
-                    }
-                    if (infoStartIdx > 0 && infoEndIdx > 0) {
-                        String infoStr = functionDeclaration.substring(infoStartIdx + 1, infoEndIdx);
-                        String[] infoStrParts = infoStr.split(";");
-                        for (String infoStrPart : infoStrParts) {
-                            infoStrPart = infoStrPart.trim();
-                            String[] infoKeyValues = infoStrPart.split("=");
-                            if (infoKeyValues.length != 2) {
-                                throw new IllegalArgumentException(
-                                        "Function informations must be in 'key=value' format!");
-                            }
-                            String infoKey = infoKeyValues[0].trim();
-                            String infoValue = infoKeyValues[1].trim();
-                            handleInfo(info, infoKey, infoValue);
+        this.aliasDiscoveryConcurrency =
+                warmupPropertyProvider.getInteger(
+                        ALIAS_DISCOVERY_CONCURRENCY_PROP_NAME,
+                        DEFAULT_ALIAS_DISCOVERY_CONCURRENCY);
+        this.executionMode = WarmupExecutors.getExecutionMode(warmupPropertyProvider);
+        this.executorRegistry =
+                new WarmupExecutorRegistry(
+                        executionMode,
+                        warmupPropertyProvider.getInteger(
+                                EXECUTOR_THREAD_COUNT_PROP_NAME,
+                                WarmupExecutorRegistry.getDefaultThreadCount(aliasDiscoveryConcurrency)),
+                        warmupMetrics);
+        this.discoveryCache =
+                new WarmupDiscoveryCache(
+                        warmupPropertyProvider.getLong(
+                                DISCOVERY_CACHE_TTL_MILLIS_PROP_NAME,
+                                DEFAULT_DISCOVERY_CACHE_TTL_MILLIS),
+                        warmupPropertyProvider.getLong(
+                                DISCOVERY_CACHE_MAX_STALE_MILLIS_PROP_NAME,
+                                DEFAULT_DISCOVERY_CACHE_MAX_STALE_MILLIS),
+                        warmupPropertyProvider.getLong(
+                                ALIAS_CACHE_TTL_MILLIS_PROP_NAME,
+                                DEFAULT_ALIAS_CACHE_TTL_MILLIS));
+
+        if (this.warmupStrategy instanceof StrategyAwareWarmupStrategy) {
+            ((StrategyAwareWarmupStrategy) this.warmupStrategy).setWarmupExecutorRegistry(executorRegistry);
+        }
+
+        LOGGER.info("Using " + getWarmupStartegyName(this.warmupStrategy) + " warmup strategy ...");
+        if (warmupShard.getShardCount() > 1) {
+            LOGGER.info("Warming-up functions of shard " + warmupShard.getShardIndex() +
+                        " out of " + warmupShard.getShardCount() + " shards ...");
+        }
+
+        configure();
+    }
+
+    /**
+     * Configures the handler from the properties which can be changed on reload of the properties
+     * (declared functions and discovery properties). Declared functions are parsed first,
+     * so the handler is not reconfigured if there is any invalid declaration.
+     */
+    private void configure() {
+        String defaultInvocationData = warmupPropertyProvider.getString(INVOCATION_DATA_PROP_NAME);
+        Map<String, WarmupFunctionInfo> functions = new HashMap<String, WarmupFunctionInfo>();
+        for (String propertyName :
+                warmupPropertyProvider.getPropertyNames(WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX)) {
+            String functionDeclarationsValue = warmupPropertyProvider.getString(propertyName);
+            String[] functionDeclarations = functionDeclarationsValue.split(",");
+            for (String functionDeclaration : functionDeclarations) {
+                functionDeclaration = functionDeclaration.trim();
+                if (StringUtils.isNullOrEmpty(functionDeclaration)) {
+                    continue;
+                }
+                int infoStartIdx = functionDeclaration.indexOf("[");
+                int infoEndIdx = functionDeclaration.indexOf("]");
+                String functionName;
+                if (infoStartIdx > 0) {
+                    functionName = functionDeclaration.substring(0, infoStartIdx);
+                } else {
+                    functionName = functionDeclaration;
+                }
+                WarmupFunctionInfo info = functions.get(functionName);
+                if (info == null) {
+                    info = new WarmupFunctionInfo();
+                    info.invocationData = defaultInvocationData;
+                    functions.put(functionName, info);
+                }
+                if (infoStartIdx > 0 && infoEndIdx > 0) {
+                    String infoStr = functionDeclaration.substring(infoStartIdx + 1, infoEndIdx);
+                    String[] infoStrParts = infoStr.split(";");
+                    for (String infoStrPart : infoStrParts) {
+                        infoStrPart = infoStrPart.trim();
+                        String[] infoKeyValues = infoStrPart.split("=");
+                        if (infoKeyValues.length != 2) {
+                            throw new IllegalArgumentException(
+                                    "Function informations must be in 'key=value' format!");
                         }
+                        String infoKey = infoKeyValues[0].trim();
+                        String infoValue = infoKeyValues[1].trim();
+                        handleInfo(info, infoKey, infoValue);
                     }
                 }
             }
         }
 
-        LOGGER.info("Registered functions to warmup: " + registeredFunctionsToWarmup);
+        Configuration configuration = new Configuration(functions, defaultInvocationData, warmupPropertyProvider);
+        // Configuration is published as a whole,
+        // so readers never see a mix of the previous and the new properties
+        this.configuration = configuration;
+
+        LOGGER.info("Registered functions to warmup: " + configuration.registeredFunctionsToWarmup);
+    }
+
+    /**
+     * Reloads the properties if they have changed and reconfigures the handler in place.
+     * Strategies reconfigure themselves on their next run by detecting the new version of the properties,
+     * so their learned states (such as instance stats and concurrency limits) are kept.
+     * If the handler cannot be reconfigured, it goes on with its previous configuration.
+     */
+    protected void reloadProperties() {
+        try {
+            if (!warmupPropertyProvider.reload()) {
+                return;
+            }
+            LOGGER.info("Warmup properties have been changed. Reconfiguring ...");
+            configure();
+            // Discovered functions might be filtered or resolved by the changed properties
+            discoveryCache.invalidate();
+        } catch (Throwable t) {
+            LOGGER.error(
+                    "Error occurred while reconfiguring by the changed warmup properties! " +
+                    "Going on with the previous configuration ...", t);
+        }
     }
 
     protected void handleInfo(WarmupFunctionInfo info, String infoKey, String infoValue) {
@@ -403,75 +864,361 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     }
 
     protected Map<String, WarmupFunctionInfo> getFunctionsToWarmup() {
+        Configuration configuration = this.configuration;
         Map<String, WarmupFunctionInfo> functionsToWarmup =
-                new HashMap<String, WarmupFunctionInfo>(registeredFunctionsToWarmup.size());
-        functionsToWarmup.putAll(registeredFunctionsToWarmup);
+                new HashMap<String, WarmupFunctionInfo>(configuration.registeredFunctionsToWarmup.size());
+        for (Map.Entry<String, WarmupFunctionInfo> e : configuration.registeredFunctionsToWarmup.entrySet()) {
+            if (!warmupShard.owns(e.getKey())) {
+                continue;
+            }
+            // Copy registered function infos as they are overridden by discovered configurations
+            functionsToWarmup.put(e.getKey(), new WarmupFunctionInfo(e.getValue()));
+        }
+
+        if (!configuration.disableAllDiscoveries && !configuration.disableWarmupAwareDiscovery) {
+            long discoveryStartTime = System.nanoTime();
+            List<WarmupDiscoveryCache.Entry> discoveredFunctions = getDiscoveredFunctions();
+            warmupMetrics.recordDiscovery(System.nanoTime() - discoveryStartTime, discoveredFunctions.size());
+            for (WarmupDiscoveryCache.Entry entry : discoveredFunctions) {
+                FunctionConfiguration fc = entry.getConfig();
+                String functionName = fc.getFunctionName();
+                WarmupFunctionInfo info = functionsToWarmup.get(functionName);
+                if (info == null) {
+                    info = new WarmupFunctionInfo();
+                    info.invocationData = configuration.invocationData;
+                    functionsToWarmup.put(functionName, info);
+                }
+                handleConfig(fc, info);
+                if (entry.getAlias() != null) {
+                    info.alias = entry.getAlias();
+                }
+                LOGGER.info("Auto discovered function to warmup: " + functionName);
+            }
+        }
+
+        LOGGER.info("Functions to warmup: " + functionsToWarmup);
 
-        if (!disableAllDiscoveries && !disableWarmupAwareDiscovery) {
+        return functionsToWarmup;
+    }
+
+    protected List<WarmupDiscoveryCache.Entry> getDiscoveredFunctions() {
+        if (configuration.disableDiscoveryCache) {
             try {
-                String marker = null;
-                do {
-                    // Discover warmup aware functions
-                    ListFunctionsRequest listFunctionsRequest = new ListFunctionsRequest();
-                    if (marker != null) {
-                        listFunctionsRequest.withMarker(marker);
-                    }
-                    ListFunctionsResult listFunctionsResult = lambdaService.listFunctions(listFunctionsRequest);
-                    if (listFunctionsResult == null) {
-                        break;
-                    }
-                    marker = listFunctionsResult.getNextMarker();
-                    for (FunctionConfiguration fc : listFunctionsResult.getFunctions()) {
-                        EnvironmentResponse er = fc.getEnvironment();
-                        if (er != null) {
-                            Map<String, String> variables = er.getVariables();
-                            if (variables != null) {
-                                String warmupAwareValue = variables.get(WARMUP_AWARE_ENV_VAR_NAME);
-                                if (Boolean.parseBoolean(warmupAwareValue)) {
-                                    boolean skip = false;
-                                    if (StringUtils.hasValue(warmupGroupName)) {
-                                        String groupName = variables.get(WARMUP_GROUP_NAME_ENV_VAR_NAME);
-                                        if (!warmupGroupName.equalsIgnoreCase(groupName)) {
-                                            skip = true;
-                                        }
-                                    }
-                                    if (!skip) {
-                                        String functionName = fc.getFunctionName();
-                                        WarmupFunctionInfo info = functionsToWarmup.get(functionName);
-                                        if (info == null) {
-                                            info = new WarmupFunctionInfo();
-                                            info.invocationData = invocationData;
-                                            functionsToWarmup.put(functionName, info);
-                                        }
-                                        handleConfig(fc, info);
-                                        LOGGER.info("Auto discovered function to warmup: " + fc.getFunctionName());
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } while (StringUtils.hasValue(marker));
+                return discoverFunctions();
             } catch (Throwable t) {
                 LOGGER.error(
                         "Error occurred while discovering warmup functions! " +
                         "Skipping warmup function discovery ...", t);
+                return Collections.emptyList();
             }
         }
 
-        LOGGER.info("Functions to warmup: " + functionsToWarmup);
+        long currentTime = System.currentTimeMillis();
+        WarmupDiscoveryCache.Snapshot snapshot = discoveryCache.getSnapshot();
+        if (discoveryCache.isFresh(snapshot, currentTime)) {
+            LOGGER.info("Using cached discovered functions to warmup");
+            return snapshot.getEntries();
+        }
+        if (discoveryCache.isServableAsStale(snapshot, currentTime)) {
+            LOGGER.info("Using stale cached discovered functions to warmup while revalidating them concurrently");
+            startDiscoveredFunctionsRefresh();
+            return snapshot.getEntries();
+        }
+        try {
+            return refreshDiscoveredFunctions().getEntries();
+        } catch (Throwable t) {
+            if (snapshot != null) {
+                LOGGER.error(
+                        "Error occurred while discovering warmup functions! " +
+                        "Going on with the previously discovered functions ...", t);
+                return snapshot.getEntries();
+            } else {
+                LOGGER.error(
+                        "Error occurred while discovering warmup functions! " +
+                        "Skipping warmup function discovery ...", t);
+                return Collections.emptyList();
+            }
+        }
+    }
 
-        return functionsToWarmup;
+    private void startDiscoveredFunctionsRefresh() {
+        if (discoveryRefreshFuture != null || !discoveryCache.tryStartRefresh()) {
+            return;
+        }
+        final AtomicBoolean started = new AtomicBoolean(false);
+        Runnable refreshTask = new Runnable() {
+            @Override
+            public void run() {
+                // Refresh might have been given up before it is started
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    refreshDiscoveredFunctions();
+                } catch (Throwable t) {
+                    LOGGER.error(
+                            "Error occurred while revalidating discovered warmup functions! " +
+                            "Going on with the previously discovered functions ...", t);
+                } finally {
+                    discoveryCache.finishRefresh();
+                }
+            }
+        };
+        if (executorRegistry.getThreadCount() < 2
+                && !WarmupExecutors.VIRTUAL_EXECUTION_MODE.equals(executionMode)) {
+            // Revalidation waits for the alias discovery tasks,
+            // so it cannot share a single thread with them
+            refreshTask.run();
+            return;
+        }
+        // Revalidation is not executed by the discovery executor
+        // since it waits for the alias discovery tasks submitted to the discovery executor
+        this.discoveryRefreshStarted = started;
+        this.discoveryRefreshFuture =
+                executorRegistry.getExecutor(DISCOVERY_REFRESH_EXECUTOR_NAME, 1).submit(refreshTask);
+    }
+
+    /**
+     * Waits for the revalidation of the stale discovered functions started by the current invocation.
+     * Since the Lambda container is frozen between invocations,
+     * revalidation must be completed before the invocation ends.
+     * If it cannot be completed before the invocation times out, it is cancelled
+     * and the discovered functions are revalidated again by the next invocation.
+     *
+     * @param context the context of the current invocation
+     */
+    protected void awaitDiscoveredFunctionsRefresh(Context context) {
+        Future<?> future = discoveryRefreshFuture;
+        if (future == null) {
+            return;
+        }
+        AtomicBoolean started = discoveryRefreshStarted;
+        discoveryRefreshFuture = null;
+        discoveryRefreshStarted = null;
+        long waitMillis =
+                context != null
+                        ? context.getRemainingTimeInMillis() - DISCOVERY_REFRESH_AWAIT_SAFETY_MARGIN_MILLIS
+                        : 0;
+        try {
+            future.get(Math.max(0, waitMillis), TimeUnit.MILLISECONDS);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Errors are already handled by the refresh task
+            return;
+        } catch (TimeoutException e) {
+            LOGGER.warn("Revalidation of the discovered warmup functions couldn't be completed in time. " +
+                        "Cancelling it to be retried by the next warmup ...");
+        }
+        future.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            // Refresh task will never run, so it cannot release the right to revalidate itself
+            discoveryCache.finishRefresh();
+        }
+    }
+
+    /**
+     * Discovers functions to warmup and updates the discovery cache.
+     * Aliases of the functions whose configurations have not been changed
+     * since the previous discovery are reused without calling <code>ListAliases</code>.
+     *
+     * @return the new {@link WarmupDiscoveryCache.Snapshot snapshot} of the discovery cache
+     * @throws Exception if listing functions fails
+     */
+    protected WarmupDiscoveryCache.Snapshot refreshDiscoveredFunctions() throws Exception {
+        long start = System.currentTimeMillis();
+        List<FunctionConfiguration> configs = listWarmupAwareFunctions();
+        Map<String, WarmupDiscoveryCache.Entry> reusedEntries =
+                new HashMap<String, WarmupDiscoveryCache.Entry>(configs.size());
+        Map<FunctionConfiguration, WarmupFunctionInfo> changedFunctions =
+                new LinkedHashMap<FunctionConfiguration, WarmupFunctionInfo>();
+        for (FunctionConfiguration config : configs) {
+            WarmupDiscoveryCache.Entry entry = discoveryCache.getReusableEntry(config, start);
+            if (entry != null) {
+                reusedEntries.put(config.getFunctionName(), entry.withConfig(config));
+            } else {
+                changedFunctions.put(config, new WarmupFunctionInfo());
+            }
+        }
+        handleAliasConfigs(changedFunctions);
+        long aliasResolveTime = System.currentTimeMillis();
+        List<WarmupDiscoveryCache.Entry> entries = new ArrayList<WarmupDiscoveryCache.Entry>(configs.size());
+        for (FunctionConfiguration config : configs) {
+            WarmupDiscoveryCache.Entry entry = reusedEntries.get(config.getFunctionName());
+            if (entry == null) {
+                entry = new WarmupDiscoveryCache.Entry(config, changedFunctions.get(config).alias, aliasResolveTime);
+            }
+            entries.add(entry);
+        }
+        LOGGER.info(String.format(
+                "Discovered %d functions to warmup (%d of them changed) in %d milliseconds",
+                entries.size(), changedFunctions.size(), System.currentTimeMillis() - start));
+        return discoveryCache.update(entries, System.currentTimeMillis());
+    }
+
+    /**
+     * Discovers functions to warmup without using the discovery cache.
+     *
+     * @return the discovered function entries
+     * @throws Exception if listing functions fails
+     */
+    protected List<WarmupDiscoveryCache.Entry> discoverFunctions() throws Exception {
+        List<FunctionConfiguration> configs = listWarmupAwareFunctions();
+        Map<FunctionConfiguration, WarmupFunctionInfo> discoveredFunctions =
+                new LinkedHashMap<FunctionConfiguration, WarmupFunctionInfo>();
+        for (FunctionConfiguration config : configs) {
+            discoveredFunctions.put(config, new WarmupFunctionInfo());
+        }
+        handleAliasConfigs(discoveredFunctions);
+        long aliasResolveTime = System.currentTimeMillis();
+        List<WarmupDiscoveryCache.Entry> entries = new ArrayList<WarmupDiscoveryCache.Entry>(configs.size());
+        for (Map.Entry<FunctionConfiguration, WarmupFunctionInfo> e : discoveredFunctions.entrySet()) {
+            entries.add(new WarmupDiscoveryCache.Entry(e.getKey(), e.getValue().alias, aliasResolveTime));
+        }
+        return entries;
+    }
+
+    protected List<FunctionConfiguration> listWarmupAwareFunctions() throws Exception {
+        List<FunctionConfiguration> configs = new ArrayList<FunctionConfiguration>();
+        String marker = null;
+        do {
+            // Discover warmup aware functions
+            ListFunctionsRequest listFunctionsRequest = new ListFunctionsRequest();
+            if (marker != null) {
+                listFunctionsRequest.withMarker(marker);
+            }
+            ListFunctionsResult listFunctionsResult =
+                    callWithRetry(new Callable<ListFunctionsResult>() {
+                        @Override
+                        public ListFunctionsResult call() {
+                            return lambdaService.listFunctions(listFunctionsRequest);
+                        }
+                    });
+            if (listFunctionsResult == null) {
+                break;
+            }
+            marker = listFunctionsResult.getNextMarker();
+            for (FunctionConfiguration fc : listFunctionsResult.getFunctions()) {
+                if (isWarmupAware(fc)) {
+                    configs.add(fc);
+                }
+            }
+        } while (StringUtils.hasValue(marker));
+        return configs;
+    }
+
+    protected boolean isWarmupAware(FunctionConfiguration config) {
+        EnvironmentResponse er = config.getEnvironment();
+        if (er == null) {
+            return false;
+        }
+        Map<String, String> variables = er.getVariables();
+        if (variables == null) {
+            return false;
+        }
+        String warmupAwareValue = variables.get(WARMUP_AWARE_ENV_VAR_NAME);
+        if (!Boolean.parseBoolean(warmupAwareValue)) {
+            return false;
+        }
+        String warmupGroupName = configuration.warmupGroupName;
+        if (StringUtils.hasValue(warmupGroupName)) {
+            String groupName = variables.get(WARMUP_GROUP_NAME_ENV_VAR_NAME);
+            if (!warmupGroupName.equalsIgnoreCase(groupName)) {
+                return false;
+            }
+        }
+        // Functions of other shards are filtered while listing,
+        // so their aliases are not discovered by this handler either
+        return warmupShard.owns(config.getFunctionName());
     }
 
     protected void handleConfig(FunctionConfiguration config, WarmupFunctionInfo info) {
-        handleAliasConfig(config, info);
+        // Aliases are handled separately and concurrently for all discovered functions
+        // by "handleAliasConfigs" since alias discovery requires remote calls
         handleWarmupStrategyConfig(config, info);
         handleInvocationCountConfig(config, info);
         handleInvocationDataConfig(config, info);
     }
 
+    private ExecutorService getDiscoveryExecutorService() {
+        return executorRegistry.getExecutor(DISCOVERY_EXECUTOR_NAME, aliasDiscoveryConcurrency);
+    }
+
+    /**
+     * Calls the given discovery call and retries it with
+     * exponential backoff (with jitter) if it is throttled by AWS Lambda.
+     *
+     * @param call the discovery call to be executed
+     * @param <T>  type of the result
+     * @return the result of the call
+     * @throws Exception if the call fails with a non-throttling error
+     *                   or it is still throttled after all retries
+     */
+    protected <T> T callWithRetry(Callable<T> call) throws Exception {
+        int discoveryMaxRetryCount = configuration.discoveryMaxRetryCount;
+        for (int retryCount = 0; ; retryCount++) {
+            try {
+                return call.call();
+            } catch (TooManyRequestsException e) {
+                if (retryCount >= discoveryMaxRetryCount) {
+                    throw e;
+                }
+                long maxDelay =
+                        Math.min(DISCOVERY_RETRY_MAX_DELAY_MILLIS,
+                                 DISCOVERY_RETRY_BASE_DELAY_MILLIS << Math.min(retryCount, 16));
+                long delay = maxDelay / 2 + ThreadLocalRandom.current().nextLong(maxDelay / 2 + 1);
+                LOGGER.warn(String.format(
+                        "Discovery call has been throttled. Retrying after %d milliseconds (retry %d of %d) ...",
+                        delay, retryCount + 1, discoveryMaxRetryCount));
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    protected void handleAliasConfigs(Map<FunctionConfiguration, WarmupFunctionInfo> discoveredFunctions) {
+        Configuration configuration = this.configuration;
+        if (configuration.disableAllDiscoveries
+                || configuration.disableAliasDiscovery
+                || discoveredFunctions.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Future> futures = new ArrayList<Future>(discoveredFunctions.size());
+        ExecutorService executorService = getDiscoveryExecutorService();
+        for (Map.Entry<FunctionConfiguration, WarmupFunctionInfo> entry : discoveredFunctions.entrySet()) {
+            FunctionConfiguration config = entry.getKey();
+            WarmupFunctionInfo info = entry.getValue();
+            futures.add(executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    handleAliasConfig(config, info);
+                }
+            }));
+        }
+        // Waiting for futures also guarantees visibility of
+        // the alias information set by the discovery threads
+        for (Future future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future f : futures) {
+                    f.cancel(true);
+                }
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("Error occurred while discovering aliases!", e.getCause());
+            }
+        }
+        LOGGER.info(String.format(
+                "Discovered aliases of %d functions in %d milliseconds",
+                discoveredFunctions.size(), System.currentTimeMillis() - start));
+    }
+
     protected void handleAliasConfig(FunctionConfiguration config, WarmupFunctionInfo info) {
-        if (disableAllDiscoveries || disableAliasDiscovery) {
+        Configuration configuration = this.configuration;
+        if (configuration.disableAllDiscoveries || configuration.disableAliasDiscovery) {
             return;
         }
         try {
@@ -483,29 +1230,42 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
                             return o2 - o1; // Descending order, max first
                         }
                     });
-            ListAliasesResult listAliasesResult =
-                    lambdaService.listAliases(
-                            new ListAliasesRequest().withFunctionName(config.getFunctionName()));
-            if (listAliasesResult == null) {
-                return;
-            }
-            for (AliasConfiguration aliasConfiguration : listAliasesResult.getAliases()) {
-                String aliasVersion = aliasConfiguration.getFunctionVersion();
-                String aliasName = aliasConfiguration.getName();
-                if ("$LATEST".equals(aliasVersion)) {
-                    latestVersionedAlias = aliasConfiguration.getName();
+            String marker = null;
+            do {
+                ListAliasesRequest listAliasesRequest =
+                        new ListAliasesRequest().withFunctionName(config.getFunctionName());
+                if (marker != null) {
+                    listAliasesRequest.withMarker(marker);
+                }
+                ListAliasesResult listAliasesResult =
+                        callWithRetry(new Callable<ListAliasesResult>() {
+                            @Override
+                            public ListAliasesResult call() {
+                                return lambdaService.listAliases(listAliasesRequest);
+                            }
+                        });
+                if (listAliasesResult == null) {
                     break;
-                } else {
-                    Integer aliasVersionNo = Integer.parseInt(aliasVersion);
-                    String existingAliasName = versionedAliases.put(aliasVersionNo, aliasName);
-                    if (existingAliasName != null) {
-                        LOGGER.warn(String.format(
-                                "There are multiple aliases ('%s' and '%s') for function '%s' which are mapped to same version '%s'. " +
-                                "So overriding and going on with '%s' ...",
-                                existingAliasName, aliasName, config.getFunctionName(), aliasVersionNo, aliasName));
+                }
+                marker = listAliasesResult.getNextMarker();
+                for (AliasConfiguration aliasConfiguration : listAliasesResult.getAliases()) {
+                    String aliasVersion = aliasConfiguration.getFunctionVersion();
+                    String aliasName = aliasConfiguration.getName();
+                    if ("$LATEST".equals(aliasVersion)) {
+                        latestVersionedAlias = aliasConfiguration.getName();
+                        break;
+                    } else {
+                        Integer aliasVersionNo = Integer.parseInt(aliasVersion);
+                        String existingAliasName = versionedAliases.put(aliasVersionNo, aliasName);
+                        if (existingAliasName != null) {
+                            LOGGER.warn(String.format(
+                                    "There are multiple aliases ('%s' and '%s') for function '%s' which are mapped to same version '%s'. " +
+                                    "So overriding and going on with '%s' ...",
+                                    existingAliasName, aliasName, config.getFunctionName(), aliasVersionNo, aliasName));
+                        }
                     }
                 }
-            }
+            } while (latestVersionedAlias == null && StringUtils.hasValue(marker));
             if (latestVersionedAlias != null) {
                 info.alias = latestVersionedAlias;
             } else if (!versionedAliases.isEmpty()) {
@@ -523,7 +1283,8 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     }
 
     protected void handleWarmupStrategyConfig(FunctionConfiguration config, WarmupFunctionInfo info) {
-        if (disableAllDiscoveries || disableWarmupStrategyDiscovery) {
+        Configuration configuration = this.configuration;
+        if (configuration.disableAllDiscoveries || configuration.disableWarmupStrategyDiscovery) {
             return;
         }
         EnvironmentResponse er = config.getEnvironment();
@@ -539,7 +1300,8 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     }
 
     protected void handleInvocationCountConfig(FunctionConfiguration config, WarmupFunctionInfo info) {
-        if (disableAllDiscoveries || disableInvocationCountDiscovery) {
+        Configuration configuration = this.configuration;
+        if (configuration.disableAllDiscoveries || configuration.disableInvocationCountDiscovery) {
             return;
         }
         EnvironmentResponse er = config.getEnvironment();
@@ -555,7 +1317,8 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
     }
 
     protected void handleInvocationDataConfig(FunctionConfiguration config, WarmupFunctionInfo info) {
-        if (disableAllDiscoveries || disableInvocationDataDiscovery) {
+        Configuration configuration = this.configuration;
+        if (configuration.disableAllDiscoveries || configuration.disableInvocationDataDiscovery) {
             return;
         }
         EnvironmentResponse er = config.getEnvironment();
@@ -572,17 +1335,22 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
 
     @Override
     public Object handleRequest(Object input, Context context) {
+        reloadProperties();
+
         String warmupStartegyName = getWarmupStartegyName(warmupStrategy);
 
         LOGGER.info("Starting warmup via " + warmupStartegyName + " warmup strategy ...");
         long start = System.currentTimeMillis();
 
-        Map<String, WarmupFunctionInfo> functionsToWarmup = getFunctionsToWarmup();
         try {
+            Map<String, WarmupFunctionInfo> functionsToWarmup = getFunctionsToWarmup();
             warmupStrategy.warmup(context, lambdaService, Collections.unmodifiableMap(functionsToWarmup));
         } catch (IOException e) {
             LOGGER.error("[ERROR] " + e.getMessage(), e);
             ExceptionUtil.sneakyThrow(e);
+        } finally {
+            awaitDiscoveredFunctionsRefresh(context);
+            warmupMetrics.export();
         }
 
         LOGGER.info("Finished warmup via " + warmupStartegyName +
@@ -591,4 +1359,156 @@ public class WarmupHandler implements RequestHandler<Object, Object> {
         return null;
     }
 
+    /**
+     * Shuts down the {@link WarmupExecutorRegistry} owned by this handler.
+     */
+    @Override
+    public void close() {
+        executorRegistry.close();
+    }
+
+    /**
+     * Immutable snapshot of the handler configuration which can be changed on reload of the properties
+     * (declared functions and discovery properties).
+     */
+    protected static final class Configuration {
+
+        protected final Map<String, WarmupFunctionInfo> registeredFunctionsToWarmup;
+        protected final String invocationData;
+        protected final boolean disableAllDiscoveries;
+        protected final boolean disableWarmupAwareDiscovery;
+        protected final String warmupGroupName;
+        protected final boolean disableWarmupStrategyDiscovery;
+        protected final boolean disableInvocationDataDiscovery;
+        protected final boolean disableInvocationCountDiscovery;
+        protected final boolean disableAliasDiscovery;
+        protected final int discoveryMaxRetryCount;
+        protected final boolean disableDiscoveryCache;
+
+        protected Configuration(Map<String, WarmupFunctionInfo> registeredFunctionsToWarmup,
+                                String invocationData,
+                                WarmupPropertyProvider warmupPropertyProvider) {
+            this.registeredFunctionsToWarmup = Collections.unmodifiableMap(registeredFunctionsToWarmup);
+            this.invocationData = invocationData;
+            this.disableAllDiscoveries =
+                    warmupPropertyProvider.getBoolean(DISABLE_ALL_DISCOVERIES_PROP_NAME);
+            this.disableWarmupAwareDiscovery =
+                    warmupPropertyProvider.getBoolean(DISABLE_WARMUP_AWARE_DISCOVERY_PROP_NAME);
+            this.warmupGroupName =
+                    warmupPropertyProvider.getString(WARMUP_GROUP_NAME_PROP_NAME);
+            this.disableWarmupStrategyDiscovery =
+                    warmupPropertyProvider.getBoolean(DISABLE_WARMUP_STRATEGY_DISCOVERY_PROP_NAME);
+            this.disableInvocationDataDiscovery =
+                    warmupPropertyProvider.getBoolean(DISABLE_INVOCATION_DATA_DISCOVERY_PROP_NAME);
+            this.disableInvocationCountDiscovery =
+                    warmupPropertyProvider.getBoolean(DISABLE_INVOCATION_COUNT_DISCOVERY_PROP_NAME);
+            this.disableAliasDiscovery =
+                    warmupPropertyProvider.getBoolean(DISABLE_ALIAS_DISCOVERY_PROP_NAME);
+            this.discoveryMaxRetryCount =
+                    warmupPropertyProvider.getInteger(
+                            DISCOVERY_MAX_RETRY_COUNT_PROP_NAME,
+                            DEFAULT_DISCOVERY_MAX_RETRY_COUNT);
+            this.disableDiscoveryCache =
+                    warmupPropertyProvider.getBoolean(DISABLE_DISCOVERY_CACHE_PROP_NAME);
+        }
+
+        public Map<String, WarmupFunctionInfo> getRegisteredFunctionsToWarmup() {
+            return registeredFunctionsToWarmup;
+        }
+
+        public String getInvocationData() {
+            return invocationData;
+        }
+
+        public boolean isDisableAllDiscoveries() {
+            return disableAllDiscoveries;
+        }
+
+        public boolean isDisableWarmupAwareDiscovery() {
+            return disableWarmupAwareDiscovery;
+        }
+
+        public String getWarmupGroupName() {
+            return warmupGroupName;
+        }
+
+        public boolean isDisableWarmupStrategyDiscovery() {
+            return disableWarmupStrategyDiscovery;
+        }
+
+        public boolean isDisableInvocationDataDiscovery() {
+            return disableInvocationDataDiscovery;
+        }
+
+        public boolean isDisableInvocationCountDiscovery() {
+            return disableInvocationCountDiscovery;
+        }
+
+        public boolean isDisableAliasDiscovery() {
+            return disableAliasDiscovery;
+        }
+
+        public int getDiscoveryMaxRetryCount() {
+            return discoveryMaxRetryCount;
+        }
+
+        public boolean isDisableDiscoveryCache() {
+            return disableDiscoveryCache;
+        }
+
+    }
+
+    // Defaults are held by holder classes, so they are created on their first use
+    // instead of on loading of the handler class, which is on the critical path of the cold start
+
+    private static class EnvironmentInitializer {
+
+        static {
+            EnvironmentInitializerManager.ensureInitialized();
+        }
+
+        private static void ensureInitialized() {
+            // Initialization is done by the class initializer which runs only once
+        }
+
+    }
+
+    private static class DefaultWarmupPropertyProviderHolder {
+
+        private static final WarmupPropertyProvider DEFAULT_WARMUP_PROPERTY_PROVIDER =
+                createDefaultWarmupPropertyProvider();
+
+        private static WarmupPropertyProvider createDefaultWarmupPropertyProvider() {
+            ensureEnvironmentInitialized();
+            WarmupConfig config = WarmupConfig.fromEnvironment();
+            String configFile = config.getString(WARMUP_CONFIG_FILE_PROP_NAME);
+            if (StringUtils.hasValue(configFile)) {
+                return new FileWarmupPropertyProvider(configFile, config);
+            }
+            return config;
+        }
+
+    }
+
+    private static class DefaultWarmupStrategyProviderHolder {
+
+        private static final WarmupStrategyProvider DEFAULT_WARMUP_STRATEGY_PROVIDER =
+                new StandardWarmupStrategyProvider();
+
+    }
+
+    private static class DefaultLambdaServiceHolder {
+
+        private static final LambdaService DEFAULT_LAMBDA_SERVICE =
+                createDefaultLambdaService();
+
+    }
+
+    private static class DefaultWarmupStrategyHolder {
+
+        private static final WarmupStrategy DEFAULT_WARMUP_STRATEGY =
+                createDefaultWarmupStrategy(getDefaultWarmupPropertyProvider());
+
+    }
+
 }
@@ -0,0 +1,67 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategyProvider;
+
+/**
+ * Holds the former default component constants of {@link WarmupHandler},
+ * so they are still accessible as <code>WarmupHandler.DEFAULT_...</code>.
+ * Every constant is declared in its own interface implemented by {@link WarmupHandler}.
+ * As an interface is initialized only on the first access to its own fields
+ * (not together with the classes implementing it or the other interfaces),
+ * every default component is created on its first request
+ * and accessing one of these constants doesn't create the others (such as the AWS Lambda client).
+ * Still, the getters of {@link WarmupHandler} should be preferred.
+ *
+ * @author serkan
+ */
+public final class WarmupHandlerDefaults {
+
+    private WarmupHandlerDefaults() {
+    }
+
+    public interface DefaultLambdaService {
+
+        /**
+         * @deprecated use {@link WarmupHandler#getDefaultLambdaService()} instead
+         */
+        @Deprecated
+        LambdaService DEFAULT_LAMBDA_SERVICE =
+                WarmupHandler.getDefaultLambdaService();
+
+    }
+
+    public interface DefaultWarmupPropertyProvider {
+
+        /**
+         * @deprecated use {@link WarmupHandler#getDefaultWarmupPropertyProvider()} instead
+         */
+        @Deprecated
+        WarmupPropertyProvider DEFAULT_WARMUP_PROPERTY_PROVIDER =
+                WarmupHandler.getDefaultWarmupPropertyProvider();
+
+    }
+
+    public interface DefaultWarmupStrategyProvider {
+
+        /**
+         * @deprecated use {@link WarmupHandler#getDefaultWarmupStrategyProvider()} instead
+         */
+        @Deprecated
+        WarmupStrategyProvider DEFAULT_WARMUP_STRATEGY_PROVIDER =
+                WarmupHandler.getDefaultWarmupStrategyProvider();
+
+    }
+
+    public interface DefaultWarmupStrategy {
+
+        /**
+         * @deprecated use {@link WarmupHandler#getDefaultWarmupStrategy()} instead
+         */
+        @Deprecated
+        WarmupStrategy DEFAULT_WARMUP_STRATEGY =
+                WarmupHandler.getDefaultWarmupStrategy();
+
+    }
+
+}
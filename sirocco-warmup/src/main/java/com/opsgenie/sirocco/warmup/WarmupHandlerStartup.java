@@ -0,0 +1,205 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.*;
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *      Runs {@link WarmupHandler} through a warmup in a fresh JVM like a cold start of the warmup function,
+ *      but against an in-memory {@link LambdaService}, and reports the time from the start of the run
+ *      to the first invocation.
+ * </p>
+ * <p>
+ *      This is the training run of the <code>appcds</code> build profile, which records the classes
+ *      loaded by the run into a class list and dumps them into an AppCDS archive for the shaded jar.
+ *      It can also be run with and without the archive
+ *      (<code>-XX:SharedArchiveFile=...</code>) to compare time to first invocation.
+ *      Classes of the default {@link LambdaService} are loaded after the measurement,
+ *      so they are recorded but their cost is not included in the reported time.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class WarmupHandlerStartup {
+
+    private static final int FUNCTION_COUNT = 10;
+    private static final int RUN_TIMEOUT_MILLIS = 3000;
+
+    private WarmupHandlerStartup() {
+    }
+
+    public static void main(String[] args) {
+        long startNanos = System.nanoTime();
+
+        InMemoryLambdaService lambdaService = new InMemoryLambdaService(FUNCTION_COUNT);
+        WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        lambdaService,
+                        new MapWarmupPropertyProvider(new HashMap<String, Object>()),
+                        null,
+                        null);
+        try {
+            warmupHandler.handleRequest(null, new StartupContext(RUN_TIMEOUT_MILLIS));
+        } finally {
+            warmupHandler.close();
+        }
+
+        long firstInvokeNanos = lambdaService.firstInvokeNanos;
+        long endNanos = System.nanoTime();
+
+        // Client of the default Lambda service is only created, it is not used
+        WarmupHandler.getDefaultLambdaService();
+
+        if (firstInvokeNanos == 0) {
+            System.out.println("No invocation has been made by the warmup run");
+        } else {
+            System.out.println("Time to first invoke: " +
+                    TimeUnit.NANOSECONDS.toMillis(firstInvokeNanos - startNanos) + " milliseconds");
+        }
+        System.out.println("Time to finish warmup: " +
+                TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos) + " milliseconds");
+    }
+
+    private static class InMemoryLambdaService implements LambdaService {
+
+        private final List<FunctionConfiguration> functions;
+        private final InvokeResult invokeResult =
+                new InvokeResult().withStatusCode(200).withPayload(ByteBuffer.wrap(new byte[0]));
+        private volatile long firstInvokeNanos;
+
+        private InMemoryLambdaService(int functionCount) {
+            this.functions = new ArrayList<FunctionConfiguration>(functionCount);
+            Map<String, String> environmentVariables = new HashMap<String, String>();
+            environmentVariables.put(WarmupHandler.WARMUP_AWARE_ENV_VAR_NAME, "true");
+            for (int i = 0; i < functionCount; i++) {
+                functions.add(
+                        new FunctionConfiguration()
+                                .withFunctionName("function-" + i)
+                                .withVersion("$LATEST")
+                                .withEnvironment(new EnvironmentResponse().withVariables(environmentVariables)));
+            }
+        }
+
+        private void onInvoke() {
+            if (firstInvokeNanos == 0) {
+                firstInvokeNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public InvokeResult invoke(InvokeRequest request) {
+            onInvoke();
+            return invokeResult;
+        }
+
+        @Override
+        public Future<InvokeResult> invokeAsync(InvokeRequest request) {
+            onInvoke();
+            return CompletableFuture.completedFuture(invokeResult);
+        }
+
+        @Override
+        public Future<InvokeResult> invokeAsync(InvokeRequest request,
+                                                AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+            onInvoke();
+            asyncHandler.onSuccess(request, invokeResult);
+            return CompletableFuture.completedFuture(invokeResult);
+        }
+
+        @Override
+        public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
+            return new ListFunctionsResult().withFunctions(functions);
+        }
+
+        @Override
+        public ListAliasesResult listAliases(ListAliasesRequest request) {
+            return new ListAliasesResult().withAliases(new ArrayList<AliasConfiguration>());
+        }
+
+    }
+
+    private static class StartupContext implements Context {
+
+        private final long deadline;
+
+        private StartupContext(long timeoutMillis) {
+            this.deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return "startup";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "sirocco-warmup-startup";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) Math.max(0, deadline - System.currentTimeMillis());
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 128;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String string) {
+                    System.out.println(string);
+                }
+            };
+        }
+
+    }
+
+}
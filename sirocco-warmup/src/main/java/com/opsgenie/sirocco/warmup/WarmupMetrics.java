@@ -0,0 +1,115 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+
+/**
+ * <p>
+ *      Interface for implementations which collect metrics of warmups
+ *      such as invocation counts by their results, invocation latencies per function,
+ *      duration of function discovery and count of pending invocations.
+ * </p>
+ * <p>
+ *      Recording methods are called from the dispatch and result paths of {@link WarmupStrategy}s
+ *      (result paths might be running on any thread), so implementations must be thread-safe
+ *      and should not block. Collected metrics are exported by {@link #export()}
+ *      at the end of every warmup run.
+ * </p>
+ *
+ * @author serkan
+ */
+public interface WarmupMetrics {
+
+    /**
+     * Records that a warmup invocation has been dispatched to the given function.
+     *
+     * @param functionName name of the invoked function
+     */
+    void recordDispatch(String functionName);
+
+    /**
+     * Records that a warmup invocation of the given function has succeeded.
+     *
+     * @param functionName  name of the invoked function
+     * @param latencyNanos  latency of the invocation in nanoseconds
+     */
+    void recordSuccess(String functionName, long latencyNanos);
+
+    /**
+     * Records that a warmup invocation of the given function has completed
+     * but the function itself has failed (reported as function error).
+     *
+     * @param functionName  name of the invoked function
+     * @param latencyNanos  latency of the invocation in nanoseconds
+     */
+    void recordFunctionError(String functionName, long latencyNanos);
+
+    /**
+     * Records that a warmup invocation of the given function has been throttled.
+     *
+     * @param functionName name of the invoked function
+     */
+    void recordThrottle(String functionName);
+
+    /**
+     * Records that a warmup invocation of the given function has timed out.
+     *
+     * @param functionName name of the invoked function
+     */
+    void recordTimeout(String functionName);
+
+    /**
+     * Records that a warmup invocation of the given function has failed
+     * for any reason other than throttling and timeout.
+     *
+     * @param functionName name of the invoked function
+     */
+    void recordFailure(String functionName);
+
+    /**
+     * Records that warmup of the given function has been skipped
+     * since there is no permitted concurrency for it.
+     *
+     * @param functionName          name of the function
+     * @param deniedInvocationCount count of the warmup invocations which have not been dispatched
+     */
+    void recordSkippedWarmup(String functionName, int deniedInvocationCount);
+
+    /**
+     * Records that warmup of the given function has been shrunk
+     * to the permitted concurrency or aborted while dispatching since throttling has been detected.
+     *
+     * @param functionName          name of the function
+     * @param deniedInvocationCount count of the warmup invocations which have not been dispatched
+     */
+    void recordShrunkWarmup(String functionName, int deniedInvocationCount);
+
+    /**
+     * Records a discovery of functions to warmup.
+     *
+     * @param durationNanos duration of the discovery in nanoseconds
+     * @param functionCount count of the functions to warmup
+     */
+    void recordDiscovery(long durationNanos, int functionCount);
+
+    /**
+     * Records the count of dispatched invocations whose results are still pending.
+     *
+     * @param pendingInvocationCount the count of pending invocations
+     */
+    void recordPendingInvocations(int pendingInvocationCount);
+
+    /**
+     * Records the counts of the active and queued tasks of the {@link WarmupExecutorRegistry}
+     * for tracking its saturation.
+     *
+     * @param activeTaskCount the count of the tasks which are being executed
+     * @param queuedTaskCount the count of the tasks which are waiting to be executed
+     */
+    void recordExecutorTasks(int activeTaskCount, int queuedTaskCount);
+
+    /**
+     * Exports the metrics collected since the latest export and resets them.
+     */
+    void export();
+
+}
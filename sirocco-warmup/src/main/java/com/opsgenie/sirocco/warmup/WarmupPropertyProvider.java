@@ -1,5 +1,6 @@
 package com.opsgenie.sirocco.warmup;
 
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -16,6 +17,47 @@ public interface WarmupPropertyProvider {
      */
     Set<String> getPropertyNames();
 
+    /**
+     * Gets names of the properties which start with the given prefix.
+     * Implementations which index property names should override this
+     * instead of scanning all the properties.
+     *
+     * @param prefix prefix of the property names
+     * @return names of the properties which start with the given prefix
+     */
+    default Set<String> getPropertyNames(String prefix) {
+        Set<String> propertyNames = new HashSet<String>();
+        for (String propertyName : getPropertyNames()) {
+            if (propertyName.startsWith(prefix)) {
+                propertyNames.add(propertyName);
+            }
+        }
+        return propertyNames;
+    }
+
+    /**
+     * Checks the source of the properties for changes and reloads the properties if it has changed.
+     * {@link WarmupHandler} calls this at the start of every warmup run.
+     * By default properties are not reloadable, so nothing is done.
+     *
+     * @return <code>true</code> if the properties have been reloaded,
+     *         <code>false</code> otherwise
+     */
+    default boolean reload() {
+        return false;
+    }
+
+    /**
+     * Gets the version of the properties which changes on every reload,
+     * so users of the properties can detect the changes and reconfigure themselves.
+     * By default properties are not reloadable, so the version is always <code>0</code>.
+     *
+     * @return the version of the properties
+     */
+    default long getVersion() {
+        return 0;
+    }
+
     /**
      * Gets <code>boolean</code> property.
      *
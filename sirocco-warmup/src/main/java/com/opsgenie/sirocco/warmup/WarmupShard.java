@@ -0,0 +1,111 @@
+package com.opsgenie.sirocco.warmup;
+
+/**
+ * <p>
+ *      Shard of the functions to warmup which is owned by a {@link WarmupHandler} deployment
+ *      when the functions to warmup are sharded between multiple warmup handler deployments.
+ *      So every warmup handler deployment discovers and warms-up only the functions in its own shard
+ *      and warmup throughput scales horizontally with the count of the warmup handler deployments.
+ * </p>
+ * <p>
+ *      Functions are assigned to shards by <b>rendezvous (highest random weight) hashing</b>:
+ *      every function is owned by the shard which has the highest hash weight for the function.
+ *      So every shard decides its functions by itself without any coordination,
+ *      and when the shard count changes, only the functions which move to/from the added/removed shards
+ *      (about <code>1 / shard_count</code> of the functions) change their owners.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class WarmupShard {
+
+    /**
+     * Shard which owns all the functions (sharding is not active).
+     */
+    public static final WarmupShard ALL = new WarmupShard(0, 1);
+
+    private final int shardIndex;
+    private final int shardCount;
+
+    /**
+     * @param shardIndex index of this shard (in <code>[0, shardCount)</code>)
+     * @param shardCount count of all the shards
+     */
+    public WarmupShard(int shardIndex, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(
+                    "Shard index must be in [0, " + shardCount + ") range: " + shardIndex);
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Checks whether the given function is owned by this shard.
+     *
+     * @param functionName name of the function
+     * @return <code>true</code> if the given function is owned by this shard,
+     *         <code>false</code> otherwise
+     */
+    public boolean owns(String functionName) {
+        return shardCount == 1 || getShardIndex(functionName, shardCount) == shardIndex;
+    }
+
+    /**
+     * Gets the index of the shard which owns the given function.
+     *
+     * @param functionName name of the function
+     * @param shardCount   count of all the shards
+     * @return the index of the shard which owns the given function
+     */
+    public static int getShardIndex(String functionName, int shardCount) {
+        long functionHash = hash(functionName);
+        int ownerShardIndex = 0;
+        long ownerWeight = Long.MIN_VALUE;
+        for (int i = 0; i < shardCount; i++) {
+            long weight = mix(functionHash + (i + 1) * 0x9E3779B97F4A7C15L);
+            if (weight > ownerWeight) {
+                ownerWeight = weight;
+                ownerShardIndex = i;
+            }
+        }
+        return ownerShardIndex;
+    }
+
+    private static long hash(String str) {
+        // 64-bit FNV-1a
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < str.length(); i++) {
+            hash ^= str.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        // Finalizer of "SplitMix64"
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupShard{" +
+                "shardIndex=" + shardIndex +
+                ", shardCount=" + shardCount +
+                '}';
+    }
+
+}
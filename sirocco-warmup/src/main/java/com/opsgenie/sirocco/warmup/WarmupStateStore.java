@@ -0,0 +1,52 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * <p>
+ *      Interface for implementations which store
+ *      state of {@link WarmupStrategy}s (such as latest call times of functions,
+ *      current iteration round, latest request times of function instances, etc ...)
+ *      so they can go on from where they left after the warmup handler is restarted.
+ * </p>
+ * <p>
+ *      State is organized as <b>namespace</b>s and every namespace holds
+ *      <code>long</code> typed values by their <code>string</code> typed keys.
+ *      Saved states might not be persisted until {@link #flush()} is called.
+ *      Implementations must be thread-safe as they might be shared between
+ *      {@link WarmupStrategy}s running concurrently.
+ * </p>
+ *
+ * @author serkan
+ */
+public interface WarmupStateStore {
+
+    /**
+     * Loads the state in the given namespace.
+     *
+     * @param namespace the namespace of the state
+     * @return the state in the given namespace. If there is no state in the given namespace,
+     *         empty map is returned. The returned map is a copy, so it can be modified by the caller.
+     */
+    Map<String, Long> load(String namespace);
+
+    /**
+     * Saves the state in the given namespace by replacing the existing one.
+     * Saving empty state removes the namespace.
+     *
+     * @param namespace the namespace of the state
+     * @param state     the state to be saved
+     */
+    void save(String namespace, Map<String, Long> state);
+
+    /**
+     * Persists the saved states if there is any change since the latest flush.
+     *
+     * @throws IOException if persisting the states fails
+     */
+    void flush() throws IOException;
+
+}
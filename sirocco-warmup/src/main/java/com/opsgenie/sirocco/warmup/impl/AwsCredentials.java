@@ -0,0 +1,81 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+/**
+ * AWS credentials to sign requests of {@link HttpLambdaService}.
+ *
+ * @author serkan
+ */
+public final class AwsCredentials {
+
+    private final String accessKeyId;
+    private final String secretAccessKey;
+    private final String sessionToken;
+
+    public AwsCredentials(String accessKeyId, String secretAccessKey) {
+        this(accessKeyId, secretAccessKey, null);
+    }
+
+    /**
+     * @param accessKeyId     the access key id
+     * @param secretAccessKey the secret access key
+     * @param sessionToken    the session token of the temporary credentials,
+     *                        <code>null</code> for the long term credentials
+     */
+    public AwsCredentials(String accessKeyId, String secretAccessKey, String sessionToken) {
+        if (accessKeyId == null || accessKeyId.isEmpty()) {
+            throw new IllegalArgumentException("Access key id must be specified");
+        }
+        if (secretAccessKey == null || secretAccessKey.isEmpty()) {
+            throw new IllegalArgumentException("Secret access key must be specified");
+        }
+        this.accessKeyId = accessKeyId;
+        this.secretAccessKey = secretAccessKey;
+        this.sessionToken = sessionToken;
+    }
+
+    /**
+     * Gets the credentials from <code>AWS_ACCESS_KEY_ID</code>, <code>AWS_SECRET_ACCESS_KEY</code>
+     * and <code>AWS_SESSION_TOKEN</code> environment variables which are provided by AWS Lambda
+     * to the function from its execution role.
+     * Falls back to <code>aws.accessKeyId</code> and <code>aws.secretKey</code> system properties
+     * if the environment variables are not set.
+     *
+     * @return the credentials from the environment
+     * @throws IllegalStateException if there is no credentials in the environment
+     */
+    public static AwsCredentials fromEnvironment() {
+        String accessKeyId = System.getenv("AWS_ACCESS_KEY_ID");
+        String secretAccessKey = System.getenv("AWS_SECRET_ACCESS_KEY");
+        String sessionToken = System.getenv("AWS_SESSION_TOKEN");
+        if (accessKeyId == null || secretAccessKey == null) {
+            accessKeyId = System.getProperty("aws.accessKeyId");
+            secretAccessKey = System.getProperty("aws.secretKey");
+            sessionToken = null;
+        }
+        if (accessKeyId == null || secretAccessKey == null) {
+            throw new IllegalStateException("Unable to find AWS credentials in the environment");
+        }
+        return new AwsCredentials(accessKeyId, secretAccessKey, sessionToken);
+    }
+
+    public String getAccessKeyId() {
+        return accessKeyId;
+    }
+
+    public String getSecretAccessKey() {
+        return secretAccessKey;
+    }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    @Override
+    public String toString() {
+        // Secrets are not exposed
+        return "AwsCredentials{" +
+                "accessKeyId='" + accessKeyId + '\'' +
+                '}';
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ *      Minimal <a href="https://docs.aws.amazon.com/general/latest/gr/signature-version-4.html">AWS Signature Version 4</a>
+ *      signer for the requests of {@link HttpLambdaService}.
+ * </p>
+ * <p>
+ *      Path of the request URI is expected to be already URI encoded
+ *      and it is encoded once more for the canonical request as required by all the services except S3.
+ *      Query parameters are expected to be already URI encoded.
+ *      <code>host</code> header is always signed but it is not set by the transport
+ *      (HTTP clients set it from the request URI), so the request URI must not contain the default port explicitly.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class AwsSigV4Signer {
+
+    public static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    public static final String HOST_HEADER = "host";
+    public static final String DATE_HEADER = "x-amz-date";
+    public static final String SECURITY_TOKEN_HEADER = "x-amz-security-token";
+    public static final String AUTHORIZATION_HEADER = "authorization";
+
+    private static final String TERMINATOR = "aws4_request";
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    private final String region;
+    private final String service;
+
+    /**
+     * @param region  the region of the service (for ex. <code>us-east-1</code>)
+     * @param service the signing name of the service (for ex. <code>lambda</code>)
+     */
+    public AwsSigV4Signer(String region, String service) {
+        this.region = region;
+        this.service = service;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * Signs the request with the given properties.
+     *
+     * @param method          the HTTP method of the request
+     * @param uri             the URI of the request
+     * @param headers         the headers of the request to be signed
+     * @param payload         the payload of the request, <code>null</code> if there is no payload
+     * @param credentials     the {@link AwsCredentials credentials} to sign the request
+     * @param timestampMillis the time of the request in milliseconds
+     * @return the signed headers, which are the given headers
+     *         plus <code>host</code>, <code>x-amz-date</code>, <code>authorization</code>
+     *         and <code>x-amz-security-token</code> (if there is session token) headers
+     *         with lower case names
+     */
+    public Map<String, String> sign(String method, URI uri, Map<String, String> headers, byte[] payload,
+                                    AwsCredentials credentials, long timestampMillis) {
+        String amzDate = formatDate("yyyyMMdd'T'HHmmss'Z'", timestampMillis);
+        String date = amzDate.substring(0, 8);
+
+        Map<String, String> signedHeaders = new TreeMap<String, String>();
+        for (Map.Entry<String, String> e : headers.entrySet()) {
+            signedHeaders.put(e.getKey().toLowerCase(Locale.ENGLISH), normalizeHeaderValue(e.getValue()));
+        }
+        signedHeaders.put(HOST_HEADER, getHost(uri));
+        signedHeaders.put(DATE_HEADER, amzDate);
+        if (credentials.getSessionToken() != null) {
+            signedHeaders.put(SECURITY_TOKEN_HEADER, credentials.getSessionToken());
+        }
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        StringBuilder signedHeaderNames = new StringBuilder();
+        for (Map.Entry<String, String> e : signedHeaders.entrySet()) {
+            canonicalHeaders.append(e.getKey()).append(':').append(e.getValue()).append('\n');
+            if (signedHeaderNames.length() > 0) {
+                signedHeaderNames.append(';');
+            }
+            signedHeaderNames.append(e.getKey());
+        }
+
+        String canonicalRequest =
+                method + '\n' +
+                getCanonicalUri(uri) + '\n' +
+                getCanonicalQuery(uri) + '\n' +
+                canonicalHeaders + '\n' +
+                signedHeaderNames + '\n' +
+                hex(sha256(payload != null ? payload : new byte[0]));
+        String scope = date + '/' + region + '/' + service + '/' + TERMINATOR;
+        String stringToSign =
+                ALGORITHM + '\n' +
+                amzDate + '\n' +
+                scope + '\n' +
+                hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signingKey =
+                hmacSha256(
+                        hmacSha256(
+                                hmacSha256(
+                                        hmacSha256(
+                                                ("AWS4" + credentials.getSecretAccessKey())
+                                                        .getBytes(StandardCharsets.UTF_8),
+                                                date),
+                                        region),
+                                service),
+                        TERMINATOR);
+        String signature = hex(hmacSha256(signingKey, stringToSign));
+
+        signedHeaders.put(AUTHORIZATION_HEADER,
+                ALGORITHM + " " +
+                "Credential=" + credentials.getAccessKeyId() + '/' + scope + ", " +
+                "SignedHeaders=" + signedHeaderNames + ", " +
+                "Signature=" + signature);
+        return signedHeaders;
+    }
+
+    /**
+     * Encodes the given value as specified by RFC 3986 which is required by the signature.
+     *
+     * @param value the value to be encoded
+     * @return the encoded value
+     */
+    public static String uriEncode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder encoded = new StringBuilder(bytes.length);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(HEX_CHARS[(b >> 4) & 0x0F]))
+                                   .append(Character.toUpperCase(HEX_CHARS[b & 0x0F]));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String getHost(URI uri) {
+        int port = uri.getPort();
+        return port < 0 ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static String getCanonicalUri(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder canonicalUri = new StringBuilder(path.length() * 2);
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (start > 0) {
+                canonicalUri.append('/');
+            }
+            canonicalUri.append(uriEncode(path.substring(start, end)));
+            start = end + 1;
+        }
+        return canonicalUri.toString();
+    }
+
+    private static String getCanonicalQuery(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        List<String> parameters = new ArrayList<String>();
+        for (String parameter : query.split("&")) {
+            if (!parameter.isEmpty()) {
+                parameters.add(parameter.indexOf('=') < 0 ? parameter + "=" : parameter);
+            }
+        }
+        Collections.sort(parameters);
+        StringBuilder canonicalQuery = new StringBuilder(query.length());
+        for (String parameter : parameters) {
+            if (canonicalQuery.length() > 0) {
+                canonicalQuery.append('&');
+            }
+            canonicalQuery.append(parameter);
+        }
+        return canonicalQuery.toString();
+    }
+
+    private static String normalizeHeaderValue(String value) {
+        return value.trim().replaceAll(" +", " ");
+    }
+
+    private static String formatDate(String pattern, long timestampMillis) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.ENGLISH);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat.format(new Date(timestampMillis));
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to calculate SHA-256 hash", e);
+        }
+    }
+
+    private static byte[] hmacSha256(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to calculate HMAC-SHA256", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_CHARS[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX_CHARS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,392 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupMetrics;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * <p>
+ *      {@link WarmupMetrics} implementation which exports metrics as
+ *      <a href="https://docs.aws.amazon.com/AmazonCloudWatch/latest/monitoring/CloudWatch_Embedded_Metric_Format_Specification.html">
+ *      CloudWatch Embedded Metric Format</a> lines to the standard output,
+ *      so they are extracted as CloudWatch metrics from the logs of the warmup handler
+ *      without any call to CloudWatch API.
+ * </p>
+ * <p>
+ *      On every export, one line is written for every function invoked since the previous export
+ *      with <code>FunctionName</code> dimension, which contains invocation counts by their results
+ *      and latency percentiles of successful invocations, and one more line is written
+ *      without any dimension for the whole run, which contains total invocation counts,
+ *      discovery duration, count of discovered functions, maximum count of pending invocations
+ *      and maximum counts of active and queued tasks of the executor registry.
+ * </p>
+ * <p>
+ *      Recording is lock-free: counters are {@link LongAdder}s and latencies are recorded into
+ *      HdrHistogram {@link Recorder}s, whose interval histograms are swapped out on export.
+ * </p>
+ *
+ * @author serkan
+ */
+public class EmfWarmupMetrics implements WarmupMetrics {
+
+    private static final int LATENCY_SIGNIFICANT_DIGITS = 2;
+
+    private static final String COUNT_UNIT = "Count";
+    private static final String MILLISECONDS_UNIT = "Milliseconds";
+
+    private static final LongBinaryOperator MAX_OPERATOR = new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    };
+
+    private static final ConcurrentMap<String, EmfWarmupMetrics> INSTANCES =
+            new ConcurrentHashMap<String, EmfWarmupMetrics>();
+
+    // Removes metrics of the function only if nothing has been recorded to them since they were exported.
+    // Removal is announced before idleness is checked, so records which are not seen by the check
+    // see the removal and they are retried (see "FunctionMetrics.isRemoved").
+    private static final BiFunction<String, FunctionMetrics, FunctionMetrics> REMOVE_IF_IDLE =
+            new BiFunction<String, FunctionMetrics, FunctionMetrics>() {
+                @Override
+                public FunctionMetrics apply(String functionName, FunctionMetrics functionMetrics) {
+                    functionMetrics.state = FunctionMetrics.REMOVING;
+                    if (!functionMetrics.isIdle()) {
+                        functionMetrics.state = FunctionMetrics.ACTIVE;
+                        return functionMetrics;
+                    }
+                    functionMetrics.state = FunctionMetrics.REMOVED;
+                    return null;
+                }
+            };
+
+    private final String namespace;
+    private final PrintStream out;
+    private final ConcurrentMap<String, FunctionMetrics> functionMetricsMap =
+            new ConcurrentHashMap<String, FunctionMetrics>();
+    private final LongAdder discoveryCount = new LongAdder();
+    private final LongAccumulator maxDiscoveryDurationNanos = new LongAccumulator(MAX_OPERATOR, 0);
+    private final LongAccumulator maxDiscoveredFunctionCount = new LongAccumulator(MAX_OPERATOR, 0);
+    private final LongAccumulator maxPendingInvocationCount = new LongAccumulator(MAX_OPERATOR, 0);
+    private final LongAccumulator maxActiveExecutorTaskCount = new LongAccumulator(MAX_OPERATOR, 0);
+    private final LongAccumulator maxQueuedExecutorTaskCount = new LongAccumulator(MAX_OPERATOR, 0);
+
+    public EmfWarmupMetrics(String namespace) {
+        this(namespace, System.out);
+    }
+
+    public EmfWarmupMetrics(String namespace, PrintStream out) {
+        this.namespace = namespace;
+        this.out = out;
+    }
+
+    /**
+     * Gets the {@link EmfWarmupMetrics} for the given namespace.
+     * The returned metrics are shared by all callers using the same namespace,
+     * so metrics recorded by warmup strategies are exported by the warmup handler.
+     *
+     * @param namespace the CloudWatch namespace of the metrics
+     * @return the shared {@link EmfWarmupMetrics} for the given namespace
+     */
+    public static EmfWarmupMetrics getInstance(String namespace) {
+        EmfWarmupMetrics metrics = INSTANCES.get(namespace);
+        if (metrics == null) {
+            metrics = new EmfWarmupMetrics(namespace);
+            EmfWarmupMetrics existingMetrics = INSTANCES.putIfAbsent(namespace, metrics);
+            if (existingMetrics != null) {
+                metrics = existingMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    private FunctionMetrics getFunctionMetrics(String functionName) {
+        FunctionMetrics functionMetrics = functionMetricsMap.get(functionName);
+        if (functionMetrics == null) {
+            functionMetrics = new FunctionMetrics();
+            FunctionMetrics existingFunctionMetrics = functionMetricsMap.putIfAbsent(functionName, functionMetrics);
+            if (existingFunctionMetrics != null) {
+                functionMetrics = existingFunctionMetrics;
+            }
+        }
+        return functionMetrics;
+    }
+
+    private static void recordLatency(Recorder recorder, long latencyNanos) {
+        recorder.recordValue(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 0));
+    }
+
+    /*
+     * Metrics of idle functions might be removed by the export concurrently after they have been got to record.
+     * Every record checks for the removal after it is recorded. The export announces the removal
+     * before checking idleness, so either the record is seen by the check and the metrics are kept,
+     * or the removal is seen by the record and it is retried with the new metrics of the function.
+     */
+
+    @Override
+    public void recordDispatch(String functionName) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.dispatched.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordSuccess(String functionName, long latencyNanos) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            recordLatency(functionMetrics.latency, latencyNanos);
+            functionMetrics.succeeded.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordFunctionError(String functionName, long latencyNanos) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            recordLatency(functionMetrics.latency, latencyNanos);
+            functionMetrics.functionErrors.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordThrottle(String functionName) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.throttles.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordTimeout(String functionName) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.timeouts.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordFailure(String functionName) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.failures.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordSkippedWarmup(String functionName, int deniedInvocationCount) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.deniedInvocations.add(deniedInvocationCount);
+            functionMetrics.skippedWarmups.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordShrunkWarmup(String functionName, int deniedInvocationCount) {
+        FunctionMetrics functionMetrics;
+        do {
+            functionMetrics = getFunctionMetrics(functionName);
+            functionMetrics.deniedInvocations.add(deniedInvocationCount);
+            functionMetrics.shrunkWarmups.increment();
+        } while (functionMetrics.isRemoved());
+    }
+
+    @Override
+    public void recordDiscovery(long durationNanos, int functionCount) {
+        discoveryCount.increment();
+        maxDiscoveryDurationNanos.accumulate(durationNanos);
+        maxDiscoveredFunctionCount.accumulate(functionCount);
+    }
+
+    @Override
+    public void recordPendingInvocations(int pendingInvocationCount) {
+        maxPendingInvocationCount.accumulate(pendingInvocationCount);
+    }
+
+    @Override
+    public void recordExecutorTasks(int activeTaskCount, int queuedTaskCount) {
+        maxActiveExecutorTaskCount.accumulate(activeTaskCount);
+        maxQueuedExecutorTaskCount.accumulate(queuedTaskCount);
+    }
+
+    @Override
+    public void export() {
+        long timestamp = System.currentTimeMillis();
+        long[] totals = new long[FunctionMetrics.COUNTER_NAMES.length];
+        Iterator<Map.Entry<String, FunctionMetrics>> iterator = functionMetricsMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, FunctionMetrics> entry = iterator.next();
+            FunctionMetrics functionMetrics = entry.getValue();
+            long[] counts = functionMetrics.sumThenReset();
+            Histogram latencyHistogram = functionMetrics.latency.getIntervalHistogram();
+            boolean idle = true;
+            for (int i = 0; i < counts.length; i++) {
+                totals[i] += counts[i];
+                idle &= counts[i] == 0;
+            }
+            if (idle) {
+                // Don't keep metrics of functions which are not warmed-up anymore.
+                // Idleness is checked again atomically with the removal,
+                // as there might be records since the counts have been taken.
+                functionMetricsMap.computeIfPresent(entry.getKey(), REMOVE_IF_IDLE);
+                continue;
+            }
+            JSONObject line = new JSONObject();
+            JSONArray metricDefinitions = new JSONArray();
+            line.put("FunctionName", entry.getKey());
+            putCounts(line, metricDefinitions, counts);
+            if (latencyHistogram.getTotalCount() > 0) {
+                putLatencies(line, metricDefinitions, latencyHistogram);
+            }
+            writeLine(line, metricDefinitions, timestamp, "FunctionName");
+        }
+
+        long discoveries = discoveryCount.sumThenReset();
+        long discoveryDurationNanos = maxDiscoveryDurationNanos.getThenReset();
+        long discoveredFunctionCount = maxDiscoveredFunctionCount.getThenReset();
+        long pendingInvocationCount = maxPendingInvocationCount.getThenReset();
+        long activeExecutorTaskCount = maxActiveExecutorTaskCount.getThenReset();
+        long queuedExecutorTaskCount = maxQueuedExecutorTaskCount.getThenReset();
+        JSONObject line = new JSONObject();
+        JSONArray metricDefinitions = new JSONArray();
+        putCounts(line, metricDefinitions, totals);
+        if (discoveries > 0) {
+            putMetric(line, metricDefinitions, "DiscoveryDuration", MILLISECONDS_UNIT,
+                      toMillis(TimeUnit.NANOSECONDS.toMicros(discoveryDurationNanos)));
+            putMetric(line, metricDefinitions, "DiscoveredFunctions", COUNT_UNIT, discoveredFunctionCount);
+        }
+        putMetric(line, metricDefinitions, "MaxPendingInvocations", COUNT_UNIT, pendingInvocationCount);
+        putMetric(line, metricDefinitions, "MaxActiveExecutorTasks", COUNT_UNIT, activeExecutorTaskCount);
+        putMetric(line, metricDefinitions, "MaxQueuedExecutorTasks", COUNT_UNIT, queuedExecutorTaskCount);
+        writeLine(line, metricDefinitions, timestamp);
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void putCounts(JSONObject line, JSONArray metricDefinitions, long[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            putMetric(line, metricDefinitions, FunctionMetrics.COUNTER_NAMES[i], COUNT_UNIT, counts[i]);
+        }
+    }
+
+    private static void putLatencies(JSONObject line, JSONArray metricDefinitions, Histogram latencyHistogram) {
+        putMetric(line, metricDefinitions, "LatencyP50", MILLISECONDS_UNIT,
+                  toMillis(latencyHistogram.getValueAtPercentile(50.0)));
+        putMetric(line, metricDefinitions, "LatencyP90", MILLISECONDS_UNIT,
+                  toMillis(latencyHistogram.getValueAtPercentile(90.0)));
+        putMetric(line, metricDefinitions, "LatencyP99", MILLISECONDS_UNIT,
+                  toMillis(latencyHistogram.getValueAtPercentile(99.0)));
+        putMetric(line, metricDefinitions, "LatencyMax", MILLISECONDS_UNIT,
+                  toMillis(latencyHistogram.getMaxValue()));
+    }
+
+    private static void putMetric(JSONObject line, JSONArray metricDefinitions,
+                                  String name, String unit, Object value) {
+        line.put(name, value);
+        metricDefinitions.put(new JSONObject().put("Name", name).put("Unit", unit));
+    }
+
+    private void writeLine(JSONObject line, JSONArray metricDefinitions, long timestamp, String... dimensions) {
+        JSONObject metricDirective = new JSONObject();
+        metricDirective.put("Namespace", namespace);
+        metricDirective.put("Dimensions", new JSONArray().put(new JSONArray(dimensions)));
+        metricDirective.put("Metrics", metricDefinitions);
+        JSONObject metadata = new JSONObject();
+        metadata.put("Timestamp", timestamp);
+        metadata.put("CloudWatchMetrics", new JSONArray().put(metricDirective));
+        line.put("_aws", metadata);
+        out.println(line.toString());
+    }
+
+    private static class FunctionMetrics {
+
+        private static final String[] COUNTER_NAMES = {
+                "Dispatched", "Succeeded", "FunctionErrors", "Throttles", "Timeouts", "Failures",
+                "SkippedWarmups", "ShrunkWarmups", "DeniedInvocations"
+        };
+
+        private static final int ACTIVE = 0;
+        private static final int REMOVING = 1;
+        private static final int REMOVED = 2;
+
+        private final LongAdder dispatched = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder functionErrors = new LongAdder();
+        private final LongAdder throttles = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder skippedWarmups = new LongAdder();
+        private final LongAdder shrunkWarmups = new LongAdder();
+        private final LongAdder deniedInvocations = new LongAdder();
+        private final Recorder latency = new Recorder(LATENCY_SIGNIFICANT_DIGITS);
+        // Set to "REMOVED" when the metrics are removed as idle, so the records to them are lost
+        // and they must be retried. It is "REMOVING" only while the export checks idleness for removal.
+        private volatile int state = ACTIVE;
+
+        private boolean isRemoved() {
+            int currentState;
+            // Removal is decided in a few reads, so it is waited for without blocking
+            while ((currentState = state) == REMOVING) {
+                Thread.yield();
+            }
+            return currentState == REMOVED;
+        }
+
+        private boolean isIdle() {
+            // Latencies are recorded before the counters, so checking the counters is enough
+            return dispatched.sum() == 0
+                    && succeeded.sum() == 0
+                    && functionErrors.sum() == 0
+                    && throttles.sum() == 0
+                    && timeouts.sum() == 0
+                    && failures.sum() == 0
+                    && skippedWarmups.sum() == 0
+                    && shrunkWarmups.sum() == 0
+                    && deniedInvocations.sum() == 0;
+        }
+
+        private long[] sumThenReset() {
+            return new long[] {
+                    dispatched.sumThenReset(),
+                    succeeded.sumThenReset(),
+                    functionErrors.sumThenReset(),
+                    throttles.sumThenReset(),
+                    timeouts.sumThenReset(),
+                    failures.sumThenReset(),
+                    skippedWarmups.sumThenReset(),
+                    shrunkWarmups.sumThenReset(),
+                    deniedInvocations.sumThenReset()
+            };
+        }
+
+    }
+
+}
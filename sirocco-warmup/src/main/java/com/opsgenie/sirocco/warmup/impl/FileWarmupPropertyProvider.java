@@ -0,0 +1,244 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupConfig;
+import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+import org.apache.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * <p>
+ *      Local file based {@link WarmupPropertyProvider} implementation
+ *      which reloads the properties when the file changes.
+ *      Properties of the file override the given base properties (such as environment variables).
+ * </p>
+ * <p>
+ *      Files whose names end with <code>.json</code> are parsed as JSON objects
+ *      where nested objects are flattened by joining their keys with <code>.</code>
+ *      and arrays are joined with <code>,</code> (so functions can be declared as arrays).
+ *      Other files are parsed as properties files.
+ *      Files bundled with the handler can be given by <code>classpath:</code> prefix,
+ *      but they are loaded only once as they cannot change.
+ * </p>
+ * <p>
+ *      {@link #reload()} only reads the modification time and the size of the file
+ *      and the file is parsed again only if any of them has changed.
+ *      If the file is removed or it cannot be parsed, previously loaded properties are kept.
+ * </p>
+ *
+ * @author serkan
+ */
+public class FileWarmupPropertyProvider implements WarmupPropertyProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(FileWarmupPropertyProvider.class);
+
+    public static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final String location;
+    private final Path path;
+    private final WarmupConfig baseConfig;
+    private volatile WarmupConfig config;
+    private volatile long version;
+    private long lastModifiedTime = -1;
+    private long lastSize = -1;
+
+    public FileWarmupPropertyProvider(String location) {
+        this(location, WarmupConfig.empty());
+    }
+
+    public FileWarmupPropertyProvider(String location, WarmupConfig baseConfig) {
+        this.location = location;
+        this.path = location.startsWith(CLASSPATH_PREFIX) ? null : Paths.get(location).toAbsolutePath();
+        this.baseConfig = baseConfig;
+        this.config = baseConfig;
+        if (path == null) {
+            loadResource();
+        } else {
+            loadFile();
+        }
+        // Initially loaded properties are the first version
+        this.version = 0;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    @Override
+    public synchronized boolean reload() {
+        if (path == null) {
+            return false;
+        }
+        return loadFile();
+    }
+
+    private boolean loadFile() {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            if (lastSize >= 0) {
+                LOGGER.warn("Warmup properties file " + path + " doesn't exist anymore. " +
+                            "Going on with the previously loaded properties ...");
+                lastModifiedTime = -1;
+                lastSize = -1;
+            }
+            return false;
+        } catch (IOException e) {
+            LOGGER.error("Unable to check warmup properties file " + path + " for changes", e);
+            return false;
+        }
+        long modifiedTime = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        if (modifiedTime == lastModifiedTime && size == lastSize) {
+            return false;
+        }
+        // Failed attempts are also recorded, so a broken file is not parsed again until it changes
+        lastModifiedTime = modifiedTime;
+        lastSize = size;
+        try {
+            update(parse(path.getFileName().toString(), Files.readAllBytes(path)));
+        } catch (Exception e) {
+            LOGGER.error("Unable to load warmup properties file " + path + ". " +
+                         "Going on with the previously loaded properties ...", e);
+            return false;
+        }
+        LOGGER.info("Loaded warmup properties from " + path);
+        return true;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+        return config.getPropertyNames();
+    }
+
+    @Override
+    public Set<String> getPropertyNames(String prefix) {
+        return config.getPropertyNames(prefix);
+    }
+
+    @Override
+    public Boolean getBoolean(String name) {
+        return config.getBoolean(name);
+    }
+
+    @Override
+    public Boolean getBoolean(String name, Boolean defaultValue) {
+        return config.getBoolean(name, defaultValue);
+    }
+
+    @Override
+    public Integer getInteger(String name) {
+        return config.getInteger(name);
+    }
+
+    @Override
+    public Float getFloat(String name) {
+        return config.getFloat(name);
+    }
+
+    @Override
+    public Long getLong(String name) {
+        return config.getLong(name);
+    }
+
+    @Override
+    public Double getDouble(String name) {
+        return config.getDouble(name);
+    }
+
+    @Override
+    public String getString(String name) {
+        return config.getString(name);
+    }
+
+    private void loadResource() {
+        String resourceName = location.substring(CLASSPATH_PREFIX.length());
+        if (resourceName.startsWith("/")) {
+            resourceName = resourceName.substring(1);
+        }
+        ClassLoader classLoader = FileWarmupPropertyProvider.class.getClassLoader();
+        try (InputStream in = classLoader.getResourceAsStream(resourceName)) {
+            if (in == null) {
+                LOGGER.warn("Warmup properties resource " + resourceName + " doesn't exist");
+                return;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            update(parse(resourceName, out.toByteArray()));
+        } catch (IOException | JSONException e) {
+            throw new IllegalArgumentException("Unable to load warmup properties resource " + resourceName, e);
+        }
+    }
+
+    private void update(Map<String, Object> properties) {
+        config = WarmupConfig.builder()
+                .withConfig(baseConfig)
+                .withProperties(properties)
+                .build();
+        version++;
+    }
+
+    private static Map<String, Object> parse(String fileName, byte[] content) throws IOException {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        if (fileName.endsWith(".json")) {
+            flatten(null, new JSONObject(new String(content, StandardCharsets.UTF_8)), properties);
+        } else {
+            Properties fileProperties = new Properties();
+            fileProperties.load(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+            for (String name : fileProperties.stringPropertyNames()) {
+                properties.put(name, fileProperties.getProperty(name).trim());
+            }
+        }
+        return properties;
+    }
+
+    private static void flatten(String prefix, JSONObject object, Map<String, Object> properties) {
+        for (String key : object.keySet()) {
+            String name = prefix != null ? prefix + "." + key : key;
+            Object value = object.get(key);
+            if (value instanceof JSONObject) {
+                flatten(name, (JSONObject) value, properties);
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                StringBuilder joined = new StringBuilder();
+                for (int i = 0; i < array.length(); i++) {
+                    if (i > 0) {
+                        joined.append(',');
+                    }
+                    joined.append(array.get(i));
+                }
+                properties.put(name, joined.toString());
+            } else if (value != JSONObject.NULL) {
+                properties.put(name, value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ *      Local file based {@link WarmupStateStore} implementation.
+ *      States are loaded from the file lazily on first access
+ *      and written back to the file as a whole snapshot on {@link #flush()}
+ *      only if there is any change since the latest flush.
+ * </p>
+ * <p>
+ *      Snapshot is written in a compact binary format
+ *      (a magic header and format version followed by namespaces and their entries)
+ *      into a temporary file first, and then it is atomically moved onto the actual file,
+ *      so a crash while writing never leaves a partially written snapshot behind.
+ *      Unreadable (corrupted or unknown versioned) snapshots are ignored.
+ * </p>
+ * <p>
+ *      Note that AWS Lambda keeps <code>/tmp</code> only as long as the execution environment is alive
+ *      (for example, the runtime is restarted in the same environment after a timeout or crash).
+ *      To keep states across execution environments, the file should be located on a mounted file system.
+ * </p>
+ *
+ * @author serkan
+ */
+public class FileWarmupStateStore extends InMemoryWarmupStateStore {
+
+    private static final Logger LOGGER = Logger.getLogger(FileWarmupStateStore.class);
+
+    private static final int MAGIC = 0x53575353; // "SWSS"
+    private static final short VERSION = 1;
+
+    private static final ConcurrentMap<Path, FileWarmupStateStore> INSTANCES =
+            new ConcurrentHashMap<Path, FileWarmupStateStore>();
+
+    private final Path path;
+    private boolean loaded;
+
+    public FileWarmupStateStore(String path) {
+        this.path = Paths.get(path).toAbsolutePath();
+    }
+
+    /**
+     * Gets the {@link FileWarmupStateStore} for the given file path.
+     * The returned store is shared by all callers using the same file path,
+     * so they don't overwrite each other's states on flush.
+     *
+     * @param path the path of the file
+     * @return the shared {@link FileWarmupStateStore} for the given file path
+     */
+    public static FileWarmupStateStore getInstance(String path) {
+        Path absolutePath = Paths.get(path).toAbsolutePath();
+        FileWarmupStateStore store = INSTANCES.get(absolutePath);
+        if (store == null) {
+            store = new FileWarmupStateStore(path);
+            FileWarmupStateStore existingStore = INSTANCES.putIfAbsent(absolutePath, store);
+            if (existingStore != null) {
+                store = existingStore;
+            }
+        }
+        return store;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized Map<String, Long> load(String namespace) {
+        ensureLoaded();
+        return super.load(namespace);
+    }
+
+    @Override
+    public synchronized void save(String namespace, Map<String, Long> state) {
+        ensureLoaded();
+        super.save(namespace, state);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path parentPath = path.getParent();
+        if (parentPath != null) {
+            Files.createDirectories(parentPath);
+        }
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                     new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            write(out);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try (DataInputStream in =
+                     new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            read(in);
+            LOGGER.info("Loaded warmup states of " + namespaces.size() + " namespaces from " + path);
+        } catch (NoSuchFileException e) {
+            // No snapshot yet
+        } catch (IOException e) {
+            namespaces.clear();
+            LOGGER.warn("Unable to load warmup states from " + path + ". So ignoring them ...", e);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(namespaces.size());
+        for (Map.Entry<String, Map<String, Long>> namespaceEntry : namespaces.entrySet()) {
+            Map<String, Long> state = namespaceEntry.getValue();
+            out.writeUTF(namespaceEntry.getKey());
+            out.writeInt(state.size());
+            for (Map.Entry<String, Long> entry : state.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a warmup state snapshot");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported warmup state snapshot version: " + version);
+        }
+        int namespaceCount = in.readInt();
+        for (int i = 0; i < namespaceCount; i++) {
+            String namespace = in.readUTF();
+            int entryCount = in.readInt();
+            Map<String, Long> state = new HashMap<String, Long>(entryCount * 2);
+            for (int j = 0; j < entryCount; j++) {
+                String key = in.readUTF();
+                state.put(key, in.readLong());
+            }
+            namespaces.put(namespace, state);
+        }
+    }
+
+}
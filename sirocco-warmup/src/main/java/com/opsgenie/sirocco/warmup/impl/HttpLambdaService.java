@@ -0,0 +1,473 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.*;
+import com.opsgenie.sirocco.warmup.LambdaService;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p>
+ *      Lightweight {@link LambdaService} implementation which calls
+ *      <a href="https://docs.aws.amazon.com/lambda/latest/dg/API_Reference.html">AWS Lambda API</a>
+ *      over HTTP directly with requests signed by {@link AwsSigV4Signer},
+ *      without creating AWS SDK client which takes noticeable time at cold start.
+ * </p>
+ * <p>
+ *      On JDK 11+, requests are sent through <code>java.net.http.HttpClient</code> over HTTP/2
+ *      (if it is negotiated with the endpoint) by the multi-release jar,
+ *      so concurrent invocations are multiplexed over a single connection.
+ *      On older JDKs, requests are sent through {@link java.net.HttpURLConnection} over HTTP/1.1.
+ * </p>
+ * <p>
+ *      Only <code>Invoke</code>, <code>ListFunctions</code> and <code>ListAliases</code> actions
+ *      which are required by warmup are supported. Errors returned by the service are thrown as
+ *      {@link TooManyRequestsException}, {@link ResourceNotFoundException} or {@link AWSLambdaException}
+ *      and failures of the requests are thrown as {@link AmazonClientException}
+ *      like the AWS SDK client does.
+ * </p>
+ * <p>
+ *      Invocations are timed out by the client execution timeout (or the request timeout) of the
+ *      {@link InvokeRequest}s like the AWS SDK client does, and cancelling the returned futures
+ *      aborts the requests, so timed out invocations don't hold threads or connections until the responses.
+ * </p>
+ *
+ * @author serkan
+ */
+public class HttpLambdaService implements LambdaService {
+
+    public static final String SIGNING_NAME = "lambda";
+    public static final String SERVICE_NAME = "AWSLambda";
+
+    private static final String FUNCTIONS_PATH = "/2015-03-31/functions/";
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int LIST_TIMEOUT_MILLIS = 30000;
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final String endpoint;
+    private final String region;
+    private final AwsCredentials credentials;
+    private final AwsSigV4Signer signer;
+    private final HttpTransport transport;
+
+    /**
+     * Creates the service which calls the public AWS Lambda endpoint of the given region.
+     *
+     * @param region          the region of the AWS Lambda endpoint
+     * @param credentials     the {@link AwsCredentials credentials} to sign the requests
+     * @param executorService the executor to send requests and to complete their futures
+     */
+    public HttpLambdaService(String region, AwsCredentials credentials, ExecutorService executorService) {
+        this(getEndpoint(region), region, credentials, executorService);
+    }
+
+    /**
+     * @param endpoint        the URI of the AWS Lambda endpoint
+     * @param region          the region of the AWS Lambda endpoint
+     * @param credentials     the {@link AwsCredentials credentials} to sign the requests
+     * @param executorService the executor to send requests and to complete their futures
+     */
+    public HttpLambdaService(URI endpoint, String region, AwsCredentials credentials,
+                             ExecutorService executorService) {
+        String endpointStr = endpoint.toString();
+        this.endpoint = endpointStr.endsWith("/") ? endpointStr.substring(0, endpointStr.length() - 1) : endpointStr;
+        this.region = region;
+        this.credentials = credentials;
+        this.signer = new AwsSigV4Signer(region, SIGNING_NAME);
+        this.transport = new HttpTransport(executorService, CONNECT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Gets the public AWS Lambda endpoint of the given region.
+     *
+     * @param region the region of the endpoint
+     * @return the URI of the endpoint
+     */
+    public static URI getEndpoint(String region) {
+        String domain = region.startsWith("cn-") ? "amazonaws.com.cn" : "amazonaws.com";
+        return URI.create("https://lambda." + region + "." + domain);
+    }
+
+    /**
+     * Checks whether requests are sent over HTTP/2 on the running JDK (requires JDK 11+).
+     *
+     * @return <code>true</code> if HTTP/2 is supported, <code>false</code> otherwise
+     */
+    public static boolean isHttp2Supported() {
+        return HttpTransport.isHttp2Supported();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    @Override
+    public InvokeResult invoke(InvokeRequest request) {
+        return await(doInvoke(request));
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request) {
+        return doInvoke(request);
+    }
+
+    @Override
+    public Future<InvokeResult> invokeAsync(final InvokeRequest request,
+                                            final AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        CompletableFuture<InvokeResult> invokeResultFuture = doInvoke(request);
+        return propagateCancellation(
+                invokeResultFuture.whenComplete(new BiConsumer<InvokeResult, Throwable>() {
+                    @Override
+                    public void accept(InvokeResult result, Throwable error) {
+                        if (error == null) {
+                            asyncHandler.onSuccess(request, result);
+                        } else {
+                            asyncHandler.onError(toException(error));
+                        }
+                    }
+                }),
+                invokeResultFuture);
+    }
+
+    @Override
+    public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
+        Map<String, String> queryParameters = new TreeMap<String, String>();
+        putIfNotNull(queryParameters, "FunctionVersion", request.getFunctionVersion());
+        putIfNotNull(queryParameters, "Marker", request.getMarker());
+        putIfNotNull(queryParameters, "MasterRegion", request.getMasterRegion());
+        putIfNotNull(queryParameters, "MaxItems", request.getMaxItems());
+        return await(execute(
+                "GET", FUNCTIONS_PATH, queryParameters,
+                new HashMap<String, String>(), null, LIST_TIMEOUT_MILLIS,
+                new Function<HttpTransportResponse, ListFunctionsResult>() {
+                    @Override
+                    public ListFunctionsResult apply(HttpTransportResponse response) {
+                        return parseListFunctionsResult(parseJson(response));
+                    }
+                }));
+    }
+
+    @Override
+    public ListAliasesResult listAliases(ListAliasesRequest request) {
+        Map<String, String> queryParameters = new TreeMap<String, String>();
+        putIfNotNull(queryParameters, "FunctionVersion", request.getFunctionVersion());
+        putIfNotNull(queryParameters, "Marker", request.getMarker());
+        putIfNotNull(queryParameters, "MaxItems", request.getMaxItems());
+        return await(execute(
+                "GET", getFunctionPath(request.getFunctionName()) + "/aliases", queryParameters,
+                new HashMap<String, String>(), null, LIST_TIMEOUT_MILLIS,
+                new Function<HttpTransportResponse, ListAliasesResult>() {
+                    @Override
+                    public ListAliasesResult apply(HttpTransportResponse response) {
+                        return parseListAliasesResult(parseJson(response));
+                    }
+                }));
+    }
+
+    private CompletableFuture<InvokeResult> doInvoke(InvokeRequest request) {
+        Map<String, String> queryParameters = new TreeMap<String, String>();
+        putIfNotNull(queryParameters, "Qualifier", request.getQualifier());
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Content-Type", "application/json");
+        putIfNotNull(headers, "X-Amz-Invocation-Type", request.getInvocationType());
+        putIfNotNull(headers, "X-Amz-Log-Type", request.getLogType());
+        putIfNotNull(headers, "X-Amz-Client-Context", request.getClientContext());
+        return execute(
+                "POST", getFunctionPath(request.getFunctionName()) + "/invocations", queryParameters,
+                headers, toBytes(request.getPayload()), getTimeoutMillis(request),
+                new Function<HttpTransportResponse, InvokeResult>() {
+                    @Override
+                    public InvokeResult apply(HttpTransportResponse response) {
+                        return new InvokeResult()
+                                .withStatusCode(response.getStatusCode())
+                                .withFunctionError(response.getHeader("X-Amz-Function-Error"))
+                                .withLogResult(response.getHeader("X-Amz-Log-Result"))
+                                .withPayload(ByteBuffer.wrap(response.getBody()));
+                    }
+                });
+    }
+
+    private <R> CompletableFuture<R> execute(String method, String path, Map<String, String> queryParameters,
+                                             Map<String, String> headers, byte[] body, int timeoutMillis,
+                                             final Function<HttpTransportResponse, R> responseHandler) {
+        StringBuilder uriBuilder = new StringBuilder(endpoint).append(path);
+        for (Map.Entry<String, String> e : queryParameters.entrySet()) {
+            uriBuilder.append(uriBuilder.indexOf("?") < 0 ? '?' : '&')
+                      .append(AwsSigV4Signer.uriEncode(e.getKey()))
+                      .append('=')
+                      .append(AwsSigV4Signer.uriEncode(e.getValue()));
+        }
+        URI uri = URI.create(uriBuilder.toString());
+        Map<String, String> signedHeaders =
+                signer.sign(method, uri, headers, body, credentials, System.currentTimeMillis());
+        CompletableFuture<HttpTransportResponse> responseFuture =
+                transport.send(method, uri, signedHeaders, body, timeoutMillis);
+        return propagateCancellation(
+                responseFuture.handle(new BiFunction<HttpTransportResponse, Throwable, R>() {
+                    @Override
+                    public R apply(HttpTransportResponse response, Throwable error) {
+                        if (error != null) {
+                            throw toClientException(unwrap(error));
+                        }
+                        if (response.getStatusCode() >= 300) {
+                            throw toServiceException(response);
+                        }
+                        return responseHandler.apply(response);
+                    }
+                }),
+                responseFuture);
+    }
+
+    // Dependent stages don't cancel the stages they depend on, so the request is aborted explicitly
+    private static <R> CompletableFuture<R> propagateCancellation(CompletableFuture<R> future,
+                                                                  final Future<?> sourceFuture) {
+        future.whenComplete(new BiConsumer<R, Throwable>() {
+            @Override
+            public void accept(R result, Throwable error) {
+                if (error instanceof CancellationException) {
+                    sourceFuture.cancel(true);
+                }
+            }
+        });
+        return future;
+    }
+
+    private static int getTimeoutMillis(InvokeRequest request) {
+        Integer timeoutMillis = request.getSdkClientExecutionTimeout();
+        if (timeoutMillis == null || timeoutMillis <= 0) {
+            timeoutMillis = request.getSdkRequestTimeout();
+        }
+        return timeoutMillis != null && timeoutMillis > 0 ? timeoutMillis : 0;
+    }
+
+    private static String getFunctionPath(String functionName) {
+        if (functionName == null || functionName.isEmpty()) {
+            throw new IllegalArgumentException("Function name must be specified");
+        }
+        return FUNCTIONS_PATH + AwsSigV4Signer.uriEncode(functionName);
+    }
+
+    private static void putIfNotNull(Map<String, String> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value.toString());
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer == null) {
+            return EMPTY_BODY;
+        }
+        ByteBuffer duplicate = buffer.duplicate();
+        byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    private static <R> R await(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for the response", e);
+        } catch (ExecutionException e) {
+            Exception cause = toException(e.getCause());
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AmazonClientException(cause.getMessage(), cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static Exception toException(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new AmazonClientException(cause.getMessage(), cause);
+    }
+
+    private static AmazonClientException toClientException(Throwable error) {
+        if (error instanceof AmazonClientException) {
+            return (AmazonClientException) error;
+        }
+        return new AmazonClientException("Unable to execute HTTP request: " + error.getMessage(), error);
+    }
+
+    private static AmazonServiceException toServiceException(HttpTransportResponse response) {
+        JSONObject errorJson = null;
+        try {
+            errorJson = new JSONObject(new String(response.getBody(), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            // Error response doesn't have JSON body, so it is described by its status code only
+        }
+        String errorCode = response.getHeader("X-Amzn-ErrorType");
+        if (errorCode == null && errorJson != null) {
+            errorCode = getString(errorJson, "__type");
+        }
+        if (errorCode != null) {
+            int i = errorCode.indexOf(':');
+            if (i >= 0) {
+                errorCode = errorCode.substring(0, i);
+            }
+            i = errorCode.lastIndexOf('#');
+            if (i >= 0) {
+                errorCode = errorCode.substring(i + 1);
+            }
+        }
+        String message = null;
+        if (errorJson != null) {
+            message = getString(errorJson, "message");
+            if (message == null) {
+                message = getString(errorJson, "Message");
+            }
+        }
+        if (message == null) {
+            message = "Request has failed with status code " + response.getStatusCode();
+        }
+
+        AWSLambdaException exception;
+        if (response.getStatusCode() == 429 || "TooManyRequestsException".equals(errorCode)) {
+            TooManyRequestsException tooManyRequestsException = new TooManyRequestsException(message);
+            tooManyRequestsException.setRetryAfterSeconds(response.getHeader("Retry-After"));
+            if (errorJson != null) {
+                tooManyRequestsException.setType(getString(errorJson, "Type"));
+            }
+            exception = tooManyRequestsException;
+        } else if ("ResourceNotFoundException".equals(errorCode)) {
+            exception = new ResourceNotFoundException(message);
+        } else {
+            exception = new AWSLambdaException(message);
+        }
+        exception.setServiceName(SERVICE_NAME);
+        exception.setStatusCode(response.getStatusCode());
+        exception.setErrorCode(errorCode);
+        exception.setRequestId(response.getHeader("X-Amzn-RequestId"));
+        exception.setErrorType(
+                response.getStatusCode() < 500
+                        ? AmazonServiceException.ErrorType.Client
+                        : AmazonServiceException.ErrorType.Service);
+        return exception;
+    }
+
+    private static JSONObject parseJson(HttpTransportResponse response) {
+        try {
+            return new JSONObject(new String(response.getBody(), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new AmazonClientException("Unable to parse response: " + e.getMessage(), e);
+        }
+    }
+
+    static ListFunctionsResult parseListFunctionsResult(JSONObject resultJson) {
+        List<FunctionConfiguration> functions = new ArrayList<FunctionConfiguration>();
+        JSONArray functionsJson = resultJson.optJSONArray("Functions");
+        if (functionsJson != null) {
+            for (int i = 0; i < functionsJson.length(); i++) {
+                JSONObject functionJson = functionsJson.getJSONObject(i);
+                FunctionConfiguration function =
+                        new FunctionConfiguration()
+                                .withFunctionName(getString(functionJson, "FunctionName"))
+                                .withFunctionArn(getString(functionJson, "FunctionArn"))
+                                .withRuntime(getString(functionJson, "Runtime"))
+                                .withRole(getString(functionJson, "Role"))
+                                .withHandler(getString(functionJson, "Handler"))
+                                .withCodeSize(functionJson.isNull("CodeSize") ? null : functionJson.getLong("CodeSize"))
+                                .withDescription(getString(functionJson, "Description"))
+                                .withTimeout(getInteger(functionJson, "Timeout"))
+                                .withMemorySize(getInteger(functionJson, "MemorySize"))
+                                .withLastModified(getString(functionJson, "LastModified"))
+                                .withCodeSha256(getString(functionJson, "CodeSha256"))
+                                .withVersion(getString(functionJson, "Version"))
+                                .withKMSKeyArn(getString(functionJson, "KMSKeyArn"))
+                                .withMasterArn(getString(functionJson, "MasterArn"));
+                JSONObject environmentJson = functionJson.optJSONObject("Environment");
+                if (environmentJson != null) {
+                    Map<String, String> variables = new HashMap<String, String>();
+                    JSONObject variablesJson = environmentJson.optJSONObject("Variables");
+                    if (variablesJson != null) {
+                        Iterator<String> keys = variablesJson.keys();
+                        while (keys.hasNext()) {
+                            String key = keys.next();
+                            variables.put(key, variablesJson.getString(key));
+                        }
+                    }
+                    function.withEnvironment(new EnvironmentResponse().withVariables(variables));
+                }
+                functions.add(function);
+            }
+        }
+        return new ListFunctionsResult()
+                .withFunctions(functions)
+                .withNextMarker(getString(resultJson, "NextMarker"));
+    }
+
+    static ListAliasesResult parseListAliasesResult(JSONObject resultJson) {
+        List<AliasConfiguration> aliases = new ArrayList<AliasConfiguration>();
+        JSONArray aliasesJson = resultJson.optJSONArray("Aliases");
+        if (aliasesJson != null) {
+            for (int i = 0; i < aliasesJson.length(); i++) {
+                JSONObject aliasJson = aliasesJson.getJSONObject(i);
+                aliases.add(
+                        new AliasConfiguration()
+                                .withAliasArn(getString(aliasJson, "AliasArn"))
+                                .withName(getString(aliasJson, "Name"))
+                                .withFunctionVersion(getString(aliasJson, "FunctionVersion"))
+                                .withDescription(getString(aliasJson, "Description")));
+            }
+        }
+        return new ListAliasesResult()
+                .withAliases(aliases)
+                .withNextMarker(getString(resultJson, "NextMarker"));
+    }
+
+    private static String getString(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.get(key).toString();
+    }
+
+    private static Integer getInteger(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.getInt(key);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpLambdaService{" +
+                "endpoint='" + endpoint + '\'' +
+                ", region='" + region + '\'' +
+                ", http2Supported=" + isHttp2Supported() +
+                '}';
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * HTTP transport of {@link HttpLambdaService}. This is the base (JDK 8) version
+ * which sends requests through {@link HttpURLConnection} over HTTP/1.1 on the given executor.
+ * Cancelling the future of a request disconnects its connection,
+ * so the thread sending the request is released without waiting for the response.
+ * On JDK 11+, it is replaced by the <code>java.net.http.HttpClient</code> based version
+ * under <code>META-INF/versions/11</code> of the multi-release jar.
+ *
+ * @author serkan
+ */
+final class HttpTransport {
+
+    private final ExecutorService executorService;
+    private final int connectTimeoutMillis;
+
+    /**
+     * @param executorService      the executor to send requests and to complete their futures
+     * @param connectTimeoutMillis the connect timeout in milliseconds
+     */
+    HttpTransport(ExecutorService executorService, int connectTimeoutMillis) {
+        this.executorService = executorService;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    static boolean isHttp2Supported() {
+        return false;
+    }
+
+    /**
+     * Sends the request asynchronously.
+     *
+     * @param method        the HTTP method of the request
+     * @param uri           the URI of the request
+     * @param headers       the headers of the request (<code>host</code> header is ignored,
+     *                      as it is set from the request URI)
+     * @param body          the body of the request, <code>null</code> if there is no body
+     * @param timeoutMillis the timeout of the response in milliseconds, <code>0</code> for no timeout
+     * @return the future of the response, which is completed exceptionally on I/O errors
+     *         and whose cancellation aborts the request
+     */
+    CompletableFuture<HttpTransportResponse> send(final String method, final URI uri,
+                                                  final Map<String, String> headers, final byte[] body,
+                                                  final int timeoutMillis) {
+        final CompletableFuture<HttpTransportResponse> responseFuture =
+                new CompletableFuture<HttpTransportResponse>();
+        final AtomicReference<HttpURLConnection> connectionRef = new AtomicReference<HttpURLConnection>();
+        responseFuture.whenComplete(new BiConsumer<HttpTransportResponse, Throwable>() {
+            @Override
+            public void accept(HttpTransportResponse response, Throwable error) {
+                if (error instanceof CancellationException) {
+                    HttpURLConnection connection = connectionRef.get();
+                    if (connection != null) {
+                        // Blocked reads of the sending thread fail on disconnect
+                        connection.disconnect();
+                    }
+                }
+            }
+        });
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (responseFuture.isDone()) {
+                    // Cancelled before it is sent
+                    return;
+                }
+                try {
+                    responseFuture.complete(
+                            doSend(method, uri, headers, body, timeoutMillis, responseFuture, connectionRef));
+                } catch (Throwable error) {
+                    responseFuture.completeExceptionally(error);
+                }
+            }
+        });
+        return responseFuture;
+    }
+
+    private HttpTransportResponse doSend(String method, URI uri, Map<String, String> headers,
+                                         byte[] body, int timeoutMillis,
+                                         CompletableFuture<HttpTransportResponse> responseFuture,
+                                         AtomicReference<HttpURLConnection> connectionRef) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connectionRef.set(connection);
+        // Future might have been cancelled before the connection is set
+        if (responseFuture.isCancelled()) {
+            connection.disconnect();
+            throw new IOException("Request has been cancelled");
+        }
+        try {
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setUseCaches(false);
+            for (Map.Entry<String, String> e : headers.entrySet()) {
+                if (!AwsSigV4Signer.HOST_HEADER.equalsIgnoreCase(e.getKey())) {
+                    connection.setRequestProperty(e.getKey(), e.getValue());
+                }
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                OutputStream out = connection.getOutputStream();
+                try {
+                    out.write(body);
+                } finally {
+                    out.close();
+                }
+            }
+            int statusCode = connection.getResponseCode();
+            InputStream in = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            byte[] responseBody = readFully(in);
+            Map<String, List<String>> responseHeaders = connection.getHeaderFields();
+            return new HttpTransportResponse(
+                    statusCode,
+                    responseHeaders != null ? responseHeaders : Collections.<String, List<String>>emptyMap(),
+                    responseBody);
+        } catch (IOException e) {
+            // Connection is not reusable anymore
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            // Closing stream after it is fully read gives back the connection to the keep-alive cache
+            in.close();
+        }
+    }
+
+}
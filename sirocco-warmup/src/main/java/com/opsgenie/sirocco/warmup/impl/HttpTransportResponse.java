@@ -0,0 +1,49 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Response of a request sent by {@link HttpTransport}.
+ *
+ * @author serkan
+ */
+final class HttpTransportResponse {
+
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    HttpTransportResponse(int statusCode, Map<String, List<String>> headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = new HashMap<String, String>(headers.size());
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            // Status line is mapped to null key by HttpURLConnection
+            if (e.getKey() != null && !e.getValue().isEmpty()) {
+                this.headers.put(e.getKey().toLowerCase(Locale.ENGLISH), e.getValue().get(0));
+            }
+        }
+        this.body = body;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the value of the header with the given name.
+     *
+     * @param name the case insensitive name of the header
+     * @return the (first) value of the header, <code>null</code> if there is no such header
+     */
+    String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+}
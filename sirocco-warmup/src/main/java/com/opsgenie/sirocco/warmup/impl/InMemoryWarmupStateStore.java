@@ -0,0 +1,46 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link WarmupStateStore} implementation.
+ * States are kept as long as the warmup handler container is alive.
+ *
+ * @author serkan
+ */
+public class InMemoryWarmupStateStore implements WarmupStateStore {
+
+    protected final Map<String, Map<String, Long>> namespaces = new HashMap<String, Map<String, Long>>();
+    protected boolean dirty;
+
+    @Override
+    public synchronized Map<String, Long> load(String namespace) {
+        Map<String, Long> state = namespaces.get(namespace);
+        if (state == null) {
+            return new HashMap<String, Long>();
+        }
+        return new HashMap<String, Long>(state);
+    }
+
+    @Override
+    public synchronized void save(String namespace, Map<String, Long> state) {
+        if (state.isEmpty()) {
+            if (namespaces.remove(namespace) != null) {
+                dirty = true;
+            }
+        } else if (!state.equals(namespaces.get(namespace))) {
+            namespaces.put(namespace, new HashMap<String, Long>(state));
+            dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        dirty = false;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupMetrics;
+
+/**
+ * {@link WarmupMetrics} implementation which ignores all the metrics.
+ * This is the default one as metrics are disabled by default.
+ *
+ * @author serkan
+ */
+public final class NoOpWarmupMetrics implements WarmupMetrics {
+
+    public static final NoOpWarmupMetrics INSTANCE = new NoOpWarmupMetrics();
+
+    private NoOpWarmupMetrics() {
+    }
+
+    @Override
+    public void recordDispatch(String functionName) {
+    }
+
+    @Override
+    public void recordSuccess(String functionName, long latencyNanos) {
+    }
+
+    @Override
+    public void recordFunctionError(String functionName, long latencyNanos) {
+    }
+
+    @Override
+    public void recordThrottle(String functionName) {
+    }
+
+    @Override
+    public void recordTimeout(String functionName) {
+    }
+
+    @Override
+    public void recordFailure(String functionName) {
+    }
+
+    @Override
+    public void recordSkippedWarmup(String functionName, int deniedInvocationCount) {
+    }
+
+    @Override
+    public void recordShrunkWarmup(String functionName, int deniedInvocationCount) {
+    }
+
+    @Override
+    public void recordDiscovery(long durationNanos, int functionCount) {
+    }
+
+    @Override
+    public void recordPendingInvocations(int pendingInvocationCount) {
+    }
+
+    @Override
+    public void recordExecutorTasks(int activeTaskCount, int queuedTaskCount) {
+    }
+
+    @Override
+    public void export() {
+    }
+
+}
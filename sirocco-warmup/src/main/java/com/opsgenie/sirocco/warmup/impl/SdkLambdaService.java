@@ -1,5 +1,6 @@
 package com.opsgenie.sirocco.warmup.impl;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.AWSLambdaAsyncClient;
 import com.amazonaws.services.lambda.model.*;
 import com.opsgenie.sirocco.warmup.LambdaService;
@@ -33,6 +34,12 @@ public class SdkLambdaService implements LambdaService {
         return lambdaClient.invokeAsync(request);
     }
 
+    @Override
+    public Future<InvokeResult> invokeAsync(InvokeRequest request,
+                                            AsyncHandler<InvokeRequest, InvokeResult> asyncHandler) {
+        return lambdaClient.invokeAsync(request, asyncHandler);
+    }
+
     @Override
     public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
         return lambdaClient.listFunctions(request);
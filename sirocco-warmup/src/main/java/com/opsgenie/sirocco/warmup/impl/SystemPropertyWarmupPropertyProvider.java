@@ -2,33 +2,65 @@ package com.opsgenie.sirocco.warmup.impl;
 
 import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * System property based {@link WarmupPropertyProvider} implementation.
+ * Environment variables are also provided as properties
+ * (<code>_</code> characters in the names are replaced with <code>.</code>)
+ * and they override system properties with the same name
+ * like they were copied into system properties before.
  *
  * @author serkan
  */
 public class SystemPropertyWarmupPropertyProvider implements WarmupPropertyProvider {
 
+    private final Map<String, String> environmentProperties;
+
+    public SystemPropertyWarmupPropertyProvider() {
+        this(System.getenv());
+    }
+
+    SystemPropertyWarmupPropertyProvider(Map<String, String> environmentVariables) {
+        Map<String, String> environmentProperties = new HashMap<String, String>(environmentVariables.size());
+        for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
+            environmentProperties.put(e.getKey().replace('_', '.'), e.getValue().trim());
+        }
+        this.environmentProperties = Collections.unmodifiableMap(environmentProperties);
+    }
+
     @Override
     public Set<String> getPropertyNames() {
-        return System.getProperties().stringPropertyNames();
+        Set<String> propertyNames = new HashSet<String>(System.getProperties().stringPropertyNames());
+        propertyNames.addAll(environmentProperties.keySet());
+        return propertyNames;
     }
 
     @Override
     public Boolean getBoolean(String name) {
-        return Boolean.getBoolean(name);
+        return Boolean.parseBoolean(getString(name));
     }
 
     @Override
     public Integer getInteger(String name) {
-        return Integer.getInteger(name);
+        String value = getString(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.decode(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     @Override
     public Float getFloat(String name) {
-        String value = System.getProperty(name);
+        String value = getString(name);
         if (value == null) {
             return null;
         }
@@ -37,12 +69,20 @@ public class SystemPropertyWarmupPropertyProvider implements WarmupPropertyProvi
 
     @Override
     public Long getLong(String name) {
-        return Long.getLong(name);
+        String value = getString(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.decode(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     @Override
     public Double getDouble(String name) {
-        String value = System.getProperty(name);
+        String value = getString(name);
         if (value == null) {
             return null;
         }
@@ -51,6 +91,10 @@ public class SystemPropertyWarmupPropertyProvider implements WarmupPropertyProvi
 
     @Override
     public String getString(String name) {
+        String value = environmentProperties.get(name);
+        if (value != null) {
+            return value;
+        }
         return System.getProperty(name);
     }
 
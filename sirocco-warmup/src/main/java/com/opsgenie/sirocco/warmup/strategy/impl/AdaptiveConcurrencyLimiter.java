@@ -0,0 +1,186 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *      Concurrency limiter which adapts its limit by
+ *      <b>additive-increase/multiplicative-decrease (AIMD)</b>
+ *      according to the outcomes of the invocations it has permitted.
+ * </p>
+ * <ul>
+ *      <li>
+ *          Every successful invocation increases the limit by <code>1</code>
+ *          up to the maximum limit.
+ *      </li>
+ *      <li>
+ *          Every overloaded invocation (throttled, timed out or whose latency is inflated
+ *          beyond the configured threshold of the observed baseline latency) decreases the limit
+ *          by the backoff ratio down to <code>1</code>. Decreases are applied at most once
+ *          per baseline latency, so a burst of throttles in the same window is counted once.
+ *      </li>
+ *      <li>
+ *          Other failures don't change the limit.
+ *      </li>
+ * </ul>
+ * <p>
+ *      Permits are acquired without blocking as a warmup invocation is only useful
+ *      when it is concurrent with the others. So callers shrink their warmup
+ *      to the permitted count instead of waiting for permits.
+ * </p>
+ *
+ * @author serkan
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final long MIN_DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private int maxLimit;
+    private double backoffRatio;
+    private double latencyInflationThreshold;
+    private double limit;
+    private int inFlight;
+    private long baselineLatencyNanos;
+    private long lastDecreaseTime;
+    private long lastOverloadTime;
+    private boolean overloaded;
+
+    /**
+     * @param maxLimit                  the initial and maximum concurrency limit
+     * @param backoffRatio              the ratio (between <code>0</code> and <code>1</code>)
+     *                                  to multiply the limit by on overload
+     * @param latencyInflationThreshold the ratio of latency to the baseline latency
+     *                                  beyond which an invocation is considered as overloaded.
+     *                                  <code>0</code> disables latency based overload detection.
+     */
+    public AdaptiveConcurrencyLimiter(int maxLimit, double backoffRatio, double latencyInflationThreshold) {
+        reconfigure(maxLimit, backoffRatio, latencyInflationThreshold);
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Changes the configuration of this limiter by keeping its learned state
+     * (current limit and baseline latency). Current limit is lowered to the new maximum limit
+     * if it is above it and it is increased by the successful invocations up to the new maximum limit
+     * if the maximum limit is raised.
+     *
+     * @param maxLimit                  the maximum concurrency limit
+     * @param backoffRatio              the ratio (between <code>0</code> and <code>1</code>)
+     *                                  to multiply the limit by on overload
+     * @param latencyInflationThreshold the ratio of latency to the baseline latency
+     *                                  beyond which an invocation is considered as overloaded.
+     *                                  <code>0</code> disables latency based overload detection.
+     */
+    public synchronized void reconfigure(int maxLimit, double backoffRatio, double latencyInflationThreshold) {
+        if (maxLimit < 1) {
+            throw new IllegalArgumentException("Max limit must be positive: " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyInflationThreshold = latencyInflationThreshold;
+        this.limit = Math.min(limit, maxLimit);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Acquires permits as many as available up to the requested count without blocking.
+     *
+     * @param permits the requested permit count
+     * @return the acquired permit count which is between <code>0</code> and the requested count
+     */
+    public synchronized int tryAcquire(int permits) {
+        int acquired = Math.max(0, Math.min(permits, (int) limit - inFlight));
+        inFlight += acquired;
+        return acquired;
+    }
+
+    /**
+     * Releases the acquired but unused permits without affecting the limit.
+     *
+     * @param permits the permit count to release
+     */
+    public synchronized void release(int permits) {
+        inFlight = Math.max(0, inFlight - permits);
+    }
+
+    /**
+     * Releases a permit of a successfully completed invocation.
+     *
+     * @param latencyNanos the latency of the invocation in nanoseconds
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        release(1);
+        boolean inflated =
+                latencyInflationThreshold > 0
+                && baselineLatencyNanos > 0
+                && latencyNanos > baselineLatencyNanos * latencyInflationThreshold;
+        if (baselineLatencyNanos == 0 || latencyNanos < baselineLatencyNanos) {
+            baselineLatencyNanos = latencyNanos;
+        } else {
+            // Let baseline drift slowly upwards so it follows permanent latency changes
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) >> 6;
+        }
+        if (inflated) {
+            decrease();
+        } else {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    /**
+     * Releases a permit of an invocation which has been throttled or timed out.
+     */
+    public synchronized void onOverload() {
+        release(1);
+        decrease();
+    }
+
+    /**
+     * Releases a permit of an invocation which has failed for a reason unrelated to load.
+     */
+    public synchronized void onFailure() {
+        release(1);
+    }
+
+    /**
+     * Checks whether there has been any overload since the given time.
+     *
+     * @param time the time in nanoseconds (as returned from {@link System#nanoTime()})
+     * @return <code>true</code> if there has been overload since the given time,
+     *         <code>false</code> otherwise
+     */
+    public synchronized boolean isOverloadedSince(long time) {
+        return overloaded && lastOverloadTime - time >= 0;
+    }
+
+    private void decrease() {
+        long currentTime = System.nanoTime();
+        overloaded = true;
+        lastOverloadTime = currentTime;
+        long decreaseInterval = Math.max(MIN_DECREASE_INTERVAL_NANOS, baselineLatencyNanos);
+        if (lastDecreaseTime != 0 && currentTime - lastDecreaseTime < decreaseInterval) {
+            return;
+        }
+        lastDecreaseTime = currentTime;
+        limit = Math.max(1, limit * backoffRatio);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveConcurrencyLimiter{" +
+                "limit=" + (int) limit +
+                ", inFlight=" + inFlight +
+                '}';
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
+import com.opsgenie.sirocco.warmup.WarmupHandler;
+import com.opsgenie.sirocco.warmup.WarmupMetrics;
+import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
+import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ *      {@link WarmupStrategy} implementation which
+ *      forecasts active instance counts of Lambda functions
+ *      and warms them up for the forecast concurrency before it is needed.
+ *      Name of this strategy is <code>forecast</code> ({@link #NAME}.
+ * </p>
+ * <p>
+ *      This strategy works like {@link StatAwareWarmupStrategy}, so target Lambda functions
+ *      should return their <code>instanceId</code> and <code>latestRequestTime</code> in the same way.
+ *      But instead of scaling the current active instance count, it keeps hourly peaks of active instance counts
+ *      of every function in a {@link SeasonalForecastModel} with daily and weekly seasonalities
+ *      and scales the maximum of the current active instance count and the forecast active instance count
+ *      at the time after forecast horizon ({@link #FORECAST_HORIZON_MILLIS_PROP_NAME}).
+ *      So warmup is scaled up before the expected ramps (such as mornings of work days)
+ *      instead of after them. Until a model has enough observations, {@link StatAwareWarmupStrategy}'s behaviour is used.
+ * </p>
+ *
+ * @author serkan
+ */
+public class ForecastWarmupStrategy extends StatAwareWarmupStrategy {
+
+    /**
+     * Name of the {@link ForecastWarmupStrategy}.
+     */
+    public static final String NAME = "forecast";
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures how far (in milliseconds) ahead active instance counts are forecast.
+     */
+    public static final String FORECAST_HORIZON_MILLIS_PROP_NAME =
+            "sirocco.warmup.forecastHorizon";
+    /**
+     * Default value for {@link #FORECAST_HORIZON_MILLIS_PROP_NAME} property.
+     * The default value is <code>1 hour</code>.
+     */
+    public static final long DEFAULT_FORECAST_HORIZON_MILLIS = 60 * 60 * 1000; // 1 hour
+
+    /**
+     * Name of the <code>integer</code> typed property
+     * which configures the minimum count of hourly observations
+     * before forecasts are used.
+     */
+    public static final String FORECAST_MIN_OBSERVATION_COUNT_PROP_NAME =
+            "sirocco.warmup.forecastMinObservationCount";
+    /**
+     * Default value for {@link #FORECAST_MIN_OBSERVATION_COUNT_PROP_NAME} property.
+     * The default value is <code>24</code> (one day).
+     */
+    public static final int DEFAULT_FORECAST_MIN_OBSERVATION_COUNT = 24;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures smoothing factor of the level of forecast models.
+     */
+    public static final String FORECAST_LEVEL_SMOOTHING_PROP_NAME =
+            "sirocco.warmup.forecastLevelSmoothing";
+    /**
+     * Default value for {@link #FORECAST_LEVEL_SMOOTHING_PROP_NAME} property.
+     * The default value is <code>0.1</code>.
+     */
+    public static final float DEFAULT_FORECAST_LEVEL_SMOOTHING = 0.1F;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures smoothing factor of the trend of forecast models.
+     */
+    public static final String FORECAST_TREND_SMOOTHING_PROP_NAME =
+            "sirocco.warmup.forecastTrendSmoothing";
+    /**
+     * Default value for {@link #FORECAST_TREND_SMOOTHING_PROP_NAME} property.
+     * The default value is <code>0.01</code>.
+     */
+    public static final float DEFAULT_FORECAST_TREND_SMOOTHING = 0.01F;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures smoothing factor of the daily seasonality of forecast models.
+     */
+    public static final String FORECAST_DAILY_SMOOTHING_PROP_NAME =
+            "sirocco.warmup.forecastDailySmoothing";
+    /**
+     * Default value for {@link #FORECAST_DAILY_SMOOTHING_PROP_NAME} property.
+     * The default value is <code>0.3</code>.
+     */
+    public static final float DEFAULT_FORECAST_DAILY_SMOOTHING = 0.3F;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures smoothing factor of the weekly seasonality of forecast models.
+     */
+    public static final String FORECAST_WEEKLY_SMOOTHING_PROP_NAME =
+            "sirocco.warmup.forecastWeeklySmoothing";
+    /**
+     * Default value for {@link #FORECAST_WEEKLY_SMOOTHING_PROP_NAME} property.
+     * The default value is <code>0.1</code>.
+     */
+    public static final float DEFAULT_FORECAST_WEEKLY_SMOOTHING = 0.1F;
+
+    private static final String FORECAST_MODEL_STATE_NAMESPACE = ".model.";
+
+    private final ConcurrentMap<String, SeasonalForecastModel> forecastModels =
+            new ConcurrentHashMap<String, SeasonalForecastModel>();
+    private long forecastHorizonMillis;
+    private int forecastMinObservationCount;
+    private float forecastLevelSmoothing;
+    private float forecastTrendSmoothing;
+    private float forecastDailySmoothing;
+    private float forecastWeeklySmoothing;
+
+    public ForecastWarmupStrategy() {
+        this(WarmupHandler.getDefaultWarmupPropertyProvider());
+    }
+
+    public ForecastWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider) {
+        this(warmupPropertyProvider, WarmupHandler.createWarmupStateStore(warmupPropertyProvider));
+    }
+
+    public ForecastWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                  WarmupStateStore warmupStateStore) {
+        this(warmupPropertyProvider, warmupStateStore, WarmupHandler.createWarmupMetrics(warmupPropertyProvider));
+    }
+
+    public ForecastWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                  WarmupStateStore warmupStateStore,
+                                  WarmupMetrics warmupMetrics) {
+        super(warmupPropertyProvider, warmupStateStore, warmupMetrics);
+        configure(warmupPropertyProvider);
+    }
+
+    private void configure(WarmupPropertyProvider warmupPropertyProvider) {
+        this.forecastHorizonMillis =
+                warmupPropertyProvider.getLong(
+                        FORECAST_HORIZON_MILLIS_PROP_NAME,
+                        DEFAULT_FORECAST_HORIZON_MILLIS);
+        this.forecastMinObservationCount =
+                warmupPropertyProvider.getInteger(
+                        FORECAST_MIN_OBSERVATION_COUNT_PROP_NAME,
+                        DEFAULT_FORECAST_MIN_OBSERVATION_COUNT);
+        this.forecastLevelSmoothing =
+                warmupPropertyProvider.getFloat(
+                        FORECAST_LEVEL_SMOOTHING_PROP_NAME,
+                        DEFAULT_FORECAST_LEVEL_SMOOTHING);
+        this.forecastTrendSmoothing =
+                warmupPropertyProvider.getFloat(
+                        FORECAST_TREND_SMOOTHING_PROP_NAME,
+                        DEFAULT_FORECAST_TREND_SMOOTHING);
+        this.forecastDailySmoothing =
+                warmupPropertyProvider.getFloat(
+                        FORECAST_DAILY_SMOOTHING_PROP_NAME,
+                        DEFAULT_FORECAST_DAILY_SMOOTHING);
+        this.forecastWeeklySmoothing =
+                warmupPropertyProvider.getFloat(
+                        FORECAST_WEEKLY_SMOOTHING_PROP_NAME,
+                        DEFAULT_FORECAST_WEEKLY_SMOOTHING);
+    }
+
+    @Override
+    protected void reconfigure(WarmupPropertyProvider warmupPropertyProvider) {
+        super.reconfigure(warmupPropertyProvider);
+        // Smoothing factors are only used by the models created afterwards,
+        // so the learned models are kept as they are
+        configure(warmupPropertyProvider);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected int getInvocationCount(String functionName, int defaultInvocationCount, int configuredInvocationCount,
+                                     WarmupFunctionInfo functionInfo) {
+        if (disableWarmupScale) {
+            return super.getInvocationCount(functionName, defaultInvocationCount, configuredInvocationCount, functionInfo);
+        }
+        int activeInstanceCount = getActiveInstanceCount(functionName);
+        if (activeInstanceCount < 0) {
+            return super.getInvocationCount(functionName, defaultInvocationCount, configuredInvocationCount, functionInfo);
+        }
+        long currentTime = System.currentTimeMillis();
+        SeasonalForecastModel forecastModel = getForecastModel(functionName);
+        float forecastInstanceCount;
+        // Models are not thread-safe but might be shared by the warmups running concurrently
+        synchronized (forecastModel) {
+            forecastModel.observe(currentTime, activeInstanceCount);
+            if (forecastModel.getObservationCount() < forecastMinObservationCount) {
+                forecastInstanceCount = -1;
+            } else {
+                forecastInstanceCount = forecastModel.forecast(currentTime + forecastHorizonMillis);
+            }
+        }
+        if (forecastInstanceCount < 0) {
+            return super.getInvocationCount(functionName, defaultInvocationCount, configuredInvocationCount, functionInfo);
+        }
+        int invocationCount =
+                Math.max((int) Math.ceil(Math.max(forecastInstanceCount, activeInstanceCount) * warmupScaleFactor), 1);
+        logger.info(String.format(
+                "Calculated invocation count by taking forecast active instance count (%.2f) " +
+                "and current active instance count (%d) into consideration for function %s: %d",
+                forecastInstanceCount, activeInstanceCount, functionName, invocationCount));
+        return invocationCount;
+    }
+
+    private SeasonalForecastModel getForecastModel(String functionName) {
+        SeasonalForecastModel forecastModel = forecastModels.get(functionName);
+        if (forecastModel == null) {
+            forecastModel =
+                    new SeasonalForecastModel(
+                            forecastLevelSmoothing,
+                            forecastTrendSmoothing,
+                            forecastDailySmoothing,
+                            forecastWeeklySmoothing);
+            // Models are loaded lazily as functions to warmup might change between warmups
+            Map<String, Long> state =
+                    warmupStateStore.load(getStateNamespace(FORECAST_MODEL_STATE_NAMESPACE + functionName));
+            if (!state.isEmpty()) {
+                long[] modelState = new long[state.size()];
+                boolean valid = true;
+                for (int i = 0; i < modelState.length && valid; i++) {
+                    Long value = state.get(Integer.toString(i));
+                    if (value == null) {
+                        valid = false;
+                    } else {
+                        modelState[i] = value;
+                    }
+                }
+                if (!valid || !forecastModel.fromState(modelState)) {
+                    logger.warn("Ignoring invalid forecast model state of function " + functionName);
+                }
+            }
+            SeasonalForecastModel existingForecastModel = forecastModels.putIfAbsent(functionName, forecastModel);
+            if (existingForecastModel != null) {
+                // Another warmup has loaded the model meanwhile, so keep observing on it
+                forecastModel = existingForecastModel;
+            }
+        }
+        return forecastModel;
+    }
+
+    @Override
+    protected void saveState() {
+        super.saveState();
+        for (Map.Entry<String, SeasonalForecastModel> entry : forecastModels.entrySet()) {
+            SeasonalForecastModel forecastModel = entry.getValue();
+            long[] modelState;
+            synchronized (forecastModel) {
+                modelState = forecastModel.toState();
+            }
+            Map<String, Long> state = new HashMap<String, Long>(modelState.length * 2);
+            for (int i = 0; i < modelState.length; i++) {
+                state.put(Integer.toString(i), modelState[i]);
+            }
+            warmupStateStore.save(getStateNamespace(FORECAST_MODEL_STATE_NAMESPACE + entry.getKey()), state);
+        }
+    }
+
+}
@@ -0,0 +1,481 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ *      In-memory store of the latest request times of Lambda function instances
+ *      (reported by their stat responses) which is used by {@link StatAwareWarmupStrategy}
+ *      to track active (not idle) instances of functions.
+ *      An instance is considered as idle (expired) when there is no request to it
+ *      for more than the configured idle time.
+ * </p>
+ * <p>
+ *      Instances of every function are kept in an open-addressing hash table where
+ *      instance ids are stored once (so the same id instance is used for all the updates of an instance)
+ *      and latest request times are stored as primitive <code>long</code>s.
+ *      Expiration of instances is tracked by a hierarchical timing wheel,
+ *      so expiring idle instances costs in proportion to the count of the expired instances
+ *      instead of scanning all the instances.
+ * </p>
+ * <p>
+ *      This store is thread-safe. Updates and expirations of a function are serialized per function,
+ *      and active instance counts of functions are read without locking.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class InstanceStateStore {
+
+    private final ConcurrentMap<String, FunctionInstances> functionInstancesMap =
+            new ConcurrentHashMap<String, FunctionInstances>();
+    private final long idleTime;
+
+    /**
+     * @param idleTime passed time in milliseconds since the latest request
+     *                 to consider a function instance as idle
+     */
+    public InstanceStateStore(long idleTime) {
+        if (idleTime < 0) {
+            throw new IllegalArgumentException("Idle time cannot be negative: " + idleTime);
+        }
+        this.idleTime = idleTime;
+    }
+
+    public long getIdleTime() {
+        return idleTime;
+    }
+
+    private FunctionInstances getOrCreateFunctionInstances(String functionName) {
+        FunctionInstances functionInstances = functionInstancesMap.get(functionName);
+        if (functionInstances == null) {
+            functionInstances = new FunctionInstances(idleTime, System.currentTimeMillis());
+            FunctionInstances existingFunctionInstances =
+                    functionInstancesMap.putIfAbsent(functionName, functionInstances);
+            if (existingFunctionInstances != null) {
+                functionInstances = existingFunctionInstances;
+            }
+        }
+        return functionInstances;
+    }
+
+    /**
+     * Updates the latest request time of the given function instance.
+     * Latest request time is only updated if the given one is after the stored one.
+     *
+     * @param functionName      name of the function
+     * @param instanceId        id of the function instance
+     * @param latestRequestTime latest request time of the instance in epoch milliseconds
+     */
+    public void update(String functionName, String instanceId, long latestRequestTime) {
+        getOrCreateFunctionInstances(functionName).update(instanceId, latestRequestTime);
+    }
+
+    /**
+     * Updates the latest request times of the given function's instances.
+     * Nothing is stored for the function if the given latest request times are empty.
+     *
+     * @param functionName       name of the function
+     * @param latestRequestTimes latest request times of the instances by their ids
+     */
+    public void updateAll(String functionName, Map<String, Long> latestRequestTimes) {
+        if (latestRequestTimes.isEmpty()) {
+            return;
+        }
+        FunctionInstances functionInstances = getOrCreateFunctionInstances(functionName);
+        for (Map.Entry<String, Long> entry : latestRequestTimes.entrySet()) {
+            functionInstances.update(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the count of the active instances of the given function as of the latest expiration
+     * (see {@link #expire(String, long)} and {@link #expireAll(long)}) without locking.
+     *
+     * @param functionName name of the function
+     * @return the count of the active instances of the given function
+     *         if there is any stat about the function, <code>-1</code> otherwise
+     */
+    public int getActiveInstanceCount(String functionName) {
+        FunctionInstances functionInstances = functionInstancesMap.get(functionName);
+        if (functionInstances == null) {
+            return -1;
+        }
+        return functionInstances.activeInstanceCount;
+    }
+
+    /**
+     * Gets the count of the active instances of all the functions as of the latest expiration.
+     *
+     * @return the count of the active instances of all the functions
+     */
+    public int getTotalActiveInstanceCount() {
+        int totalActiveInstanceCount = 0;
+        for (FunctionInstances functionInstances : functionInstancesMap.values()) {
+            totalActiveInstanceCount += functionInstances.activeInstanceCount;
+        }
+        return totalActiveInstanceCount;
+    }
+
+    /**
+     * Removes idle instances of the given function.
+     *
+     * @param functionName name of the function
+     * @param currentTime  current time in epoch milliseconds
+     * @return the count of the removed instances
+     */
+    public int expire(String functionName, long currentTime) {
+        FunctionInstances functionInstances = functionInstancesMap.get(functionName);
+        if (functionInstances == null) {
+            return 0;
+        }
+        return functionInstances.expire(currentTime);
+    }
+
+    /**
+     * Removes idle instances of all the functions.
+     *
+     * @param currentTime current time in epoch milliseconds
+     * @return the count of the removed instances
+     */
+    public int expireAll(long currentTime) {
+        int expiredInstanceCount = 0;
+        for (FunctionInstances functionInstances : functionInstancesMap.values()) {
+            expiredInstanceCount += functionInstances.expire(currentTime);
+        }
+        return expiredInstanceCount;
+    }
+
+    /**
+     * Gets the snapshot of the latest request times of the given function's instances.
+     *
+     * @param functionName name of the function
+     * @return the latest request times of the instances by their ids
+     */
+    public Map<String, Long> getLatestRequestTimes(String functionName) {
+        FunctionInstances functionInstances = functionInstancesMap.get(functionName);
+        if (functionInstances == null) {
+            return new HashMap<String, Long>();
+        }
+        return functionInstances.getLatestRequestTimes();
+    }
+
+    /**
+     * Gets the latest request time of the given function instance.
+     *
+     * @param functionName name of the function
+     * @param instanceId   id of the function instance
+     * @return the latest request time of the instance in epoch milliseconds,
+     *         <code>-1</code> if there is no such active instance
+     */
+    public long getLatestRequestTime(String functionName, String instanceId) {
+        FunctionInstances functionInstances = functionInstancesMap.get(functionName);
+        if (functionInstances == null) {
+            return -1;
+        }
+        return functionInstances.getLatestRequestTime(instanceId);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, FunctionInstances> entry : functionInstancesMap.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue().activeInstanceCount);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Instances of a function.
+     * All the mutations are done while holding the monitor of the instance
+     * and the active instance count is published by a <code>volatile</code> write.
+     */
+    private static final class FunctionInstances {
+
+        private static final int SLOT_BITS = 6;
+        private static final int SLOT_COUNT = 1 << SLOT_BITS;
+        private static final int SLOT_MASK = SLOT_COUNT - 1;
+        private static final int LEVEL_COUNT = 4;
+        private static final int NO_SLOT = -1;
+        private static final int NONE = -1;
+        private static final int INITIAL_CAPACITY = 8;
+
+        private final long idleTime;
+        // Idle time is half of the range of the lowest level of the wheel ("SLOT_COUNT / 2" ticks),
+        // so instances are scheduled at the lowest level on request (their deadlines are an idle time away)
+        // and they don't need to be cascaded
+        private final long tickMillis;
+
+        // Entries of the instances (free entries are chained by "nexts")
+        private String[] instanceIds = new String[INITIAL_CAPACITY];
+        private long[] latestRequestTimes = new long[INITIAL_CAPACITY];
+        private int[] nexts = new int[INITIAL_CAPACITY];
+        private int[] prevs = new int[INITIAL_CAPACITY];
+        private int[] slots = new int[INITIAL_CAPACITY];
+        private int entryCount;
+        private int freeEntry = NONE;
+        private int size;
+
+        // Open-addressing (linear probing) index of entries by instance ids, keeps "entry + 1"
+        private int[] index = new int[INITIAL_CAPACITY * 2];
+
+        // Heads of the entry lists of the wheel slots, "level * SLOT_COUNT + slot"
+        private final int[] wheel = new int[LEVEL_COUNT * SLOT_COUNT];
+        // All the ticks before this one have been processed
+        private long currentTick;
+
+        private volatile int activeInstanceCount;
+
+        private FunctionInstances(long idleTime, long currentTime) {
+            this.idleTime = idleTime;
+            this.tickMillis = Math.max(1, idleTime >> (SLOT_BITS - 1));
+            this.currentTick = currentTime / tickMillis;
+            Arrays.fill(wheel, NONE);
+        }
+
+        private static int hash(String instanceId) {
+            int h = instanceId.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private int findIndexPosition(String instanceId) {
+            int mask = index.length - 1;
+            int pos = hash(instanceId) & mask;
+            while (true) {
+                int entry = index[pos] - 1;
+                if (entry == NONE || instanceIds[entry].equals(instanceId)) {
+                    return pos;
+                }
+                pos = (pos + 1) & mask;
+            }
+        }
+
+        private void removeFromIndex(int pos) {
+            // Backward shift deletion, so no tombstones are left behind
+            int mask = index.length - 1;
+            int gap = pos;
+            int i = pos;
+            while (true) {
+                i = (i + 1) & mask;
+                int entry = index[i] - 1;
+                if (entry == NONE) {
+                    break;
+                }
+                int ideal = hash(instanceIds[entry]) & mask;
+                // Move the entry into the gap if its ideal position is not between the gap and its position
+                boolean movable = gap <= i ? (ideal <= gap || ideal > i) : (ideal <= gap && ideal > i);
+                if (movable) {
+                    index[gap] = index[i];
+                    gap = i;
+                }
+            }
+            index[gap] = 0;
+        }
+
+        private void resizeIndex() {
+            index = new int[index.length * 2];
+            int mask = index.length - 1;
+            for (int entry = 0; entry < entryCount; entry++) {
+                if (instanceIds[entry] != null) {
+                    int pos = hash(instanceIds[entry]) & mask;
+                    while (index[pos] != 0) {
+                        pos = (pos + 1) & mask;
+                    }
+                    index[pos] = entry + 1;
+                }
+            }
+        }
+
+        private int allocateEntry() {
+            if (freeEntry != NONE) {
+                int entry = freeEntry;
+                freeEntry = nexts[entry];
+                return entry;
+            }
+            if (entryCount == instanceIds.length) {
+                int capacity = instanceIds.length * 2;
+                instanceIds = Arrays.copyOf(instanceIds, capacity);
+                latestRequestTimes = Arrays.copyOf(latestRequestTimes, capacity);
+                nexts = Arrays.copyOf(nexts, capacity);
+                prevs = Arrays.copyOf(prevs, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+            }
+            return entryCount++;
+        }
+
+        private synchronized void update(String instanceId, long latestRequestTime) {
+            int pos = findIndexPosition(instanceId);
+            int entry = index[pos] - 1;
+            if (entry != NONE) {
+                if (latestRequestTime > latestRequestTimes[entry]) {
+                    unschedule(entry);
+                    latestRequestTimes[entry] = latestRequestTime;
+                    schedule(entry);
+                }
+                return;
+            }
+            entry = allocateEntry();
+            instanceIds[entry] = instanceId;
+            latestRequestTimes[entry] = latestRequestTime;
+            schedule(entry);
+            index[pos] = entry + 1;
+            size++;
+            if (size * 2 > index.length) {
+                resizeIndex();
+            }
+            activeInstanceCount = size;
+        }
+
+        private synchronized long getLatestRequestTime(String instanceId) {
+            int entry = index[findIndexPosition(instanceId)] - 1;
+            return entry != NONE ? latestRequestTimes[entry] : -1;
+        }
+
+        private synchronized Map<String, Long> getLatestRequestTimes() {
+            Map<String, Long> latestRequestTimeMap = new HashMap<String, Long>(size * 2);
+            for (int entry = 0; entry < entryCount; entry++) {
+                if (instanceIds[entry] != null) {
+                    latestRequestTimeMap.put(instanceIds[entry], latestRequestTimes[entry]);
+                }
+            }
+            return latestRequestTimeMap;
+        }
+
+        private void removeEntry(int entry) {
+            removeFromIndex(findIndexPosition(instanceIds[entry]));
+            instanceIds[entry] = null;
+            slots[entry] = NO_SLOT;
+            nexts[entry] = freeEntry;
+            freeEntry = entry;
+            size--;
+        }
+
+        private boolean isExpired(int entry, long currentTime) {
+            return currentTime > latestRequestTimes[entry] + idleTime;
+        }
+
+        private void schedule(int entry) {
+            long expireTick = (latestRequestTimes[entry] + idleTime) / tickMillis;
+            long delta = Math.max(0, expireTick - currentTick);
+            int level = 0;
+            while (level < LEVEL_COUNT - 1 && delta >= (1L << ((level + 1) * SLOT_BITS))) {
+                level++;
+            }
+            if (level == LEVEL_COUNT - 1) {
+                // Instances beyond the range of the wheel are rescheduled while cascading
+                expireTick = Math.min(expireTick, currentTick + (1L << (LEVEL_COUNT * SLOT_BITS)) - 1);
+            }
+            expireTick = Math.max(expireTick, currentTick);
+            int slot = level * SLOT_COUNT + (int) ((expireTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            int head = wheel[slot];
+            nexts[entry] = head;
+            prevs[entry] = NONE;
+            if (head != NONE) {
+                prevs[head] = entry;
+            }
+            wheel[slot] = entry;
+            slots[entry] = slot;
+        }
+
+        private void unschedule(int entry) {
+            int next = nexts[entry];
+            int prev = prevs[entry];
+            if (prev != NONE) {
+                nexts[prev] = next;
+            } else {
+                wheel[slots[entry]] = next;
+            }
+            if (next != NONE) {
+                prevs[next] = prev;
+            }
+            slots[entry] = NO_SLOT;
+        }
+
+        private int takeSlot(int slot) {
+            int head = wheel[slot];
+            wheel[slot] = NONE;
+            return head;
+        }
+
+        private void cascade(int level) {
+            int entry = takeSlot(level * SLOT_COUNT + (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK));
+            while (entry != NONE) {
+                int next = nexts[entry];
+                schedule(entry);
+                entry = next;
+            }
+        }
+
+        private int expireSlot(int slot, long currentTime, boolean checkExpiration) {
+            int expiredInstanceCount = 0;
+            int entry = takeSlot(slot);
+            while (entry != NONE) {
+                int next = nexts[entry];
+                if (!checkExpiration || isExpired(entry, currentTime)) {
+                    removeEntry(entry);
+                    expiredInstanceCount++;
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+            return expiredInstanceCount;
+        }
+
+        private int rescheduleAll(long currentTime, long nowTick) {
+            int expiredInstanceCount = 0;
+            Arrays.fill(wheel, NONE);
+            currentTick = nowTick;
+            for (int entry = 0; entry < entryCount; entry++) {
+                if (instanceIds[entry] != null) {
+                    if (isExpired(entry, currentTime)) {
+                        removeEntry(entry);
+                        expiredInstanceCount++;
+                    } else {
+                        schedule(entry);
+                    }
+                }
+            }
+            return expiredInstanceCount;
+        }
+
+        private synchronized int expire(long currentTime) {
+            long nowTick = currentTime / tickMillis;
+            int expiredInstanceCount = 0;
+            if (nowTick - currentTick >= (1L << (2 * SLOT_BITS))) {
+                // Walking the wheel tick by tick is more expensive than rescheduling all for long gaps
+                expiredInstanceCount = rescheduleAll(currentTime, nowTick);
+            } else {
+                while (currentTick < nowTick) {
+                    // Instances at the slot of a passed tick are expired definitely
+                    expiredInstanceCount += expireSlot((int) (currentTick & SLOT_MASK), currentTime, false);
+                    currentTick++;
+                    if ((currentTick & SLOT_MASK) == 0) {
+                        int level = 1;
+                        while (level < LEVEL_COUNT - 1
+                                && ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK) == 0) {
+                            level++;
+                        }
+                        // Cascade from the highest wrapped level to the lowest one
+                        for (; level >= 1; level--) {
+                            cascade(level);
+                        }
+                    }
+                }
+                // Instances at the slot of the current tick might be expired already
+                expiredInstanceCount += expireSlot((int) (currentTick & SLOT_MASK), currentTime, true);
+            }
+            activeInstanceCount = size;
+            return expiredInstanceCount;
+        }
+
+    }
+
+}
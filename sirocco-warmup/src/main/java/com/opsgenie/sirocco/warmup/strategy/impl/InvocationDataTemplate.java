@@ -0,0 +1,228 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *      Precompiled invocation data (see <code>sirocco.warmup.invocationData</code>)
+ *      which can contain <code>${name}</code> placeholders to be replaced
+ *      with the values of the {@link Variable}s of every warmup invocation.
+ *      Placeholders whose names are not one of the {@link Variable}s are kept as they are.
+ * </p>
+ * <p>
+ *      Invocation data is parsed only once while compiling into
+ *      <code>UTF-8</code> encoded literal segments and variables between them,
+ *      so expanding the template only encodes the variable values
+ *      and writes everything into an exactly sized buffer.
+ *      Variable values are numbers or identifiers which are written without any escaping,
+ *      so for example they can be placed into JSON strings or used as JSON numbers directly.
+ *      Templates are immutable, so they can be shared between threads.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class InvocationDataTemplate {
+
+    /**
+     * Variables which can be used in invocation data as <code>${name}</code> placeholders.
+     */
+    public enum Variable {
+
+        /**
+         * Number of the invocation (starting from <code>1</code>) in its iteration round.
+         */
+        INVOCATION_NO("invocationNo"),
+
+        /**
+         * Number of the iteration round (starting from <code>1</code>) of the invocation.
+         */
+        ITERATION_NO("iterationNo"),
+
+        /**
+         * Id of the warmup run. All the invocations of a warmup run have the same id.
+         */
+        RUN_ID("runId"),
+
+        /**
+         * Count of the concurrent invocations targeted for the function in the iteration round.
+         */
+        TARGET_COUNT("targetCount"),
+
+        /**
+         * Additional wait time (in milliseconds) to the default one (<code>100</code> milliseconds)
+         * suggested for the invocation to keep its function instance busy.
+         */
+        WAIT("wait");
+
+        private final String variableName;
+
+        Variable(String variableName) {
+            this.variableName = variableName;
+        }
+
+        public String getVariableName() {
+            return variableName;
+        }
+
+        private static Variable of(String variableName) {
+            for (Variable variable : values()) {
+                if (variable.variableName.equals(variableName)) {
+                    return variable;
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static final InvocationDataTemplate EMPTY =
+            new InvocationDataTemplate("", new byte[][] { new byte[0] }, new Variable[0]);
+
+    private final String invocationData;
+    private final byte[][] segmentBytes;
+    private final Variable[] variables;
+    private final int segmentsByteLength;
+    private final boolean[] usedVariables = new boolean[Variable.values().length];
+
+    private InvocationDataTemplate(String invocationData, byte[][] segmentBytes, Variable[] variables) {
+        this.invocationData = invocationData;
+        this.segmentBytes = segmentBytes;
+        this.variables = variables;
+        int segmentsByteLength = 0;
+        for (byte[] segment : segmentBytes) {
+            segmentsByteLength += segment.length;
+        }
+        this.segmentsByteLength = segmentsByteLength;
+        for (Variable variable : variables) {
+            usedVariables[variable.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Compiles the given invocation data into template.
+     *
+     * @param invocationData the invocation data to be compiled,
+     *                       <code>null</code> or empty means empty payload
+     * @return the compiled template
+     */
+    public static InvocationDataTemplate compile(String invocationData) {
+        if (invocationData == null || invocationData.isEmpty()) {
+            return EMPTY;
+        }
+        List<byte[]> segmentBytes = new ArrayList<byte[]>();
+        List<Variable> variables = new ArrayList<Variable>();
+        int segmentStart = 0;
+        int placeholderStart = invocationData.indexOf("${");
+        while (placeholderStart >= 0) {
+            int placeholderEnd = invocationData.indexOf('}', placeholderStart + 2);
+            if (placeholderEnd < 0) {
+                break;
+            }
+            Variable variable = Variable.of(invocationData.substring(placeholderStart + 2, placeholderEnd));
+            if (variable != null) {
+                segmentBytes.add(
+                        invocationData.substring(segmentStart, placeholderStart).getBytes(StandardCharsets.UTF_8));
+                variables.add(variable);
+                segmentStart = placeholderEnd + 1;
+                placeholderStart = invocationData.indexOf("${", segmentStart);
+            } else {
+                // Not a variable, so search the next placeholder inside of it
+                placeholderStart = invocationData.indexOf("${", placeholderStart + 2);
+            }
+        }
+        segmentBytes.add(invocationData.substring(segmentStart).getBytes(StandardCharsets.UTF_8));
+        return new InvocationDataTemplate(
+                invocationData,
+                segmentBytes.toArray(new byte[segmentBytes.size()][]),
+                variables.toArray(new Variable[variables.size()]));
+    }
+
+    /**
+     * Gets the invocation data which this template has been compiled from.
+     *
+     * @return the invocation data
+     */
+    public String getInvocationData() {
+        return invocationData;
+    }
+
+    /**
+     * Checks whether the template has no variable,
+     * so it is expanded into the same payload for all the invocations.
+     *
+     * @return <code>true</code> if the template has no variable, <code>false</code> otherwise
+     */
+    public boolean isConstant() {
+        return variables.length == 0;
+    }
+
+    /**
+     * Checks whether the given variable is used by the template.
+     *
+     * @param variable the variable to be checked
+     * @return <code>true</code> if the variable is used, <code>false</code> otherwise
+     */
+    public boolean uses(Variable variable) {
+        return usedVariables[variable.ordinal()];
+    }
+
+    /**
+     * Expands the template with the given variable values into <code>UTF-8</code> encoded bytes.
+     *
+     * @param runId        value of the {@link Variable#RUN_ID} variable
+     * @param iterationNo  value of the {@link Variable#ITERATION_NO} variable
+     * @param invocationNo value of the {@link Variable#INVOCATION_NO} variable
+     * @param targetCount  value of the {@link Variable#TARGET_COUNT} variable
+     * @param wait         value of the {@link Variable#WAIT} variable
+     * @return the expanded invocation data as bytes
+     */
+    public byte[] expand(String runId, int iterationNo, int invocationNo, int targetCount, int wait) {
+        if (variables.length == 0) {
+            return segmentBytes[0].clone();
+        }
+        byte[][] valueBytes = new byte[variables.length][];
+        int length = segmentsByteLength;
+        for (int i = 0; i < variables.length; i++) {
+            String value;
+            switch (variables[i]) {
+                case INVOCATION_NO:
+                    value = Integer.toString(invocationNo);
+                    break;
+                case ITERATION_NO:
+                    value = Integer.toString(iterationNo);
+                    break;
+                case RUN_ID:
+                    value = String.valueOf(runId);
+                    break;
+                case TARGET_COUNT:
+                    value = Integer.toString(targetCount);
+                    break;
+                default:
+                    value = Integer.toString(wait);
+                    break;
+            }
+            valueBytes[i] = value.getBytes(StandardCharsets.UTF_8);
+            length += valueBytes[i].length;
+        }
+        byte[] data = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < variables.length; i++) {
+            byte[] segment = segmentBytes[i];
+            System.arraycopy(segment, 0, data, offset, segment.length);
+            offset += segment.length;
+            System.arraycopy(valueBytes[i], 0, data, offset, valueBytes[i].length);
+            offset += valueBytes[i].length;
+        }
+        byte[] lastSegment = segmentBytes[variables.length];
+        System.arraycopy(lastSegment, 0, data, offset, lastSegment.length);
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return invocationData;
+    }
+
+}
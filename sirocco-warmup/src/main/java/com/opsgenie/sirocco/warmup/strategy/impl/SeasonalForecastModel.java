@@ -0,0 +1,189 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+/**
+ * <p>
+ *      Additive Holt-Winters model with two seasonalities
+ *      (<b>daily</b> as hour of day and <b>weekly</b> as day of week)
+ *      to forecast hourly peak of a time series.
+ * </p>
+ * <p>
+ *      Observations are aggregated into hourly peaks and the model is updated
+ *      with the peak of an hour when the next hour begins. Hours without any observation are skipped.
+ *      Forecast for a time <code>t</code> is <code>level + h * trend + daily[hourOf(t)] + weekly[dayOf(t)]</code>
+ *      where <code>h</code> is the forecast horizon as count of hours
+ *      from the last hour the model has been updated with (at least <code>1</code>).
+ * </p>
+ * <p>
+ *      State is kept as primitive <code>float</code>s to be compact
+ *      (around <code>150</code> bytes per model), so it can be kept for thousands of functions.
+ *      Exported state is <code>18</code> longs: one for the observation count and the current hour
+ *      and <code>17</code> for the <code>34</code> floats
+ *      (level, trend, current hour peak, <code>24</code> daily and <code>7</code> weekly components)
+ *      packed two per long.
+ *      Hours and days are calculated in UTC.
+ * </p>
+ *
+ * @author serkan
+ */
+public class SeasonalForecastModel {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int DAYS_PER_WEEK = 7;
+    // Count of the floats in the state
+    private static final int STATE_SIZE = 3 + HOURS_PER_DAY + DAYS_PER_WEEK;
+    // Count of the longs in the exported state as header and the floats packed two per long
+    private static final int STATE_LENGTH = 1 + (STATE_SIZE + 1) / 2;
+
+    private final float levelSmoothing;
+    private final float trendSmoothing;
+    private final float dailySmoothing;
+    private final float weeklySmoothing;
+
+    private float level;
+    private float trend;
+    private final float[] daily = new float[HOURS_PER_DAY];
+    private final float[] weekly = new float[DAYS_PER_WEEK];
+    private int observationCount;
+    private int currentHour = -1;
+    private float currentHourPeak;
+
+    /**
+     * @param levelSmoothing  smoothing factor (<code>alpha</code>) of the level
+     * @param trendSmoothing  smoothing factor (<code>beta</code>) of the trend
+     * @param dailySmoothing  smoothing factor (<code>gamma</code>) of the daily seasonality
+     * @param weeklySmoothing smoothing factor (<code>delta</code>) of the weekly seasonality
+     */
+    public SeasonalForecastModel(float levelSmoothing, float trendSmoothing,
+                                 float dailySmoothing, float weeklySmoothing) {
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+        this.dailySmoothing = dailySmoothing;
+        this.weeklySmoothing = weeklySmoothing;
+    }
+
+    private static int hourOf(long time) {
+        return (int) (time / HOUR_MILLIS);
+    }
+
+    private static int hourOfDay(int hour) {
+        return hour % HOURS_PER_DAY;
+    }
+
+    private static int dayOfWeek(int hour) {
+        return (hour / HOURS_PER_DAY) % DAYS_PER_WEEK;
+    }
+
+    /**
+     * Gets the count of hourly peaks the model has been updated with.
+     *
+     * @return the count of hourly peaks the model has been updated with
+     */
+    public int getObservationCount() {
+        return observationCount;
+    }
+
+    /**
+     * Observes the given value at the given time.
+     *
+     * @param time  the time of the observation in milliseconds
+     * @param value the observed value
+     */
+    public void observe(long time, float value) {
+        int hour = hourOf(time);
+        if (hour == currentHour) {
+            currentHourPeak = Math.max(currentHourPeak, value);
+            return;
+        }
+        if (hour < currentHour) {
+            // Out of order observation
+            return;
+        }
+        if (currentHour >= 0) {
+            update(currentHour, currentHourPeak);
+        }
+        currentHour = hour;
+        currentHourPeak = value;
+    }
+
+    private void update(int hour, float value) {
+        int hourOfDay = hourOfDay(hour);
+        int dayOfWeek = dayOfWeek(hour);
+        if (observationCount == 0) {
+            level = value;
+        } else {
+            float previousLevel = level;
+            level = levelSmoothing * (value - daily[hourOfDay] - weekly[dayOfWeek])
+                    + (1 - levelSmoothing) * (level + trend);
+            trend = trendSmoothing * (level - previousLevel) + (1 - trendSmoothing) * trend;
+            daily[hourOfDay] = dailySmoothing * (value - level - weekly[dayOfWeek])
+                               + (1 - dailySmoothing) * daily[hourOfDay];
+            weekly[dayOfWeek] = weeklySmoothing * (value - level - daily[hourOfDay])
+                                + (1 - weeklySmoothing) * weekly[dayOfWeek];
+        }
+        observationCount++;
+    }
+
+    /**
+     * Forecasts the value at the given time.
+     *
+     * @param time the time in milliseconds to forecast the value at
+     * @return the forecast value which is never negative
+     */
+    public float forecast(long time) {
+        int hour = hourOf(time);
+        // Model has been updated up to the hour before the current (not completed yet) one
+        int horizon = Math.max(1, hour - currentHour + 1);
+        float value = level + horizon * trend + daily[hourOfDay(hour)] + weekly[dayOfWeek(hour)];
+        return Math.max(0, value);
+    }
+
+    /**
+     * Exports the state of the model.
+     *
+     * @return the state of the model
+     */
+    public long[] toState() {
+        float[] values = new float[STATE_SIZE];
+        values[0] = level;
+        values[1] = trend;
+        values[2] = currentHourPeak;
+        System.arraycopy(daily, 0, values, 3, HOURS_PER_DAY);
+        System.arraycopy(weekly, 0, values, 3 + HOURS_PER_DAY, DAYS_PER_WEEK);
+        // Pack two floats into every long
+        long[] state = new long[STATE_LENGTH];
+        state[0] = ((long) observationCount << 32) | (currentHour & 0xFFFFFFFFL);
+        for (int i = 0; i < STATE_SIZE; i++) {
+            long bits = Float.floatToRawIntBits(values[i]) & 0xFFFFFFFFL;
+            state[1 + i / 2] |= (i % 2 == 0) ? bits << 32 : bits;
+        }
+        return state;
+    }
+
+    /**
+     * Imports the state of the model exported by {@link #toState()}.
+     *
+     * @param state the state of the model
+     * @return <code>true</code> if the state has been imported,
+     *         <code>false</code> if the state is not valid
+     */
+    public boolean fromState(long[] state) {
+        if (state.length != STATE_LENGTH) {
+            return false;
+        }
+        float[] values = new float[STATE_SIZE];
+        for (int i = 0; i < STATE_SIZE; i++) {
+            long packed = state[1 + i / 2];
+            values[i] = Float.intBitsToFloat((int) ((i % 2 == 0) ? packed >>> 32 : packed));
+        }
+        observationCount = (int) (state[0] >>> 32);
+        currentHour = (int) state[0];
+        level = values[0];
+        trend = values[1];
+        currentHourPeak = values[2];
+        System.arraycopy(values, 3, daily, 0, HOURS_PER_DAY);
+        System.arraycopy(values, 3 + HOURS_PER_DAY, weekly, 0, DAYS_PER_WEEK);
+        return true;
+    }
+
+}
@@ -1,22 +1,33 @@
 package com.opsgenie.sirocco.warmup.strategy.impl;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.model.InvokeRequest;
 import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.TooManyRequestsException;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.util.StringUtils;
 import com.opsgenie.sirocco.warmup.LambdaService;
 import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
 import com.opsgenie.sirocco.warmup.WarmupHandler;
+import com.opsgenie.sirocco.warmup.WarmupMetrics;
 import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>
@@ -69,13 +80,21 @@ public class StandardWarmupStrategy implements WarmupStrategy {
      * Name of the <code>integer</code> typed property
      * which configures the count of consumers
      * to get results of warmup invocations.
+     *
+     * @deprecated Invocation results are handled by completion callbacks
+     *             (see {@link LambdaService#invokeAsync(InvokeRequest, AsyncHandler)})
+     *             so there is no consumer to configure anymore. This property is ignored.
      */
+    @Deprecated
     public static final String INVOCATION_RESULT_CONSUMER_COUNT_PROP_NAME =
             "sirocco.warmup.invocationResultConsumerCount";
     /**
-     * Default value for {@link #DEFAULT_INVOCATION_RESULT_CONSUMER_COUNT} property.
+     * Default value for {@link #INVOCATION_RESULT_CONSUMER_COUNT_PROP_NAME} property.
      * The default value is two times of available CPU processors.
+     *
+     * @deprecated See {@link #INVOCATION_RESULT_CONSUMER_COUNT_PROP_NAME}
      */
+    @Deprecated
     public static final int DEFAULT_INVOCATION_RESULT_CONSUMER_COUNT =
             2 * Runtime.getRuntime().availableProcessors();
 
@@ -146,36 +165,183 @@ public class StandardWarmupStrategy implements WarmupStrategy {
     public static final String DONT_WAIT_BETWEEN_INVOCATION_ROUNDS =
             "sirocco.warmup.dontWaitBetweenInvocationRounds";
 
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the timeout in milliseconds for each warmup invocation.
+     * Regardless of this property, invocations are never waited beyond the deadline
+     * derived from the remaining time of the warmup handler
+     * (see {@link #DEADLINE_SAFETY_MARGIN_MILLIS_PROP_NAME}).
+     * By default there is no timeout other than that deadline.
+     */
+    public static final String INVOCATION_TIMEOUT_MILLIS_PROP_NAME =
+            "sirocco.warmup.invocationTimeout";
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the time in milliseconds to be reserved
+     * from the remaining time of the warmup handler.
+     * Invocations which are still not completed at
+     * <code>remaining time - safety margin</code> are cancelled
+     * and reported as timed out, so the warmup handler
+     * can finish on its own instead of being killed by the Lambda timeout.
+     */
+    public static final String DEADLINE_SAFETY_MARGIN_MILLIS_PROP_NAME =
+            "sirocco.warmup.deadlineSafetyMargin";
+    /**
+     * Default value for {@link #DEADLINE_SAFETY_MARGIN_MILLIS_PROP_NAME} property.
+     * The default value is <code>1 second</code>.
+     */
+    public static final long DEFAULT_DEADLINE_SAFETY_MARGIN_MILLIS = 1000;
+
+    /**
+     * Name of the <code>boolean</code> typed property
+     * which enables adaptive concurrency control of warmup invocations.
+     * When adaptive concurrency control is enabled (disabled by default),
+     * concurrency limits per function and per account (for all functions warmed-up by this strategy)
+     * are decreased multiplicatively when invocations are throttled or timed out
+     * and increased additively when they succeed. Warmup of a function is shrunk to the permitted
+     * concurrency and the rest of its warmup is aborted when throttling is detected while dispatching.
+     * Skipped and shrunk warmups are recorded to {@link WarmupMetrics}.
+     */
+    public static final String ENABLE_ADAPTIVE_CONCURRENCY_PROP_NAME =
+            "sirocco.warmup.enableAdaptiveConcurrency";
+
+    /**
+     * Name of the <code>integer</code> typed property
+     * which configures the maximum (and the initial) concurrency limit
+     * of warmup invocations for all functions.
+     */
+    public static final String ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME =
+            "sirocco.warmup.accountConcurrencyLimit";
+    /**
+     * Default value for {@link #ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME} property.
+     * The default value is <code>1000</code> which is the default concurrency limit of AWS Lambda per region.
+     */
+    public static final int DEFAULT_ACCOUNT_CONCURRENCY_LIMIT = 1000;
+
+    /**
+     * Name of the <code>integer</code> typed property
+     * which configures the maximum (and the initial) concurrency limit
+     * of warmup invocations for each function.
+     */
+    public static final String FUNCTION_CONCURRENCY_LIMIT_PROP_NAME =
+            "sirocco.warmup.functionConcurrencyLimit";
+    /**
+     * Default value for {@link #FUNCTION_CONCURRENCY_LIMIT_PROP_NAME} property.
+     * The default value is <code>1000</code>.
+     */
+    public static final int DEFAULT_FUNCTION_CONCURRENCY_LIMIT = 1000;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures the ratio (between <code>0</code> and <code>1</code>)
+     * to multiply concurrency limits by when invocations are throttled or timed out.
+     */
+    public static final String CONCURRENCY_BACKOFF_RATIO_PROP_NAME =
+            "sirocco.warmup.concurrencyBackoffRatio";
+    /**
+     * Default value for {@link #CONCURRENCY_BACKOFF_RATIO_PROP_NAME} property.
+     * The default value is <code>0.5</code>.
+     */
+    public static final float DEFAULT_CONCURRENCY_BACKOFF_RATIO = 0.5F;
+
+    /**
+     * Name of the <code>float</code> typed property
+     * which configures the ratio of invocation latency to the observed baseline latency
+     * beyond which concurrency limits are decreased as if the invocation was throttled.
+     * Note that cold starts inflate latencies of warmup invocations as well,
+     * so this should be configured by taking cold start durations of the functions into consideration.
+     * By default (<code>0</code>), latency based decrease is disabled.
+     */
+    public static final String LATENCY_INFLATION_THRESHOLD_PROP_NAME =
+            "sirocco.warmup.latencyInflationThreshold";
+
+    /**
+     * Name of the <code>long</code> typed property
+     * which configures the estimated time in milliseconds to wait for results
+     * of the latest warmup invocations. It is reserved from the remaining time of the warmup handler
+     * (in addition to the safety margin, see {@link #DEADLINE_SAFETY_MARGIN_MILLIS_PROP_NAME})
+     * and invocations of all rounds are planned to be dispatched in the rest of it.
+     * By default, the maximum invocation latency observed in the previous warmup is used
+     * (bounded by {@link #INVOCATION_TIMEOUT_MILLIS_PROP_NAME} if it is configured)
+     * and share of a round is reserved until any latency is observed.
+     */
+    public static final String RESULT_WAIT_ESTIMATE_MILLIS_PROP_NAME =
+            "sirocco.warmup.resultWaitEstimate";
+
+    private static final String FUNCTION_CALL_TIMES_STATE_NAMESPACE = ".functionCallTimes";
+    private static final String ITERATION_STATE_NAMESPACE = ".iteration";
+    private static final String CURRENT_ITERATION_COUNT_STATE_KEY = "currentIterationCount";
+
     protected final Logger logger = Logger.getLogger(getClass());
 
-    protected final int invocationCount;
-    protected final int invocationResultConsumerCount;
-    protected final int iterationCount;
-    protected final boolean splitIterations;
+    protected final WarmupPropertyProvider warmupPropertyProvider;
+    private long propertiesVersion;
+    protected int invocationCount;
+    protected int iterationCount;
+    protected boolean splitIterations;
     protected int currentIterationCount = 0;
-    protected final long randomizationBypassIntervalMillis;
-    protected final boolean disableRandomization;
-    protected final String warmupFunctionAlias;
-    protected final boolean throwErrorOnFailure;
-    protected final boolean dontWaitBetweenInvocationRounds;
+    protected long randomizationBypassIntervalMillis;
+    protected boolean disableRandomization;
+    protected String warmupFunctionAlias;
+    protected boolean throwErrorOnFailure;
+    protected boolean dontWaitBetweenInvocationRounds;
+    protected long invocationTimeoutMillis;
+    protected long deadlineSafetyMarginMillis;
+    protected boolean enableAdaptiveConcurrency;
+    protected int functionConcurrencyLimit;
+    protected float concurrencyBackoffRatio;
+    protected float latencyInflationThreshold;
+    protected long resultWaitEstimateMillis;
+    protected final AtomicLong maxInvocationLatencyNanos = new AtomicLong();
+    protected volatile long observedResultWaitMillis = -1;
+    protected final AdaptiveConcurrencyLimiter accountConcurrencyLimiter;
+    protected final ConcurrentMap<String, AdaptiveConcurrencyLimiter> functionConcurrencyLimiters =
+            new ConcurrentHashMap<String, AdaptiveConcurrencyLimiter>();
 
     protected final Map<String, Long> functionCallTimes = new HashMap<String, Long>();
-    protected final ExecutorService executorService;
+    protected final Map<String, InvocationDataTemplate> invocationDataTemplates =
+            new ConcurrentHashMap<String, InvocationDataTemplate>();
     protected final Random random = new Random();
+    protected final WarmupStateStore warmupStateStore;
+    protected final WarmupMetrics warmupMetrics;
+    private boolean stateLoaded;
 
     public StandardWarmupStrategy() {
-        this(WarmupHandler.DEFAULT_WARMUP_PROPERTY_PROVIDER);
+        this(WarmupHandler.getDefaultWarmupPropertyProvider());
     }
 
     public StandardWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider) {
+        this(warmupPropertyProvider, WarmupHandler.createWarmupStateStore(warmupPropertyProvider));
+    }
+
+    public StandardWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                  WarmupStateStore warmupStateStore) {
+        this(warmupPropertyProvider, warmupStateStore, WarmupHandler.createWarmupMetrics(warmupPropertyProvider));
+    }
+
+    public StandardWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                  WarmupStateStore warmupStateStore,
+                                  WarmupMetrics warmupMetrics) {
+        this.warmupPropertyProvider = warmupPropertyProvider;
+        this.propertiesVersion = warmupPropertyProvider.getVersion();
+        this.warmupStateStore = warmupStateStore;
+        this.warmupMetrics = warmupMetrics;
+        configure(warmupPropertyProvider);
+        this.accountConcurrencyLimiter =
+                new AdaptiveConcurrencyLimiter(
+                        warmupPropertyProvider.getInteger(
+                                ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME,
+                                DEFAULT_ACCOUNT_CONCURRENCY_LIMIT),
+                        concurrencyBackoffRatio,
+                        latencyInflationThreshold);
+    }
+
+    private void configure(WarmupPropertyProvider warmupPropertyProvider) {
         this.invocationCount =
                 warmupPropertyProvider.getInteger(
                         INVOCATION_COUNT_PROP_NAME,
                         DEFAULT_INVOCATION_COUNT);
-        this.invocationResultConsumerCount =
-                warmupPropertyProvider.getInteger(
-                        INVOCATION_RESULT_CONSUMER_COUNT_PROP_NAME,
-                        DEFAULT_INVOCATION_RESULT_CONSUMER_COUNT);
         this.iterationCount =
                 warmupPropertyProvider.getInteger(
                         ITERATION_COUNT_PROP_NAME,
@@ -194,8 +360,53 @@ public class StandardWarmupStrategy implements WarmupStrategy {
                 warmupPropertyProvider.getBoolean(THROW_ERROR_ON_FAILURE_PROP_NAME);
         this.dontWaitBetweenInvocationRounds =
                 warmupPropertyProvider.getBoolean(DONT_WAIT_BETWEEN_INVOCATION_ROUNDS);
-        this.executorService =
-                Executors.newFixedThreadPool(invocationResultConsumerCount);
+        this.invocationTimeoutMillis =
+                warmupPropertyProvider.getLong(INVOCATION_TIMEOUT_MILLIS_PROP_NAME, 0L);
+        this.deadlineSafetyMarginMillis =
+                warmupPropertyProvider.getLong(
+                        DEADLINE_SAFETY_MARGIN_MILLIS_PROP_NAME,
+                        DEFAULT_DEADLINE_SAFETY_MARGIN_MILLIS);
+        this.enableAdaptiveConcurrency =
+                warmupPropertyProvider.getBoolean(ENABLE_ADAPTIVE_CONCURRENCY_PROP_NAME);
+        this.functionConcurrencyLimit =
+                warmupPropertyProvider.getInteger(
+                        FUNCTION_CONCURRENCY_LIMIT_PROP_NAME,
+                        DEFAULT_FUNCTION_CONCURRENCY_LIMIT);
+        this.concurrencyBackoffRatio =
+                warmupPropertyProvider.getFloat(
+                        CONCURRENCY_BACKOFF_RATIO_PROP_NAME,
+                        DEFAULT_CONCURRENCY_BACKOFF_RATIO);
+        this.latencyInflationThreshold =
+                warmupPropertyProvider.getFloat(LATENCY_INFLATION_THRESHOLD_PROP_NAME, 0.0F);
+        this.resultWaitEstimateMillis =
+                warmupPropertyProvider.getLong(RESULT_WAIT_ESTIMATE_MILLIS_PROP_NAME, 0L);
+    }
+
+    /**
+     * Reconfigures this strategy from the given properties in place
+     * when a new version of the properties is detected at the start of a warmup run.
+     * Learned state (such as call times, concurrency limits and stats) is kept.
+     * Sub-classes which have their own properties should override this by calling the super implementation.
+     *
+     * @param warmupPropertyProvider the {@link WarmupPropertyProvider} to reconfigure from
+     */
+    protected void reconfigure(WarmupPropertyProvider warmupPropertyProvider) {
+        configure(warmupPropertyProvider);
+        if (currentIterationCount >= iterationCount) {
+            currentIterationCount = 0;
+        }
+        accountConcurrencyLimiter.reconfigure(
+                warmupPropertyProvider.getInteger(
+                        ACCOUNT_CONCURRENCY_LIMIT_PROP_NAME,
+                        DEFAULT_ACCOUNT_CONCURRENCY_LIMIT),
+                concurrencyBackoffRatio,
+                latencyInflationThreshold);
+        for (AdaptiveConcurrencyLimiter functionConcurrencyLimiter : functionConcurrencyLimiters.values()) {
+            functionConcurrencyLimiter.reconfigure(
+                    functionConcurrencyLimit,
+                    concurrencyBackoffRatio,
+                    latencyInflationThreshold);
+        }
     }
 
     @Override
@@ -207,147 +418,219 @@ public class StandardWarmupStrategy implements WarmupStrategy {
     public void warmup(Context context,
                        LambdaService lambdaService,
                        Map<String, WarmupFunctionInfo> functionsToWarmup) throws IOException {
+        if (!stateLoaded) {
+            loadState();
+            stateLoaded = true;
+        }
+
+        long currentPropertiesVersion = warmupPropertyProvider.getVersion();
+        if (currentPropertiesVersion != propertiesVersion) {
+            propertiesVersion = currentPropertiesVersion;
+            logger.info("Reconfiguring by the changed warmup properties ...");
+            try {
+                reconfigure(warmupPropertyProvider);
+            } catch (RuntimeException e) {
+                logger.error("Unable to reconfigure by the changed warmup properties!", e);
+            }
+        }
+
+        String runId = getRunId(context);
+
         int defaultInvocationCount = getDefaultInvocationCount();
 
         logger.info("Default invocation count per function: " + defaultInvocationCount);
+        logger.info("Run id: " + runId);
 
         long remainingMillis = context.getRemainingTimeInMillis();
-        long iterationDurationMillis = remainingMillis / iterationCount;
+        long startNanos = System.nanoTime();
+        long deadline = System.currentTimeMillis() + remainingMillis - deadlineSafetyMarginMillis;
         int invocationCountPerIteration = defaultInvocationCount / iterationCount;
-        int remainingInvocationCountAtFinalRound =
-                defaultInvocationCount - (invocationCountPerIteration * iterationCount);
+        int lastIterationCount = splitIterations ? currentIterationCount + 1 : iterationCount;
+
+        WarmupPlanner warmupPlanner =
+                new WarmupPlanner(
+                        deadlineSafetyMarginMillis,
+                        getResultWaitEstimateMillis(remainingMillis, lastIterationCount - currentIterationCount));
+        List<WarmupPlanner.Dispatch> dispatches =
+                warmupPlanner.plan(
+                        remainingMillis,
+                        new ArrayList<String>(functionsToWarmup.keySet()),
+                        currentIterationCount,
+                        lastIterationCount,
+                        !dontWaitBetweenInvocationRounds);
+        maxInvocationLatencyNanos.set(0);
 
         logger.info("Iteration count: " + iterationCount);
+        logger.info(String.format(
+                "Planned %d dispatches in %d millis (result wait estimate: %d millis, safety reserve: %d millis)",
+                dispatches.size(), warmupPlanner.getDispatchWindowMillis(remainingMillis),
+                warmupPlanner.getResultWaitMillis(), warmupPlanner.getSafetyReserveMillis()));
 
         ///////////////////////////////////////////////////////////////////////////////
 
-        AtomicLong invocationResultCounter = new AtomicLong(0L);
-        LinkedBlockingQueue<InvokeResultInfo> invocationResultFutures = new LinkedBlockingQueue<>();
+        InvocationTracker invocationTracker = new InvocationTracker();
         List<InvokeResultError> errors = new CopyOnWriteArrayList<>();
-        AtomicBoolean stopFlag = new AtomicBoolean(false);
-        List<Future> futures = new ArrayList<>(invocationResultConsumerCount);
-
-        try {
-            for (int i = 0; i < invocationResultConsumerCount; i++) {
-                InvocationResultConsumer invocationResultConsumer =
-                        new InvocationResultConsumer(
-                                invocationResultCounter,
-                                invocationResultFutures,
-                                errors,
-                                stopFlag);
-                Future future = executorService.submit(invocationResultConsumer);
-                futures.add(future);
-            }
 
-            ///////////////////////////////////////////////////////////////////////////////
+        // Payloads are encoded once per run, so changes in invocation data are picked up at the next run
+        Map<Object, ByteBuffer> invokeRequestPayloads = new HashMap<Object, ByteBuffer>();
 
+        try {
             Map<String, List<InvokeResultInfo>> invokeResultInfosMap = new HashMap<String, List<InvokeResultInfo>>();
 
             logger.info("Starting iterations to warmup ...");
 
-            int invokeCount = (currentIterationCount + 1) * invocationCountPerIteration;
-            for (int i = currentIterationCount; i < iterationCount; i++) {
-                long startTime = System.currentTimeMillis();
-
-                logger.info(String.format("Iteration round %d ...", (i + 1)));
-                for (Map.Entry<String, WarmupFunctionInfo> entry : functionsToWarmup.entrySet()) {
-                    String functionToBeWarmup = entry.getKey();
-                    WarmupFunctionInfo functionInfo = entry.getValue();
-
-                    if (i + 1 == iterationCount) {
-                        invokeCount += remainingInvocationCountAtFinalRound;
-                    }
+            int previousIteration = -1;
+            for (WarmupPlanner.Dispatch dispatch : dispatches) {
+                int i = dispatch.getRound();
+                if (!awaitDispatch(startNanos, dispatch, deadline)) {
+                    logger.warn(String.format(
+                            "Skipping iteration round %d and the following ones " +
+                            "since the deadline has been reached or the warmup has been interrupted",
+                            (i + 1)));
+                    break;
+                }
 
-                    int actualInvocationCount = invokeCount;
-                    boolean randomize = !disableRandomization;
-                    Long callTime = functionCallTimes.get(functionToBeWarmup);
-                    if (    callTime == null
-                            ||
-                            (System.currentTimeMillis() - callTime) > randomizationBypassIntervalMillis) {
-                        functionCallTimes.remove(functionToBeWarmup);
-                        randomize = false;
-                    }
-                    if (randomize) {
-                        actualInvocationCount =
-                                calculateRandomizedInvocationCount(actualInvocationCount, invocationCountPerIteration);
-                    }
+                if (i != previousIteration) {
+                    logger.info(String.format("Iteration round %d ...", (i + 1)));
+                    previousIteration = i;
+                }
+                String functionToBeWarmup = dispatch.getFunctionName();
+                WarmupFunctionInfo functionInfo = functionsToWarmup.get(functionToBeWarmup);
+
+                // Invocation count increases at every round and reaches the default count at the final round
+                int invokeCount =
+                        i + 1 == iterationCount
+                                ? defaultInvocationCount
+                                : (i + 1) * invocationCountPerIteration;
+
+                int actualInvocationCount = invokeCount;
+                boolean randomize = !disableRandomization;
+                Long callTime = functionCallTimes.get(functionToBeWarmup);
+                if (    callTime == null
+                        ||
+                        (System.currentTimeMillis() - callTime) > randomizationBypassIntervalMillis) {
+                    functionCallTimes.remove(functionToBeWarmup);
+                    randomize = false;
+                }
+                if (randomize) {
+                    actualInvocationCount =
+                            calculateRandomizedInvocationCount(actualInvocationCount, invocationCountPerIteration);
+                }
 
-                    int functionInvocationCount =
-                            getInvocationCount(
-                                    functionToBeWarmup,
-                                    defaultInvocationCount,
-                                    functionInfo.getInvocationCount(),
-                                    functionInfo);
-                    if (functionInvocationCount > 0) {
-                        actualInvocationCount =
-                                (int) (((double) (functionInvocationCount * actualInvocationCount)) / defaultInvocationCount);
-                    }
+                int functionInvocationCount =
+                        getInvocationCount(
+                                functionToBeWarmup,
+                                defaultInvocationCount,
+                                functionInfo.getInvocationCount(),
+                                functionInfo);
+                if (functionInvocationCount > 0) {
+                    actualInvocationCount =
+                            (int) (((double) (functionInvocationCount * actualInvocationCount)) / defaultInvocationCount);
+                }
 
-                    if (actualInvocationCount == 0) {
-                        actualInvocationCount = 1;
-                    }
+                if (actualInvocationCount == 0) {
+                    actualInvocationCount = 1;
+                }
 
-                    String alias = null;
-                    if (StringUtils.hasValue(warmupFunctionAlias)) {
-                        alias = warmupFunctionAlias;
-                    }
-                    if (StringUtils.hasValue(functionInfo.getAlias())) {
-                        alias = functionInfo.getAlias();
-                    }
+                String alias = null;
+                if (StringUtils.hasValue(warmupFunctionAlias)) {
+                    alias = warmupFunctionAlias;
+                }
+                if (StringUtils.hasValue(functionInfo.getAlias())) {
+                    alias = functionInfo.getAlias();
+                }
 
-                    if (alias != null) {
-                        logger.info(String.format(
-                                "Invoking function %s with alias '%s' to warmup for %d times ...",
-                                functionToBeWarmup, alias, actualInvocationCount));
-                    } else {
-                        logger.info(String.format(
-                                "Invoking function %s to warmup for %d times ...",
-                                functionToBeWarmup, actualInvocationCount));
+                AdaptiveConcurrencyLimiter functionConcurrencyLimiter = null;
+                if (enableAdaptiveConcurrency) {
+                    functionConcurrencyLimiter = getFunctionConcurrencyLimiter(functionToBeWarmup);
+                    int permittedInvocationCount =
+                            acquireConcurrency(functionConcurrencyLimiter, actualInvocationCount);
+                    if (permittedInvocationCount == 0) {
+                        warmupMetrics.recordSkippedWarmup(functionToBeWarmup, actualInvocationCount);
+                        logger.warn(String.format(
+                                "Skipping warmup of function %s as there is no permitted concurrency " +
+                                "(function limiter: %s, account limiter: %s)",
+                                functionToBeWarmup, functionConcurrencyLimiter, accountConcurrencyLimiter));
+                        continue;
                     }
-
-                    InvocationContext invocationContext =
-                            createInvocationContext(functionInfo, functionToBeWarmup, alias, actualInvocationCount);
-                    for (int j = 0; j < actualInvocationCount; j++) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug(String.format("Invocation round %d ...", (j + 1)));
-                        }
-                        InvokeRequest invokeRequest = createInvokeRequest(invocationContext, j + 1);
-                        Future<InvokeResult> invokeResultFuture = lambdaService.invokeAsync(invokeRequest);
-                        invocationResultCounter.incrementAndGet();
-                        InvokeResultInfo invokeResultInfo =
-                                new InvokeResultInfo(
-                                        (i + 1), (j + 1),
-                                        functionToBeWarmup, invokeResultFuture);
-                        List<InvokeResultInfo> invokeResultInfos = invokeResultInfosMap.get(functionToBeWarmup);
-                        if (invokeResultInfos == null) {
-                            invokeResultInfos = new ArrayList<InvokeResultInfo>();
-                            invokeResultInfosMap.put(functionToBeWarmup, invokeResultInfos);
-                        }
-                        invokeResultInfos.add(invokeResultInfo);
-                        invocationResultFutures.offer(invokeResultInfo);
+                    if (permittedInvocationCount < actualInvocationCount) {
+                        warmupMetrics.recordShrunkWarmup(
+                                functionToBeWarmup, actualInvocationCount - permittedInvocationCount);
+                        logger.warn(String.format(
+                                "Shrinking warmup invocation count of function %s from %d to %d " +
+                                "as permitted by concurrency limits",
+                                functionToBeWarmup, actualInvocationCount, permittedInvocationCount));
+                        actualInvocationCount = permittedInvocationCount;
                     }
-
-                    functionCallTimes.putIfAbsent(functionToBeWarmup, System.currentTimeMillis());
                 }
 
-                invokeCount += invocationCountPerIteration;
-                invokeCount = Math.min(invokeCount, defaultInvocationCount);
-
-                if (splitIterations) {
-                    break;
+                if (alias != null) {
+                    logger.info(String.format(
+                            "Invoking function %s with alias '%s' to warmup for %d times ...",
+                            functionToBeWarmup, alias, actualInvocationCount));
+                } else {
+                    logger.info(String.format(
+                            "Invoking function %s to warmup for %d times ...",
+                            functionToBeWarmup, actualInvocationCount));
                 }
 
-                // No need to sleep at last round
-                if (i < iterationCount - 1 && !dontWaitBetweenInvocationRounds) {
-                    long passedTime = System.currentTimeMillis() - startTime;
-                    long iterationRemainingMillis = iterationDurationMillis - passedTime;
+                InvocationContext invocationContext =
+                        createInvocationContext(functionInfo, functionToBeWarmup, alias, actualInvocationCount);
+                invocationContext.runId = runId;
+                invocationContext.iterationNo = i + 1;
+                invocationContext.invokeRequestPayloads = invokeRequestPayloads;
+                long dispatchStartTime = System.nanoTime();
+                for (int j = 0; j < actualInvocationCount; j++) {
+                    if (functionConcurrencyLimiter != null
+                            && (functionConcurrencyLimiter.isOverloadedSince(dispatchStartTime)
+                                || accountConcurrencyLimiter.isOverloadedSince(dispatchStartTime))) {
+                        // Warmup competes with real traffic, so back off
+                        int abortedInvocationCount = actualInvocationCount - j;
+                        functionConcurrencyLimiter.release(abortedInvocationCount);
+                        accountConcurrencyLimiter.release(abortedInvocationCount);
+                        warmupMetrics.recordShrunkWarmup(functionToBeWarmup, abortedInvocationCount);
+                        logger.warn(String.format(
+                                "Aborting remaining %d warmup invocations of function %s " +
+                                "since throttling has been detected",
+                                abortedInvocationCount, functionToBeWarmup));
+                        break;
+                    }
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(String.format("Invocation round %d ...", (j + 1)));
+                    }
+                    InvokeRequest invokeRequest = createInvokeRequest(invocationContext, j + 1);
+                    InvokeResultInfo invokeResultInfo =
+                            new InvokeResultInfo((i + 1), (j + 1), functionToBeWarmup);
+                    invokeResultInfo.concurrencyLimiter = functionConcurrencyLimiter;
+                    invokeResultInfo.dispatchTime = System.nanoTime();
+                    List<InvokeResultInfo> invokeResultInfos = invokeResultInfosMap.get(functionToBeWarmup);
+                    if (invokeResultInfos == null) {
+                        invokeResultInfos = new ArrayList<InvokeResultInfo>();
+                        invokeResultInfosMap.put(functionToBeWarmup, invokeResultInfos);
+                    }
+                    invokeResultInfos.add(invokeResultInfo);
+                    long invocationDeadline = getInvocationDeadline(deadline);
+                    // Lambda client gives up the invocation at its deadline
+                    // instead of holding its thread or connection until the response
+                    invokeRequest.setSdkClientExecutionTimeout(
+                            (int) Math.max(1, Math.min(invocationDeadline - System.currentTimeMillis(),
+                                                       Integer.MAX_VALUE)));
+                    // Invocation must be tracked before dispatching
+                    // since the completion callback might be called before "invokeAsync" returns
+                    invocationTracker.track(invokeResultInfo, invocationDeadline);
+                    InvocationResultHandler invocationResultHandler =
+                            new InvocationResultHandler(invokeResultInfo, invocationTracker, errors);
+                    warmupMetrics.recordDispatch(functionToBeWarmup);
                     try {
-                        logger.info(String.format(
-                                "Sleeping %d millis for next iteration ...", iterationRemainingMillis));
-                        Thread.sleep(iterationRemainingMillis);
-                    } catch (InterruptedException e) {
+                        invokeResultInfo.invokeResultFuture =
+                                lambdaService.invokeAsync(invokeRequest, invocationResultHandler);
+                    } catch (Exception e) {
+                        invocationResultHandler.onError(e);
                     }
                 }
+
+                warmupMetrics.recordPendingInvocations(invocationTracker.getPendingCount());
+                functionCallTimes.putIfAbsent(functionToBeWarmup, System.currentTimeMillis());
             }
 
             logger.info("Finished iterations to warmup");
@@ -356,24 +639,25 @@ public class StandardWarmupStrategy implements WarmupStrategy {
 
             logger.info("Started waiting for invocations results ...");
 
+            List<InvokeResultInfo> timedOutInvokeResultInfos = new ArrayList<InvokeResultInfo>();
             try {
-                // We don't wait by timeout but wait infinite on purpose.
-                // Because while waiting, if there is a timeout for this warmup handler function,
-                // we should be aware of it
-                while (invocationResultCounter.get() > 0) {
-                    Thread.sleep(1000);
-                }
+                invocationTracker.awaitCompletion(timedOutInvokeResultInfos);
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOutInvokeResultInfos.addAll(invocationTracker.expireAll());
             }
-
-            stopFlag.set(true);
-
-            Iterator<Future> iter = futures.iterator();
-            while (iter.hasNext()) {
-                Future future = iter.next();
-                future.cancel(true);
-                iter.remove();
+            long maxInvocationLatency = maxInvocationLatencyNanos.get();
+            if (maxInvocationLatency > 0) {
+                observedResultWaitMillis = TimeUnit.NANOSECONDS.toMillis(maxInvocationLatency);
             }
+            for (InvokeResultInfo invokeResultInfo : timedOutInvokeResultInfos) {
+                handleTimedOutInvocation(invokeResultInfo, errors);
+            }
+
+            logger.info(String.format(
+                    "Completed %d of %d invocations (%d failed, %d timed out)",
+                    invocationTracker.getTrackedCount() - errors.size(), invocationTracker.getTrackedCount(),
+                    errors.size() - timedOutInvokeResultInfos.size(), timedOutInvokeResultInfos.size()));
 
             ///////////////////////////////////////////////////////////////////////////////
 
@@ -388,10 +672,190 @@ public class StandardWarmupStrategy implements WarmupStrategy {
             if (splitIterations) {
                 currentIterationCount = (currentIterationCount + 1) % iterationCount;
             }
-            for (Future future : futures) {
-                future.cancel(true);
+            saveState();
+            try {
+                warmupStateStore.flush();
+            } catch (IOException e) {
+                logger.warn("Unable to flush warmup state!", e);
+            }
+        }
+    }
+
+    protected AdaptiveConcurrencyLimiter getFunctionConcurrencyLimiter(String functionName) {
+        AdaptiveConcurrencyLimiter functionConcurrencyLimiter = functionConcurrencyLimiters.get(functionName);
+        if (functionConcurrencyLimiter == null) {
+            functionConcurrencyLimiter =
+                    new AdaptiveConcurrencyLimiter(
+                            functionConcurrencyLimit,
+                            concurrencyBackoffRatio,
+                            latencyInflationThreshold);
+            AdaptiveConcurrencyLimiter existingFunctionConcurrencyLimiter =
+                    functionConcurrencyLimiters.putIfAbsent(functionName, functionConcurrencyLimiter);
+            if (existingFunctionConcurrencyLimiter != null) {
+                // Another warmup has created the limiter meanwhile, so share its permits
+                functionConcurrencyLimiter = existingFunctionConcurrencyLimiter;
+            }
+        }
+        return functionConcurrencyLimiter;
+    }
+
+    protected int acquireConcurrency(AdaptiveConcurrencyLimiter functionConcurrencyLimiter, int invocationCount) {
+        int functionPermits = functionConcurrencyLimiter.tryAcquire(invocationCount);
+        int accountPermits = accountConcurrencyLimiter.tryAcquire(functionPermits);
+        functionConcurrencyLimiter.release(functionPermits - accountPermits);
+        return accountPermits;
+    }
+
+    protected void releaseConcurrency(InvokeResultInfo invokeResultInfo, Throwable error) {
+        AdaptiveConcurrencyLimiter functionConcurrencyLimiter = invokeResultInfo.concurrencyLimiter;
+        if (functionConcurrencyLimiter == null) {
+            return;
+        }
+        if (error == null) {
+            long latency = System.nanoTime() - invokeResultInfo.dispatchTime;
+            functionConcurrencyLimiter.onSuccess(latency);
+            accountConcurrencyLimiter.onSuccess(latency);
+        } else if (error instanceof TooManyRequestsException || error instanceof TimeoutException) {
+            functionConcurrencyLimiter.onOverload();
+            accountConcurrencyLimiter.onOverload();
+        } else {
+            functionConcurrencyLimiter.onFailure();
+            accountConcurrencyLimiter.onFailure();
+        }
+    }
+
+    protected void recordInvocationLatency(long latency) {
+        long maxLatency = maxInvocationLatencyNanos.get();
+        while (latency > maxLatency && !maxInvocationLatencyNanos.compareAndSet(maxLatency, latency)) {
+            maxLatency = maxInvocationLatencyNanos.get();
+        }
+    }
+
+    protected String getStateNamespace(String name) {
+        return getName() + name;
+    }
+
+    /**
+     * Loads the state of this strategy from the {@link WarmupStateStore}.
+     * Called only once just before the first warmup.
+     */
+    protected void loadState() {
+        functionCallTimes.putAll(warmupStateStore.load(getStateNamespace(FUNCTION_CALL_TIMES_STATE_NAMESPACE)));
+        if (splitIterations) {
+            Long savedIterationCount =
+                    warmupStateStore.load(getStateNamespace(ITERATION_STATE_NAMESPACE)).
+                            get(CURRENT_ITERATION_COUNT_STATE_KEY);
+            if (savedIterationCount != null) {
+                currentIterationCount = (int) (savedIterationCount % iterationCount);
+            }
+        }
+    }
+
+    /**
+     * Saves the state of this strategy to the {@link WarmupStateStore}.
+     * Called at the end of every warmup.
+     */
+    protected void saveState() {
+        long currentTime = System.currentTimeMillis();
+        Map<String, Long> activeFunctionCallTimes = new HashMap<String, Long>(functionCallTimes.size());
+        for (Map.Entry<String, Long> entry : functionCallTimes.entrySet()) {
+            // No need to keep call times which are already out of randomization bypass interval
+            if ((currentTime - entry.getValue()) <= randomizationBypassIntervalMillis) {
+                activeFunctionCallTimes.put(entry.getKey(), entry.getValue());
             }
         }
+        warmupStateStore.save(getStateNamespace(FUNCTION_CALL_TIMES_STATE_NAMESPACE), activeFunctionCallTimes);
+        if (splitIterations) {
+            warmupStateStore.save(
+                    getStateNamespace(ITERATION_STATE_NAMESPACE),
+                    Collections.singletonMap(CURRENT_ITERATION_COUNT_STATE_KEY, (long) currentIterationCount));
+        }
+    }
+
+    /**
+     * Gets the estimated time in milliseconds to wait for results of the latest warmup invocations
+     * (see {@link #RESULT_WAIT_ESTIMATE_MILLIS_PROP_NAME}).
+     *
+     * @param remainingMillis the remaining time of the warmup handler in milliseconds
+     * @param roundCount      the count of rounds to be performed at this warmup
+     * @return the estimated time in milliseconds to wait for results
+     */
+    protected long getResultWaitEstimateMillis(long remainingMillis, int roundCount) {
+        if (resultWaitEstimateMillis > 0) {
+            return resultWaitEstimateMillis;
+        }
+        long observedMillis = observedResultWaitMillis;
+        if (observedMillis < 0) {
+            // Nothing observed yet, so reserve the share of a round as waiting for the results of the final round
+            return Math.max(0, remainingMillis - deadlineSafetyMarginMillis) / (roundCount + 1);
+        }
+        if (invocationTimeoutMillis > 0) {
+            return Math.min(observedMillis, invocationTimeoutMillis);
+        }
+        return observedMillis;
+    }
+
+    /**
+     * Waits until the release time of the given dispatch.
+     *
+     * @param startNanos start time of the warmup as returned by {@link System#nanoTime()}
+     * @param dispatch   the dispatch to wait for
+     * @param deadline   the deadline of the warmup
+     * @return <code>true</code> if the dispatch can be fired,
+     *         <code>false</code> if the deadline has been reached or the warmup thread has been interrupted
+     */
+    protected boolean awaitDispatch(long startNanos, WarmupPlanner.Dispatch dispatch, long deadline) {
+        long releaseTime = startNanos + TimeUnit.MILLISECONDS.toNanos(dispatch.getReleaseMillis());
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            long remainingMillisToDeadline = deadline - System.currentTimeMillis();
+            if (remainingMillisToDeadline <= 0) {
+                return false;
+            }
+            long waitNanos = releaseTime - System.nanoTime();
+            if (waitNanos <= 0) {
+                if (logger.isDebugEnabled()
+                        && System.nanoTime() - startNanos > TimeUnit.MILLISECONDS.toNanos(dispatch.getDeadlineMillis())) {
+                    logger.debug("Firing dispatch after its deadline: " + dispatch);
+                }
+                return true;
+            }
+            try {
+                // Sleep in nanoseconds, so dispatch is fired at its release time instead of a millisecond later
+                TimeUnit.NANOSECONDS.sleep(
+                        Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillisToDeadline)));
+            } catch (InterruptedException e) {
+                // Stop dispatching, but keep the interrupt status so waiting for the results is also stopped
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    protected long getInvocationDeadline(long deadline) {
+        if (invocationTimeoutMillis > 0) {
+            return Math.min(System.currentTimeMillis() + invocationTimeoutMillis, deadline);
+        } else {
+            return deadline;
+        }
+    }
+
+    protected void handleTimedOutInvocation(InvokeResultInfo invokeResultInfo, List<InvokeResultError> errors) {
+        Future<InvokeResult> invokeResultFuture = invokeResultInfo.invokeResultFuture;
+        if (invokeResultFuture != null) {
+            invokeResultFuture.cancel(true);
+        }
+        TimeoutException error = new TimeoutException("Invocation has been timed out and cancelled");
+        releaseConcurrency(invokeResultInfo, error);
+        warmupMetrics.recordTimeout(invokeResultInfo.functionName);
+        logger.error(String.format(
+                "Invocation has timed out at iteration %d and invocation %d for function %s!",
+                invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName));
+        errors.add(new InvokeResultError(
+                invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName,
+                error));
     }
 
     protected int calculateRandomizedInvocationCount(int actualInvocationCount, int invocationCountPerIteration) {
@@ -400,6 +864,23 @@ public class StandardWarmupStrategy implements WarmupStrategy {
                 (random.nextInt(invocationCountPerIteration / 2));
     }
 
+    /**
+     * Gets the id of the warmup run which is passed to the invocations
+     * by <code>${runId}</code> placeholder in the invocation data.
+     * By default, request id of the warmup handler invocation is used if there is,
+     * so invocations can be correlated with the logs of the warmup handler.
+     *
+     * @param context the context of the warmup handler invocation
+     * @return the id of the warmup run
+     */
+    protected String getRunId(Context context) {
+        String requestId = context != null ? context.getAwsRequestId() : null;
+        if (StringUtils.hasValue(requestId)) {
+            return requestId;
+        }
+        return UUID.randomUUID().toString();
+    }
+
     protected int getDefaultInvocationCount() {
         return invocationCount;
     }
@@ -421,20 +902,117 @@ public class StandardWarmupStrategy implements WarmupStrategy {
         InvokeRequest invokeRequest =
             new InvokeRequest().
                     withFunctionName(invocationContext.functionToBeWarmup).
-                    withPayload(ByteBuffer.wrap(createInvokeRequestPayload(invocationContext, invocationNo)));
+                    withPayload(getInvokeRequestPayload(invocationContext, invocationNo));
         if (invocationContext.alias != null) {
             invokeRequest.withQualifier(invocationContext.alias);
         }
         return invokeRequest;
     }
 
+    /**
+     * Gets the payload of the given invocation.
+     * Payloads are created by {@link #createInvokeRequestPayload(InvocationContext, int)}
+     * only once in a run for every distinct key returned from
+     * {@link #getInvokeRequestPayloadKey(InvocationContext, int)} and shared between invocations
+     * as duplicates of a read-only buffer, so every invocation has its own position and limit.
+     * Created payloads are kept in the payload cache of the run given by the invocation context,
+     * so they are not shared between runs and released when the run completes.
+     * If the context has no payload cache, payloads are created on every invocation.
+     *
+     * @param invocationContext the context of the invocation
+     * @param invocationNo      the number of the invocation
+     * @return the payload of the invocation
+     */
+    protected ByteBuffer getInvokeRequestPayload(InvocationContext invocationContext, int invocationNo) {
+        Map<Object, ByteBuffer> invokeRequestPayloads = invocationContext.invokeRequestPayloads;
+        if (invokeRequestPayloads == null) {
+            return ByteBuffer.wrap(createInvokeRequestPayload(invocationContext, invocationNo));
+        }
+        Object payloadKey = getInvokeRequestPayloadKey(invocationContext, invocationNo);
+        if (payloadKey == null) {
+            return ByteBuffer.wrap(createInvokeRequestPayload(invocationContext, invocationNo));
+        }
+        ByteBuffer payload = invokeRequestPayloads.get(payloadKey);
+        if (payload == null) {
+            payload = ByteBuffer.wrap(createInvokeRequestPayload(invocationContext, invocationNo)).asReadOnlyBuffer();
+            invokeRequestPayloads.put(payloadKey, payload);
+        }
+        return payload.duplicate();
+    }
+
+    /**
+     * Gets the key of the payload of the given invocation.
+     * Invocations with equal keys share the same payload in a run.
+     * Subclasses which create payloads specific to some invocations
+     * must return distinct keys for them or <code>null</code> to create their payloads on every invocation.
+     *
+     * @param invocationContext the context of the invocation
+     * @param invocationNo      the number of the invocation
+     * @return the key of the payload, <code>null</code> if the payload should not be shared
+     */
+    protected Object getInvokeRequestPayloadKey(InvocationContext invocationContext, int invocationNo) {
+        InvocationDataTemplate template = getInvocationDataTemplate(invocationContext);
+        if (template.isConstant()) {
+            return template.getInvocationData();
+        }
+        if (template.uses(InvocationDataTemplate.Variable.INVOCATION_NO)) {
+            // Every invocation has its own payload, so there is nothing to share
+            return null;
+        }
+        // Run id is the same for all the payloads in a run, so the other variables distinguish them
+        return Arrays.<Object>asList(
+                template.getInvocationData(),
+                template.uses(InvocationDataTemplate.Variable.ITERATION_NO)
+                        ? invocationContext.iterationNo : 0,
+                template.uses(InvocationDataTemplate.Variable.TARGET_COUNT)
+                        ? invocationContext.actualInvocationCount : 0,
+                template.uses(InvocationDataTemplate.Variable.WAIT)
+                        ? getWarmupWaitTime(invocationContext, invocationNo) : 0);
+    }
+
     protected byte[] createInvokeRequestPayload(InvocationContext invocationContext, int invocationNo) {
+        InvocationDataTemplate template = getInvocationDataTemplate(invocationContext);
+        return template.expand(
+                invocationContext.runId,
+                invocationContext.iterationNo,
+                invocationNo,
+                invocationContext.actualInvocationCount,
+                template.uses(InvocationDataTemplate.Variable.WAIT)
+                        ? getWarmupWaitTime(invocationContext, invocationNo) : 0);
+    }
+
+    /**
+     * Gets the compiled template of the invocation data of the given invocation.
+     * Templates are compiled only once for every distinct invocation data.
+     *
+     * @param invocationContext the context of the invocation
+     * @return the compiled template of the invocation data
+     */
+    protected InvocationDataTemplate getInvocationDataTemplate(InvocationContext invocationContext) {
         String invocationData = invocationContext.functionInfo.getInvocationData();
         if (StringUtils.isNullOrEmpty(invocationData)) {
-            return new byte[0];
-        } else {
-            return invocationData.getBytes();
+            return InvocationDataTemplate.compile(null);
+        }
+        InvocationDataTemplate template = invocationDataTemplates.get(invocationData);
+        if (template == null) {
+            template = InvocationDataTemplate.compile(invocationData);
+            invocationDataTemplates.put(invocationData, template);
         }
+        return template;
+    }
+
+    /**
+     * Gets the additional wait time (in milliseconds) to the default one (<code>100</code> milliseconds)
+     * suggested for the given invocation to keep its function instance busy
+     * while the other warmup invocations are dispatched.
+     *
+     * @param invocationContext the context of the invocation
+     * @param invocationNo      the number of the invocation
+     * @return the additional wait time in milliseconds
+     */
+    protected int getWarmupWaitTime(InvocationContext invocationContext, int invocationNo) {
+        // For every 10 concurrent invocations, 100 milliseconds more
+        return 100 * (invocationContext.actualInvocationCount / 10);
     }
 
     protected void handleInvokeResultInfos(Map<String, List<InvokeResultInfo>> invokeResultInfosMap) {
@@ -463,6 +1041,11 @@ public class StandardWarmupStrategy implements WarmupStrategy {
         protected final String functionToBeWarmup;
         protected final String alias;
         protected final int actualInvocationCount;
+        // Set by the strategy after the context is created
+        protected String runId;
+        protected int iterationNo;
+        // Payloads created in the run, shared by the contexts of the run
+        protected Map<Object, ByteBuffer> invokeRequestPayloads;
 
         public InvocationContext(WarmupFunctionInfo functionInfo, String functionToBeWarmup,
                                  String alias, int actualInvocationCount) {
@@ -488,6 +1071,14 @@ public class StandardWarmupStrategy implements WarmupStrategy {
             return actualInvocationCount;
         }
 
+        public String getRunId() {
+            return runId;
+        }
+
+        public int getIterationNo() {
+            return iterationNo;
+        }
+
     }
 
     protected static class InvokeResultInfo {
@@ -495,15 +1086,17 @@ public class StandardWarmupStrategy implements WarmupStrategy {
         protected final int iterationNo;
         protected final int invocationNo;
         protected final String functionName;
-        protected final Future<InvokeResult> invokeResultFuture;
+        protected final AtomicBoolean completed = new AtomicBoolean(false);
+        protected long deadline;
+        protected volatile Future<InvokeResult> invokeResultFuture;
         protected volatile InvokeResult invokeResult;
+        protected AdaptiveConcurrencyLimiter concurrencyLimiter;
+        protected long dispatchTime;
 
-        protected InvokeResultInfo(int iterationNo, int invocationNo,
-                                   String functionName, Future<InvokeResult> invokeResultFuture) {
+        protected InvokeResultInfo(int iterationNo, int invocationNo, String functionName) {
             this.iterationNo = iterationNo;
             this.invocationNo = invocationNo;
             this.functionName = functionName;
-            this.invokeResultFuture = invokeResultFuture;
         }
 
     }
@@ -525,53 +1118,197 @@ public class StandardWarmupStrategy implements WarmupStrategy {
 
     }
 
-    protected class InvocationResultConsumer implements Runnable {
+    /**
+     * Tracks dispatched invocations until they are completed or timed out.
+     * Invocations are tracked by the dispatching thread in dispatch order,
+     * so their deadlines are in non-decreasing order and
+     * timed out invocations can be detected without scanning all of them.
+     * Completions can be reported from any thread.
+     */
+    protected static class InvocationTracker {
+
+        private final List<InvokeResultInfo> invokeResultInfos = new ArrayList<InvokeResultInfo>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition completedCondition = lock.newCondition();
+        private int pendingCount;
+        private int expirationCursor;
+
+        protected void track(InvokeResultInfo invokeResultInfo, long deadline) {
+            invokeResultInfo.deadline = deadline;
+            invokeResultInfos.add(invokeResultInfo);
+            lock.lock();
+            try {
+                pendingCount++;
+            } finally {
+                lock.unlock();
+            }
+        }
 
-        protected final AtomicLong invocationResultCounter;
-        protected final LinkedBlockingQueue<InvokeResultInfo> invocationResultFutures;
-        protected final List<InvokeResultError> errors;
-        protected final AtomicBoolean stopFlag;
-
-        protected InvocationResultConsumer(AtomicLong invocationResultCounter,
-                                           LinkedBlockingQueue<InvokeResultInfo> invocationResultFutures,
-                                           List<InvokeResultError> errors,
-                                           AtomicBoolean stopFlag) {
-            this.invocationResultCounter = invocationResultCounter;
-            this.invocationResultFutures = invocationResultFutures;
-            this.errors = errors;
-            this.stopFlag = stopFlag;
+        protected int getTrackedCount() {
+            return invokeResultInfos.size();
         }
 
-        @Override
-        public void run() {
-            while (!stopFlag.get()) {
-                InvokeResultInfo invokeResultInfo = null;
-                try {
-                    invokeResultInfo = invocationResultFutures.take();
-                    invokeResultInfo.invokeResult = invokeResultInfo.invokeResultFuture.get();
-                    if (logger.isDebugEnabled()) {
-                        logger.debug(String.format(
-                                "Invocation result has been successfully retrieved at iteration %d and invocation %d for function %s",
-                                invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName));
+        protected int getPendingCount() {
+            lock.lock();
+            try {
+                return pendingCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Marks the given invocation as completed.
+         *
+         * @param invokeResultInfo the invocation to be marked as completed
+         * @return <code>true</code> if the invocation has been marked as completed by this call,
+         *         <code>false</code> if it has already been completed or timed out
+         */
+        protected boolean tryComplete(InvokeResultInfo invokeResultInfo) {
+            return invokeResultInfo.completed.compareAndSet(false, true);
+        }
+
+        protected void release() {
+            lock.lock();
+            try {
+                if (--pendingCount == 0) {
+                    completedCondition.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<InvokeResultInfo> expire(long currentTime, boolean all) {
+            List<InvokeResultInfo> expiredInvokeResultInfos = null;
+            while (expirationCursor < invokeResultInfos.size()) {
+                InvokeResultInfo invokeResultInfo = invokeResultInfos.get(expirationCursor);
+                if (!invokeResultInfo.completed.get()) {
+                    if (!all && invokeResultInfo.deadline > currentTime) {
+                        break;
                     }
-                } catch (Throwable t) {
-                    if (t instanceof InterruptedException) {
+                    if (tryComplete(invokeResultInfo)) {
+                        if (expiredInvokeResultInfos == null) {
+                            expiredInvokeResultInfos = new ArrayList<InvokeResultInfo>();
+                        }
+                        expiredInvokeResultInfos.add(invokeResultInfo);
+                        release();
+                    }
+                }
+                expirationCursor++;
+            }
+            return expiredInvokeResultInfos != null
+                    ? expiredInvokeResultInfos
+                    : Collections.<InvokeResultInfo>emptyList();
+        }
+
+        /**
+         * Expires all the invocations which are still not completed.
+         *
+         * @return the expired invocations
+         */
+        protected List<InvokeResultInfo> expireAll() {
+            return expire(0, true);
+        }
+
+        /**
+         * Waits until all the tracked invocations are completed or timed out.
+         * Returns as soon as the last invocation is completed.
+         *
+         * @param timedOutInvokeResultInfos the list to add timed out invocations to
+         * @throws InterruptedException if the waiting thread is interrupted
+         */
+        protected void awaitCompletion(List<InvokeResultInfo> timedOutInvokeResultInfos)
+                throws InterruptedException {
+            while (true) {
+                long currentTime = System.currentTimeMillis();
+                timedOutInvokeResultInfos.addAll(expire(currentTime, false));
+                lock.lock();
+                try {
+                    if (pendingCount == 0) {
                         return;
                     }
-                    if (invokeResultInfo != null) {
-                        logger.error(String.format(
-                                "Retrieving invocation result has failed at iteration %d and invocation %d for function %s!",
-                                invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName),
-                                t);
-                        errors.add(new InvokeResultError(
-                                invokeResultInfo.iterationNo, invokeResultInfo.invocationNo,
-                                invokeResultInfo.functionName, t));
+                    if (expirationCursor < invokeResultInfos.size()) {
+                        long nextDeadline = invokeResultInfos.get(expirationCursor).deadline;
+                        long waitMillis = nextDeadline - currentTime;
+                        if (waitMillis > 0) {
+                            completedCondition.await(waitMillis, TimeUnit.MILLISECONDS);
+                        }
                     } else {
-                        logger.error("Error occurred while retrieving invocation result!", t);
+                        // All the invocations are marked as completed,
+                        // just wait for the completion callbacks in progress
+                        completedCondition.await();
                     }
                 } finally {
-                    invocationResultCounter.decrementAndGet();
+                    lock.unlock();
+                }
+            }
+        }
+
+    }
+
+    protected class InvocationResultHandler implements AsyncHandler<InvokeRequest, InvokeResult> {
+
+        protected final InvokeResultInfo invokeResultInfo;
+        protected final InvocationTracker invocationTracker;
+        protected final List<InvokeResultError> errors;
+
+        protected InvocationResultHandler(InvokeResultInfo invokeResultInfo,
+                                          InvocationTracker invocationTracker,
+                                          List<InvokeResultError> errors) {
+            this.invokeResultInfo = invokeResultInfo;
+            this.invocationTracker = invocationTracker;
+            this.errors = errors;
+        }
+
+        @Override
+        public void onSuccess(InvokeRequest request, InvokeResult invokeResult) {
+            if (!invocationTracker.tryComplete(invokeResultInfo)) {
+                // Already timed out
+                return;
+            }
+            try {
+                invokeResultInfo.invokeResult = invokeResult;
+                releaseConcurrency(invokeResultInfo, null);
+                long latency = System.nanoTime() - invokeResultInfo.dispatchTime;
+                recordInvocationLatency(latency);
+                if (StringUtils.hasValue(invokeResult.getFunctionError())) {
+                    warmupMetrics.recordFunctionError(invokeResultInfo.functionName, latency);
+                } else {
+                    warmupMetrics.recordSuccess(invokeResultInfo.functionName, latency);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format(
+                            "Invocation result has been successfully retrieved at iteration %d and invocation %d for function %s",
+                            invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName));
+                }
+            } finally {
+                invocationTracker.release();
+            }
+        }
+
+        @Override
+        public void onError(Exception error) {
+            if (!invocationTracker.tryComplete(invokeResultInfo)) {
+                // Already timed out
+                return;
+            }
+            try {
+                releaseConcurrency(invokeResultInfo, error);
+                if (error instanceof TooManyRequestsException) {
+                    warmupMetrics.recordThrottle(invokeResultInfo.functionName);
+                } else {
+                    warmupMetrics.recordFailure(invokeResultInfo.functionName);
                 }
+                logger.error(String.format(
+                        "Retrieving invocation result has failed at iteration %d and invocation %d for function %s!",
+                        invokeResultInfo.iterationNo, invokeResultInfo.invocationNo, invokeResultInfo.functionName),
+                        error);
+                errors.add(new InvokeResultError(
+                        invokeResultInfo.iterationNo, invokeResultInfo.invocationNo,
+                        invokeResultInfo.functionName, error));
+            } finally {
+                invocationTracker.release();
             }
         }
 
@@ -15,12 +15,9 @@ import java.util.List;
  */
 public class StandardWarmupStrategyProvider implements WarmupStrategyProvider {
 
-    private static final List<WarmupStrategy> WARMUP_STRATEGIES =
-            InstanceDiscovery.instancesOf(WarmupStrategy.class);
-
     @Override
     public WarmupStrategy getWarmupStrategy(String warmupStrategyName) {
-        for (WarmupStrategy ws : WARMUP_STRATEGIES) {
+        for (WarmupStrategy ws : WarmupStrategiesHolder.WARMUP_STRATEGIES) {
             if (ws.getName().equals(warmupStrategyName)) {
                 return ws;
             }
@@ -28,4 +25,12 @@ public class StandardWarmupStrategyProvider implements WarmupStrategyProvider {
         return null;
     }
 
+    // Warmup strategies are discovered on the first request instead of on loading of this class
+    private static class WarmupStrategiesHolder {
+
+        private static final List<WarmupStrategy> WARMUP_STRATEGIES =
+                InstanceDiscovery.instancesOf(WarmupStrategy.class);
+
+    }
+
 }
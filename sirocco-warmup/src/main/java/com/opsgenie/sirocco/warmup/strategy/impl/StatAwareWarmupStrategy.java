@@ -2,20 +2,23 @@ package com.opsgenie.sirocco.warmup.strategy.impl;
 
 import com.amazonaws.services.lambda.model.InvokeResult;
 import com.amazonaws.util.StringUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.opsgenie.core.util.ExceptionUtil;
 import com.opsgenie.sirocco.api.control.ControlRequestBuilder;
 import com.opsgenie.sirocco.api.control.ControlRequestConstants;
+import com.opsgenie.sirocco.api.control.ControlRequestTemplate;
+import com.opsgenie.sirocco.api.control.StatResponse;
 import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
 import com.opsgenie.sirocco.warmup.WarmupHandler;
+import com.opsgenie.sirocco.warmup.WarmupMetrics;
 import com.opsgenie.sirocco.warmup.WarmupPropertyProvider;
+import com.opsgenie.sirocco.warmup.WarmupStateStore;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
-import java.text.ParseException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -54,6 +57,14 @@ import java.util.concurrent.ThreadPoolExecutor;
  * "latestRequestTime": "2017-07-30 17:26:27.778"
  * }
  * }</pre>
+ * <p>
+ *      Warmup requests also request the compact {@link StatResponse stat response} format
+ *      by <code>-responseFormat=&lt;version&gt;</code> property
+ *      (see {@link ControlRequestConstants#RESPONSE_FORMAT_PROPERTY}), so target Lambda functions
+ *      which support it (ex. the ones wrapped by <code>com.opsgenie.sirocco.api.warmup</code> handlers)
+ *      can respond in <code>1|&lt;latest_request_time_in_epoch_millis&gt;|&lt;instance_id&gt;</code> format
+ *      which is cheaper to produce and to parse. Responses in the <b>JSON</b> format above are still accepted.
+ * </p>
  *
  * @author serkan
  */
@@ -98,22 +109,48 @@ public class StatAwareWarmupStrategy extends StandardWarmupStrategy {
     public static final String DISABLE_WARMUP_SCALE_PROP_NAME =
             "sirocco.warmup.disableWarmupScale";
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, Map<String, Date>> functionLatestRequestTimeMap =
-            new HashMap<String, Map<String, Date>>();
-    private final long functionInstanceIdleTime;
-    private final float warmupScaleFactor;
-    private final boolean disableWarmupScale;
+    private static final String LATEST_REQUEST_TIMES_STATE_NAMESPACE = ".latestRequestTimes.";
+    private static final ControlRequestTemplate WARMUP_REQUEST_TEMPLATE =
+            new ControlRequestBuilder().
+                        controlRequestType("warmup").
+                        controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, 0).
+                        controlRequestProperty(ControlRequestConstants.RESPONSE_FORMAT_PROPERTY,
+                                               StatResponse.LATEST_FORMAT_VERSION).
+                    buildTemplate();
+
+    private final Set<String> functionsWithLoadedState =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    protected final InstanceStateStore instanceStateStore;
+    protected final long functionInstanceIdleTime;
+    protected float warmupScaleFactor;
+    protected boolean disableWarmupScale;
 
     public StatAwareWarmupStrategy() {
-        this(WarmupHandler.DEFAULT_WARMUP_PROPERTY_PROVIDER);
+        this(WarmupHandler.getDefaultWarmupPropertyProvider());
     }
 
     public StatAwareWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider) {
+        this(warmupPropertyProvider, WarmupHandler.createWarmupStateStore(warmupPropertyProvider));
+    }
+
+    public StatAwareWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                   WarmupStateStore warmupStateStore) {
+        this(warmupPropertyProvider, warmupStateStore, WarmupHandler.createWarmupMetrics(warmupPropertyProvider));
+    }
+
+    public StatAwareWarmupStrategy(WarmupPropertyProvider warmupPropertyProvider,
+                                   WarmupStateStore warmupStateStore,
+                                   WarmupMetrics warmupMetrics) {
+        super(warmupPropertyProvider, warmupStateStore, warmupMetrics);
         this.functionInstanceIdleTime =
                 warmupPropertyProvider.getLong(
                         FUNCTION_INSTANCE_IDLE_TIME_PROP_NAME,
                         DEFAULT_FUNCTION_INSTANCE_IDLE_TIME);
+        this.instanceStateStore = new InstanceStateStore(functionInstanceIdleTime);
+        configure(warmupPropertyProvider);
+    }
+
+    private void configure(WarmupPropertyProvider warmupPropertyProvider) {
         this.warmupScaleFactor =
                 warmupPropertyProvider.getFloat(
                         WARMUP_SCALE_FACTOR_PROP_NAME,
@@ -122,6 +159,13 @@ public class StatAwareWarmupStrategy extends StandardWarmupStrategy {
                 warmupPropertyProvider.getBoolean(DISABLE_WARMUP_SCALE_PROP_NAME);
     }
 
+    @Override
+    protected void reconfigure(WarmupPropertyProvider warmupPropertyProvider) {
+        super.reconfigure(warmupPropertyProvider);
+        // Idle time is not reconfigured as the learned instance stats are bound to it
+        configure(warmupPropertyProvider);
+    }
+
     @Override
     public String getName() {
         return NAME;
@@ -134,22 +178,25 @@ public class StatAwareWarmupStrategy extends StandardWarmupStrategy {
     }
 
     @Override
-    protected byte[] createInvokeRequestPayload(InvocationContext invocationContext, int invocationNo) {
-        int delay = 100 * (invocationContext.actualInvocationCount / 10); // Additional wait time to default one (100 ms)
+    protected int getWarmupWaitTime(InvocationContext invocationContext, int invocationNo) {
+        int delay = super.getWarmupWaitTime(invocationContext, invocationNo);
         StatAwareInvocationContext statAwareInvocationContext = (StatAwareInvocationContext) invocationContext;
         if (statAwareInvocationContext.longWarmupInvocationNo == invocationNo) {
             delay = delay * 10;
         }
-        String controlRequest =
-                new ControlRequestBuilder().
-                            controlRequestType("warmup").
-                            controlRequestArgument(ControlRequestConstants.WAIT_ARGUMENT, delay).
-                        build();
-        return controlRequest.getBytes();
+        return delay;
+    }
+
+    @Override
+    protected Object getInvokeRequestPayloadKey(InvocationContext invocationContext, int invocationNo) {
+        // Payload only depends on the wait time,
+        // so the long warmup invocations with the same wait time share their payload as well
+        return getWarmupWaitTime(invocationContext, invocationNo);
     }
 
-    private boolean isFunctionInstanceExpired(long currentTime, long latestRequestTime) {
-        return currentTime > latestRequestTime + functionInstanceIdleTime;
+    @Override
+    protected byte[] createInvokeRequestPayload(InvocationContext invocationContext, int invocationNo) {
+        return WARMUP_REQUEST_TEMPLATE.buildBytes(getWarmupWaitTime(invocationContext, invocationNo));
     }
 
     @Override
@@ -162,22 +209,10 @@ public class StatAwareWarmupStrategy extends StandardWarmupStrategy {
             logger.info(
                     "Calculated invocation count in standard way for function " + functionName + ": " + invocationCount);
         } else {
-            Map<String, Date> latestRequestTimeMap = functionLatestRequestTimeMap.get(functionName);
-            if (latestRequestTimeMap != null) {
-                long currentTime = System.currentTimeMillis();
-                int activeInstanceCount = 0;
-                Iterator<Date> iter = latestRequestTimeMap.values().iterator();
-                while (iter.hasNext()) {
-                    Long latestRequestTime = iter.next().getTime();
-                    if (isFunctionInstanceExpired(currentTime, latestRequestTime)) {
-                        iter.remove();
-                    } else {
-                        activeInstanceCount++;
-                    }
-                }
+            int activeInstanceCount = getActiveInstanceCount(functionName);
+            if (activeInstanceCount >= 0) {
                 logger.info("Detected active instance count for function " + functionName + ": " + activeInstanceCount);
                 invocationCount = Math.max((int) (activeInstanceCount * warmupScaleFactor), 1);
-
             } else {
                 invocationCount =
                         super.getInvocationCount(functionName, defaultInvocationCount, configuredInvocationCount, functionInfo);
@@ -196,70 +231,90 @@ public class StatAwareWarmupStrategy extends StandardWarmupStrategy {
             List<InvokeResultInfo> invokeResultInfos = entry.getValue();
             for (InvokeResultInfo invokeResultInfo : invokeResultInfos) {
                 InvokeResult invokeResult = invokeResultInfo.invokeResult;
+                if (invokeResult == null) {
+                    // Failed or timed out invocation
+                    continue;
+                }
                 String functionError = invokeResult.getFunctionError();
                 if (StringUtils.hasValue(functionError)) {
-                    JSONObject invokeResultJsonObj =
-                            new JSONObject(new String(invokeResult.getPayload().array()));
-                    String errorMessage;
-                    if (invokeResultJsonObj.has("errorMessage")) {
-                        errorMessage = invokeResultJsonObj.getString("errorMessage");
-                    } else {
-                        errorMessage = functionError;
-                    }
+                    String errorMessage = getFunctionErrorMessage(invokeResult.getPayload(), functionError);
                     logger.error("Warmup invocation for function " + functionName +
                                  " has returned with error: " + errorMessage);
                 } else {
-                    String response = new String(invokeResult.getPayload().array());
-                    if (StringUtils.isNullOrEmpty(response)) {
-                        continue;
-                    }
-                    Map<String, Object> responseValues = null;
+                    // Parsing is stateless, so it is safe while strategies are running in parallel
+                    // (ex. under "StrategyAwareWarmupStrategy")
+                    StatResponse statResponse;
                     try {
-                        responseValues = objectMapper.readValue(response, Map.class);
-                    } catch (IOException e) {
-                        ExceptionUtil.sneakyThrow(e);
+                        statResponse = StatResponse.parse(invokeResult.getPayload());
+                    } catch (IllegalArgumentException e) {
+                        logger.error("Unable to parse stat response of warmup invocation for function " +
+                                     functionName + ": " + e.getMessage());
+                        continue;
                     }
-                    if (responseValues == null) {
+                    if (statResponse == null) {
                         continue;
                     }
-                    String instanceId = (String) responseValues.get("instanceId");
-                    String latestRequestTimeStr = (String) responseValues.get("latestRequestTime");
-                    if (latestRequestTimeStr != null) {
-                        Date latestRequestTime = null;
-                        try {
-                            latestRequestTime = ControlRequestConstants.DATE_FORMAT.parse(latestRequestTimeStr);
-                        } catch (ParseException e) {
-                            ExceptionUtil.sneakyThrow(e);
-                        }
-                        if (latestRequestTime.getTime() > 0) {
-                            Map<String, Date> latestRequestTimeMap = functionLatestRequestTimeMap.get(functionName);
-                            if (latestRequestTimeMap == null) {
-                                latestRequestTimeMap = new HashMap<String, Date>();
-                                functionLatestRequestTimeMap.put(functionName, latestRequestTimeMap);
-                            }
-                            latestRequestTimeMap.put(instanceId, latestRequestTime);
-                        }
+                    long latestRequestTime = statResponse.getLatestRequestTime();
+                    if (latestRequestTime > 0) {
+                        loadStateIfNeeded(functionName);
+                        instanceStateStore.update(functionName, statResponse.getInstanceId(), latestRequestTime);
                     }
                 }
             }
         }
 
-        logger.info("Latest requests times of functions: " + functionLatestRequestTimeMap);
+        int expiredInstanceCount = instanceStateStore.expireAll(System.currentTimeMillis());
 
-        evictExpiredLatestRequestTimes();
+        logger.info("Active instance counts of functions: " + instanceStateStore +
+                    " (expired instance count: " + expiredInstanceCount + ")");
     }
 
-    private void evictExpiredLatestRequestTimes() {
-        long currentTime = System.currentTimeMillis();
-        for (Map.Entry<String, Map<String, Date>> entry : functionLatestRequestTimeMap.entrySet()) {
-            Map<String, Date> latestRequestTimeMap = entry.getValue();
-            Iterator<Date> iter = latestRequestTimeMap.values().iterator();
-            while (iter.hasNext()) {
-                Long latestRequestTime = iter.next().getTime();
-                if (isFunctionInstanceExpired(currentTime, latestRequestTime)) {
-                    iter.remove();
-                }
+    private static String getFunctionErrorMessage(ByteBuffer payload, String functionError) {
+        if (payload == null) {
+            return functionError;
+        }
+        // Payload might be a view over a larger buffer or shared with the other readers,
+        // so decode only its remaining bytes without consuming them
+        String payloadStr = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+        try {
+            JSONObject invokeResultJsonObj = new JSONObject(payloadStr);
+            if (invokeResultJsonObj.has("errorMessage")) {
+                return invokeResultJsonObj.getString("errorMessage");
             }
+        } catch (JSONException e) {
+            // Not an error object, so just use the function error
+        }
+        return functionError;
+    }
+
+    /**
+     * Gets the count of the active (not idle) instances of the given function.
+     *
+     * @param functionName name of the function
+     * @return the count of the active instances of the given function
+     *         if there is stat about the function, <code>-1</code> otherwise
+     */
+    protected int getActiveInstanceCount(String functionName) {
+        loadStateIfNeeded(functionName);
+        instanceStateStore.expire(functionName, System.currentTimeMillis());
+        return instanceStateStore.getActiveInstanceCount(functionName);
+    }
+
+    private void loadStateIfNeeded(String functionName) {
+        // State of functions is loaded lazily as functions to warmup might change between warmups
+        if (functionsWithLoadedState.add(functionName)) {
+            Map<String, Long> state =
+                    warmupStateStore.load(getStateNamespace(LATEST_REQUEST_TIMES_STATE_NAMESPACE + functionName));
+            instanceStateStore.updateAll(functionName, state);
+        }
+    }
+
+    @Override
+    protected void saveState() {
+        super.saveState();
+        for (String functionName : functionsWithLoadedState) {
+            warmupStateStore.save(getStateNamespace(LATEST_REQUEST_TIMES_STATE_NAMESPACE + functionName),
+                                  instanceStateStore.getLatestRequestTimes(functionName));
         }
     }
 
@@ -3,6 +3,8 @@ package com.opsgenie.sirocco.warmup.strategy.impl;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.opsgenie.core.util.ExceptionUtil;
 import com.opsgenie.sirocco.warmup.LambdaService;
+import com.opsgenie.sirocco.warmup.WarmupExecutorRegistry;
+import com.opsgenie.sirocco.warmup.WarmupExecutors;
 import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
 
@@ -13,8 +15,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * {@link WarmupStrategy} implementation which
@@ -29,11 +31,21 @@ public class StrategyAwareWarmupStrategy implements WarmupStrategy {
 
     public static final String NAME = "strategy-aware";
 
+    private static final String THREAD_NAME_PREFIX = "sirocco-warmup-strategy";
+
     private final WarmupStrategy warmupStrategy;
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private volatile WarmupExecutorRegistry warmupExecutorRegistry;
+    private ExecutorService executorService;
+    private String executionMode;
 
     public StrategyAwareWarmupStrategy(WarmupStrategy warmupStrategy) {
+        this(warmupStrategy, null);
+    }
+
+    public StrategyAwareWarmupStrategy(WarmupStrategy warmupStrategy,
+                                       WarmupExecutorRegistry warmupExecutorRegistry) {
         this.warmupStrategy = warmupStrategy;
+        this.warmupExecutorRegistry = warmupExecutorRegistry;
     }
 
     @Override
@@ -45,6 +57,41 @@ public class StrategyAwareWarmupStrategy implements WarmupStrategy {
         return warmupStrategy;
     }
 
+    /**
+     * Sets the {@link WarmupExecutorRegistry} whose execution mode is used by the executor
+     * which runs the delegated warmup strategies.
+     * If it is not set or it is closed, {@link WarmupExecutorRegistry#getDefault() default registry} is used.
+     *
+     * @param warmupExecutorRegistry the {@link WarmupExecutorRegistry} to be used
+     */
+    public void setWarmupExecutorRegistry(WarmupExecutorRegistry warmupExecutorRegistry) {
+        this.warmupExecutorRegistry = warmupExecutorRegistry;
+    }
+
+    private synchronized ExecutorService getExecutorService(int strategyCount) {
+        WarmupExecutorRegistry registry = warmupExecutorRegistry;
+        if (registry == null || registry.isClosed()) {
+            registry = WarmupExecutorRegistry.getDefault();
+        }
+        // Delegated strategies must run concurrently as each one takes the whole warmup duration,
+        // so they have their own pool with a thread for each of them
+        // instead of waiting for the threads of the registry shared with the other work
+        if (executorService == null || !registry.getExecutionMode().equals(executionMode)) {
+            if (executorService != null) {
+                executorService.shutdown();
+            }
+            executionMode = registry.getExecutionMode();
+            executorService = WarmupExecutors.newBoundedExecutor(executionMode, strategyCount, THREAD_NAME_PREFIX);
+        } else if (executorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executorService;
+            if (threadPoolExecutor.getMaximumPoolSize() < strategyCount) {
+                threadPoolExecutor.setMaximumPoolSize(strategyCount);
+                threadPoolExecutor.setCorePoolSize(strategyCount);
+            }
+        }
+        return executorService;
+    }
+
     @Override
     public void warmup(Context context,
                        LambdaService lambdaService,
@@ -81,34 +128,24 @@ public class StrategyAwareWarmupStrategy implements WarmupStrategy {
          * So there is no need to monitor between them
          * but we need to ensure that there is visibility.
          * We don't take any action to guarantee visibility
-         * because it is naturally provided by internals of "ThreadPoolExecutor".
-         * "ThreadPoolExecutor" has "AtomicInteger" typed "ctl" field and
-         * it is read before every task submission and written after every task completion.
+         * because it is naturally provided by waiting for the tasks through their futures.
+         * Completion of a task happens-before return of "Future.get" in this thread
+         * and submission of a task happens-before its execution.
          * Therefore there is happens-before relationship between the tasks
-         * which executes same delegated warmup strategy.
+         * which executes same delegated warmup strategy
+         * regardless of they are executed by pooled platform threads or virtual threads.
          */
 
         List<Future> futures = new ArrayList<Future>();
-
-        if (!functionsToWarmupByDefault.isEmpty()) {
-            Future future =
-                    executorService.submit(new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                warmupStrategy.warmup(context, lambdaService, functionsToWarmupByDefault);
-                            } catch (IOException e) {
-                                ExceptionUtil.sneakyThrow(e);
-                            }
-                        }
-                    });
-            futures.add(future);
-        }
+        ExecutorService executorService = null;
 
         for (Map.Entry<WarmupStrategy, Map<String, WarmupFunctionInfo>> entry :
                 functionsToWarmupByStrategy.entrySet()) {
             WarmupStrategy warmupStrategy = entry.getKey();
             Map<String, WarmupFunctionInfo> functionInfoMap = entry.getValue();
+            if (executorService == null) {
+                executorService = getExecutorService(functionsToWarmupByStrategy.size());
+            }
             Future future =
                     executorService.submit(new Runnable() {
                         @Override
@@ -124,6 +161,16 @@ public class StrategyAwareWarmupStrategy implements WarmupStrategy {
         }
 
         List<Throwable> errors = new ArrayList<Throwable>();
+
+        // Default strategy is run by the caller thread, so no thread is used when there is no other strategy
+        if (!functionsToWarmupByDefault.isEmpty()) {
+            try {
+                warmupStrategy.warmup(context, lambdaService, functionsToWarmupByDefault);
+            } catch (Throwable error) {
+                errors.add(error);
+            }
+        }
+
         for (int i = 0; i < futures.size(); i++) {
             try {
                 Future future = futures.get(i);
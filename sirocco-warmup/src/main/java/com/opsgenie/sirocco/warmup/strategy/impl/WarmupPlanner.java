@@ -0,0 +1,177 @@
+package com.opsgenie.sirocco.warmup.strategy.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ *      Plans warmup invocation dispatches of a warmup run within the time budget of the run.
+ * </p>
+ * <p>
+ *      The time budget is split into
+ * </p>
+ * <ul>
+ *      <li>the <b>dispatch window</b> in which all the dispatches are scheduled,</li>
+ *      <li>the <b>result wait</b> which is the estimated time to wait for results of the latest dispatches,</li>
+ *      <li>the <b>safety reserve</b> which is left to finish the run before it is killed by the Lambda timeout.</li>
+ * </ul>
+ * <p>
+ *      Dispatch window is divided into equal slots,
+ *      one for each dispatch of every function at every round.
+ *      Every dispatch must be fired until the end of its slot (its deadline)
+ *      and dispatches are ordered by their deadlines (earliest deadline first),
+ *      so rounds follow each other and functions of the same round are spread over the round
+ *      instead of being fired back to back.
+ *      When dispatches are not spread, all of them are released at the start of the window
+ *      to be fired as soon as possible, but still in the same order.
+ * </p>
+ *
+ * @author serkan
+ */
+public final class WarmupPlanner {
+
+    private final long safetyReserveMillis;
+    private final long resultWaitMillis;
+
+    /**
+     * @param safetyReserveMillis the time in milliseconds to be reserved at the end of the time budget
+     * @param resultWaitMillis    the estimated time in milliseconds to wait for results of dispatches
+     */
+    public WarmupPlanner(long safetyReserveMillis, long resultWaitMillis) {
+        if (safetyReserveMillis < 0) {
+            throw new IllegalArgumentException("Safety reserve must not be negative: " + safetyReserveMillis);
+        }
+        if (resultWaitMillis < 0) {
+            throw new IllegalArgumentException("Result wait must not be negative: " + resultWaitMillis);
+        }
+        this.safetyReserveMillis = safetyReserveMillis;
+        this.resultWaitMillis = resultWaitMillis;
+    }
+
+    public long getSafetyReserveMillis() {
+        return safetyReserveMillis;
+    }
+
+    public long getResultWaitMillis() {
+        return resultWaitMillis;
+    }
+
+    /**
+     * Gets the length of the dispatch window for the given time budget.
+     *
+     * @param budgetMillis the time budget of the run in milliseconds
+     * @return the length of the dispatch window in milliseconds
+     */
+    public long getDispatchWindowMillis(long budgetMillis) {
+        return Math.max(0, budgetMillis - safetyReserveMillis - resultWaitMillis);
+    }
+
+    /**
+     * Plans the dispatches of the given functions for the given rounds.
+     *
+     * @param budgetMillis     the time budget of the run in milliseconds
+     * @param functionNames    names of the functions to be dispatched at every round
+     * @param fromRound        the first round (inclusive) to be planned
+     * @param toRound          the last round (exclusive) to be planned
+     * @param spreadDispatches <code>true</code> if dispatches should be spread over the dispatch window,
+     *                         <code>false</code> if they should be fired as soon as possible
+     * @return the planned dispatches in earliest deadline first order
+     */
+    public List<Dispatch> plan(long budgetMillis, List<String> functionNames,
+                               int fromRound, int toRound, boolean spreadDispatches) {
+        int functionCount = functionNames.size();
+        int roundCount = toRound - fromRound;
+        if (functionCount == 0 || roundCount <= 0) {
+            return Collections.emptyList();
+        }
+        long dispatchWindowMillis = getDispatchWindowMillis(budgetMillis);
+        long dispatchCount = (long) functionCount * roundCount;
+        List<Dispatch> dispatches = new ArrayList<Dispatch>((int) dispatchCount);
+        long slot = 0;
+        for (int round = fromRound; round < toRound; round++) {
+            for (int i = 0; i < functionCount; i++, slot++) {
+                long releaseMillis = spreadDispatches ? getSlotStart(slot, dispatchCount, dispatchWindowMillis) : 0;
+                long deadlineMillis = getSlotStart(slot + 1, dispatchCount, dispatchWindowMillis);
+                dispatches.add(new Dispatch(functionNames.get(i), round, releaseMillis, deadlineMillis));
+            }
+        }
+        return dispatches;
+    }
+
+    private static long getSlotStart(long slot, long slotCount, long windowMillis) {
+        // Computed from the window directly instead of accumulating slot length
+        // so rounding errors don't accumulate and the last slot ends exactly at the end of the window
+        return (long) ((double) windowMillis * slot / slotCount);
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupPlanner{" +
+                "safetyReserveMillis=" + safetyReserveMillis +
+                ", resultWaitMillis=" + resultWaitMillis +
+                '}';
+    }
+
+    /**
+     * Planned dispatch of a function at a round.
+     * Times are offsets in milliseconds from the start of the run.
+     */
+    public static final class Dispatch {
+
+        private final String functionName;
+        private final int round;
+        private final long releaseMillis;
+        private final long deadlineMillis;
+
+        public Dispatch(String functionName, int round, long releaseMillis, long deadlineMillis) {
+            this.functionName = functionName;
+            this.round = round;
+            this.releaseMillis = releaseMillis;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public String getFunctionName() {
+            return functionName;
+        }
+
+        /**
+         * Gets the round (zero based) of this dispatch.
+         *
+         * @return the round of this dispatch
+         */
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * Gets the earliest time (as offset from the start of the run) to fire this dispatch.
+         *
+         * @return the release time of this dispatch in milliseconds
+         */
+        public long getReleaseMillis() {
+            return releaseMillis;
+        }
+
+        /**
+         * Gets the time (as offset from the start of the run) until which this dispatch should be fired.
+         *
+         * @return the deadline of this dispatch in milliseconds
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Dispatch{" +
+                    "functionName='" + functionName + '\'' +
+                    ", round=" + round +
+                    ", releaseMillis=" + releaseMillis +
+                    ", deadlineMillis=" + deadlineMillis +
+                    '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * HTTP transport of {@link HttpLambdaService}. This is the JDK 11+ version
+ * which is packaged under <code>META-INF/versions/11</code> of the multi-release jar.
+ * Requests are sent through {@link HttpClient} which multiplexes concurrent requests
+ * over a single HTTP/2 connection when HTTP/2 is negotiated with the endpoint,
+ * and falls back to HTTP/1.1 otherwise.
+ * Cancelling the future of a request cancels the exchange of {@link HttpClient}
+ * (which aborts the request on JDK 16+, and it is aborted by its timeout on older JDKs).
+ *
+ * @author serkan
+ */
+final class HttpTransport {
+
+    private final HttpClient httpClient;
+
+    /**
+     * @param executorService      the executor to send requests and to complete their futures
+     * @param connectTimeoutMillis the connect timeout in milliseconds
+     */
+    HttpTransport(ExecutorService executorService, int connectTimeoutMillis) {
+        this.httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                        .executor(executorService)
+                        .build();
+    }
+
+    static boolean isHttp2Supported() {
+        return true;
+    }
+
+    /**
+     * Sends the request asynchronously.
+     *
+     * @param method        the HTTP method of the request
+     * @param uri           the URI of the request
+     * @param headers       the headers of the request (<code>host</code> header is ignored,
+     *                      as it is set from the request URI)
+     * @param body          the body of the request, <code>null</code> if there is no body
+     * @param timeoutMillis the timeout of the response in milliseconds, <code>0</code> for no timeout
+     * @return the future of the response, which is completed exceptionally on I/O errors
+     *         and whose cancellation aborts the request
+     */
+    CompletableFuture<HttpTransportResponse> send(String method, URI uri,
+                                                  Map<String, String> headers, byte[] body,
+                                                  int timeoutMillis) {
+        HttpRequest.Builder requestBuilder =
+                HttpRequest.newBuilder(uri)
+                        .method(method,
+                               body != null
+                                       ? HttpRequest.BodyPublishers.ofByteArray(body)
+                                       : HttpRequest.BodyPublishers.noBody());
+        if (timeoutMillis > 0) {
+            requestBuilder.timeout(Duration.ofMillis(timeoutMillis));
+        }
+        for (Map.Entry<String, String> e : headers.entrySet()) {
+            if (!AwsSigV4Signer.HOST_HEADER.equalsIgnoreCase(e.getKey())) {
+                requestBuilder.header(e.getKey(), e.getValue());
+            }
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchangeFuture =
+                httpClient.sendAsync(requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<HttpTransportResponse> responseFuture =
+                exchangeFuture.thenApply(response ->
+                        new HttpTransportResponse(response.statusCode(), response.headers().map(), response.body()));
+        // Dependent stage doesn't cancel the exchange on its own
+        responseFuture.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) {
+                exchangeFuture.cancel(true);
+            }
+        });
+        return responseFuture;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.opsgenie.sirocco.warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access point to virtual threads. This is the JDK 21+ version
+ * which is packaged under <code>META-INF/versions/21</code> of the multi-release jar.
+ *
+ * @author serkan
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        return Thread.ofVirtual().name(threadNamePrefix + "-", 1).factory();
+    }
+
+    static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        return Executors.newThreadPerTaskExecutor(newThreadFactory(threadNamePrefix));
+    }
+
+}
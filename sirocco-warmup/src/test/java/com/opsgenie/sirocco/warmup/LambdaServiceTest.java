@@ -0,0 +1,148 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.ListAliasesRequest;
+import com.amazonaws.services.lambda.model.ListAliasesResult;
+import com.amazonaws.services.lambda.model.ListFunctionsRequest;
+import com.amazonaws.services.lambda.model.ListFunctionsResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class LambdaServiceTest {
+
+    private static class FutureOnlyLambdaService implements LambdaService {
+
+        private CompletableFuture<InvokeResult> invokeResultFuture = new CompletableFuture<InvokeResult>();
+
+        @Override
+        public InvokeResult invoke(InvokeRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<InvokeResult> invokeAsync(InvokeRequest request) {
+            return invokeResultFuture;
+        }
+
+        private void reset() {
+            invokeResultFuture = new CompletableFuture<InvokeResult>();
+        }
+
+        @Override
+        public ListFunctionsResult listFunctions(ListFunctionsRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ListAliasesResult listAliases(ListAliasesRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    private static class RecordingAsyncHandler implements AsyncHandler<InvokeRequest, InvokeResult> {
+
+        private final CountDownLatch completionLatch = new CountDownLatch(1);
+        private final AtomicReference<InvokeResult> invokeResultRef = new AtomicReference<InvokeResult>();
+        private final AtomicReference<Exception> errorRef = new AtomicReference<Exception>();
+
+        @Override
+        public void onError(Exception exception) {
+            errorRef.set(exception);
+            completionLatch.countDown();
+        }
+
+        @Override
+        public void onSuccess(InvokeRequest request, InvokeResult invokeResult) {
+            invokeResultRef.set(invokeResult);
+            completionLatch.countDown();
+        }
+
+    }
+
+    @Test
+    public void shouldNotifyHandlerOnSuccessByDefault() throws InterruptedException {
+        FutureOnlyLambdaService lambdaService = new FutureOnlyLambdaService();
+        RecordingAsyncHandler asyncHandler = new RecordingAsyncHandler();
+        InvokeResult invokeResult = new InvokeResult();
+
+        Future<InvokeResult> future = lambdaService.invokeAsync(new InvokeRequest(), asyncHandler);
+        assertThat(asyncHandler.completionLatch.getCount(), is(1L));
+        lambdaService.invokeResultFuture.complete(invokeResult);
+
+        assertThat(asyncHandler.completionLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(asyncHandler.invokeResultRef.get() == invokeResult, is(true));
+        assertThat(future == lambdaService.invokeResultFuture, is(true));
+    }
+
+    @Test
+    public void shouldNotifyHandlerOnErrorByDefault() throws InterruptedException {
+        FutureOnlyLambdaService lambdaService = new FutureOnlyLambdaService();
+        RecordingAsyncHandler asyncHandler = new RecordingAsyncHandler();
+        IllegalStateException error = new IllegalStateException("failed");
+
+        lambdaService.invokeAsync(new InvokeRequest(), asyncHandler);
+        lambdaService.invokeResultFuture.completeExceptionally(error);
+
+        assertThat(asyncHandler.completionLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(asyncHandler.errorRef.get() == error, is(true));
+    }
+
+    @Test
+    public void shouldNotifyHandlerOnCancellationByDefault() throws InterruptedException {
+        FutureOnlyLambdaService lambdaService = new FutureOnlyLambdaService();
+        RecordingAsyncHandler asyncHandler = new RecordingAsyncHandler();
+
+        lambdaService.invokeAsync(new InvokeRequest(), asyncHandler).cancel(true);
+
+        assertThat(asyncHandler.completionLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(asyncHandler.errorRef.get() instanceof CancellationException, is(true));
+    }
+
+    @Test
+    public void shouldNotHoldThreadPerPendingInvocationByDefault() throws InterruptedException {
+        FutureOnlyLambdaService lambdaService = new FutureOnlyLambdaService();
+        List<CompletableFuture<InvokeResult>> invokeResultFutures = new ArrayList<CompletableFuture<InvokeResult>>();
+        List<RecordingAsyncHandler> asyncHandlers = new ArrayList<RecordingAsyncHandler>();
+        for (int i = 0; i < 100; i++) {
+            lambdaService.reset();
+            RecordingAsyncHandler asyncHandler = new RecordingAsyncHandler();
+            lambdaService.invokeAsync(new InvokeRequest(), asyncHandler);
+            invokeResultFutures.add(lambdaService.invokeResultFuture);
+            asyncHandlers.add(asyncHandler);
+        }
+
+        int callbackThreadCount = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("sirocco-lambda-service-callback")) {
+                callbackThreadCount++;
+            }
+        }
+        assertThat(callbackThreadCount, is(1));
+
+        for (CompletableFuture<InvokeResult> invokeResultFuture : invokeResultFutures) {
+            invokeResultFuture.complete(new InvokeResult());
+        }
+        for (RecordingAsyncHandler asyncHandler : asyncHandlers) {
+            assertThat(asyncHandler.completionLatch.await(5, TimeUnit.SECONDS), is(true));
+            assertThat(asyncHandler.invokeResultRef.get() != null, is(true));
+        }
+    }
+
+}
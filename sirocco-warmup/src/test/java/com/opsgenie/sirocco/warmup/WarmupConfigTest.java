@@ -0,0 +1,131 @@
+package com.opsgenie.sirocco.warmup;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class WarmupConfigTest {
+
+    @Test
+    public void shouldOverridePropertiesBySourcesAddedLater() {
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("sirocco.warmup.invocationCount", "4");
+        systemProperties.setProperty("sirocco.warmup.warmupStrategy", "stat-aware");
+        Map<String, String> environmentVariables = new HashMap<String, String>();
+        environmentVariables.put("sirocco_warmup_invocationCount", " 8 ");
+
+        WarmupConfig config =
+                WarmupConfig.builder()
+                        .withSystemProperties(systemProperties)
+                        .withEnvironmentVariables(environmentVariables)
+                        .build();
+
+        assertThat(config.getInteger("sirocco.warmup.invocationCount"), is(8));
+        assertThat(config.getString("sirocco.warmup.invocationCount"), is("8"));
+        assertThat(config.getString("sirocco.warmup.warmupStrategy"), is("stat-aware"));
+        assertThat(config.getString("sirocco_warmup_invocationCount"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldParseValuesIntoAllTypes() {
+        WarmupConfig config =
+                WarmupConfig.builder()
+                        .withProperty("int", "42")
+                        .withProperty("long", "5000000000")
+                        .withProperty("decimal", "1.5")
+                        .withProperty("bool", "TRUE")
+                        .withProperty("text", "standard")
+                        .build();
+
+        assertThat(config.getInteger("int"), is(42));
+        assertThat(config.getLong("int"), is(42L));
+        assertThat(config.getFloat("int"), is(42.0F));
+        assertThat(config.getDouble("int"), is(42.0));
+        assertThat(config.getInteger("long"), is(nullValue()));
+        assertThat(config.getLong("long"), is(5000000000L));
+        assertThat(config.getInteger("decimal"), is(nullValue()));
+        assertThat(config.getFloat("decimal"), is(1.5F));
+        assertThat(config.getDouble("decimal"), is(1.5));
+        assertThat(config.getBoolean("bool"), is(true));
+        assertThat(config.getBoolean("text"), is(false));
+        assertThat(config.getInteger("text"), is(nullValue()));
+        assertThat(config.getLong("text"), is(nullValue()));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldFailOnInvalidDecimalValue() {
+        WarmupConfig.builder().withProperty("decimal", "abc").build().getDouble("decimal");
+    }
+
+    @Test
+    public void shouldKeepTypedValues() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("int", 3);
+        properties.put("float", 0.25F);
+        properties.put("bool", Boolean.TRUE);
+        properties.put("null", null);
+
+        WarmupConfig config = WarmupConfig.builder().withProperties(properties).build();
+
+        assertThat(config.getInteger("int"), is(3));
+        assertThat(config.getLong("int"), is(3L));
+        assertThat(config.getFloat("float"), is(0.25F));
+        assertThat(config.getBoolean("bool"), is(true));
+        assertThat(config.getPropertyNames(), is(new HashSet<String>(Arrays.asList("int", "float", "bool"))));
+    }
+
+    @Test
+    public void shouldReturnDefaultValuesOfMissingProperties() {
+        WarmupConfig config = WarmupConfig.empty();
+
+        assertThat(config.getBoolean("bool"), is(false));
+        assertThat(config.getBoolean("bool", true), is(true));
+        assertThat(config.getInteger("int", 5), is(5));
+        assertThat(config.getDouble("double"), is(nullValue()));
+        assertThat(config.getString("text", "default"), is("default"));
+    }
+
+    @Test
+    public void shouldGetPropertyNamesByPrefix() {
+        WarmupConfig config =
+                WarmupConfig.builder()
+                        .withProperty("sirocco.warmup.function1", "f1")
+                        .withProperty("sirocco.warmup.function2", "f2")
+                        .withProperty("sirocco.warmup.functionZ", "f3")
+                        .withProperty("sirocco.warmup.functio", "x")
+                        .withProperty("sirocco.warmup.functiop", "y")
+                        .withProperty("sirocco.warmup.invocationCount", "4")
+                        .build();
+
+        assertThat(config.getPropertyNames("sirocco.warmup.function"),
+                   is(new HashSet<String>(Arrays.asList(
+                           "sirocco.warmup.function1",
+                           "sirocco.warmup.function2",
+                           "sirocco.warmup.functionZ"))));
+        assertThat(config.getPropertyNames("sirocco.warmup.function").size(), is(3));
+        assertThat(config.getPropertyNames("sirocco.warmup.").size(), is(6));
+        assertThat(config.getPropertyNames("sirocco.simulation.").isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotBeAffectedByBuilderAfterBuild() {
+        WarmupConfig.Builder builder = WarmupConfig.builder().withProperty("int", 1);
+        WarmupConfig config = builder.build();
+        builder.withProperty("int", 2).withProperty("other", "x");
+
+        assertThat(config.getInteger("int"), is(1));
+        assertThat(config.getString("other"), is(nullValue()));
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.impl.NoOpWarmupMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class WarmupExecutorRegistryTest {
+
+    private WarmupExecutorRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new WarmupExecutorRegistry(WarmupExecutors.PLATFORM_EXECUTION_MODE, 4, NoOpWarmupMetrics.INSTANCE);
+    }
+
+    @After
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void shouldReturnSameExecutorForSameName() {
+        assertThat(registry.getExecutor("test", 2) == registry.getExecutor("test", 3), is(true));
+        assertThat(registry.getExecutor("test", 2) == registry.getExecutor("other", 2), is(false));
+    }
+
+    @Test
+    public void shouldBoundConcurrencyOfExecutor() throws Exception {
+        ExecutorService executor = registry.getExecutor("test", 2);
+        AtomicInteger concurrency = new AtomicInteger();
+        AtomicInteger maxConcurrency = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int currentConcurrency = concurrency.incrementAndGet();
+                    int currentMaxConcurrency;
+                    while ((currentMaxConcurrency = maxConcurrency.get()) < currentConcurrency) {
+                        maxConcurrency.compareAndSet(currentMaxConcurrency, currentConcurrency);
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    concurrency.decrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(maxConcurrency.get(), is(2));
+        // Futures are completed by the tasks before the workers release them
+        long deadline = System.currentTimeMillis() + 10000;
+        while (registry.getActiveTaskCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(registry.getActiveTaskCount(), is(0));
+        assertThat(registry.getQueuedTaskCount(), is(0));
+    }
+
+    @Test
+    public void shouldShareThreadsBetweenExecutors() throws Exception {
+        CountDownLatch startLatch = new CountDownLatch(4);
+        CountDownLatch finishLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (String name : new String[] {"executor-1", "executor-2", "executor-3"}) {
+            ExecutorService executor = registry.getExecutor(name, Integer.MAX_VALUE);
+            for (int i = 0; i < 2; i++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        startLatch.countDown();
+                        try {
+                            finishLatch.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }));
+            }
+        }
+
+        // Only 4 of 6 tasks are run concurrently as there are 4 threads in the registry
+        assertThat(startLatch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(registry.getActiveTaskCount(), is(4));
+        assertThat(registry.getQueuedTaskCount(), is(2));
+
+        finishLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTasksAfterClose() {
+        ExecutorService executor = registry.getExecutor("test", 2);
+        registry.close();
+
+        assertThat(executor.isShutdown(), is(true));
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test
+    public void shouldShutdownExecutorWithoutAffectingOtherExecutors() throws Exception {
+        ExecutorService executor = registry.getExecutor("test", 1);
+        ExecutorService otherExecutor = registry.getExecutor("other", 1);
+        final CountDownLatch finishLatch = new CountDownLatch(1);
+        Future<?> runningFuture = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    finishLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Future<?> queuedFuture = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        executor.shutdown();
+
+        assertThat(executor.isShutdown(), is(true));
+        assertThat(executor.isTerminated(), is(false));
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            throw new AssertionError("Task should have been rejected");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+        assertThat(otherExecutor.isShutdown(), is(false));
+        assertThat(otherExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(10, TimeUnit.SECONDS) == null, is(true));
+
+        // Already submitted tasks are executed
+        finishLatch.countDown();
+        runningFuture.get(10, TimeUnit.SECONDS);
+        queuedFuture.get(10, TimeUnit.SECONDS);
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(executor.isTerminated(), is(true));
+
+        // A new executor is created for the name after shutdown
+        ExecutorService newExecutor = registry.getExecutor("test", 1);
+        assertThat(newExecutor == executor, is(false));
+        assertThat(newExecutor.isShutdown(), is(false));
+    }
+
+    @Test
+    public void shouldRemoveQueuedTasksAndInterruptRunningTasksOnShutdownNow() throws Exception {
+        ExecutorService executor = registry.getExecutor("test", 1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch interruptLatch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                startLatch.countDown();
+                try {
+                    Thread.sleep(60 * 1000);
+                } catch (InterruptedException e) {
+                    interruptLatch.countDown();
+                }
+            }
+        });
+        Runnable queuedTask = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        executor.execute(queuedTask);
+        assertThat(startLatch.await(10, TimeUnit.SECONDS), is(true));
+
+        List<Runnable> queuedTasks = executor.shutdownNow();
+
+        assertThat(queuedTasks.size(), is(1));
+        assertThat(queuedTasks.get(0) == queuedTask, is(true));
+        assertThat(interruptLatch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(registry.getQueuedTaskCount(), is(0));
+        assertThat(registry.isClosed(), is(false));
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.opsgenie.sirocco.warmup;
+
+import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class WarmupExecutorsTest {
+
+    @Test
+    public void shouldUsePlatformExecutionModeByDefault() {
+        WarmupPropertyProvider warmupPropertyProvider =
+                new MapWarmupPropertyProvider(new HashMap<String, Object>());
+
+        assertThat(WarmupExecutors.getExecutionMode(warmupPropertyProvider),
+                   is(WarmupExecutors.PLATFORM_EXECUTION_MODE));
+    }
+
+    @Test
+    public void shouldUseVirtualExecutionModeOnlyIfSupported() {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WarmupHandler.EXECUTION_MODE_PROP_NAME, "virtual");
+        WarmupPropertyProvider warmupPropertyProvider = new MapWarmupPropertyProvider(warmupPropertyMap);
+
+        assertThat(WarmupExecutors.getExecutionMode(warmupPropertyProvider),
+                   is(WarmupExecutors.isVirtualThreadSupported()
+                           ? WarmupExecutors.VIRTUAL_EXECUTION_MODE
+                           : WarmupExecutors.PLATFORM_EXECUTION_MODE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptUnknownExecutionMode() {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WarmupHandler.EXECUTION_MODE_PROP_NAME, "green");
+
+        WarmupExecutors.getExecutionMode(new MapWarmupPropertyProvider(warmupPropertyMap));
+    }
+
+    @Test
+    public void shouldExecuteTasksOnNamedDaemonThreads() throws Exception {
+        ExecutorService executorService =
+                WarmupExecutors.newUnboundedExecutor(WarmupExecutors.PLATFORM_EXECUTION_MODE, "test-executor");
+        try {
+            Thread thread = executorService.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get();
+
+            assertThat(thread.getName().startsWith("test-executor-"), is(true));
+            assertThat(thread.isDaemon(), is(true));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldExecuteTasksInVirtualExecutionModeEvenIfNotSupported() throws Exception {
+        ExecutorService executorService =
+                WarmupExecutors.newBoundedExecutor(WarmupExecutors.VIRTUAL_EXECUTION_MODE, 2, "test-executor");
+        try {
+            Thread thread = executorService.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get(10, TimeUnit.SECONDS);
+
+            assertThat(thread.getName().startsWith("test-executor-"), is(true));
+            assertThat(thread.isDaemon(), is(true));
+        } finally {
+            executorService.shutdown();
+        }
+
+        Thread thread =
+                WarmupExecutors.newThreadFactory(WarmupExecutors.VIRTUAL_EXECUTION_MODE, "test-thread")
+                        .newThread(new Runnable() {
+                            @Override
+                            public void run() {
+                            }
+                        });
+        assertThat(thread.getName().startsWith("test-thread-"), is(true));
+    }
+
+    @Test
+    public void shouldNotExecuteMoreTasksThanThreadCountConcurrently() throws Exception {
+        ExecutorService executorService =
+                WarmupExecutors.newBoundedExecutor(WarmupExecutors.PLATFORM_EXECUTION_MODE, 2, "test-executor");
+        try {
+            final CountDownLatch releaseLatch = new CountDownLatch(1);
+            final AtomicInteger runningTaskCount = new AtomicInteger();
+            final AtomicInteger maxRunningTaskCount = new AtomicInteger();
+            Future<?>[] futures = new Future<?>[10];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InterruptedException {
+                        int running = runningTaskCount.incrementAndGet();
+                        while (true) {
+                            int max = maxRunningTaskCount.get();
+                            if (running <= max || maxRunningTaskCount.compareAndSet(max, running)) {
+                                break;
+                            }
+                        }
+                        // Blocks like a request sent through "HttpURLConnection"
+                        releaseLatch.await();
+                        runningTaskCount.decrementAndGet();
+                        return null;
+                    }
+                });
+            }
+            Thread.sleep(100);
+            assertThat(runningTaskCount.get(), is(2));
+
+            releaseLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(maxRunningTaskCount.get(), is(2));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+}
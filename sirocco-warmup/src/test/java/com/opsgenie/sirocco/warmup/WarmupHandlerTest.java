@@ -1,10 +1,15 @@
 package com.opsgenie.sirocco.warmup;
 
+import com.amazonaws.services.lambda.model.AliasConfiguration;
 import com.amazonaws.services.lambda.model.EnvironmentResponse;
 import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.amazonaws.services.lambda.model.ListAliasesRequest;
+import com.amazonaws.services.lambda.model.ListAliasesResult;
 import com.amazonaws.services.lambda.model.ListFunctionsRequest;
 import com.amazonaws.services.lambda.model.ListFunctionsResult;
+import com.amazonaws.services.lambda.model.TooManyRequestsException;
 import com.amazonaws.services.lambda.runtime.Context;
+import com.opsgenie.sirocco.warmup.impl.FileWarmupPropertyProvider;
 import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategy;
 import com.opsgenie.sirocco.warmup.strategy.WarmupStrategyProvider;
@@ -12,6 +17,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -101,4 +110,246 @@ public class WarmupHandlerTest {
         verify(warmupStrategy3, times(1)).warmup(context, lambdaService, functionsToWarmup3);
     }
 
+    @Test
+    public void shouldDiscoverAliasesFromAllPagesAndRetryOnThrottling() throws IOException {
+        WarmupStrategyProvider warmupStrategyProvider = mock(WarmupStrategyProvider.class);
+        WarmupStrategy warmupStrategy = mock(WarmupStrategy.class);
+        when(warmupStrategy.getName()).thenReturn("warmupStrategy");
+        when(warmupStrategyProvider.getWarmupStrategy("warmupStrategy")).thenReturn(warmupStrategy);
+
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WARMUP_STRATEGY_PROP_NAME, "warmupStrategy");
+        WarmupPropertyProvider warmupPropertyProvider = new MapWarmupPropertyProvider(warmupPropertyMap);
+
+        ListFunctionsResult listFunctionsResult =
+                new ListFunctionsResult().
+                    withFunctions(
+                        new FunctionConfiguration().
+                            withFunctionName("testFunction").
+                            withEnvironment(
+                                new EnvironmentResponse().
+                                    withVariables(
+                                        new HashMap<String, String>() {{
+                                            put(WARMUP_AWARE_ENV_VAR_NAME, "true");
+                                        }}
+                                    )
+                            )
+                    );
+        ListAliasesResult listAliasesResult1 =
+                new ListAliasesResult().
+                    withAliases(
+                        new AliasConfiguration().withName("alias1").withFunctionVersion("1"),
+                        new AliasConfiguration().withName("alias3").withFunctionVersion("3")).
+                    withNextMarker("marker");
+        ListAliasesResult listAliasesResult2 =
+                new ListAliasesResult().
+                    withAliases(
+                        new AliasConfiguration().withName("alias5").withFunctionVersion("5"),
+                        new AliasConfiguration().withName("alias2").withFunctionVersion("2"));
+        when(lambdaService.listFunctions(any(ListFunctionsRequest.class))).
+                thenReturn(listFunctionsResult);
+        when(lambdaService.listAliases(any(ListAliasesRequest.class))).
+                thenThrow(new TooManyRequestsException("Rate exceeded")).
+                thenReturn(listAliasesResult1).
+                thenReturn(listAliasesResult2);
+
+        WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        lambdaService,
+                        warmupPropertyProvider,
+                        warmupStrategyProvider,
+                        WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+
+        warmupHandler.handleRequest(new Object(), context);
+
+        verify(lambdaService, times(3)).listAliases(any(ListAliasesRequest.class));
+
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo().setAlias("alias5"));
+        verify(warmupStrategy, times(1)).warmup(context, lambdaService, functionsToWarmup);
+    }
+
+    @Test
+    public void shouldUseCachedDiscoveredFunctionsBetweenWarmups() throws IOException {
+        WarmupStrategyProvider warmupStrategyProvider = mock(WarmupStrategyProvider.class);
+        WarmupStrategy warmupStrategy = mock(WarmupStrategy.class);
+        when(warmupStrategy.getName()).thenReturn("warmupStrategy");
+        when(warmupStrategyProvider.getWarmupStrategy("warmupStrategy")).thenReturn(warmupStrategy);
+
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WARMUP_STRATEGY_PROP_NAME, "warmupStrategy");
+        WarmupPropertyProvider warmupPropertyProvider = new MapWarmupPropertyProvider(warmupPropertyMap);
+
+        when(lambdaService.listFunctions(any(ListFunctionsRequest.class))).
+                thenReturn(createListFunctionsResult("2017-01-01T00:00:00.000+0000"));
+        when(lambdaService.listAliases(any(ListAliasesRequest.class))).
+                thenReturn(createListAliasesResult());
+
+        WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        lambdaService,
+                        warmupPropertyProvider,
+                        warmupStrategyProvider,
+                        WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+
+        warmupHandler.handleRequest(new Object(), context);
+        warmupHandler.handleRequest(new Object(), context);
+
+        verify(lambdaService, times(1)).listFunctions(any(ListFunctionsRequest.class));
+        verify(lambdaService, times(1)).listAliases(any(ListAliasesRequest.class));
+
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo().setAlias("alias1"));
+        verify(warmupStrategy, times(2)).warmup(context, lambdaService, functionsToWarmup);
+    }
+
+    @Test
+    public void shouldRediscoverAliasesOnlyForChangedFunctions() throws IOException {
+        WarmupStrategyProvider warmupStrategyProvider = mock(WarmupStrategyProvider.class);
+        WarmupStrategy warmupStrategy = mock(WarmupStrategy.class);
+        when(warmupStrategy.getName()).thenReturn("warmupStrategy");
+        when(warmupStrategyProvider.getWarmupStrategy("warmupStrategy")).thenReturn(warmupStrategy);
+
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WARMUP_STRATEGY_PROP_NAME, "warmupStrategy");
+        warmupPropertyMap.put(DISCOVERY_CACHE_TTL_MILLIS_PROP_NAME, 0L);
+        warmupPropertyMap.put(DISCOVERY_CACHE_MAX_STALE_MILLIS_PROP_NAME, 0L);
+        WarmupPropertyProvider warmupPropertyProvider = new MapWarmupPropertyProvider(warmupPropertyMap);
+
+        when(lambdaService.listFunctions(any(ListFunctionsRequest.class))).
+                thenReturn(createListFunctionsResult("2017-01-01T00:00:00.000+0000")).
+                thenReturn(createListFunctionsResult("2017-01-01T00:00:00.000+0000")).
+                thenReturn(createListFunctionsResult("2017-01-02T00:00:00.000+0000"));
+        when(lambdaService.listAliases(any(ListAliasesRequest.class))).
+                thenReturn(createListAliasesResult());
+
+        WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        lambdaService,
+                        warmupPropertyProvider,
+                        warmupStrategyProvider,
+                        WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+
+        warmupHandler.handleRequest(new Object(), context);
+        warmupHandler.handleRequest(new Object(), context);
+        verify(lambdaService, times(2)).listFunctions(any(ListFunctionsRequest.class));
+        verify(lambdaService, times(1)).listAliases(any(ListAliasesRequest.class));
+
+        warmupHandler.handleRequest(new Object(), context);
+        verify(lambdaService, times(3)).listFunctions(any(ListFunctionsRequest.class));
+        verify(lambdaService, times(2)).listAliases(any(ListAliasesRequest.class));
+    }
+
+    @Test
+    public void shouldCompleteRevalidationOfStaleDiscoveredFunctionsBeforeReturning() throws IOException {
+        WarmupStrategyProvider warmupStrategyProvider = mock(WarmupStrategyProvider.class);
+        WarmupStrategy warmupStrategy = mock(WarmupStrategy.class);
+        when(warmupStrategy.getName()).thenReturn("warmupStrategy");
+        when(warmupStrategyProvider.getWarmupStrategy("warmupStrategy")).thenReturn(warmupStrategy);
+
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(WARMUP_STRATEGY_PROP_NAME, "warmupStrategy");
+        warmupPropertyMap.put(DISCOVERY_CACHE_TTL_MILLIS_PROP_NAME, 0L);
+        warmupPropertyMap.put(DISCOVERY_CACHE_MAX_STALE_MILLIS_PROP_NAME, 60000L);
+        WarmupPropertyProvider warmupPropertyProvider = new MapWarmupPropertyProvider(warmupPropertyMap);
+
+        when(context.getRemainingTimeInMillis()).thenReturn(5000);
+        when(lambdaService.listFunctions(any(ListFunctionsRequest.class))).
+                thenReturn(createListFunctionsResult("2017-01-01T00:00:00.000+0000")).
+                thenReturn(createListFunctionsResult("2017-01-02T00:00:00.000+0000"));
+        when(lambdaService.listAliases(any(ListAliasesRequest.class))).
+                thenReturn(createListAliasesResult());
+
+        WarmupHandler warmupHandler =
+                new WarmupHandler(
+                        lambdaService,
+                        warmupPropertyProvider,
+                        warmupStrategyProvider,
+                        WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+        try {
+            warmupHandler.handleRequest(new Object(), context);
+            // Stale discovered functions are used but revalidated before returning
+            warmupHandler.handleRequest(new Object(), context);
+
+            verify(lambdaService, times(2)).listFunctions(any(ListFunctionsRequest.class));
+            verify(lambdaService, times(2)).listAliases(any(ListAliasesRequest.class));
+        } finally {
+            warmupHandler.close();
+        }
+    }
+
+    @Test
+    public void shouldReconfigureRegisteredFunctionsWhenPropertiesFileChanges() throws IOException {
+        WarmupStrategyProvider warmupStrategyProvider = mock(WarmupStrategyProvider.class);
+        WarmupStrategy warmupStrategy = mock(WarmupStrategy.class);
+        when(warmupStrategy.getName()).thenReturn("warmupStrategy");
+        when(warmupStrategyProvider.getWarmupStrategy("warmupStrategy")).thenReturn(warmupStrategy);
+
+        Path propertiesFile = Files.createTempFile("sirocco-warmup", ".properties");
+        try {
+            Files.write(propertiesFile,
+                        (WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX + "1=testFunction1[invocationCount=2]\n")
+                                .getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(propertiesFile, FileTime.fromMillis(1000000000000L));
+            WarmupPropertyProvider warmupPropertyProvider =
+                    new FileWarmupPropertyProvider(
+                            propertiesFile.toString(),
+                            WarmupConfig.builder()
+                                    .withProperty(WARMUP_STRATEGY_PROP_NAME, "warmupStrategy")
+                                    .withProperty(DISABLE_ALL_DISCOVERIES_PROP_NAME, true)
+                                    .build());
+
+            WarmupHandler warmupHandler =
+                    new WarmupHandler(
+                            lambdaService,
+                            warmupPropertyProvider,
+                            warmupStrategyProvider,
+                            WarmupHandler.createDefaultWarmupStrategy(warmupPropertyProvider, warmupStrategyProvider));
+
+            warmupHandler.handleRequest(new Object(), context);
+
+            Files.write(propertiesFile,
+                        (WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX + "1=testFunction1[invocationCount=5]\n" +
+                         WARMUP_FUNCTION_DECLARATION_PROP_NAME_PREFIX + "2=testFunction2\n")
+                                .getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(propertiesFile, FileTime.fromMillis(1000000001000L));
+
+            warmupHandler.handleRequest(new Object(), context);
+
+            Map<String, WarmupFunctionInfo> functionsToWarmup1 = new HashMap<String, WarmupFunctionInfo>();
+            functionsToWarmup1.put("testFunction1", new WarmupFunctionInfo().setInvocationCount(2));
+            verify(warmupStrategy, times(1)).warmup(context, lambdaService, functionsToWarmup1);
+
+            Map<String, WarmupFunctionInfo> functionsToWarmup2 = new HashMap<String, WarmupFunctionInfo>();
+            functionsToWarmup2.put("testFunction1", new WarmupFunctionInfo().setInvocationCount(5));
+            functionsToWarmup2.put("testFunction2", new WarmupFunctionInfo());
+            verify(warmupStrategy, times(1)).warmup(context, lambdaService, functionsToWarmup2);
+        } finally {
+            Files.delete(propertiesFile);
+        }
+    }
+
+    private ListFunctionsResult createListFunctionsResult(String lastModified) {
+        return new ListFunctionsResult().
+                    withFunctions(
+                        new FunctionConfiguration().
+                            withFunctionName("testFunction").
+                            withLastModified(lastModified).
+                            withEnvironment(
+                                new EnvironmentResponse().
+                                    withVariables(
+                                        new HashMap<String, String>() {{
+                                            put(WARMUP_AWARE_ENV_VAR_NAME, "true");
+                                        }}
+                                    )
+                            )
+                    );
+    }
+
+    private ListAliasesResult createListAliasesResult() {
+        return new ListAliasesResult().
+                    withAliases(
+                        new AliasConfiguration().withName("alias1").withFunctionVersion("1"));
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.opsgenie.sirocco.warmup;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class WarmupShardTest {
+
+    private static final int FUNCTION_COUNT = 10000;
+
+    @Test
+    public void shouldAssignEveryFunctionToExactlyOneShard() {
+        int shardCount = 5;
+        WarmupShard[] shards = new WarmupShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new WarmupShard(i, shardCount);
+        }
+        int[] ownedFunctionCounts = new int[shardCount];
+        for (int i = 0; i < FUNCTION_COUNT; i++) {
+            String functionName = "function-" + i;
+            int ownerCount = 0;
+            for (WarmupShard shard : shards) {
+                if (shard.owns(functionName)) {
+                    ownerCount++;
+                    ownedFunctionCounts[shard.getShardIndex()]++;
+                }
+            }
+            assertThat(ownerCount, is(1));
+        }
+        // Every shard should own roughly "1 / shard_count" of the functions
+        for (int ownedFunctionCount : ownedFunctionCounts) {
+            assertThat(Math.abs(ownedFunctionCount - FUNCTION_COUNT / shardCount) < FUNCTION_COUNT / shardCount / 10,
+                       is(true));
+        }
+    }
+
+    @Test
+    public void shouldMoveOnlyFunctionsOfAddedShard() {
+        int shardCount = 4;
+        int movedFunctionCount = 0;
+        for (int i = 0; i < FUNCTION_COUNT; i++) {
+            String functionName = "function-" + i;
+            int shardIndex = WarmupShard.getShardIndex(functionName, shardCount);
+            int newShardIndex = WarmupShard.getShardIndex(functionName, shardCount + 1);
+            if (shardIndex != newShardIndex) {
+                assertThat(newShardIndex, is(shardCount));
+                movedFunctionCount++;
+            }
+        }
+        assertThat(Math.abs(movedFunctionCount - FUNCTION_COUNT / (shardCount + 1))
+                        < FUNCTION_COUNT / (shardCount + 1) / 10,
+                   is(true));
+    }
+
+    @Test
+    public void shouldOwnAllFunctionsWithoutSharding() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(WarmupShard.ALL.owns("function-" + i), is(true));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNonPositiveShardCount() {
+        new WarmupShard(0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptOutOfRangeShardIndex() {
+        new WarmupShard(3, 3);
+    }
+
+}
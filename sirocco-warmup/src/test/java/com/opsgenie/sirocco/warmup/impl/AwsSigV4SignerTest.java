@@ -0,0 +1,80 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class AwsSigV4SignerTest {
+
+    private static final AwsCredentials CREDENTIALS =
+            new AwsCredentials("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+    // 2015-08-30T12:36:00Z
+    private static final long TIMESTAMP = 1440938160000L;
+
+    @Test
+    public void shouldSignRequestAsDocumented() {
+        // Example from "Signature Version 4 signing process" of AWS General Reference
+        AwsSigV4Signer signer = new AwsSigV4Signer("us-east-1", "iam");
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+
+        Map<String, String> signedHeaders =
+                signer.sign("GET", URI.create("https://iam.amazonaws.com/?Version=2010-05-08&Action=ListUsers"),
+                            headers, null, CREDENTIALS, TIMESTAMP);
+
+        assertThat(signedHeaders.get("host"), is("iam.amazonaws.com"));
+        assertThat(signedHeaders.get("x-amz-date"), is("20150830T123600Z"));
+        assertThat(signedHeaders.get("authorization"),
+                   is("AWS4-HMAC-SHA256 " +
+                      "Credential=AKIDEXAMPLE/20150830/us-east-1/iam/aws4_request, " +
+                      "SignedHeaders=content-type;host;x-amz-date, " +
+                      "Signature=5d672d79c15b13162d9279b0855cfba6789a8edb4c82c400e06b5924a6f2b5d7"));
+    }
+
+    @Test
+    public void shouldSignSessionToken() {
+        AwsSigV4Signer signer = new AwsSigV4Signer("us-east-1", "lambda");
+        AwsCredentials credentials =
+                new AwsCredentials(CREDENTIALS.getAccessKeyId(), CREDENTIALS.getSecretAccessKey(), "token");
+
+        Map<String, String> signedHeaders =
+                signer.sign("POST", URI.create("http://localhost:8080/2015-03-31/functions/f/invocations"),
+                            new HashMap<String, String>(), new byte[] {1, 2, 3}, credentials, TIMESTAMP);
+
+        assertThat(signedHeaders.get("host"), is("localhost:8080"));
+        assertThat(signedHeaders.get("x-amz-security-token"), is("token"));
+        assertThat(signedHeaders.get("authorization").contains(
+                   "SignedHeaders=host;x-amz-date;x-amz-security-token, "), is(true));
+    }
+
+    @Test
+    public void shouldProduceDifferentSignaturesForDifferentPayloads() {
+        AwsSigV4Signer signer = new AwsSigV4Signer("us-east-1", "lambda");
+        URI uri = URI.create("https://lambda.us-east-1.amazonaws.com/2015-03-31/functions/f/invocations");
+
+        String authorization1 =
+                signer.sign("POST", uri, new HashMap<String, String>(), new byte[] {1},
+                            CREDENTIALS, TIMESTAMP).get("authorization");
+        String authorization2 =
+                signer.sign("POST", uri, new HashMap<String, String>(), new byte[] {2},
+                            CREDENTIALS, TIMESTAMP).get("authorization");
+
+        assertThat(authorization1.equals(authorization2), is(false));
+    }
+
+    @Test
+    public void shouldEncodeAsRfc3986() {
+        assertThat(AwsSigV4Signer.uriEncode("arn:aws:lambda:us-east-1:123:function:my-func_1.~"),
+                   is("arn%3Aaws%3Alambda%3Aus-east-1%3A123%3Afunction%3Amy-func_1.~"));
+        assertThat(AwsSigV4Signer.uriEncode("a b/c*\u00e7"), is("a%20b%2Fc%2A%C3%A7"));
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class EmfWarmupMetricsTest {
+
+    private ByteArrayOutputStream out;
+    private EmfWarmupMetrics metrics;
+
+    @Before
+    public void setup() {
+        out = new ByteArrayOutputStream();
+        metrics = new EmfWarmupMetrics("Test/Warmup", new PrintStream(out, true));
+    }
+
+    private String[] export() {
+        out.reset();
+        metrics.export();
+        String output = out.toString().trim();
+        return output.isEmpty() ? new String[0] : output.split("\\r?\\n");
+    }
+
+    @Test
+    public void shouldExportFunctionAndRunMetrics() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordDispatch("function1");
+            metrics.recordSuccess("function1", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        metrics.recordDispatch("function1");
+        metrics.recordThrottle("function1");
+        metrics.recordDispatch("function1");
+        metrics.recordTimeout("function1");
+        metrics.recordShrunkWarmup("function1", 3);
+        metrics.recordSkippedWarmup("function1", 5);
+        metrics.recordDispatch("function2");
+        metrics.recordFunctionError("function2", TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.recordDiscovery(TimeUnit.MILLISECONDS.toNanos(250), 2);
+        metrics.recordPendingInvocations(5);
+        metrics.recordPendingInvocations(3);
+        metrics.recordExecutorTasks(4, 0);
+        metrics.recordExecutorTasks(2, 7);
+
+        String[] lines = export();
+        assertThat(lines.length, is(3));
+
+        JSONObject function1Line = null;
+        JSONObject runLine = null;
+        for (String line : lines) {
+            JSONObject json = new JSONObject(line);
+            if ("function1".equals(json.optString("FunctionName"))) {
+                function1Line = json;
+            } else if (!json.has("FunctionName")) {
+                runLine = json;
+            }
+        }
+
+        assertThat(function1Line.getLong("Dispatched"), is(102L));
+        assertThat(function1Line.getLong("Succeeded"), is(100L));
+        assertThat(function1Line.getLong("Throttles"), is(1L));
+        assertThat(function1Line.getLong("Timeouts"), is(1L));
+        assertThat(function1Line.getLong("FunctionErrors"), is(0L));
+        assertThat(function1Line.getLong("SkippedWarmups"), is(1L));
+        assertThat(function1Line.getLong("ShrunkWarmups"), is(1L));
+        assertThat(function1Line.getLong("DeniedInvocations"), is(8L));
+        assertThat(Math.abs(function1Line.getDouble("LatencyP50") - 50.0) < 1.0, is(true));
+        assertThat(Math.abs(function1Line.getDouble("LatencyMax") - 100.0) < 2.0, is(true));
+
+        JSONObject metricDirective =
+                function1Line.getJSONObject("_aws").getJSONArray("CloudWatchMetrics").getJSONObject(0);
+        assertThat(metricDirective.getString("Namespace"), is("Test/Warmup"));
+        assertThat(metricDirective.getJSONArray("Dimensions").getJSONArray(0).getString(0), is("FunctionName"));
+        JSONArray metricDefinitions = metricDirective.getJSONArray("Metrics");
+        for (int i = 0; i < metricDefinitions.length(); i++) {
+            assertThat(function1Line.has(metricDefinitions.getJSONObject(i).getString("Name")), is(true));
+        }
+
+        assertThat(runLine.getLong("Dispatched"), is(103L));
+        assertThat(runLine.getLong("FunctionErrors"), is(1L));
+        assertThat(runLine.getLong("DiscoveredFunctions"), is(2L));
+        assertThat(runLine.getDouble("DiscoveryDuration"), is(250.0));
+        assertThat(runLine.getLong("MaxPendingInvocations"), is(5L));
+        assertThat(runLine.getLong("MaxActiveExecutorTasks"), is(4L));
+        assertThat(runLine.getLong("MaxQueuedExecutorTasks"), is(7L));
+    }
+
+    @Test
+    public void shouldResetMetricsOnExport() {
+        metrics.recordDispatch("function1");
+        metrics.recordSuccess("function1", TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(export().length, is(2));
+
+        // Only the run line is exported as there is no invocation since the previous export
+        String[] lines = export();
+        assertThat(lines.length, is(1));
+        JSONObject runLine = new JSONObject(lines[0]);
+        assertThat(runLine.getLong("Dispatched"), is(0L));
+        assertThat(runLine.has("DiscoveryDuration"), is(false));
+    }
+
+    @Test
+    public void shouldExportMetricsRecordedAfterIdleFunctionIsRemoved() {
+        metrics.recordDispatch("function1");
+        assertThat(export().length, is(2));
+        // Metrics of "function1" are removed as it is idle
+        assertThat(export().length, is(1));
+
+        metrics.recordDispatch("function1");
+        metrics.recordThrottle("function1");
+
+        String[] lines = export();
+        assertThat(lines.length, is(2));
+        JSONObject functionLine = new JSONObject(lines[0]).has("FunctionName")
+                ? new JSONObject(lines[0])
+                : new JSONObject(lines[1]);
+        assertThat(functionLine.getString("FunctionName"), is("function1"));
+        assertThat(functionLine.getLong("Dispatched"), is(1L));
+        assertThat(functionLine.getLong("Throttles"), is(1L));
+    }
+
+}
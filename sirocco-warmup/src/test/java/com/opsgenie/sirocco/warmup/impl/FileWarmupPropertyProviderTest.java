@@ -0,0 +1,126 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.opsgenie.sirocco.warmup.WarmupConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class FileWarmupPropertyProviderTest {
+
+    private Path propertiesFile;
+    private Path jsonFile;
+    private long modifiedTime = System.currentTimeMillis();
+
+    @Before
+    public void setup() throws IOException {
+        propertiesFile = Files.createTempFile("sirocco-warmup", ".properties");
+        jsonFile = Files.createTempFile("sirocco-warmup", ".json");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+        Files.deleteIfExists(jsonFile);
+    }
+
+    private void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        // Modification time is set explicitly as file systems might have coarse timestamps
+        modifiedTime += 1000;
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedTime));
+    }
+
+    @Test
+    public void shouldOverrideBaseConfigByFile() throws IOException {
+        write(propertiesFile,
+              "sirocco.warmup.invocationCount=16\n" +
+              "sirocco.warmup.function1=f1,f2[invocationCount=3]\n");
+        WarmupConfig baseConfig =
+                WarmupConfig.builder()
+                        .withProperty("sirocco.warmup.invocationCount", 8)
+                        .withProperty("sirocco.warmup.warmupStrategy", "stat-aware")
+                        .build();
+
+        FileWarmupPropertyProvider provider =
+                new FileWarmupPropertyProvider(propertiesFile.toString(), baseConfig);
+
+        assertThat(provider.getVersion(), is(0L));
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(16));
+        assertThat(provider.getString("sirocco.warmup.warmupStrategy"), is("stat-aware"));
+        assertThat(provider.getString("sirocco.warmup.function1"), is("f1,f2[invocationCount=3]"));
+    }
+
+    @Test
+    public void shouldReloadOnlyWhenFileChanges() throws IOException {
+        write(propertiesFile, "sirocco.warmup.invocationCount=16\n");
+        FileWarmupPropertyProvider provider = new FileWarmupPropertyProvider(propertiesFile.toString());
+
+        assertThat(provider.reload(), is(false));
+        assertThat(provider.getVersion(), is(0L));
+
+        write(propertiesFile, "sirocco.warmup.invocationCount=32\n");
+
+        assertThat(provider.reload(), is(true));
+        assertThat(provider.getVersion(), is(1L));
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(32));
+        assertThat(provider.reload(), is(false));
+        assertThat(provider.getVersion(), is(1L));
+    }
+
+    @Test
+    public void shouldKeepPreviousPropertiesIfFileIsBrokenOrRemoved() throws IOException {
+        write(jsonFile, "{\"sirocco.warmup.invocationCount\": 16}");
+        FileWarmupPropertyProvider provider = new FileWarmupPropertyProvider(jsonFile.toString());
+
+        write(jsonFile, "{\"sirocco.warmup.invocationCount\": ");
+        assertThat(provider.reload(), is(false));
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(16));
+
+        Files.delete(jsonFile);
+        assertThat(provider.reload(), is(false));
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(16));
+
+        write(jsonFile, "{\"sirocco.warmup.invocationCount\": 4}");
+        assertThat(provider.reload(), is(true));
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(4));
+    }
+
+    @Test
+    public void shouldFlattenJsonFile() throws IOException {
+        write(jsonFile,
+              "{\n" +
+              "  \"sirocco\": {\n" +
+              "    \"warmup\": {\n" +
+              "      \"invocationCount\": 16,\n" +
+              "      \"warmupScaleFactor\": 1.5,\n" +
+              "      \"disableRandomization\": true,\n" +
+              "      \"function1\": [\"f1\", \"f2[invocationCount=3]\"],\n" +
+              "      \"invocationData\": null\n" +
+              "    }\n" +
+              "  }\n" +
+              "}");
+
+        FileWarmupPropertyProvider provider = new FileWarmupPropertyProvider(jsonFile.toString());
+
+        assertThat(provider.getInteger("sirocco.warmup.invocationCount"), is(16));
+        assertThat(provider.getFloat("sirocco.warmup.warmupScaleFactor"), is(1.5F));
+        assertThat(provider.getBoolean("sirocco.warmup.disableRandomization"), is(true));
+        assertThat(provider.getString("sirocco.warmup.function1"), is("f1,f2[invocationCount=3]"));
+        assertThat(provider.getString("sirocco.warmup.invocationData"), is(nullValue()));
+        assertThat(provider.getPropertyNames("sirocco.warmup.function").size(), is(1));
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class FileWarmupStateStoreTest {
+
+    private Path stateFile;
+
+    @Before
+    public void setup() throws IOException {
+        stateFile = Files.createTempFile("sirocco-warmup-state", ".bin");
+        Files.delete(stateFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(stateFile);
+    }
+
+    @Test
+    public void shouldLoadFlushedStateByAnotherStore() throws IOException {
+        FileWarmupStateStore store1 = new FileWarmupStateStore(stateFile.toString());
+        Map<String, Long> state = new HashMap<String, Long>();
+        state.put("key1", 1L);
+        state.put("key2", Long.MAX_VALUE);
+        store1.save("namespace1", state);
+        store1.save("namespace2", new HashMap<String, Long>());
+        store1.flush();
+
+        FileWarmupStateStore store2 = new FileWarmupStateStore(stateFile.toString());
+        assertThat(store2.load("namespace1"), is(state));
+        assertThat(store2.load("namespace2").isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptedState() throws IOException {
+        Files.write(stateFile, new byte[] {1, 2, 3});
+
+        FileWarmupStateStore store = new FileWarmupStateStore(stateFile.toString());
+        assertThat(store.load("namespace").isEmpty(), is(true));
+
+        store.save("namespace", new HashMap<String, Long>() {{
+            put("key", 1L);
+        }});
+        store.flush();
+
+        assertThat(new FileWarmupStateStore(stateFile.toString()).load("namespace").get("key"), is(1L));
+    }
+
+    @Test
+    public void shouldShareStoreForSameFile() {
+        assertThat(
+                FileWarmupStateStore.getInstance(stateFile.toString()) ==
+                        FileWarmupStateStore.getInstance(stateFile.toString()),
+                is(true));
+    }
+
+}
@@ -0,0 +1,392 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.lambda.model.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class HttpLambdaServiceTest {
+
+    private static final String REGION = "us-east-1";
+    private static final AwsCredentials CREDENTIALS = new AwsCredentials("AKID", "secret", "token");
+
+    private final List<StubRequest> requests = new CopyOnWriteArrayList<StubRequest>();
+    private final Map<String, StubResponse> responses = new HashMap<String, StubResponse>();
+    private HttpServer server;
+    private ExecutorService serverExecutorService;
+    private ExecutorService executorService;
+    private HttpLambdaService lambdaService;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new StubHandler());
+        // Delayed responses must not block the other requests
+        serverExecutorService = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutorService);
+        server.start();
+        executorService = Executors.newCachedThreadPool();
+        lambdaService =
+                new HttpLambdaService(
+                        URI.create("http://127.0.0.1:" + server.getAddress().getPort()),
+                        REGION, CREDENTIALS, executorService);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutorService.shutdownNow();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldInvokeFunction() throws Exception {
+        StubResponse response = new StubResponse(200, "{\"result\":\"ok\"}");
+        response.headers.put("X-Amz-Function-Error", "Unhandled");
+        responses.put("/2015-03-31/functions/my-function/invocations", response);
+
+        InvokeResult result =
+                lambdaService.invokeAsync(
+                        new InvokeRequest()
+                                .withFunctionName("my-function")
+                                .withQualifier("live")
+                                .withInvocationType(InvocationType.RequestResponse)
+                                .withPayload("{\"warmup\":true}")).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getStatusCode(), is(200));
+        assertThat(result.getFunctionError(), is("Unhandled"));
+        assertThat(new String(result.getPayload().array(), StandardCharsets.UTF_8), is("{\"result\":\"ok\"}"));
+
+        assertThat(requests.size(), is(1));
+        StubRequest request = requests.get(0);
+        assertThat(request.method, is("POST"));
+        assertThat(request.query, is("Qualifier=live"));
+        assertThat(request.headers.get("x-amz-invocation-type"), is("RequestResponse"));
+        assertThat(request.headers.get("x-amz-security-token"), is("token"));
+        assertThat(request.body, is("{\"warmup\":true}"));
+        assertThat(request.signatureValid, is(true));
+    }
+
+    @Test
+    public void shouldSignFunctionArnInPath() throws Exception {
+        String functionArn = "arn:aws:lambda:us-east-1:123456789012:function:my-function";
+        responses.put("/2015-03-31/functions/" + functionArn + "/invocations", new StubResponse(202, ""));
+
+        InvokeResult result =
+                lambdaService.invoke(
+                        new InvokeRequest()
+                                .withFunctionName(functionArn)
+                                .withInvocationType(InvocationType.Event));
+
+        assertThat(result.getStatusCode(), is(202));
+        assertThat(requests.get(0).signatureValid, is(true));
+    }
+
+    @Test
+    public void shouldNotifyHandlerOnThrottling() throws Exception {
+        StubResponse response =
+                new StubResponse(429, "{\"Type\":\"User\",\"message\":\"Rate Exceeded.\"}");
+        response.headers.put("X-Amzn-ErrorType", "TooManyRequestsException:http://internal.amazon.com/");
+        response.headers.put("Retry-After", "1");
+        responses.put("/2015-03-31/functions/my-function/invocations", response);
+
+        final AtomicReference<Exception> errorRef = new AtomicReference<Exception>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        lambdaService.invokeAsync(
+                new InvokeRequest().withFunctionName("my-function"),
+                new AsyncHandler<InvokeRequest, InvokeResult>() {
+                    @Override
+                    public void onError(Exception exception) {
+                        errorRef.set(exception);
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onSuccess(InvokeRequest request, InvokeResult result) {
+                        latch.countDown();
+                    }
+                });
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(errorRef.get() instanceof TooManyRequestsException, is(true));
+        TooManyRequestsException error = (TooManyRequestsException) errorRef.get();
+        assertThat(error.getStatusCode(), is(429));
+        assertThat(error.getErrorCode(), is("TooManyRequestsException"));
+        assertThat(error.getErrorMessage(), is("Rate Exceeded."));
+        assertThat(error.getRetryAfterSeconds(), is("1"));
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void shouldThrowServiceErrorOnSyncCall() {
+        StubResponse response = new StubResponse(404, "{\"Type\":\"User\",\"Message\":\"Function not found\"}");
+        response.headers.put("X-Amzn-ErrorType", "ResourceNotFoundException");
+        responses.put("/2015-03-31/functions/unknown-function/invocations", response);
+
+        lambdaService.invoke(new InvokeRequest().withFunctionName("unknown-function"));
+    }
+
+    @Test
+    public void shouldTimeOutInvocationByClientExecutionTimeout() throws Exception {
+        StubResponse response = new StubResponse(200, "{}");
+        response.delayMillis = 5000;
+        responses.put("/2015-03-31/functions/slow-function/invocations", response);
+
+        long startTime = System.currentTimeMillis();
+        Future<InvokeResult> future =
+                lambdaService.invokeAsync(
+                        new InvokeRequest()
+                                .withFunctionName("slow-function")
+                                .withSdkClientExecutionTimeout(200));
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            throw new AssertionError("Invocation should have been timed out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof AmazonClientException, is(true));
+        }
+        assertThat(System.currentTimeMillis() - startTime < response.delayMillis, is(true));
+    }
+
+    @Test
+    public void shouldReleaseThreadOfCancelledInvocation() throws Exception {
+        StubResponse slowResponse = new StubResponse(200, "{}");
+        slowResponse.delayMillis = 5000;
+        responses.put("/2015-03-31/functions/slow-function/invocations", slowResponse);
+        responses.put("/2015-03-31/functions/my-function/invocations", new StubResponse(200, "{}"));
+        // Single thread is held by the slow invocation until it is cancelled
+        ExecutorService singleThreadExecutorService = Executors.newSingleThreadExecutor();
+        try {
+            HttpLambdaService singleThreadLambdaService =
+                    new HttpLambdaService(
+                            URI.create("http://127.0.0.1:" + server.getAddress().getPort()),
+                            REGION, CREDENTIALS, singleThreadExecutorService);
+            final CountDownLatch latch = new CountDownLatch(1);
+            Future<InvokeResult> slowFuture =
+                    singleThreadLambdaService.invokeAsync(
+                            new InvokeRequest().withFunctionName("slow-function"),
+                            new AsyncHandler<InvokeRequest, InvokeResult>() {
+                                @Override
+                                public void onError(Exception exception) {
+                                    latch.countDown();
+                                }
+
+                                @Override
+                                public void onSuccess(InvokeRequest request, InvokeResult result) {
+                                    latch.countDown();
+                                }
+                            });
+            // Waits for the slow invocation to be sent
+            long deadline = System.currentTimeMillis() + 10000;
+            while (requests.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(requests.size(), is(1));
+
+            long startTime = System.currentTimeMillis();
+            slowFuture.cancel(true);
+            InvokeResult result =
+                    singleThreadLambdaService.invokeAsync(
+                            new InvokeRequest().withFunctionName("my-function")).get(10, TimeUnit.SECONDS);
+
+            assertThat(result.getStatusCode(), is(200));
+            assertThat(System.currentTimeMillis() - startTime < slowResponse.delayMillis, is(true));
+            // Cancelled invocations are not completed
+            assertThat(latch.getCount(), is(1L));
+        } finally {
+            singleThreadExecutorService.shutdownNow();
+        }
+    }
+
+    @Test(expected = AmazonClientException.class)
+    public void shouldThrowClientErrorIfEndpointIsNotReachable() {
+        server.stop(0);
+
+        lambdaService.invoke(new InvokeRequest().withFunctionName("my-function"));
+    }
+
+    @Test
+    public void shouldListFunctions() {
+        responses.put("/2015-03-31/functions/",
+                new StubResponse(200,
+                        "{\"Functions\":[" +
+                            "{\"FunctionName\":\"function-1\",\"Version\":\"$LATEST\",\"Timeout\":30," +
+                             "\"Environment\":{\"Variables\":{\"sirocco_warmup_aware\":\"true\"}}}," +
+                            "{\"FunctionName\":\"function-2\",\"Environment\":null}" +
+                        "],\"NextMarker\":\"marker-2\"}"));
+
+        ListFunctionsResult result =
+                lambdaService.listFunctions(new ListFunctionsRequest().withMarker("marker-1").withMaxItems(2));
+
+        assertThat(result.getNextMarker(), is("marker-2"));
+        assertThat(result.getFunctions().size(), is(2));
+        FunctionConfiguration function1 = result.getFunctions().get(0);
+        assertThat(function1.getFunctionName(), is("function-1"));
+        assertThat(function1.getVersion(), is("$LATEST"));
+        assertThat(function1.getTimeout(), is(30));
+        assertThat(function1.getEnvironment().getVariables().get("sirocco_warmup_aware"), is("true"));
+        FunctionConfiguration function2 = result.getFunctions().get(1);
+        assertThat(function2.getFunctionName(), is("function-2"));
+        assertThat(function2.getEnvironment() == null, is(true));
+
+        StubRequest request = requests.get(0);
+        assertThat(request.method, is("GET"));
+        assertThat(request.query, is("Marker=marker-1&MaxItems=2"));
+        assertThat(request.signatureValid, is(true));
+    }
+
+    @Test
+    public void shouldListAliases() {
+        responses.put("/2015-03-31/functions/my-function/aliases",
+                new StubResponse(200,
+                        "{\"Aliases\":[" +
+                            "{\"Name\":\"live\",\"FunctionVersion\":\"3\",\"AliasArn\":\"arn:live\"}" +
+                        "]}"));
+
+        ListAliasesResult result =
+                lambdaService.listAliases(new ListAliasesRequest().withFunctionName("my-function"));
+
+        assertThat(result.getNextMarker() == null, is(true));
+        assertThat(result.getAliases().size(), is(1));
+        AliasConfiguration alias = result.getAliases().get(0);
+        assertThat(alias.getName(), is("live"));
+        assertThat(alias.getFunctionVersion(), is("3"));
+        assertThat(alias.getAliasArn(), is("arn:live"));
+        assertThat(requests.get(0).signatureValid, is(true));
+    }
+
+    private static class StubRequest {
+
+        private String method;
+        private String query;
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private String body;
+        private boolean signatureValid;
+
+    }
+
+    private static class StubResponse {
+
+        private final int statusCode;
+        private final String body;
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private long delayMillis;
+
+        private StubResponse(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+    }
+
+    private class StubHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                StubRequest request = new StubRequest();
+                request.method = exchange.getRequestMethod();
+                request.query = exchange.getRequestURI().getRawQuery();
+                for (String headerName : exchange.getRequestHeaders().keySet()) {
+                    request.headers.put(headerName.toLowerCase(Locale.ENGLISH),
+                                        exchange.getRequestHeaders().getFirst(headerName));
+                }
+                byte[] body = readFully(exchange.getRequestBody());
+                request.body = new String(body, StandardCharsets.UTF_8);
+                request.signatureValid = isSignatureValid(exchange, request, body);
+                requests.add(request);
+
+                StubResponse response = responses.get(exchange.getRequestURI().getPath());
+                if (response == null) {
+                    response = new StubResponse(500, "{\"message\":\"Unexpected request\"}");
+                }
+                if (response.delayMillis > 0) {
+                    Thread.sleep(response.delayMillis);
+                }
+                byte[] responseBody = response.body.getBytes(StandardCharsets.UTF_8);
+                for (Map.Entry<String, String> e : response.headers.entrySet()) {
+                    exchange.getResponseHeaders().add(e.getKey(), e.getValue());
+                }
+                exchange.sendResponseHeaders(response.statusCode, responseBody.length > 0 ? responseBody.length : -1);
+                if (responseBody.length > 0) {
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(responseBody);
+                    out.close();
+                }
+            } catch (Exception e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private boolean isSignatureValid(HttpExchange exchange, StubRequest request, byte[] body)
+                throws Exception {
+            // Signs the received request again as the service does and compares the signatures
+            String authorization = request.headers.get("authorization");
+            int signedHeadersStart = authorization.indexOf("SignedHeaders=") + "SignedHeaders=".length();
+            String[] signedHeaderNames =
+                    authorization.substring(signedHeadersStart, authorization.indexOf(',', signedHeadersStart))
+                                 .split(";");
+            Map<String, String> headers = new HashMap<String, String>();
+            for (String signedHeaderName : signedHeaderNames) {
+                if (!signedHeaderName.equals("host")
+                        && !signedHeaderName.equals("x-amz-date")
+                        && !signedHeaderName.equals("x-amz-security-token")) {
+                    headers.put(signedHeaderName, request.headers.get(signedHeaderName));
+                }
+            }
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.ENGLISH);
+            dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+            long timestamp = dateFormat.parse(request.headers.get("x-amz-date")).getTime();
+            URI uri = URI.create("http://" + request.headers.get("host") + exchange.getRequestURI().toString());
+            Map<String, String> signedHeaders =
+                    new AwsSigV4Signer(REGION, HttpLambdaService.SIGNING_NAME).sign(
+                            request.method, uri, headers, body, CREDENTIALS, timestamp);
+            return authorization.equals(signedHeaders.get("authorization"));
+        }
+
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.opsgenie.sirocco.warmup.impl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author serkan
+ */
+public class SystemPropertyWarmupPropertyProviderTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty("sirocco.test.invocationCount");
+        System.clearProperty("sirocco.test.warmupStrategy");
+    }
+
+    @Test
+    public void shouldProvideEnvironmentVariablesOverridingSystemProperties() {
+        System.setProperty("sirocco.test.invocationCount", "4");
+        System.setProperty("sirocco.test.warmupStrategy", "standard");
+        Map<String, String> environmentVariables = new HashMap<String, String>();
+        environmentVariables.put("sirocco_test_invocationCount", " 8 ");
+        environmentVariables.put("sirocco_test_disableRandomization", "TRUE");
+        environmentVariables.put("sirocco_test_warmupScaleFactor", "1.5");
+
+        SystemPropertyWarmupPropertyProvider provider =
+                new SystemPropertyWarmupPropertyProvider(environmentVariables);
+
+        assertThat(provider.getInteger("sirocco.test.invocationCount"), is(8));
+        assertThat(provider.getLong("sirocco.test.invocationCount"), is(8L));
+        assertThat(provider.getBoolean("sirocco.test.disableRandomization"), is(true));
+        assertThat(provider.getFloat("sirocco.test.warmupScaleFactor"), is(1.5F));
+        assertThat(provider.getString("sirocco.test.warmupStrategy"), is("standard"));
+        assertThat(provider.getPropertyNames().contains("sirocco.test.warmupStrategy"), is(true));
+        assertThat(provider.getPropertyNames().contains("sirocco.test.warmupScaleFactor"), is(true));
+        assertThat(provider.getString("sirocco_test_invocationCount"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSeeSystemPropertiesChangedAfterCreation() {
+        SystemPropertyWarmupPropertyProvider provider =
+                new SystemPropertyWarmupPropertyProvider(new HashMap<String, String>());
+
+        assertThat(provider.getInteger("sirocco.test.invocationCount"), is(nullValue()));
+        assertThat(provider.getBoolean("sirocco.test.invocationCount"), is(false));
+
+        System.setProperty("sirocco.test.invocationCount", "invalid");
+        assertThat(provider.getInteger("sirocco.test.invocationCount"), is(nullValue()));
+
+        System.setProperty("sirocco.test.invocationCount", "16");
+        assertThat(provider.getInteger("sirocco.test.invocationCount"), is(16));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.opsgenie.sirocco.warmup.strategy;
+
+import com.opsgenie.sirocco.warmup.strategy.impl.AdaptiveConcurrencyLimiter;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void shouldDecreaseMultiplicativelyAndIncreaseAdditively() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 0.5, 0);
+
+        assertThat(limiter.tryAcquire(10), is(10));
+        assertThat(limiter.tryAcquire(10), is(6));
+
+        // Burst of throttles in the same window decreases limit only once
+        limiter.onOverload();
+        limiter.onOverload();
+        assertThat(limiter.getLimit(), is(8));
+        assertThat(limiter.getInFlight(), is(14));
+        assertThat(limiter.tryAcquire(1), is(0));
+
+        limiter.release(10);
+        limiter.onSuccess(1000);
+        limiter.onSuccess(1000);
+        assertThat(limiter.getLimit(), is(10));
+        assertThat(limiter.getInFlight(), is(2));
+        assertThat(limiter.tryAcquire(10), is(8));
+    }
+
+    @Test
+    public void shouldDecreaseOnLatencyInflation() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 0.5, 3);
+
+        limiter.tryAcquire(2);
+        limiter.onSuccess(1000000);
+        limiter.onSuccess(10000000);
+
+        assertThat(limiter.getLimit(), is(4));
+    }
+
+    @Test
+    public void shouldKeepLearnedLimitOnReconfigure() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 0.5, 0);
+
+        limiter.tryAcquire(1);
+        limiter.onOverload();
+        assertThat(limiter.getLimit(), is(8));
+
+        // Raised max limit is reached additively from the learned limit
+        limiter.reconfigure(32, 0.5, 0);
+        assertThat(limiter.getLimit(), is(8));
+        limiter.tryAcquire(1);
+        limiter.onSuccess(1000);
+        assertThat(limiter.getLimit(), is(9));
+
+        // Lowered max limit caps the learned limit immediately
+        limiter.reconfigure(4, 0.5, 0);
+        assertThat(limiter.getLimit(), is(4));
+    }
+
+}
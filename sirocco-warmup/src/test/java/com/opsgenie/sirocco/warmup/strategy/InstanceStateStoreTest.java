@@ -0,0 +1,117 @@
+package com.opsgenie.sirocco.warmup.strategy;
+
+import com.opsgenie.sirocco.warmup.strategy.impl.InstanceStateStore;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class InstanceStateStoreTest {
+
+    private static final long IDLE_TIME = 30 * 60 * 1000;
+
+    @Test
+    public void shouldTrackActiveInstances() {
+        InstanceStateStore store = new InstanceStateStore(IDLE_TIME);
+        long currentTime = System.currentTimeMillis();
+
+        assertThat(store.getActiveInstanceCount("function-1"), is(-1));
+
+        store.update("function-1", "instance-1", currentTime);
+        store.update("function-1", "instance-2", currentTime - IDLE_TIME / 2);
+        store.update("function-1", "instance-1", currentTime - IDLE_TIME); // Older update is ignored
+        store.update("function-2", "instance-1", currentTime);
+
+        assertThat(store.getActiveInstanceCount("function-1"), is(2));
+        assertThat(store.getActiveInstanceCount("function-2"), is(1));
+        assertThat(store.getLatestRequestTime("function-1", "instance-1"), is(currentTime));
+        assertThat(store.getTotalActiveInstanceCount(), is(3));
+    }
+
+    @Test
+    public void shouldExpireIdleInstances() {
+        InstanceStateStore store = new InstanceStateStore(IDLE_TIME);
+        long currentTime = System.currentTimeMillis();
+
+        store.update("function-1", "instance-1", currentTime);
+        store.update("function-1", "instance-2", currentTime - IDLE_TIME / 2);
+
+        assertThat(store.expire("function-1", currentTime + IDLE_TIME / 2), is(0));
+        assertThat(store.expire("function-1", currentTime + IDLE_TIME / 2 + 1), is(1));
+        assertThat(store.getActiveInstanceCount("function-1"), is(1));
+        assertThat(store.getLatestRequestTime("function-1", "instance-2"), is(-1L));
+
+        // Updated instances are rescheduled
+        store.update("function-1", "instance-1", currentTime + IDLE_TIME);
+        assertThat(store.expireAll(currentTime + 2 * IDLE_TIME), is(0));
+        assertThat(store.expireAll(currentTime + 2 * IDLE_TIME + 1), is(1));
+        assertThat(store.getActiveInstanceCount("function-1"), is(0));
+    }
+
+    @Test
+    public void shouldLoadAndSnapshotLatestRequestTimes() {
+        InstanceStateStore store = new InstanceStateStore(IDLE_TIME);
+        long currentTime = System.currentTimeMillis();
+        Map<String, Long> latestRequestTimes = new HashMap<String, Long>();
+        latestRequestTimes.put("instance-1", currentTime);
+        latestRequestTimes.put("instance-2", currentTime - 2 * IDLE_TIME);
+
+        store.updateAll("function-1", new HashMap<String, Long>());
+        assertThat(store.getActiveInstanceCount("function-1"), is(-1));
+
+        store.updateAll("function-1", latestRequestTimes);
+        assertThat(store.getLatestRequestTimes("function-1"), is(latestRequestTimes));
+
+        store.expireAll(currentTime);
+        latestRequestTimes.remove("instance-2");
+        assertThat(store.getLatestRequestTimes("function-1"), is(latestRequestTimes));
+    }
+
+    @Test
+    public void shouldExpireSameInstancesWithFullScan() {
+        long[] idleTimes = { 0, 1000, IDLE_TIME };
+        for (long idleTime : idleTimes) {
+            Random random = new Random(idleTime);
+            InstanceStateStore store = new InstanceStateStore(idleTime);
+            Map<String, Long> expectedLatestRequestTimes = new HashMap<String, Long>();
+            long currentTime = System.currentTimeMillis();
+            for (int i = 0; i < 200; i++) {
+                for (int j = 0; j < 100; j++) {
+                    String instanceId = "instance-" + random.nextInt(1000);
+                    long latestRequestTime = currentTime - (long) (random.nextDouble() * 2 * idleTime);
+                    store.update("function", instanceId, latestRequestTime);
+                    Long existingLatestRequestTime = expectedLatestRequestTimes.get(instanceId);
+                    if (existingLatestRequestTime == null || existingLatestRequestTime < latestRequestTime) {
+                        expectedLatestRequestTimes.put(instanceId, latestRequestTime);
+                    }
+                }
+
+                // Both short and long (beyond the wheel range) gaps between expirations
+                currentTime += random.nextInt(10) == 0
+                        ? (long) (random.nextDouble() * 100 * idleTime)
+                        : (long) (random.nextDouble() * idleTime / 4);
+                int expectedExpiredInstanceCount = 0;
+                Iterator<Long> iter = expectedLatestRequestTimes.values().iterator();
+                while (iter.hasNext()) {
+                    if (currentTime > iter.next() + idleTime) {
+                        iter.remove();
+                        expectedExpiredInstanceCount++;
+                    }
+                }
+
+                assertThat(store.expire("function", currentTime), is(expectedExpiredInstanceCount));
+                assertThat(store.getActiveInstanceCount("function"), is(expectedLatestRequestTimes.size()));
+                assertThat(store.getLatestRequestTimes("function"), is(expectedLatestRequestTimes));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.opsgenie.sirocco.warmup.strategy;
+
+import com.opsgenie.sirocco.warmup.strategy.impl.InvocationDataTemplate;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class InvocationDataTemplateTest {
+
+    private static String expand(InvocationDataTemplate template,
+                                 String runId, int iterationNo, int invocationNo, int targetCount, int wait) {
+        return new String(
+                template.expand(runId, iterationNo, invocationNo, targetCount, wait),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldExpandVariables() {
+        InvocationDataTemplate template =
+                InvocationDataTemplate.compile(
+                        "{\"run\": \"${runId}\", \"iteration\": ${iterationNo}, \"invocation\": ${invocationNo}, " +
+                        "\"target\": ${targetCount}, \"wait\": ${wait}}");
+
+        assertThat(template.isConstant(), is(false));
+        assertThat(template.uses(InvocationDataTemplate.Variable.INVOCATION_NO), is(true));
+        assertThat(expand(template, "run-1", 2, 7, 10, 100),
+                   is("{\"run\": \"run-1\", \"iteration\": 2, \"invocation\": 7, \"target\": 10, \"wait\": 100}"));
+        assertThat(expand(template, "run-2", 3, 12, 20, 200),
+                   is("{\"run\": \"run-2\", \"iteration\": 3, \"invocation\": 12, \"target\": 20, \"wait\": 200}"));
+    }
+
+    @Test
+    public void shouldKeepUnknownPlaceholdersAndNonAsciiCharacters() {
+        InvocationDataTemplate template =
+                InvocationDataTemplate.compile("g\u00FCnayd\u0131n ${unknown} ${ ${wait}ms ${wait");
+
+        assertThat(template.uses(InvocationDataTemplate.Variable.WAIT), is(true));
+        assertThat(template.uses(InvocationDataTemplate.Variable.INVOCATION_NO), is(false));
+        assertThat(expand(template, "run", 1, 1, 1, 300),
+                   is("g\u00FCnayd\u0131n ${unknown} ${ 300ms ${wait"));
+    }
+
+    @Test
+    public void shouldExpandConstantAndEmptyData() {
+        InvocationDataTemplate template = InvocationDataTemplate.compile("{\"warmup\": true}");
+        InvocationDataTemplate emptyTemplate = InvocationDataTemplate.compile(null);
+
+        assertThat(template.isConstant(), is(true));
+        assertThat(expand(template, "run", 1, 1, 1, 0), is("{\"warmup\": true}"));
+        assertThat(emptyTemplate.isConstant(), is(true));
+        assertThat(emptyTemplate.expand("run", 1, 1, 1, 0).length, is(0));
+    }
+
+}
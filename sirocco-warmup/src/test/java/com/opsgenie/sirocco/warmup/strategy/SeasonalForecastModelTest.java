@@ -0,0 +1,87 @@
+package com.opsgenie.sirocco.warmup.strategy;
+
+import com.opsgenie.sirocco.warmup.strategy.impl.SeasonalForecastModel;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class SeasonalForecastModelTest {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private SeasonalForecastModel createModel() {
+        return new SeasonalForecastModel(0.1F, 0.01F, 0.3F, 0.1F);
+    }
+
+    private void observeWorkingHours(SeasonalForecastModel model, long startTime, int dayCount) {
+        for (int hour = 0; hour < dayCount * 24; hour++) {
+            int hourOfDay = hour % 24;
+            float value = (hourOfDay >= 8 && hourOfDay < 18) ? 100 : 10;
+            // Observed every 5 minutes
+            for (int i = 0; i < 12; i++) {
+                model.observe(startTime + hour * HOUR_MILLIS + i * 5 * 60 * 1000, value);
+            }
+        }
+    }
+
+    @Test
+    public void shouldForecastDailyRampBeforeItHappens() {
+        SeasonalForecastModel model = createModel();
+        long startTime = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+        observeWorkingHours(model, startTime, 14);
+
+        long currentTime = startTime + 14 * DAY_MILLIS + 7 * HOUR_MILLIS;
+        model.observe(currentTime, 10);
+
+        assertThat(model.forecast(currentTime + HOUR_MILLIS) > 50, is(true));
+        assertThat(model.forecast(startTime + 14 * DAY_MILLIS + 3 * HOUR_MILLIS) < 30, is(true));
+    }
+
+    @Test
+    public void shouldScaleTrendByForecastHorizon() {
+        SeasonalForecastModel model = new SeasonalForecastModel(0.5F, 0.5F, 0.0F, 0.0F);
+        long startTime = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+        // Grows by 10 every hour
+        for (int hour = 0; hour <= 48; hour++) {
+            model.observe(startTime + hour * HOUR_MILLIS, 10 * hour);
+        }
+        long currentTime = startTime + 48 * HOUR_MILLIS;
+
+        float nextHourForecast = model.forecast(currentTime);
+        float sixHoursLaterForecast = model.forecast(currentTime + 5 * HOUR_MILLIS);
+
+        assertThat(Math.abs(nextHourForecast - 480) < 1, is(true));
+        assertThat(Math.abs(sixHoursLaterForecast - 530) < 1, is(true));
+    }
+
+    @Test
+    public void shouldExportStateAsPackedLongs() {
+        SeasonalForecastModel model = createModel();
+        long startTime = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+        observeWorkingHours(model, startTime, 1);
+
+        assertThat(model.toState().length, is(18));
+    }
+
+    @Test
+    public void shouldRestoreFromState() {
+        SeasonalForecastModel model = createModel();
+        long startTime = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+        observeWorkingHours(model, startTime, 2);
+
+        SeasonalForecastModel restoredModel = createModel();
+        assertThat(restoredModel.fromState(model.toState()), is(true));
+
+        assertThat(restoredModel.getObservationCount(), is(model.getObservationCount()));
+        for (int hour = 0; hour < 24; hour++) {
+            long time = startTime + 2 * DAY_MILLIS + hour * HOUR_MILLIS;
+            assertThat(restoredModel.forecast(time), is(model.forecast(time)));
+        }
+    }
+
+}
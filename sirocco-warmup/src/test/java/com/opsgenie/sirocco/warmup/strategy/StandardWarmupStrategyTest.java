@@ -1,7 +1,9 @@
 package com.opsgenie.sirocco.warmup.strategy;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.model.InvokeRequest;
 import com.amazonaws.services.lambda.model.InvokeResult;
+import com.amazonaws.services.lambda.model.TooManyRequestsException;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.opsgenie.sirocco.warmup.LambdaService;
 import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
@@ -9,16 +11,25 @@ import com.opsgenie.sirocco.warmup.impl.MapWarmupPropertyProvider;
 import com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import static com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy.DEFAULT_INVOCATION_COUNT;
+import static com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy.ENABLE_ADAPTIVE_CONCURRENCY_PROP_NAME;
+import static com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy.INVOCATION_TIMEOUT_MILLIS_PROP_NAME;
 import static com.opsgenie.sirocco.warmup.strategy.impl.StandardWarmupStrategy.ITERATION_COUNT_PROP_NAME;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
@@ -47,15 +58,22 @@ public class StandardWarmupStrategyTest {
                 new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
 
         when(context.getRemainingTimeInMillis()).thenReturn(2000);
-        Future<InvokeResult> resultFuture = mock(Future.class);
-        when(resultFuture.get()).thenReturn(new InvokeResult());
-        when(lambdaService.invokeAsync(any(InvokeRequest.class))).thenReturn(resultFuture);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        InvokeRequest invokeRequest = invocation.getArgument(0);
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        asyncHandler.onSuccess(invokeRequest, new InvokeResult());
+                        return mock(Future.class);
+                    }
+                });
 
         Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
         functionsToWarmup.put("testFunction", new WarmupFunctionInfo());
         standardWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
 
-        verify(lambdaService, times(DEFAULT_INVOCATION_COUNT)).invokeAsync(any(InvokeRequest.class));
+        verify(lambdaService, times(DEFAULT_INVOCATION_COUNT)).invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class));
     }
 
     @Test
@@ -67,9 +85,15 @@ public class StandardWarmupStrategyTest {
                 new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
 
         when(context.getRemainingTimeInMillis()).thenReturn(2000);
-        Future<InvokeResult> resultFuture = mock(Future.class);
-        when(resultFuture.get()).thenThrow(new RuntimeException("no warmup"));
-        when(lambdaService.invokeAsync(any(InvokeRequest.class))).thenReturn(resultFuture);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        asyncHandler.onError(new RuntimeException("no warmup"));
+                        return mock(Future.class);
+                    }
+                });
 
         Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
         functionsToWarmup.put("testFunction", new WarmupFunctionInfo());
@@ -80,7 +104,144 @@ public class StandardWarmupStrategyTest {
             assertThat(e.getMessage(), containsString("no warmup"));
         }
 
-        verify(lambdaService, times(DEFAULT_INVOCATION_COUNT)).invokeAsync(any(InvokeRequest.class));
+        verify(lambdaService, times(DEFAULT_INVOCATION_COUNT)).invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class));
+    }
+
+    @Test
+    public void shouldCancelInvocationsWhichAreNotCompletedInTime()
+            throws IOException, ExecutionException, InterruptedException {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(ITERATION_COUNT_PROP_NAME, 1);
+        warmupPropertyMap.put(INVOCATION_TIMEOUT_MILLIS_PROP_NAME, 100L);
+        StandardWarmupStrategy standardWarmupStrategy =
+                new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
+
+        when(context.getRemainingTimeInMillis()).thenReturn(60000);
+        Future<InvokeResult> resultFuture = mock(Future.class);
+        // Completion callback is never called
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).thenReturn(resultFuture);
+
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo());
+        long start = System.currentTimeMillis();
+        try {
+            standardWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
+            fail("Should warmup fail with timeout");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("timed out"));
+        }
+        assertThat(System.currentTimeMillis() - start < 10000, is(true));
+
+        verify(lambdaService, times(DEFAULT_INVOCATION_COUNT)).invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class));
+        verify(resultFuture, times(DEFAULT_INVOCATION_COUNT)).cancel(true);
+    }
+
+    @Test
+    public void shouldAbortWarmupWhenInvocationsAreThrottled()
+            throws IOException, ExecutionException, InterruptedException {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(ITERATION_COUNT_PROP_NAME, 1);
+        warmupPropertyMap.put(ENABLE_ADAPTIVE_CONCURRENCY_PROP_NAME, true);
+        StandardWarmupStrategy standardWarmupStrategy =
+                new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
+
+        when(context.getRemainingTimeInMillis()).thenReturn(2000);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        asyncHandler.onError(new TooManyRequestsException("Rate exceeded"));
+                        return mock(Future.class);
+                    }
+                });
+
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo());
+        try {
+            standardWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
+            fail("Should warmup fail with throttling");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("Rate exceeded"));
+        }
+
+        // Rest of the invocations are aborted after the first one is throttled
+        verify(lambdaService, times(1)).invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class));
+    }
+
+    @Test
+    public void shouldShareEncodedPayloadBetweenInvocations()
+            throws IOException, ExecutionException, InterruptedException {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(ITERATION_COUNT_PROP_NAME, 1);
+        StandardWarmupStrategy standardWarmupStrategy =
+                new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
+
+        final List<ByteBuffer> payloads = new ArrayList<ByteBuffer>();
+        when(context.getRemainingTimeInMillis()).thenReturn(2000);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        InvokeRequest invokeRequest = invocation.getArgument(0);
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        payloads.add(invokeRequest.getPayload());
+                        // Consume the payload as it is sent
+                        invokeRequest.getPayload().position(invokeRequest.getPayload().limit());
+                        asyncHandler.onSuccess(invokeRequest, new InvokeResult());
+                        return mock(Future.class);
+                    }
+                });
+
+        String invocationData = "{\"greeting\": \"g\u00FCnayd\u0131n\"}";
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo().setInvocationData(invocationData));
+        standardWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
+
+        assertThat(payloads.size(), is(DEFAULT_INVOCATION_COUNT));
+        for (ByteBuffer payload : payloads) {
+            assertThat(payload.isReadOnly(), is(true));
+            payload.rewind();
+            assertThat(StandardCharsets.UTF_8.decode(payload).toString(), is(invocationData));
+        }
+    }
+
+    @Test
+    public void shouldExpandInvocationDataTemplatePerInvocation()
+            throws IOException, ExecutionException, InterruptedException {
+        Map<String, Object> warmupPropertyMap = new HashMap<String, Object>();
+        warmupPropertyMap.put(ITERATION_COUNT_PROP_NAME, 1);
+        StandardWarmupStrategy standardWarmupStrategy =
+                new StandardWarmupStrategy(new MapWarmupPropertyProvider(warmupPropertyMap));
+
+        final List<String> payloads = new ArrayList<String>();
+        when(context.getRemainingTimeInMillis()).thenReturn(2000);
+        when(context.getAwsRequestId()).thenReturn("request-1");
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        InvokeRequest invokeRequest = invocation.getArgument(0);
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        payloads.add(StandardCharsets.UTF_8.decode(invokeRequest.getPayload()).toString());
+                        asyncHandler.onSuccess(invokeRequest, new InvokeResult());
+                        return mock(Future.class);
+                    }
+                });
+
+        String invocationData =
+                "{\"run\": \"${runId}\", \"no\": ${invocationNo}, \"of\": ${targetCount}, \"wait\": ${wait}}";
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        functionsToWarmup.put("testFunction", new WarmupFunctionInfo().setInvocationData(invocationData));
+        standardWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
+
+        assertThat(payloads.size(), is(DEFAULT_INVOCATION_COUNT));
+        for (int i = 0; i < payloads.size(); i++) {
+            assertThat(payloads.get(i),
+                       is(String.format(
+                               "{\"run\": \"request-1\", \"no\": %d, \"of\": %d, \"wait\": %d}",
+                               i + 1, DEFAULT_INVOCATION_COUNT, 100 * (DEFAULT_INVOCATION_COUNT / 10))));
+        }
     }
 
 }
@@ -1,19 +1,27 @@
 package com.opsgenie.sirocco.warmup.strategy;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.model.InvokeRequest;
 import com.amazonaws.services.lambda.model.InvokeResult;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.opsgenie.sirocco.warmup.LambdaService;
+import com.opsgenie.sirocco.warmup.WarmupExecutorRegistry;
+import com.opsgenie.sirocco.warmup.WarmupExecutors;
 import com.opsgenie.sirocco.warmup.WarmupFunctionInfo;
+import com.opsgenie.sirocco.warmup.impl.NoOpWarmupMetrics;
 import com.opsgenie.sirocco.warmup.strategy.impl.StrategyAwareWarmupStrategy;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
@@ -46,9 +54,16 @@ public class StrategyAwareWarmupStrategyTest {
         StrategyAwareWarmupStrategy strategyAwareWarmupStrategy = new StrategyAwareWarmupStrategy(warmupStrategy1);
 
         when(context.getRemainingTimeInMillis()).thenReturn(2000);
-        Future<InvokeResult> resultFuture = mock(Future.class);
-        when(resultFuture.get()).thenReturn(new InvokeResult());
-        when(lambdaService.invokeAsync(any(InvokeRequest.class))).thenReturn(resultFuture);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        InvokeRequest invokeRequest = invocation.getArgument(0);
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        asyncHandler.onSuccess(invokeRequest, new InvokeResult());
+                        return mock(Future.class);
+                    }
+                });
 
         Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
         functionsToWarmup.put("testFunction1", new WarmupFunctionInfo());
@@ -73,9 +88,15 @@ public class StrategyAwareWarmupStrategyTest {
         StrategyAwareWarmupStrategy strategyAwareWarmupStrategy = new StrategyAwareWarmupStrategy(warmupStrategy1);
 
         when(context.getRemainingTimeInMillis()).thenReturn(2000);
-        Future<InvokeResult> resultFuture = mock(Future.class);
-        when(resultFuture.get()).thenThrow(new RuntimeException("no warmup"));
-        when(lambdaService.invokeAsync(any(InvokeRequest.class))).thenReturn(resultFuture);
+        when(lambdaService.invokeAsync(any(InvokeRequest.class), any(AsyncHandler.class))).
+                thenAnswer(new Answer<Future<InvokeResult>>() {
+                    @Override
+                    public Future<InvokeResult> answer(InvocationOnMock invocation) {
+                        AsyncHandler<InvokeRequest, InvokeResult> asyncHandler = invocation.getArgument(1);
+                        asyncHandler.onError(new RuntimeException("no warmup"));
+                        return mock(Future.class);
+                    }
+                });
 
         Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
         functionsToWarmup.put("testFunction1", new WarmupFunctionInfo());
@@ -101,4 +122,48 @@ public class StrategyAwareWarmupStrategyTest {
         }
     }
 
+    @Test
+    public void shouldRunDelegatedWarmupStrategiesConcurrentlyRegardlessOfRegistryThreadCount() throws IOException {
+        final int strategyCount = 3;
+        final CountDownLatch startLatch = new CountDownLatch(strategyCount);
+        Map<String, WarmupFunctionInfo> functionsToWarmup = new HashMap<String, WarmupFunctionInfo>();
+        for (int i = 0; i < strategyCount; i++) {
+            WarmupStrategy warmupStrategy = new WarmupStrategy() {
+                @Override
+                public String getName() {
+                    return "blocking";
+                }
+
+                @Override
+                public void warmup(Context context,
+                                   LambdaService lambdaService,
+                                   Map<String, WarmupFunctionInfo> functionsToWarmup) throws IOException {
+                    // Each strategy blocks until all of them have started like they do for the whole warmup
+                    startLatch.countDown();
+                    try {
+                        if (!startLatch.await(10, TimeUnit.SECONDS)) {
+                            throw new IOException("Strategies have not been run concurrently");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+            };
+            functionsToWarmup.put("testFunction" + i, new WarmupFunctionInfo().setWarmupStrategy(warmupStrategy));
+        }
+        WarmupExecutorRegistry registry =
+                new WarmupExecutorRegistry(WarmupExecutors.PLATFORM_EXECUTION_MODE, 1, NoOpWarmupMetrics.INSTANCE);
+        try {
+            StrategyAwareWarmupStrategy strategyAwareWarmupStrategy =
+                    new StrategyAwareWarmupStrategy(mock(WarmupStrategy.class), registry);
+
+            strategyAwareWarmupStrategy.warmup(context, lambdaService, functionsToWarmup);
+
+            assertThat(startLatch.getCount(), is(0L));
+        } finally {
+            registry.close();
+        }
+    }
+
 }
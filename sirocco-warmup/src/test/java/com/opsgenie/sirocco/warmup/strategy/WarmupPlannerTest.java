@@ -0,0 +1,98 @@
+package com.opsgenie.sirocco.warmup.strategy;
+
+import com.opsgenie.sirocco.warmup.strategy.impl.WarmupPlanner;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author serkan
+ */
+public class WarmupPlannerTest {
+
+    private static final List<String> FUNCTION_NAMES = Arrays.asList("function-1", "function-2", "function-3");
+
+    @Test
+    public void shouldSpreadDispatchesOverDispatchWindow() {
+        WarmupPlanner warmupPlanner = new WarmupPlanner(1000, 2000);
+
+        List<WarmupPlanner.Dispatch> dispatches = warmupPlanner.plan(9000, FUNCTION_NAMES, 0, 2, true);
+
+        assertThat(warmupPlanner.getDispatchWindowMillis(9000), is(6000L));
+        assertThat(dispatches.size(), is(6));
+        for (int i = 0; i < dispatches.size(); i++) {
+            WarmupPlanner.Dispatch dispatch = dispatches.get(i);
+            assertThat(dispatch.getFunctionName(), is(FUNCTION_NAMES.get(i % FUNCTION_NAMES.size())));
+            assertThat(dispatch.getRound(), is(i / FUNCTION_NAMES.size()));
+            assertThat(dispatch.getReleaseMillis(), is(i * 1000L));
+            assertThat(dispatch.getDeadlineMillis(), is((i + 1) * 1000L));
+        }
+    }
+
+    @Test
+    public void shouldOrderDispatchesByDeadline() {
+        WarmupPlanner warmupPlanner = new WarmupPlanner(1000, 333);
+
+        List<WarmupPlanner.Dispatch> dispatches = warmupPlanner.plan(10000, FUNCTION_NAMES, 0, 7, true);
+
+        long previousDeadline = 0;
+        for (WarmupPlanner.Dispatch dispatch : dispatches) {
+            assertThat(dispatch.getDeadlineMillis() > previousDeadline, is(true));
+            assertThat(dispatch.getReleaseMillis() < dispatch.getDeadlineMillis(), is(true));
+            previousDeadline = dispatch.getDeadlineMillis();
+        }
+        // Whole dispatch window is used
+        assertThat(dispatches.get(0).getReleaseMillis(), is(0L));
+        assertThat(previousDeadline, is(warmupPlanner.getDispatchWindowMillis(10000)));
+    }
+
+    @Test
+    public void shouldReleaseAllDispatchesAtStartIfNotSpread() {
+        WarmupPlanner warmupPlanner = new WarmupPlanner(1000, 2000);
+
+        List<WarmupPlanner.Dispatch> dispatches = warmupPlanner.plan(9000, FUNCTION_NAMES, 0, 2, false);
+
+        assertThat(dispatches.size(), is(6));
+        for (int i = 0; i < dispatches.size(); i++) {
+            assertThat(dispatches.get(i).getReleaseMillis(), is(0L));
+            assertThat(dispatches.get(i).getDeadlineMillis(), is((i + 1) * 1000L));
+        }
+    }
+
+    @Test
+    public void shouldPlanOnlyGivenRounds() {
+        WarmupPlanner warmupPlanner = new WarmupPlanner(1000, 2000);
+
+        List<WarmupPlanner.Dispatch> dispatches = warmupPlanner.plan(9000, FUNCTION_NAMES, 1, 2, true);
+
+        assertThat(dispatches.size(), is(3));
+        for (int i = 0; i < dispatches.size(); i++) {
+            assertThat(dispatches.get(i).getRound(), is(1));
+            assertThat(dispatches.get(i).getReleaseMillis(), is(i * 2000L));
+        }
+    }
+
+    @Test
+    public void shouldFireAllDispatchesImmediatelyIfBudgetIsExhausted() {
+        WarmupPlanner warmupPlanner = new WarmupPlanner(1000, 2000);
+
+        List<WarmupPlanner.Dispatch> dispatches = warmupPlanner.plan(2500, FUNCTION_NAMES, 0, 2, true);
+
+        assertThat(warmupPlanner.getDispatchWindowMillis(2500), is(0L));
+        assertThat(dispatches.size(), is(6));
+        for (WarmupPlanner.Dispatch dispatch : dispatches) {
+            assertThat(dispatch.getReleaseMillis(), is(0L));
+            assertThat(dispatch.getDeadlineMillis(), is(0L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNegativeResultWait() {
+        new WarmupPlanner(1000, -1);
+    }
+
+}